@@ -0,0 +1,168 @@
+package com.waes.assessment.cache;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.waes.assessment.cache.WTinyLfuPolicy.Eviction;
+import com.waes.assessment.common.CanonicalJson;
+import com.waes.assessment.common.Constant.Metric;
+import com.waes.assessment.common.ContentHash;
+import com.waes.assessment.common.DiffOutcome;
+import com.waes.assessment.metric.MetricService;
+
+/**
+ * This class caches the outcome of comparing a left and a right content, keyed by
+ * the {@link ContentHash} of both of them instead of by id, so any id holding a
+ * pair of contents that has already been compared gets its outcome without
+ * comparing them again
+ *
+ * The outcomes kept are bounded by a {@link WTinyLfuPolicy} weighing each of them by
+ * an estimate of its bytes, which grows with the paths and values of the differences it
+ * carries, so a few large diffs cannot hold more memory than the budget, while the pairs
+ * compared most often are the ones kept
+ *
+ * A difference may hold a whole subtree of a payload, which stays reachable through the
+ * outcome after the payload itself has been evicted or replaced, so such a value weighs
+ * as much as its canonical form
+ *
+ * @author Daniel Chiuratto Seabra
+ *
+ */
+@Component
+public class DiffResultCache {
+
+	private static final long OUTCOME_BYTES = 64;
+	private static final long DIFFERENCE_BYTES = 256;
+	private static final long VALUE_BYTES = 16;
+
+	private final Map<PairKey, DiffOutcome> outcomes = new ConcurrentHashMap<>();
+	private final LongAdder hits = new LongAdder();
+	private final LongAdder misses = new LongAdder();
+	private final WTinyLfuPolicy<PairKey> policy;
+	private final MetricService metricService;
+
+	public DiffResultCache(final @Value("${waes.result-cache.maximum-bytes:67108864}") long maximumBytes,
+						   final MetricService metricService) {
+		this.policy = new WTinyLfuPolicy<>(maximumBytes, 0);
+		this.metricService = metricService;
+		this.metricService.gauge(Metric.RESULT_CACHE_SIZE, this.outcomes::size);
+		this.metricService.gauge(Metric.RESULT_CACHE_WEIGHT_BYTES, this.policy::getWeightedSize);
+		this.metricService.gauge(Metric.RESULT_CACHE_HIT_COUNT, this.hits::sum);
+		this.metricService.gauge(Metric.RESULT_CACHE_MISS_COUNT, this.misses::sum);
+	}
+
+	/**
+	 * This method returns the outcome of comparing the informed contents, if they have
+	 * already been compared
+	 *
+	 * @param left containing the {@link ContentHash} of the left content
+	 * @param right containing the {@link ContentHash} of the right content
+	 * @return the cached {@link DiffOutcome} or {@code null} when the pair has not been compared yet
+	 */
+	public DiffOutcome get(final ContentHash left, final ContentHash right) {
+		final PairKey key = new PairKey(left, right);
+		final DiffOutcome outcome = this.outcomes.get(key);
+		if (null == outcome) {
+			this.misses.increment();
+			return null;
+		}
+
+		this.hits.increment();
+		this.policy.onRead(key);
+		return outcome;
+	}
+
+	/**
+	 * This method caches the outcome of comparing the informed contents, evicting the
+	 * outcomes less likely to be used again when the cache is full
+	 *
+	 * @param left containing the {@link ContentHash} of the left content
+	 * @param right containing the {@link ContentHash} of the right content
+	 * @param outcome containing the {@link DiffOutcome} of the comparison
+	 */
+	public void put(final ContentHash left, final ContentHash right, final DiffOutcome outcome) {
+		final PairKey key = new PairKey(left, right);
+
+		// The outcome of a pair never changes, so a pair is only written once until it is
+		// evicted, being the key removed by its eviction always the outcome the policy tracked
+		if (null != this.outcomes.putIfAbsent(key, outcome))
+			return;
+
+		final List<Eviction<PairKey>> evicted = this.policy.onWrite(key, 0, weightOf(outcome), 0);
+		if (evicted.isEmpty())
+			return;
+
+		long bytes = 0;
+		for (final Eviction<PairKey> eviction : evicted) {
+			this.outcomes.remove(eviction.getKey());
+			bytes += eviction.getWeight();
+		}
+		this.metricService.add(Metric.RESULT_CACHE_EVICTION_COUNT, evicted.size());
+		this.metricService.add(Metric.RESULT_CACHE_EVICTION_BYTES, bytes);
+	}
+
+	/*
+	 * The bytes of an outcome are estimated from the differences it carries, each of them
+	 * holding a path and the values of both sides
+	 */
+	private static long weightOf(final DiffOutcome outcome) {
+		final Map<String, Map<String, Object>> difference = outcome.getDifference();
+		long weight = OUTCOME_BYTES;
+		if (null == difference)
+			return weight;
+
+		for (final Map.Entry<String, Map<String, Object>> entry : difference.entrySet()) {
+			weight += DIFFERENCE_BYTES + entry.getKey().length();
+			for (final Object value : entry.getValue().values())
+				weight += sizeOf(value);
+		}
+		return weight;
+	}
+
+	private static long sizeOf(final Object value) {
+		if (value instanceof JsonNode) {
+			final JsonNode node = (JsonNode) value;
+			return node.isContainerNode() ? CanonicalJson.of(node).length : node.asText().length();
+		}
+		if (value instanceof CharSequence)
+			return ((CharSequence) value).length();
+		return VALUE_BYTES;
+	}
+
+	/*
+	 * This class is the key of an outcome, where the order of the hashes matters since
+	 * the outcome describes the differences from the left to the right
+	 */
+	private static final class PairKey {
+
+		private final ContentHash left;
+		private final ContentHash right;
+
+		private PairKey(final ContentHash left, final ContentHash right) {
+			this.left = left;
+			this.right = right;
+		}
+
+		@Override
+		public boolean equals(final Object other) {
+			if (this == other)
+				return true;
+			if (!(other instanceof PairKey))
+				return false;
+			final PairKey key = (PairKey) other;
+			return this.left.equals(key.left) && this.right.equals(key.right);
+		}
+
+		@Override
+		public int hashCode() {
+			return 31 * this.left.hashCode() + this.right.hashCode();
+		}
+	}
+
+}
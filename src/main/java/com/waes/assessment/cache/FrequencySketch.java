@@ -0,0 +1,125 @@
+package com.waes.assessment.cache;
+
+/**
+ * This class is a Count-Min Sketch that estimates how many times each element
+ * has been seen recently, using four 4-bit counters per element spread through
+ * a table of {@code long} values, so the memory used does not depend on the
+ * amount of distinct elements seen
+ *
+ * The counters are halved once the amount of increments reaches ten times the
+ * table capacity, which makes the frequencies age and allows elements that were
+ * popular in the past to be replaced by the ones that are popular now
+ *
+ * This class is not thread safe, being guarded by whoever uses it
+ *
+ * @author Daniel Chiuratto Seabra
+ *
+ */
+public final class FrequencySketch {
+
+	private static final long[] SEEDS = { 0xc3a5c85c97cb3127L, 0xb492b66fbe98f273L, 0x9ae16a3b2f90404fL, 0xcbf29ce484222325L };
+	private static final long RESET_MASK = 0x7777777777777777L;
+	private static final long ONE_MASK = 0x1111111111111111L;
+	private static final int MAXIMUM_FREQUENCY = 15;
+
+	private long[] table = new long[1];
+	private int tableMask;
+	private int sampleSize = 10;
+	private int size;
+
+	/**
+	 * This method grows the sketch to accurately estimate the frequency of the
+	 * informed amount of elements, where the prior frequencies are discarded
+	 * whenever the table needs to grow
+	 *
+	 * @param maximumSize containing the amount of elements expected to be tracked
+	 */
+	public void ensureCapacity(final long maximumSize) {
+		final int maximum = (int) Math.min(Math.max(1, maximumSize), Integer.MAX_VALUE >>> 1);
+		if (this.table.length >= maximum)
+			return;
+
+		int capacity = 1;
+		while (capacity < maximum)
+			capacity <<= 1;
+
+		this.table = new long[capacity];
+		this.tableMask = capacity - 1;
+		this.sampleSize = 10 * capacity;
+		this.size = 0;
+	}
+
+	/**
+	 * Returns the estimated amount of times the element has been seen recently,
+	 * being at most {@code 15}
+	 *
+	 * @param element containing the element whose frequency is needed
+	 * @return {@code int} containing the estimated frequency
+	 */
+	public int frequency(final Object element) {
+		final int hash = spread(element.hashCode());
+		final int start = (hash & 3) << 2;
+		int frequency = MAXIMUM_FREQUENCY;
+		for (int i = 0; i < 4; i++) {
+			final int index = this.indexOf(hash, i);
+			final int count = (int) ((this.table[index] >>> ((start + i) << 2)) & 0xfL);
+			frequency = Math.min(frequency, count);
+		}
+		return frequency;
+	}
+
+	/**
+	 * This method increments the frequency of the element, aging all the counters
+	 * when the sample size is reached
+	 *
+	 * @param element containing the element that has been seen
+	 */
+	public void increment(final Object element) {
+		final int hash = spread(element.hashCode());
+		final int start = (hash & 3) << 2;
+		boolean added = false;
+		for (int i = 0; i < 4; i++)
+			added |= this.incrementAt(this.indexOf(hash, i), start + i);
+
+		if (added && ++this.size == this.sampleSize)
+			this.reset();
+	}
+
+	/*
+	 * Increments the counter at the informed position of the table entry, unless it is
+	 * already saturated
+	 */
+	private boolean incrementAt(final int index, final int counter) {
+		final int offset = counter << 2;
+		final long mask = 0xfL << offset;
+		if ((this.table[index] & mask) != mask) {
+			this.table[index] += 1L << offset;
+			return true;
+		}
+		return false;
+	}
+
+	/*
+	 * Halves every counter, discounting from the size the truncation caused by the odd ones
+	 */
+	private void reset() {
+		int count = 0;
+		for (int i = 0; i < this.table.length; i++) {
+			count += Long.bitCount(this.table[i] & ONE_MASK);
+			this.table[i] = (this.table[i] >>> 1) & RESET_MASK;
+		}
+		this.size = (this.size >>> 1) - (count >>> 2);
+	}
+
+	private int indexOf(final int item, final int i) {
+		long hash = (item + SEEDS[i]) * SEEDS[i];
+		hash += hash >>> 32;
+		return ((int) hash) & this.tableMask;
+	}
+
+	private static int spread(final int value) {
+		int x = ((value >>> 16) ^ value) * 0x45d9f3b;
+		x = ((x >>> 16) ^ x) * 0x45d9f3b;
+		return (x >>> 16) ^ x;
+	}
+}
@@ -0,0 +1,531 @@
+package com.waes.assessment.cache;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * This class decides which keys of a weighted cache should be evicted, following
+ * the Window TinyLFU policy: new keys enter a small LRU window, and when they leave
+ * it they are only admitted into the main space if they have been seen more often
+ * than the key that would be evicted to make room for them, so a burst of keys
+ * used only once cannot flush the keys that are used all the time
+ *
+ * The main space is a segmented LRU, where the keys read while on probation are
+ * promoted to the protected segment, and the keys not written for longer than the
+ * configured time to live are expired regardless of their frequency
+ *
+ * The policy only tracks keys and their weights, where the owner of the values is
+ * responsible for removing the keys returned as evicted. Reads and writes are only
+ * recorded into buffers, which are drained by whichever thread finds the lock free,
+ * so neither readers nor writers wait on each other unless the writes pile up
+ *
+ * Since an eviction may only be collected after the key has been written again, each
+ * write carries a stamp that grows with every write of its key, and every {@link Eviction}
+ * carries the stamp of the write it evicted, so the owner only removes the value that
+ * write has set
+ *
+ * @param <K> the type of the keys tracked by the policy
+ *
+ * @author Daniel Chiuratto Seabra
+ *
+ */
+public final class WTinyLfuPolicy<K> {
+
+	private static final double WINDOW_PERCENTAGE = 0.01d;
+	private static final double PROTECTED_PERCENTAGE = 0.80d;
+	private static final int READ_BUFFER_MAXIMUM = 256;
+	private static final int READ_BUFFER_DRAIN_THRESHOLD = 64;
+	private static final int WRITE_BUFFER_MAXIMUM = 128;
+
+	private enum Segment {
+		WINDOW,
+		PROBATION,
+		PROTECTED;
+	}
+
+	private final ReentrantLock lock = new ReentrantLock();
+	private final FrequencySketch sketch = new FrequencySketch();
+
+	private final Queue<K> readBuffer = new ConcurrentLinkedQueue<>();
+	private final AtomicInteger readBufferSize = new AtomicInteger();
+	private final Queue<Write<K>> writeBuffer = new ConcurrentLinkedQueue<>();
+	private final AtomicInteger writeBufferSize = new AtomicInteger();
+	private final Queue<Eviction<K>> evictions = new ConcurrentLinkedQueue<>();
+
+	private final Map<K, Node<K>> nodes = new HashMap<>();
+	private final LinkedHashMap<K, Node<K>> window = new LinkedHashMap<>();
+	private final LinkedHashMap<K, Node<K>> probation = new LinkedHashMap<>();
+	private final LinkedHashMap<K, Node<K>> protectedQueue = new LinkedHashMap<>();
+	private final LinkedHashMap<K, Node<K>> writeOrder = new LinkedHashMap<>();
+
+	private final long maximumWeight;
+	private final long windowMaximum;
+	private final long protectedMaximum;
+	private final long expireAfterWriteMillis;
+
+	private long windowWeight;
+	private long protectedWeight;
+	private long totalWeight;
+
+	private volatile long weightedSize;
+	private volatile long size;
+
+	/**
+	 * @param maximumWeight containing the total weight the keys can sum before being evicted
+	 * @param expireAfterWriteMillis containing for how long a key lives after its last write,
+	 * where zero or less means that the keys never expire
+	 */
+	public WTinyLfuPolicy(final long maximumWeight, final long expireAfterWriteMillis) {
+		this.maximumWeight = maximumWeight;
+		this.windowMaximum = (long) (maximumWeight * WINDOW_PERCENTAGE);
+		this.protectedMaximum = (long) ((maximumWeight - this.windowMaximum) * PROTECTED_PERCENTAGE);
+		this.expireAfterWriteMillis = expireAfterWriteMillis;
+	}
+
+	/**
+	 * This method records that the key has been written with the informed weight, returning
+	 * the keys that have to be evicted to keep the total weight within the maximum
+	 *
+	 * The written key is never evicted by its own write, even when it is heavier than the
+	 * window or the whole maximum, being only evicted by the writes that follow it, so the
+	 * total weight can be over the maximum by the weight of the last written key, and a
+	 * write carrying an older stamp than the one already tracked for the key is ignored
+	 *
+	 * The write is only buffered when another thread is draining the buffers, where the keys
+	 * that thread evicts are returned to whichever writer asks for them first
+	 *
+	 * @param key containing the key that has been written
+	 * @param stamp containing the stamp of the write, which grows with every write of the key
+	 * @param weight containing the current weight of the key
+	 * @param now containing the current time in milliseconds
+	 * @return {@link List} containing the {@link Eviction} of each evicted key
+	 */
+	public List<Eviction<K>> onWrite(final K key, final long stamp, final long weight, final long now) {
+		this.writeBuffer.offer(new Write<>(key, stamp, weight, now));
+		this.drain(this.writeBufferSize.incrementAndGet() > WRITE_BUFFER_MAXIMUM, now, null);
+		return this.pollEvictions();
+	}
+
+	/**
+	 * This method records that the key has been read, which is dropped when the read buffer
+	 * is full, since losing a few reads barely changes the decisions
+	 *
+	 * @param key containing the key that has been read
+	 */
+	public void onRead(final K key) {
+		final int pending = this.readBufferSize.incrementAndGet();
+		if (pending > READ_BUFFER_MAXIMUM) {
+			this.readBufferSize.decrementAndGet();
+			return;
+		}
+
+		this.readBuffer.offer(key);
+		if (pending >= READ_BUFFER_DRAIN_THRESHOLD)
+			this.drain(false, 0, null);
+	}
+
+	/**
+	 * This method stops tracking the key, which must be called when the owner removes it
+	 * by any reason other than the eviction decided by this policy, where the key is still
+	 * tracked when it has been written again with a newer stamp
+	 *
+	 * @param key containing the key that has been removed
+	 * @param stamp containing the stamp of the write whose value has been removed
+	 */
+	public void onRemove(final K key, final long stamp) {
+		this.writeBuffer.offer(new Write<>(key, stamp, -1, 0));
+		this.drain(this.writeBufferSize.incrementAndGet() > WRITE_BUFFER_MAXIMUM, 0, null);
+	}
+
+	/**
+	 * This method removes the keys whose last write is older than the time to live, which
+	 * is skipped when another thread is draining the buffers, being the keys expired on a
+	 * later call
+	 *
+	 * @param now containing the current time in milliseconds
+	 * @return {@link List} containing the {@link Eviction} of each expired key
+	 */
+	public List<Eviction<K>> expire(final long now) {
+		final List<Eviction<K>> expired = new ArrayList<>();
+		if (this.expireAfterWriteMillis > 0)
+			this.drain(false, now, expired);
+		return expired;
+	}
+
+	/**
+	 * Checks if something written on the informed time is already expired
+	 *
+	 * @param writeTime containing the time of the write in milliseconds
+	 * @param now containing the current time in milliseconds
+	 * @return {@code true} when the time to live has been exceeded
+	 */
+	public boolean isExpired(final long writeTime, final long now) {
+		return this.expireAfterWriteMillis > 0 && now - writeTime >= this.expireAfterWriteMillis;
+	}
+
+	/**
+	 * Returns the sum of the weights of all the tracked keys, as of the last drain
+	 *
+	 * @return {@code long} containing the total weight
+	 */
+	public long getWeightedSize() {
+		return this.weightedSize;
+	}
+
+	/**
+	 * Returns the amount of tracked keys, as of the last drain
+	 *
+	 * @return {@code long} containing the amount of keys
+	 */
+	public long getSize() {
+		return this.size;
+	}
+
+	/*
+	 * This method drains the buffers while holding the lock, waiting for it only when the
+	 * writes piled up beyond the buffer, and expiring the keys when a map is informed
+	 *
+	 * The buffer is checked again after the lock is released, since a writer that found
+	 * the lock taken left its write for the thread holding it
+	 */
+	private void drain(final boolean force, final long now, final List<Eviction<K>> expired) {
+		boolean wait = force;
+		do {
+			if (wait)
+				this.lock.lock();
+			else if (!this.lock.tryLock())
+				return;
+			try {
+				this.drainReads();
+				this.drainWrites();
+				if (null != expired)
+					this.expireWritten(now, expired);
+				this.weightedSize = this.totalWeight;
+				this.size = this.nodes.size();
+			} finally {
+				this.lock.unlock();
+			}
+			wait = false;
+		} while (!this.writeBuffer.isEmpty());
+	}
+
+	private void drainReads() {
+		K key;
+		while (null != (key = this.readBuffer.poll())) {
+			this.readBufferSize.decrementAndGet();
+			this.sketch.increment(key);
+
+			final Node<K> node = this.nodes.get(key);
+			if (null != node)
+				this.touch(node);
+		}
+	}
+
+	private void drainWrites() {
+		Write<K> write;
+		while (null != (write = this.writeBuffer.poll())) {
+			this.writeBufferSize.decrementAndGet();
+			if (write.weight < 0)
+				this.removed(write);
+			else this.written(write);
+		}
+	}
+
+	/*
+	 * The evictions are published as soon as they are decided, where a key evicted and
+	 * written again by the same drain is evicted with the stamp it had back then
+	 */
+	private void written(final Write<K> write) {
+		this.sketch.increment(write.key);
+
+		Node<K> node = this.nodes.get(write.key);
+		if (null == node) {
+			node = new Node<>(write.key);
+			this.nodes.put(write.key, node);
+			this.sketch.ensureCapacity(this.nodes.size());
+			this.append(node, Segment.WINDOW);
+		} else if (write.stamp < node.stamp)
+			return;
+		else this.touch(node);
+
+		this.setWeight(node, write.weight);
+		node.stamp = write.stamp;
+		node.writeTime = write.time;
+		this.writeOrder.remove(write.key);
+		this.writeOrder.put(write.key, node);
+
+		this.evictFromWindow(node);
+		this.evictFromMain(node);
+	}
+
+	private void removed(final Write<K> write) {
+		final Node<K> node = this.nodes.get(write.key);
+		if (null != node && node.stamp <= write.stamp)
+			this.remove(node);
+	}
+
+	private void expireWritten(final long now, final List<Eviction<K>> expired) {
+		while (!this.writeOrder.isEmpty()) {
+			final Node<K> node = this.writeOrder.values().iterator().next();
+			if (!this.isExpired(node.writeTime, now))
+				break;
+			this.evict(node, expired);
+		}
+	}
+
+	/*
+	 * Collects the keys evicted by any drain so far
+	 */
+	private List<Eviction<K>> pollEvictions() {
+		final List<Eviction<K>> evicted = new ArrayList<>();
+		Eviction<K> eviction;
+		while (null != (eviction = this.evictions.poll()))
+			evicted.add(eviction);
+		return evicted;
+	}
+
+	/*
+	 * Moves the least recently used keys out of the window while it is over its share,
+	 * admitting them into probation only if they are more frequent than every key they
+	 * would displace there, which are only evicted once the candidate is admitted
+	 *
+	 * The written key is the most recent one of the window, so it is only the candidate
+	 * when nothing else is left there, where it stays until the next write
+	 */
+	private void evictFromWindow(final Node<K> written) {
+		final long mainMaximum = this.maximumWeight - this.windowMaximum;
+		while (this.windowWeight > this.windowMaximum && !this.window.isEmpty()) {
+			final Node<K> candidate = this.window.values().iterator().next();
+			if (candidate == written)
+				return;
+			this.detach(candidate);
+
+			// The candidate weight is still part of the total, so the main space is over its
+			// share by what the total without the window is above it
+			final List<Node<K>> victims = this.victimsOf(candidate, written, this.totalWeight - this.windowWeight - mainMaximum);
+			if (null != victims) {
+				for (final Node<K> victim : victims)
+					this.evict(victim, this.evictions);
+				this.totalWeight -= candidate.weight;
+				this.append(candidate, Segment.PROBATION);
+			} else {
+				this.discard(candidate);
+				this.evictions.offer(new Eviction<>(candidate));
+			}
+		}
+	}
+
+	/*
+	 * Returns the keys of the main space the candidate would displace to free the excess,
+	 * from the coldest to the hottest queue, or null when any of them is at least as
+	 * frequent as the candidate, where the written key is never displaced
+	 */
+	private List<Node<K>> victimsOf(final Node<K> candidate, final Node<K> written, final long excess) {
+		final int frequency = this.sketch.frequency(candidate.key);
+		final List<Node<K>> victims = new ArrayList<>();
+		long freed = 0;
+		for (final Map<K, Node<K>> queue : Arrays.asList(this.probation, this.protectedQueue)) {
+			for (final Node<K> victim : queue.values()) {
+				if (freed >= excess)
+					return victims;
+				if (victim == written)
+					continue;
+				if (frequency <= this.sketch.frequency(victim.key))
+					return null;
+				victims.add(victim);
+				freed += victim.weight;
+			}
+		}
+		return victims;
+	}
+
+	/*
+	 * Evicts from the coldest to the hottest queue while the total weight is over the maximum,
+	 * which only happens when a single key is heavier than the whole main space
+	 *
+	 * The written key still on the window is left out of the total, since it has not been
+	 * admitted yet and cannot displace the keys of the main space before going through the
+	 * admission on the next write
+	 */
+	private void evictFromMain(final Node<K> written) {
+		final long pending = Segment.WINDOW == written.segment ? written.weight : 0;
+		while (this.totalWeight - pending > this.maximumWeight) {
+			final Node<K> victim = this.victimOtherThan(written);
+			if (null == victim)
+				return;
+			this.evict(victim, this.evictions);
+		}
+	}
+
+	private Node<K> victimOtherThan(final Node<K> written) {
+		for (final Map<K, Node<K>> queue : Arrays.asList(this.probation, this.protectedQueue, this.window)) {
+			for (final Node<K> victim : queue.values()) {
+				if (victim != written)
+					return victim;
+			}
+		}
+		return null;
+	}
+
+	/*
+	 * Moves the key to the most recent position of its queue, promoting it to the protected
+	 * segment when it is on probation, and demoting the protected overflow back to probation
+	 */
+	private void touch(final Node<K> node) {
+		if (Segment.PROBATION == node.segment) {
+			this.detach(node);
+			this.totalWeight -= node.weight;
+			this.append(node, Segment.PROTECTED);
+			while (this.protectedWeight > this.protectedMaximum && this.protectedQueue.size() > 1) {
+				final Node<K> demoted = this.protectedQueue.values().iterator().next();
+				this.detach(demoted);
+				this.totalWeight -= demoted.weight;
+				this.append(demoted, Segment.PROBATION);
+			}
+		} else {
+			final Map<K, Node<K>> queue = this.queueOf(node.segment);
+			queue.remove(node.key);
+			queue.put(node.key, node);
+		}
+	}
+
+	private void setWeight(final Node<K> node, final long weight) {
+		final long delta = weight - node.weight;
+		node.weight = weight;
+		this.totalWeight += delta;
+		if (Segment.WINDOW == node.segment)
+			this.windowWeight += delta;
+		else if (Segment.PROTECTED == node.segment)
+			this.protectedWeight += delta;
+	}
+
+	private void evict(final Node<K> node, final Collection<Eviction<K>> evicted) {
+		this.remove(node);
+		evicted.add(new Eviction<>(node));
+	}
+
+	private void remove(final Node<K> node) {
+		this.detach(node);
+		this.discard(node);
+	}
+
+	/*
+	 * Forgets a node that is already detached from its queue
+	 */
+	private void discard(final Node<K> node) {
+		this.totalWeight -= node.weight;
+		this.writeOrder.remove(node.key);
+		this.nodes.remove(node.key);
+	}
+
+	/*
+	 * Removes the node from its queue discounting its weight from the queue only, where the
+	 * total weight is kept by the caller
+	 */
+	private void detach(final Node<K> node) {
+		this.queueOf(node.segment).remove(node.key);
+		if (Segment.WINDOW == node.segment)
+			this.windowWeight -= node.weight;
+		else if (Segment.PROTECTED == node.segment)
+			this.protectedWeight -= node.weight;
+	}
+
+	private void append(final Node<K> node, final Segment segment) {
+		node.segment = segment;
+		this.queueOf(segment).put(node.key, node);
+		this.totalWeight += node.weight;
+		if (Segment.WINDOW == segment)
+			this.windowWeight += node.weight;
+		else if (Segment.PROTECTED == segment)
+			this.protectedWeight += node.weight;
+	}
+
+	private Map<K, Node<K>> queueOf(final Segment segment) {
+		switch (segment) {
+			case WINDOW:
+				return this.window;
+			case PROBATION:
+				return this.probation;
+			default:
+				return this.protectedQueue;
+		}
+	}
+
+	/**
+	 * This class describes a key removed by the policy, carrying the stamp of the write
+	 * that was evicted and the weight the key had
+	 *
+	 * @param <K> the type of the evicted key
+	 *
+	 * @author Daniel Chiuratto Seabra
+	 *
+	 */
+	public static final class Eviction<K> {
+
+		private final K key;
+		private final long stamp;
+		private final long weight;
+
+		private Eviction(final Node<K> node) {
+			this.key = node.key;
+			this.stamp = node.stamp;
+			this.weight = node.weight;
+		}
+
+		public K getKey() {
+			return this.key;
+		}
+
+		public long getStamp() {
+			return this.stamp;
+		}
+
+		public long getWeight() {
+			return this.weight;
+		}
+	}
+
+	/*
+	 * This class is a write waiting on the buffer, where a negative weight stands for the
+	 * removal of the key
+	 */
+	private static final class Write<K> {
+
+		private final K key;
+		private final long stamp;
+		private final long weight;
+		private final long time;
+
+		private Write(final K key, final long stamp, final long weight, final long time) {
+			this.key = key;
+			this.stamp = stamp;
+			this.weight = weight;
+			this.time = time;
+		}
+	}
+
+	/*
+	 * This class holds what the policy knows about each key
+	 */
+	private static final class Node<K> {
+
+		private final K key;
+		private long stamp;
+		private long weight;
+		private long writeTime;
+		private Segment segment;
+
+		private Node(final K key) {
+			this.key = key;
+		}
+	}
+}
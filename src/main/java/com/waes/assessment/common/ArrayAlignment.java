@@ -0,0 +1,98 @@
+package com.waes.assessment.common;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * This class aligns the elements of two arrays through the greedy algorithm of Myers,
+ * finding the longest sequence of elements both arrays have in common, in the same order,
+ * so an element inserted or removed in the middle of an array does not shift every element
+ * after it into a difference
+ *
+ * The elements are compared through their hashes, and the alignment gives up once the
+ * amount of inserted and removed elements exceeds the informed cost, which keeps both
+ * the time and the memory it takes bounded for arrays that have very little in common
+ *
+ * @author Daniel Chiuratto Seabra
+ *
+ */
+final class ArrayAlignment {
+
+	private ArrayAlignment() {}
+
+	/**
+	 * This method aligns both arrays of hashes
+	 *
+	 * @param left containing the hashes of the elements of the left array
+	 * @param right containing the hashes of the elements of the right array
+	 * @param maxCost containing the maximum amount of inserted and removed elements
+	 * @return {@code int[]} holding the index of the right element aligned with each left element,
+	 * or -1 when it has been removed, being {@code null} when the cost is exceeded
+	 */
+	static int[] align(final long[] left, final long[] right, final int maxCost) {
+		final int n = left.length;
+		final int m = right.length;
+		final int max = Math.min(n + m, maxCost);
+		final int offset = max + 1;
+		final int[] v = new int[2 * max + 3];
+		final List<int[]> trace = new ArrayList<>();
+
+		for (int d = 0; d <= max; d++) {
+			for (int k = -d; k <= d; k += 2) {
+				int x = k == -d || (k != d && v[offset + k - 1] < v[offset + k + 1]) ? v[offset + k + 1] : v[offset + k - 1] + 1;
+				int y = x - k;
+				while (x < n && y < m && left[x] == right[y]) {
+					x++;
+					y++;
+				}
+				v[offset + k] = x;
+
+				if (x >= n && y >= m) {
+					trace.add(snapshot(v, offset, d));
+					return backtrack(trace, n, m);
+				}
+			}
+			trace.add(snapshot(v, offset, d));
+		}
+		return null;
+	}
+
+	/*
+	 * Keeps the furthest x reached on each diagonal after d edits, indexed from the diagonal -d
+	 */
+	private static int[] snapshot(final int[] v, final int offset, final int d) {
+		final int[] copy = new int[2 * d + 1];
+		System.arraycopy(v, offset - d, copy, 0, copy.length);
+		return copy;
+	}
+
+	/*
+	 * Walks the edits back from the end of both arrays, where every diagonal move aligns an element
+	 */
+	private static int[] backtrack(final List<int[]> trace, final int n, final int m) {
+		final int[] alignment = new int[n];
+		for (int i = 0; i < n; i++)
+			alignment[i] = -1;
+
+		int x = n;
+		int y = m;
+		for (int d = trace.size() - 1; d > 0; d--) {
+			final int[] previous = trace.get(d - 1);
+			final int k = x - y;
+			final int previousK = k == -d || (k != d && previous[k - 1 + d - 1] < previous[k + 1 + d - 1]) ? k + 1 : k - 1;
+			final int previousX = previous[previousK + d - 1];
+			final int previousY = previousX - previousK;
+
+			while (x > previousX && y > previousY)
+				alignment[--x] = --y;
+
+			x = previousX;
+			y = previousY;
+		}
+
+		while (x > 0 && y > 0)
+			alignment[--x] = --y;
+
+		return alignment;
+	}
+}
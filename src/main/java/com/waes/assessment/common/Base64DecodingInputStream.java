@@ -0,0 +1,153 @@
+package com.waes.assessment.common;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+
+/**
+ * This {@link InputStream} decodes the Base64 encoded data read from another
+ * {@link InputStream} while it is consumed, reading the encoded data through a
+ * buffer of a fixed size, so the encoded payload is never held entirely in
+ * memory
+ *
+ * Every decoded byte is kept as well, so once the stream has been consumed the
+ * whole decoded payload can be retrieved through {@link #toByteArray()} without
+ * reading or decoding it again
+ *
+ * Whitespaces are ignored, as well as the absence of padding, while a padding that
+ * does not complete the last unit, or any other character out of the Base64 alphabet,
+ * throws an {@link IllegalArgumentException}, as the {@link java.util.Base64.Decoder} does
+ *
+ * @author Daniel Chiuratto Seabra
+ *
+ */
+public final class Base64DecodingInputStream extends InputStream {
+
+	private static final int[] ALPHABET = new int[256];
+	private static final int PADDING = -2;
+	private static final int INVALID = -1;
+
+	static {
+		Arrays.fill(ALPHABET, INVALID);
+		final String characters = "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789+/";
+		for (int i = 0; i < characters.length(); i++)
+			ALPHABET[characters.charAt(i)] = i;
+		ALPHABET['='] = PADDING;
+	}
+
+	private final InputStream source;
+	private final byte[] encoded;
+
+	private byte[] decoded;
+	private int decodedLength;
+	private int position;
+
+	private int bits;
+	private int bitCount;
+	private int unitLength;
+	private boolean padded;
+	private int missingPadding;
+	private boolean finished;
+
+	/**
+	 * @param source containing the Base64 encoded data
+	 * @param bufferBytes containing the amount of encoded bytes read from the source at once
+	 */
+	public Base64DecodingInputStream(final InputStream source, final int bufferBytes) {
+		this.source = source;
+		this.encoded = new byte[Math.max(4, bufferBytes)];
+		this.decoded = new byte[Math.max(3, bufferBytes / 4 * 3)];
+	}
+
+	@Override
+	public int read() throws IOException {
+		if (this.position == this.decodedLength && !this.fill())
+			return -1;
+		return this.decoded[this.position++] & 0xff;
+	}
+
+	@Override
+	public int read(final byte[] bytes, final int offset, final int length) throws IOException {
+		if (0 == length)
+			return 0;
+		if (this.position == this.decodedLength && !this.fill())
+			return -1;
+
+		final int count = Math.min(length, this.decodedLength - this.position);
+		System.arraycopy(this.decoded, this.position, bytes, offset, count);
+		this.position += count;
+		return count;
+	}
+
+	@Override
+	public int available() {
+		return this.decodedLength - this.position;
+	}
+
+	/**
+	 * Returns every byte decoded so far, which is the whole decoded payload once the
+	 * stream has been consumed until its end
+	 *
+	 * @return {@code byte[]} containing the decoded bytes
+	 */
+	public byte[] toByteArray() {
+		return this.decoded.length == this.decodedLength ? this.decoded : Arrays.copyOf(this.decoded, this.decodedLength);
+	}
+
+	@Override
+	public void close() throws IOException {
+		this.source.close();
+	}
+
+	/*
+	 * Reads and decodes the next block of the source, returning false once there is
+	 * nothing left to be decoded
+	 */
+	private boolean fill() throws IOException {
+		while (!this.finished) {
+			final int count = this.source.read(this.encoded);
+			if (count < 0) {
+				this.finished = true;
+				if (1 == this.unitLength)
+					throw new IllegalArgumentException("Last unit does not have enough valid bits");
+				if (0 != this.missingPadding)
+					throw new IllegalArgumentException("Input byte array has wrong 4-byte ending unit");
+				break;
+			}
+
+			final int before = this.decodedLength;
+			this.ensureCapacity(count / 4 * 3 + 3);
+			for (int i = 0; i < count; i++)
+				this.decode(this.encoded[i]);
+			if (this.decodedLength > before)
+				return true;
+		}
+		return this.position < this.decodedLength;
+	}
+
+	private void decode(final byte character) {
+		final int value = ALPHABET[character & 0xff];
+		if (value >= 0 && !this.padded) {
+			this.bits = (this.bits << 6) | value;
+			this.bitCount += 6;
+			this.unitLength = (this.unitLength + 1) & 3;
+			if (this.bitCount >= 8) {
+				this.bitCount -= 8;
+				this.decoded[this.decodedLength++] = (byte) (this.bits >> this.bitCount);
+			}
+		} else if (PADDING == value && !this.padded && this.unitLength >= 2) {
+			// A unit of two characters is completed by two padding characters, and one of three by one
+			this.padded = true;
+			this.missingPadding = 3 - this.unitLength;
+		} else if (PADDING == value && 0 != this.missingPadding) {
+			this.missingPadding--;
+		} else if (!Character.isWhitespace(character)) {
+			throw new IllegalArgumentException("Illegal base64 character " + Integer.toString(character & 0xff, 16));
+		}
+	}
+
+	private void ensureCapacity(final int extra) {
+		if (this.decodedLength + extra > this.decoded.length)
+			this.decoded = Arrays.copyOf(this.decoded, Math.max(this.decoded.length << 1, this.decodedLength + extra));
+	}
+}
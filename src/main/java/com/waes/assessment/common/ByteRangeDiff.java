@@ -0,0 +1,79 @@
+package com.waes.assessment.common;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * This class compares the payloads read as {@link PayloadFormat#BINARY}, finding the
+ * ranges of bytes where they differ, reported by the offset where each range starts
+ * along with its length
+ *
+ * Both payloads are scanned eight bytes at a time, as {@code Arrays.mismatch} does,
+ * where only the word holding a difference is looked at byte by byte, so the equal
+ * parts of multi-megabyte payloads are compared at about the speed of reading them
+ *
+ * @author Daniel Chiuratto Seabra
+ *
+ */
+public final class ByteRangeDiff {
+
+	private ByteRangeDiff() {}
+
+	/**
+	 * This method builds the ranges of bytes that differ between both payloads, which
+	 * are expected to have the same size
+	 *
+	 * @param left containing the bytes of the left payload
+	 * @param right containing the bytes of the right payload
+	 * @return {@link Map} holding the offset and length of each range, keyed by its offset
+	 * in ascending order, being empty when both payloads are equal
+	 */
+	public static Map<String, Map<String, Object>> buildDiffMapResult(final byte[] left, final byte[] right) {
+		final Map<String, Map<String, Object>> result = new LinkedHashMap<>();
+		final ByteBuffer leftBuffer = ByteBuffer.wrap(left).order(ByteOrder.LITTLE_ENDIAN);
+		final ByteBuffer rightBuffer = ByteBuffer.wrap(right).order(ByteOrder.LITTLE_ENDIAN);
+		final int length = Math.min(left.length, right.length);
+
+		int offset = mismatch(leftBuffer, rightBuffer, 0, length);
+		while (offset >= 0) {
+			// Differences are mostly a few bytes long, so the end of the range is found byte by byte
+			int end = offset + 1;
+			while (end < length && left[end] != right[end])
+				end++;
+
+			final Map<String, Object> range = new HashMap<>();
+			range.put("offset", offset);
+			range.put("length", end - offset);
+			result.put(String.valueOf(offset), range);
+
+			offset = mismatch(leftBuffer, rightBuffer, end, length);
+		}
+		return result;
+	}
+
+	/**
+	 * This method finds the first byte that differs between both buffers from the informed offset
+	 *
+	 * @param left containing the left bytes in little endian order
+	 * @param right containing the right bytes in little endian order
+	 * @param from containing the offset the search starts from
+	 * @param to containing the offset the search ends before
+	 * @return {@code int} containing the offset of the first different byte, or -1 when there is none
+	 */
+	static int mismatch(final ByteBuffer left, final ByteBuffer right, final int from, final int to) {
+		int i = from;
+		for (; i <= to - Long.BYTES; i += Long.BYTES) {
+			// Being the words read in little endian, the lowest differing bit is in the first differing byte
+			final long difference = left.getLong(i) ^ right.getLong(i);
+			if (0 != difference)
+				return i + (Long.numberOfTrailingZeros(difference) >>> 3);
+		}
+		for (; i < to; i++)
+			if (left.get(i) != right.get(i))
+				return i;
+		return -1;
+	}
+}
@@ -0,0 +1,96 @@
+package com.waes.assessment.common;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.JsonNode;
+
+/**
+ * This class writes the canonical form of a parsed JSON, where the fields of every
+ * object are sorted by their names, the numbers are written in a single notation and
+ * there is no whitespace, so two documents holding the same data have the very same
+ * canonical bytes, no matter how they have been formatted
+ *
+ * Two canonical forms are equal exactly when the {@link JsonNode} they were written
+ * from are equal, which keeps the integers, the floating point numbers and the
+ * decimals apart, as the {@link JsonNode} does, while a decimal is written without
+ * its trailing zeros, since its scale is not taken into account either
+ *
+ * @author Daniel Chiuratto Seabra
+ *
+ */
+public final class CanonicalJson {
+
+	private static final JsonFactory JSON_FACTORY = new JsonFactory();
+
+	private CanonicalJson() {}
+
+	/**
+	 * This method writes the canonical form of the informed node
+	 *
+	 * @param node containing the parsed JSON
+	 * @return {@code byte[]} containing the canonical form as UTF-8
+	 */
+	public static byte[] of(final JsonNode node) {
+		final ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+		try (final JsonGenerator generator = JSON_FACTORY.createGenerator(outputStream)) {
+			write(node, generator);
+		} catch (final IOException e) {
+			// Nothing is written anywhere but to the memory
+			throw new UncheckedIOException(e);
+		}
+		return outputStream.toByteArray();
+	}
+
+	private static void write(final JsonNode node, final JsonGenerator generator) throws IOException {
+		if (node.isObject()) {
+			final List<String> fieldNames = new ArrayList<>(node.size());
+			final Iterator<String> iterator = node.fieldNames();
+			while (iterator.hasNext())
+				fieldNames.add(iterator.next());
+			Collections.sort(fieldNames);
+
+			generator.writeStartObject();
+			for (final String fieldName : fieldNames) {
+				generator.writeFieldName(fieldName);
+				write(node.get(fieldName), generator);
+			}
+			generator.writeEndObject();
+		} else if (node.isArray()) {
+			generator.writeStartArray();
+			for (final JsonNode element : node)
+				write(element, generator);
+			generator.writeEndArray();
+		} else if (node.isBigDecimal()) {
+			generator.writeNumber(decimalOf(node.decimalValue()));
+		} else if (node.isFloatingPointNumber()) {
+			// Written as it is, so an overflown number is never quoted as a string holding the same text
+			generator.writeNumber(Double.toString(node.doubleValue()));
+		} else if (node.isIntegralNumber()) {
+			generator.writeNumber(node.bigIntegerValue());
+		} else if (node.isBoolean()) {
+			generator.writeBoolean(node.booleanValue());
+		} else if (node.isNull()) {
+			generator.writeNull();
+		} else {
+			generator.writeString(node.asText());
+		}
+	}
+
+	/*
+	 * A decimal is always written with either a fraction or an exponent, so it is never written
+	 * as an integer holding the same value, where a huge exponent is never expanded
+	 */
+	private static String decimalOf(final BigDecimal value) {
+		final BigDecimal stripped = value.signum() == 0 ? BigDecimal.ZERO : value.stripTrailingZeros();
+		return 0 == stripped.scale() ? stripped.toPlainString() + ".0" : stripped.toString();
+	}
+}
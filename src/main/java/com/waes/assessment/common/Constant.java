@@ -12,8 +12,10 @@ import com.waes.assessment.exception.handler.WAESExceptionHandler;
  */
 public interface Constant {
 
-	public static final String OK_STATUS = "OK";
 	public static final String UNAVAILABLE_FIELD = "unavailable field";
+	public static final String STREAMING_DIFF_ENGINE = "streaming";
+	public static final String JSON_PATCH_MEDIA_TYPE = "application/json-patch+json";
+	public static final String MERGE_PATCH_MEDIA_TYPE = "application/merge-patch+json";
 	
 	/**
 	 * This interface is used on the application loggings
@@ -27,12 +29,21 @@ public interface Constant {
 		public static final String LEFT_AND_RIGHT_PROCESS_LOG_MESSAGE = "processing left and right with id {}";
 		public static final String CONTROLLER_LEFT_OR_RIGHT_LOG_MESSAGE = "POST request received on /{}/{} endpoint";
 		public static final String CONTROLLER_LEFT_AND_RIGHT_PROCESS_LOG_MESSAGE = "GET request received on /{} endpoint";
+		public static final String CONTROLLER_JSON_PATCH_LOG_MESSAGE = "GET request received on /{} endpoint for a JSON Patch";
+		public static final String CONTROLLER_PATCH_LOG_MESSAGE = "PATCH request received on /{}/{} endpoint";
+		public static final String MEMORY_PATCHING_LOG_MESSAGE = "the {} memory with id {} has been patched";
 		public static final String DESERIALIZATION_ERROR_MESSAGE = "an error occurred during the deserialization of the data";
 		public static final String STARTING_VALIDATION = "starting the validation";
 		public static final String RETRIEVING_CACHED_DATA = "retrieving previous processed data";
-		public static final String THROWING_CACHED_EXCEPTION = "throwing a cached exception";
 		public static final String NO_ERRORS_CACHED_DATA = "there is no errors to validate (cached result)";
 		public static final String FINISHING_VALIDATION_NO_ISSUES = "finishing the validation without any issues";
+		public static final String CONTROLLER_METRICS_LOG_MESSAGE = "GET request received on /metrics endpoint";
+		public static final String EVICTING_PAYLOADS = "evicting {} ids from the payload store releasing {} bytes";
+		public static final String EXPIRING_PAYLOADS = "expiring {} ids from the payload store releasing {} bytes";
+		public static final String RETRIEVING_CACHED_CONTENT_DATA = "retrieving previous processed data of the same contents";
+		public static final String AWAITING_RUNNING_COMPARISON = "awaiting the comparison already running for id {}";
+		public static final String EAGER_COMPARISON_REJECTED = "the background comparison of id {} has been rejected, it will be compared on its first GET";
+		public static final String EAGER_COMPARISON_FAILED = "the background comparison of id {} has failed";
 		
 	}
 	
@@ -47,9 +58,50 @@ public interface Constant {
 		public static final String LEFT_AND_RIGHT_PROCESS_RESPONSE_MESSAGE = "both payloads are equal";
 		public static final String LEFT_OR_RIGHT_RESPONSE_MESSAGE_WITH_ID = "the %s value has been set on id %s";
 		public static final String LEFT_OR_RIGHT_RESPONSE_MESSAGE_WITHOUT_ID = "the left value has been set";
+		public static final String METRICS_RESPONSE_MESSAGE = "current application metrics";
 		
 	}
 	
+	/**
+	 * This interface contains the names of the metrics exposed by the application
+	 * 
+	 * @author Daniel Chiuratto Seabra
+	 *
+	 */
+	public interface Metric {
+
+		public static final String STORE_SIZE = "store.size";
+		public static final String STORE_WEIGHT_BYTES = "store.weight.bytes";
+		public static final String STORE_EVICTION_COUNT = "store.eviction.count";
+		public static final String STORE_EVICTION_BYTES = "store.eviction.bytes";
+		public static final String STORE_EXPIRATION_COUNT = "store.expiration.count";
+		public static final String STORE_EXPIRATION_BYTES = "store.expiration.bytes";
+		public static final String STORE_OFF_HEAP_RESERVED_BYTES = "store.off-heap.reserved.bytes";
+		public static final String STORE_OFF_HEAP_USED_BYTES = "store.off-heap.used.bytes";
+		public static final String STORE_OFF_HEAP_POOLED_BYTES = "store.off-heap.pooled.bytes";
+		public static final String STORE_OFF_HEAP_FALLBACK_COUNT = "store.off-heap.fallback.count";
+		public static final String STORE_BLOB_COUNT = "store.blob.count";
+		public static final String STORE_BLOB_BYTES = "store.blob.bytes";
+		public static final String STORE_DEDUP_HIT_COUNT = "store.dedup.hit.count";
+		public static final String STORE_DEDUP_MISS_COUNT = "store.dedup.miss.count";
+		public static final String STORE_DEDUP_HIT_RATE_PERCENT = "store.dedup.hit-rate.percent";
+		public static final String RESULT_CACHE_SIZE = "result-cache.size";
+		public static final String RESULT_CACHE_WEIGHT_BYTES = "result-cache.weight.bytes";
+		public static final String RESULT_CACHE_HIT_COUNT = "result-cache.hit.count";
+		public static final String RESULT_CACHE_MISS_COUNT = "result-cache.miss.count";
+		public static final String RESULT_CACHE_EVICTION_COUNT = "result-cache.eviction.count";
+		public static final String RESULT_CACHE_EVICTION_BYTES = "result-cache.eviction.bytes";
+		public static final String DIFF_COALESCED_COUNT = "diff.coalesced.count";
+		public static final String DIFF_EAGER_QUEUE_DEPTH = "diff.eager.queue.depth";
+		public static final String DIFF_EAGER_SUBMITTED_COUNT = "diff.eager.submitted.count";
+		public static final String DIFF_EAGER_REJECTED_COUNT = "diff.eager.rejected.count";
+		public static final String DIFF_EAGER_COMPLETED_COUNT = "diff.eager.completed.count";
+		public static final String DIFF_EAGER_LATENCY_MICROS = "diff.eager.latency.micros";
+		public static final String DIFF_TIER_COUNT = "diff.tier.%s.count";
+		public static final String DIFF_TIER_HIT_RATE_PERCENT = "diff.tier.%s.hit-rate.percent";
+
+	}
+	
 	/**
 	 * This interface contains data used to construct the Swagger UI interface
 	 * set on the {@link Swagger2Configuration} class
@@ -79,9 +131,17 @@ public interface Constant {
 		public static final String DESERIALIZATION_EXCEPTION_MESSAGE = "the %s payload is invalid and cannot be deserialized";
 		public static final String PAYLOAD_SIZE_MISMATCH_EXCEPTION_MESSAGE = "left and right payloads has different size: left %d bytes and right %d bytes";
 		public static final String PAYLOAD_CONTENT_MISMATCH_EXCEPTION_MESSAGE = "both payloads contains different content/values";
+		public static final String PAYLOAD_CONTENT_MISMATCH_COUNT_EXCEPTION_MESSAGE = "both payloads contains %d different content/values";
+		public static final String PAYLOAD_CONTENT_MISMATCH_FIRST_EXCEPTION_MESSAGE = "both payloads contains different content/values, showing the first %d of them";
+		public static final String JSON_PATCH_UNAVAILABLE_EXCEPTION_MESSAGE = "the payloads of the id %s are not both JSON, so their difference cannot be written as a JSON Patch";
+		public static final String INVALID_PATCH_EXCEPTION_MESSAGE = "the patch sent to the %s memory of the id %s cannot be applied";
+		public static final String BINARY_PAYLOAD_PATCH_REASON = "the payload has been read as binary, so it has no JSON to be patched";
+		public static final String INVALID_PAYLOAD_FORMAT_EXCEPTION_MESSAGE = "the payload format %s is invalid, expected json, binary or auto";
+		public static final String INVALID_DIFF_MODE_EXCEPTION_MESSAGE = "the diff mode %s with limit %d is invalid, expected full, boolean, count or first with a limit greater than zero";
 		public static final String MISSING_PAYLOAD_EXCEPTION_MESSAGE = "the %s memory does not contain a payload set for the id %s";
 		public static final String REQUIRED_PAYLOAD_EXCEPTION_MESSAGE = "a payload is required to be present on the request to have it set on memory";
 		public static final String EXCEPTION_MESSAGE = "a generic error happened inside the server which has not been predicted";
+		public static final String TRAILING_CONTENT_EXCEPTION_MESSAGE = "unexpected content after the end of the JSON payload";
 		
 	}
 
@@ -0,0 +1,90 @@
+package com.waes.assessment.common;
+
+import java.nio.ByteBuffer;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+/**
+ * This class is the SHA-256 digest of a content, used to identify payloads by
+ * what they contain instead of by the id they have been set on, so two equal
+ * hashes can be taken as two equal contents
+ *
+ * The digest is kept as four {@code long} values, which makes comparing and
+ * hashing it as cheap as possible when it is used as a map key
+ *
+ * @author Daniel Chiuratto Seabra
+ *
+ */
+public final class ContentHash {
+
+	private static final ThreadLocal<MessageDigest> DIGEST = ThreadLocal.withInitial(() -> {
+		try {
+			return MessageDigest.getInstance("SHA-256");
+		} catch (final NoSuchAlgorithmException e) {
+			throw new IllegalStateException(e);
+		}
+	});
+
+	private final long first;
+	private final long second;
+	private final long third;
+	private final long fourth;
+
+	private ContentHash(final long first, final long second, final long third, final long fourth) {
+		this.first = first;
+		this.second = second;
+		this.third = third;
+		this.fourth = fourth;
+	}
+
+	/**
+	 * This method computes the hash of the informed bytes
+	 *
+	 * @param bytes containing the content to be hashed
+	 * @return the {@link ContentHash} of the content
+	 */
+	public static ContentHash of(final byte[] bytes) {
+		return of(bytes, PayloadFormat.JSON);
+	}
+
+	/**
+	 * This method computes the hash of the informed bytes read in the informed format,
+	 * so the same bytes read as JSON and as raw bytes are two different contents
+	 *
+	 * The raw bytes are hashed after a control character, which no JSON document can
+	 * start with, so the hash of a JSON document is the very same of its bytes alone
+	 *
+	 * @param bytes containing the content to be hashed
+	 * @param format containing the {@link PayloadFormat} the content has been read in
+	 * @return the {@link ContentHash} of the content
+	 */
+	public static ContentHash of(final byte[] bytes, final PayloadFormat format) {
+		final MessageDigest messageDigest = DIGEST.get();
+		if (PayloadFormat.BINARY == format)
+			messageDigest.update((byte) 0x01);
+		final ByteBuffer digest = ByteBuffer.wrap(messageDigest.digest(bytes));
+		return new ContentHash(digest.getLong(), digest.getLong(), digest.getLong(), digest.getLong());
+	}
+
+	@Override
+	public boolean equals(final Object object) {
+		if (this == object)
+			return true;
+		if (!(object instanceof ContentHash))
+			return false;
+		final ContentHash other = (ContentHash) object;
+		return this.first == other.first && this.second == other.second
+				&& this.third == other.third && this.fourth == other.fourth;
+	}
+
+	@Override
+	public int hashCode() {
+		// The digest bits are already uniformly distributed, so any part of it is a good hash
+		return (int) (this.first ^ (this.first >>> 32));
+	}
+
+	@Override
+	public String toString() {
+		return String.format("%016x%016x%016x%016x", this.first, this.second, this.third, this.fourth);
+	}
+}
@@ -0,0 +1,129 @@
+package com.waes.assessment.common;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * This class receives the differences found by the {@link JsonUtil} and by the
+ * {@link StreamingJsonDiff}, keeping them under their paths in the order they are
+ * found, which is the order the first differences are taken from, or only counting them
+ * when their paths are not needed, and telling the diff to stop once the informed
+ * limit of differences has been reached
+ *
+ * The count is shared by every collector forked from the same one, so the tasks
+ * diffing the fields of an object in parallel stop together as well, while each of
+ * them keeps its own differences until they are merged back in the order of the fields
+ *
+ * @author Daniel Chiuratto Seabra
+ *
+ */
+final class DiffCollector {
+
+	private final Map<String, Map<String, Object>> differences;
+	private final AtomicInteger count;
+	private final int limit;
+
+	private DiffCollector(final Map<String, Map<String, Object>> differences, final AtomicInteger count, final int limit) {
+		this.differences = differences;
+		this.count = count;
+		this.limit = limit;
+	}
+
+	/**
+	 * Keeps the differences under their paths, up to the informed limit
+	 *
+	 * @param limit containing the amount of differences after which the diff stops
+	 * @return the {@link DiffCollector} instance
+	 */
+	static DiffCollector keeping(final int limit) {
+		return new DiffCollector(new LinkedHashMap<>(), new AtomicInteger(), limit);
+	}
+
+	/**
+	 * Only counts the differences, without building their paths or their values
+	 *
+	 * @return the {@link DiffCollector} instance
+	 */
+	static DiffCollector counting() {
+		return new DiffCollector(null, new AtomicInteger(), Integer.MAX_VALUE);
+	}
+
+	/**
+	 * Returns a collector sharing the count and the limit of this one, but keeping its
+	 * differences apart until it is merged back through {@link #merge(DiffCollector)}
+	 *
+	 * @return the forked {@link DiffCollector}
+	 */
+	DiffCollector fork() {
+		return new DiffCollector(null == this.differences ? null : new LinkedHashMap<>(), this.count, this.limit);
+	}
+
+	/**
+	 * Takes the differences kept by a forked collector
+	 *
+	 * @param forked containing the {@link DiffCollector} returned by {@link #fork()}
+	 */
+	void merge(final DiffCollector forked) {
+		if (null != this.differences)
+			this.differences.putAll(forked.differences);
+	}
+
+	/**
+	 * Reports a difference under the informed path, unless the limit has already been reached
+	 *
+	 * @param path containing the path of the difference
+	 * @param left containing the left value
+	 * @param right containing the right value
+	 */
+	void report(final CharSequence path, final Object left, final Object right) {
+		if (this.count.incrementAndGet() > this.limit || null == this.differences)
+			return;
+
+		final Map<String, Object> subResult = new HashMap<>();
+		subResult.put(Endpoint.LEFT.getValue(), left);
+		subResult.put(Endpoint.RIGHT.getValue(), right);
+		this.differences.put(path.toString(), subResult);
+	}
+
+	/**
+	 * Keeps a difference found by an earlier diff under its path, unless the limit has already been reached
+	 *
+	 * @param path containing the path of the difference
+	 * @param difference containing the left and the right values
+	 */
+	void keep(final String path, final Map<String, Object> difference) {
+		if (this.count.incrementAndGet() > this.limit || null == this.differences)
+			return;
+
+		this.differences.put(path, difference);
+	}
+
+	/**
+	 * Checks if the limit of differences has been reached, after which nothing else has to be diffed
+	 *
+	 * @return {@code true} when the diff can stop
+	 */
+	boolean isFull() {
+		return this.count.get() >= this.limit;
+	}
+
+	/**
+	 * Returns the amount of differences reported, including the ones past the limit
+	 *
+	 * @return {@code int} containing the amount of differences
+	 */
+	int getCount() {
+		return this.count.get();
+	}
+
+	/**
+	 * Returns the differences kept under their paths
+	 *
+	 * @return {@link Map} containing the differences, or {@code null} when they are only counted
+	 */
+	Map<String, Map<String, Object>> getDifferences() {
+		return this.differences;
+	}
+}
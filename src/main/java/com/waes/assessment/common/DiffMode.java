@@ -0,0 +1,62 @@
+package com.waes.assessment.common;
+
+/**
+ * This enumerator defines how much of the difference between two payloads is
+ * returned by the GET, being selected through its <b>mode</b> parameter, where
+ * the modes other than {@link #FULL} stop diffing as soon as they know enough
+ *
+ * @author Daniel Chiuratto Seabra
+ *
+ */
+public enum DiffMode {
+
+	/**
+	 * Every difference is returned under its path
+	 */
+	FULL("full"),
+
+	/**
+	 * Only whether the payloads are equal or not is returned
+	 */
+	BOOLEAN("boolean"),
+
+	/**
+	 * Only the amount of differences is returned
+	 */
+	COUNT("count"),
+
+	/**
+	 * Only the first differences found, up to the informed limit, are returned under their paths
+	 */
+	FIRST("first");
+
+	private String value;
+
+	private DiffMode(final String value) {
+		this.value = value;
+	}
+
+	/**
+	 * Retrieves the DiffMode enum as a {@link String}
+	 *
+	 * @return {@link DiffMode} as {@link String}
+	 */
+	public String getValue() {
+		return this.value;
+	}
+
+	/**
+	 * This method finds the mode of the informed value, ignoring its case
+	 *
+	 * @param value containing the mode as it is informed on the request, or {@code null} for {@link #FULL}
+	 * @return the {@link DiffMode} of the value
+	 */
+	public static DiffMode of(final String value) {
+		if (null == value)
+			return FULL;
+		for (final DiffMode mode : values())
+			if (mode.value.equalsIgnoreCase(value.trim()))
+				return mode;
+		throw new IllegalArgumentException("Invalid diff mode: " + value);
+	}
+}
@@ -0,0 +1,276 @@
+package com.waes.assessment.common;
+
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import com.waes.assessment.exception.MissingInMemoryPayloadException;
+import com.waes.assessment.exception.PayloadContentMismatchException;
+import com.waes.assessment.exception.PayloadSizeMismatchException;
+
+/**
+ * This class is the immutable outcome of comparing the left and right payloads
+ * of an id, which is what gets cached and rendered, instead of the exceptions
+ * that used to carry it
+ *
+ * Since it is immutable, the same instance can be shared by any amount of
+ * ids and threads, and a failed comparison only becomes an exception when it is
+ * about to be rendered to the requestor
+ *
+ * A content mismatch found by a {@link DiffMode} other than {@link DiffMode#FULL}
+ * is not complete, carrying only what the mode asked for, so it is never cached,
+ * while a complete one can be narrowed down to any mode through {@link #inMode}
+ *
+ * @author Daniel Chiuratto Seabra
+ *
+ */
+public final class DiffOutcome {
+
+	/**
+	 * The kinds of outcome a comparison can have
+	 */
+	public enum Type {
+		EQUAL,
+		MISSING_SIDE,
+		SIZE_MISMATCH,
+		CONTENT_MISMATCH;
+	}
+
+	private static final int UNKNOWN_COUNT = -1;
+
+	/**
+	 * The outcome of two payloads that are equal, which carries nothing else
+	 */
+	public static final DiffOutcome EQUAL = new DiffOutcome(Type.EQUAL, null, null, 0, 0, null, 0, true);
+
+	/**
+	 * The outcome of two payloads known to be different, which carries nothing else
+	 */
+	public static final DiffOutcome DIFFERENT = new DiffOutcome(Type.CONTENT_MISMATCH, null, null, 0, 0, null, UNKNOWN_COUNT, false);
+
+	private final Type type;
+	private final Endpoint missingSide;
+	private final String id;
+	private final int leftSize;
+	private final int rightSize;
+	private final Map<String, Map<String, Object>> difference;
+	private final int differenceCount;
+	private final boolean complete;
+
+	private DiffOutcome(final Type type, final Endpoint missingSide, final String id, final int leftSize, final int rightSize,
+			final Map<String, Map<String, Object>> difference, final int differenceCount, final boolean complete) {
+		this.type = type;
+		this.missingSide = missingSide;
+		this.id = id;
+		this.leftSize = leftSize;
+		this.rightSize = rightSize;
+		this.difference = difference;
+		this.differenceCount = differenceCount;
+		this.complete = complete;
+	}
+
+	/**
+	 * Returns the outcome of an id where one of the sides has not been set
+	 *
+	 * @param missingSide containing the {@link Endpoint} without a payload
+	 * @param id of the memory that was compared
+	 * @return the {@link DiffOutcome} instance
+	 */
+	public static DiffOutcome missing(final Endpoint missingSide, final String id) {
+		return new DiffOutcome(Type.MISSING_SIDE, missingSide, id, 0, 0, null, 0, true);
+	}
+
+	/**
+	 * Returns the outcome of an id whose payload has been released by the store while it
+	 * was being compared, which is not complete, so it is never cached
+	 *
+	 * @param releasedSide containing the {@link Endpoint} whose payload has been released
+	 * @param id of the memory that was compared
+	 * @return the {@link DiffOutcome} instance
+	 */
+	public static DiffOutcome released(final Endpoint releasedSide, final String id) {
+		return new DiffOutcome(Type.MISSING_SIDE, releasedSide, id, 0, 0, null, 0, false);
+	}
+
+	/**
+	 * Returns the outcome of two payloads with different sizes
+	 *
+	 * @param leftSize containing the amount of bytes of the left payload
+	 * @param rightSize containing the amount of bytes of the right payload
+	 * @return the {@link DiffOutcome} instance
+	 */
+	public static DiffOutcome sizeMismatch(final int leftSize, final int rightSize) {
+		return new DiffOutcome(Type.SIZE_MISMATCH, null, null, leftSize, rightSize, null, 0, true);
+	}
+
+	/**
+	 * Returns the outcome of two payloads with the same size but different content
+	 *
+	 * @param difference containing the diff built by the {@link JsonUtil}
+	 * @return the {@link DiffOutcome} instance
+	 */
+	public static DiffOutcome contentMismatch(final Map<String, Map<String, Object>> difference) {
+		return new DiffOutcome(Type.CONTENT_MISMATCH, null, null, 0, 0, difference, difference.size(), true);
+	}
+
+	/**
+	 * Returns the outcome of two payloads with different content, carrying only the first
+	 * differences found, up to the informed limit
+	 *
+	 * @param difference containing the differences in the order they were found, which may hold more than the limit
+	 * @param limit containing the maximum amount of differences carried
+	 * @return the {@link DiffOutcome} instance, being complete when no difference was left out
+	 */
+	public static DiffOutcome firstDifferences(final Map<String, Map<String, Object>> difference, final int limit) {
+		if (difference.size() <= limit)
+			return contentMismatch(difference);
+
+		// Every diff keeps its differences in the order it walks the payloads, so the first ones are the
+		// same whether the diff stopped at the limit or went through the whole payloads
+		final Map<String, Map<String, Object>> first = new LinkedHashMap<>();
+		final Iterator<Map.Entry<String, Map<String, Object>>> entries = difference.entrySet().iterator();
+		while (first.size() < limit) {
+			final Map.Entry<String, Map<String, Object>> entry = entries.next();
+			first.put(entry.getKey(), entry.getValue());
+		}
+		return new DiffOutcome(Type.CONTENT_MISMATCH, null, null, 0, 0, first, UNKNOWN_COUNT, false);
+	}
+
+	/**
+	 * Returns the outcome of two payloads with different content, carrying only the amount of differences
+	 *
+	 * @param differenceCount containing the amount of differences found
+	 * @return the {@link DiffOutcome} instance
+	 */
+	public static DiffOutcome differenceCount(final int differenceCount) {
+		return new DiffOutcome(Type.CONTENT_MISMATCH, null, null, 0, 0, null, differenceCount, false);
+	}
+
+	/**
+	 * Narrows this outcome down to what the informed mode asks for, where only a content
+	 * mismatch carries more than the mode needs, being this outcome expected to be complete
+	 *
+	 * @param mode containing the {@link DiffMode} requested
+	 * @param limit containing the maximum amount of differences carried on {@link DiffMode#FIRST}
+	 * @return the {@link DiffOutcome} carrying what the mode asks for
+	 */
+	public DiffOutcome inMode(final DiffMode mode, final int limit) {
+		if (Type.CONTENT_MISMATCH != this.type || DiffMode.FULL == mode)
+			return this;
+
+		switch (mode) {
+			case BOOLEAN:
+				return DIFFERENT;
+			case COUNT:
+				return differenceCount(this.differenceCount);
+			default:
+				return firstDifferences(this.difference, limit);
+		}
+	}
+
+	/**
+	 * Returns the kind of this outcome
+	 *
+	 * @return {@link Type} of the outcome
+	 */
+	public Type getType() {
+		return this.type;
+	}
+
+	/**
+	 * Checks if both payloads are equal
+	 *
+	 * @return {@code true} when there is no difference between the payloads
+	 */
+	public boolean isEqual() {
+		return Type.EQUAL == this.type;
+	}
+
+	/**
+	 * Returns the side without a payload, when the outcome is {@link Type#MISSING_SIDE}
+	 *
+	 * @return {@link Endpoint} without a payload
+	 */
+	public Endpoint getMissingSide() {
+		return this.missingSide;
+	}
+
+	/**
+	 * Returns the size of the left payload, when the outcome is {@link Type#SIZE_MISMATCH}
+	 *
+	 * @return {@code int} containing the amount of bytes
+	 */
+	public int getLeftSize() {
+		return this.leftSize;
+	}
+
+	/**
+	 * Returns the size of the right payload, when the outcome is {@link Type#SIZE_MISMATCH}
+	 *
+	 * @return {@code int} containing the amount of bytes
+	 */
+	public int getRightSize() {
+		return this.rightSize;
+	}
+
+	/**
+	 * Returns the diff between the payloads, when the outcome is {@link Type#CONTENT_MISMATCH}
+	 *
+	 * @return unmodifiable {@link Map} containing the diff
+	 */
+	public Map<String, Map<String, Object>> getDifference() {
+		return null == this.difference ? null : Collections.unmodifiableMap(this.difference);
+	}
+
+	/**
+	 * Returns the amount of differences between the payloads, when the outcome is {@link Type#CONTENT_MISMATCH}
+	 *
+	 * @return {@code int} containing the amount of differences, or -1 when it is not known
+	 */
+	public int getDifferenceCount() {
+		return this.differenceCount;
+	}
+
+	/**
+	 * Checks if this outcome carries everything about the payloads, which is what can be cached
+	 *
+	 * @return {@code true} unless it has been found by a {@link DiffMode} other than {@link DiffMode#FULL}
+	 */
+	public boolean isComplete() {
+		return this.complete;
+	}
+
+	/**
+	 * Builds the exception that renders this outcome to the requestor, which does not
+	 * fill its stack trace, so it costs no more than any other response
+	 *
+	 * @return {@link RuntimeException} describing the outcome or {@code null} when both payloads are equal
+	 */
+	public RuntimeException toException() {
+		switch (this.type) {
+			case MISSING_SIDE:
+				return new MissingInMemoryPayloadException(this.missingSide, this.id);
+			case SIZE_MISMATCH:
+				return new PayloadSizeMismatchException(this.leftSize, this.rightSize);
+			case CONTENT_MISMATCH:
+				return new PayloadContentMismatchException(this.getDifference(), this.differenceCount, this.complete);
+			default:
+				return null;
+		}
+	}
+
+	@Override
+	public String toString() {
+		return new StringBuilder("DiffOutcome:(")
+				.append("type: ").append(this.type).append(", ")
+				.append("missingSide: ").append(this.missingSide).append(", ")
+				.append("leftSize: ").append(this.leftSize).append(", ")
+				.append("rightSize: ").append(this.rightSize).append(", ")
+				.append("difference: ").append(this.difference).append(", ")
+				.append("differenceCount: ").append(this.differenceCount).append(", ")
+				.append("complete: ").append(this.complete)
+				.append(")")
+				.toString();
+	}
+}
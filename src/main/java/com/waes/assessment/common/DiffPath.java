@@ -0,0 +1,98 @@
+package com.waes.assessment.common;
+
+import java.util.Arrays;
+
+/**
+ * This class is the path of the node being diffed, as in <b>orders[3].lines[sku=abc].price</b>,
+ * held by a single reused buffer along with the offset where each of its segments starts, so
+ * going into and out of a node costs no allocation, being the path only turned into a
+ * {@link String} when a difference is reported under it
+ *
+ * @author Daniel Chiuratto Seabra
+ *
+ */
+final class DiffPath implements CharSequence {
+
+	private final StringBuilder sb;
+	private int[] offsets = new int[16];
+	private int depth;
+
+	DiffPath() {
+		this.sb = new StringBuilder(64);
+	}
+
+	/**
+	 * Starts the path from the informed prefix, which is never removed
+	 *
+	 * @param prefix containing the path the diff starts from
+	 */
+	DiffPath(final String prefix) {
+		this.sb = new StringBuilder(prefix.length() + 64).append(prefix);
+	}
+
+	/**
+	 * Appends the name of a field, using the dot notation
+	 *
+	 * @param fieldName containing the name of the field
+	 */
+	void pushField(final String fieldName) {
+		this.push();
+		if (this.sb.length() > 0)
+			this.sb.append('.');
+		this.sb.append(fieldName);
+	}
+
+	/**
+	 * Appends the index of an element of an array
+	 *
+	 * @param index containing the position of the element
+	 */
+	void pushIndex(final int index) {
+		this.push();
+		this.sb.append('[').append(index).append(']');
+	}
+
+	/**
+	 * Appends the identity of an element of an array matched by its identity field
+	 *
+	 * @param identityField containing the name of the identity field
+	 * @param identity containing the value of the identity field
+	 */
+	void pushIdentity(final String identityField, final String identity) {
+		this.push();
+		this.sb.append('[').append(identityField).append('=').append(identity).append(']');
+	}
+
+	/**
+	 * Removes the last segment appended
+	 */
+	void pop() {
+		this.sb.setLength(this.offsets[--this.depth]);
+	}
+
+	private void push() {
+		if (this.depth == this.offsets.length)
+			this.offsets = Arrays.copyOf(this.offsets, this.depth * 2);
+		this.offsets[this.depth++] = this.sb.length();
+	}
+
+	@Override
+	public int length() {
+		return this.sb.length();
+	}
+
+	@Override
+	public char charAt(final int index) {
+		return this.sb.charAt(index);
+	}
+
+	@Override
+	public CharSequence subSequence(final int start, final int end) {
+		return this.sb.subSequence(start, end);
+	}
+
+	@Override
+	public String toString() {
+		return this.sb.toString();
+	}
+}
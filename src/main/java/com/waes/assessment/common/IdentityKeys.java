@@ -0,0 +1,86 @@
+package com.waes.assessment.common;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.apache.commons.lang3.StringUtils;
+
+/**
+ * This class holds the identity field of the objects of each configured array, which
+ * the {@link JsonUtil} uses to match the elements of both arrays holding the same value
+ * on that field, instead of aligning them by their position
+ *
+ * The arrays are configured by their path, where every index is written as <b>[]</b>,
+ * as in <b>items=sku,orders[].lines=id</b>, being the root array configured through an
+ * empty path as in <b>=id</b>
+ *
+ * @author Daniel Chiuratto Seabra
+ *
+ */
+public final class IdentityKeys {
+
+	/**
+	 * The instance without any configured array, where every array is aligned by position
+	 */
+	public static final IdentityKeys NONE = new IdentityKeys(Collections.emptyMap());
+
+	private final Map<String, String> keys;
+
+	private IdentityKeys(final Map<String, String> keys) {
+		this.keys = keys;
+	}
+
+	/**
+	 * This method reads the identity fields from their comma separated configuration
+	 *
+	 * @param value containing the pairs of array path and identity field, as in <b>items=sku,orders[].lines=id</b>
+	 * @return the {@link IdentityKeys} instance
+	 */
+	public static IdentityKeys parse(final String value) {
+		if (StringUtils.isBlank(value))
+			return NONE;
+
+		final Map<String, String> keys = new HashMap<>();
+		for (final String entry : value.split(",")) {
+			final int separator = entry.lastIndexOf('=');
+			if (separator < 0 || StringUtils.isBlank(entry.substring(separator + 1)))
+				throw new IllegalArgumentException("Invalid array identity key: " + entry.trim());
+			keys.put(entry.substring(0, separator).trim(), entry.substring(separator + 1).trim());
+		}
+		return new IdentityKeys(Collections.unmodifiableMap(keys));
+	}
+
+	/**
+	 * Checks if there is no configured array
+	 *
+	 * @return {@code true} when every array is aligned by position
+	 */
+	public boolean isEmpty() {
+		return this.keys.isEmpty();
+	}
+
+	/**
+	 * Returns the identity field of the array under the informed path, as it is built by the {@link JsonUtil}
+	 *
+	 * @param arrayPath containing the path of the array, holding the index of the elements it is nested in
+	 * @return {@link String} containing the identity field or {@code null} when the array is not configured
+	 */
+	public String keyOf(final CharSequence arrayPath) {
+		if (this.keys.isEmpty())
+			return null;
+
+		// Every index, either a position or an identity, is replaced by []
+		final StringBuilder sb = new StringBuilder(arrayPath.length());
+		for (int i = 0; i < arrayPath.length(); i++) {
+			final char c = arrayPath.charAt(i);
+			sb.append(c);
+			if ('[' == c) {
+				while (i < arrayPath.length() && ']' != arrayPath.charAt(i))
+					i++;
+				sb.append(']');
+			}
+		}
+		return this.keys.get(sb.toString());
+	}
+}
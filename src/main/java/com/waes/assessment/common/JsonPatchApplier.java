@@ -0,0 +1,248 @@
+package com.waes.assessment.common;
+
+import java.util.Iterator;
+import java.util.Map;
+
+import com.fasterxml.jackson.core.JsonPointer;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+/**
+ * This class applies a JSON Patch (RFC 6902) or a JSON Merge Patch (RFC 7396) to a
+ * parsed JSON, returning the patched document without touching the informed one,
+ * since a stored tree is shared by every side holding the same content
+ *
+ * Only the objects and arrays on the way from the root to each changed node are
+ * copied, and only shallowly, so every subtree the patch does not reach is the very
+ * same {@link JsonNode} on both documents, which lets the {@link SubtreeHashes} of
+ * the patched document reuse the hashes of the original one for all of them
+ *
+ * A patch that cannot be applied as a whole is rejected through an
+ * {@link IllegalArgumentException} describing the operation that failed
+ *
+ * @author Daniel Chiuratto Seabra
+ *
+ */
+public final class JsonPatchApplier {
+
+	private static final JsonNodeFactory NODE_FACTORY = JsonNodeFactory.instance;
+
+	private JsonPatchApplier() {}
+
+	/**
+	 * This method applies the operations of a JSON Patch one after the other, where the
+	 * document is only changed if all of them succeed
+	 *
+	 * @param document containing the {@link JsonNode} to be patched
+	 * @param patch containing the JSON Patch, being an array of operations
+	 * @return {@link JsonNode} containing the patched document
+	 */
+	public static JsonNode applyPatch(final JsonNode document, final JsonNode patch) {
+		if (null == patch || !patch.isArray())
+			throw new IllegalArgumentException("a JSON Patch must be an array of operations");
+
+		JsonNode result = document;
+		for (final JsonNode operation : patch) {
+			if (!operation.isObject())
+				throw new IllegalArgumentException("every JSON Patch operation must be an object");
+
+			final String op = textOf(operation, "op");
+			final JsonPointer path = pointerOf(operation, "path");
+			switch (op) {
+				case "add":
+					result = add(result, path, valueOf(operation));
+					break;
+				case "remove":
+					result = remove(result, path);
+					break;
+				case "replace":
+					result = replace(result, path, valueOf(operation));
+					break;
+				case "move":
+					final JsonPointer from = pointerOf(operation, "from");
+					if (!from.equals(path)) {
+						if (path.toString().startsWith(from.toString() + "/"))
+							throw new IllegalArgumentException("cannot move " + from + " into one of its children");
+						final JsonNode moved = get(result, from);
+						result = add(remove(result, from), path, moved);
+					}
+					break;
+				case "copy":
+					result = add(result, path, get(result, pointerOf(operation, "from")));
+					break;
+				case "test":
+					if (!get(result, path).equals(valueOf(operation)))
+						throw new IllegalArgumentException("the value at " + path + " is not the one tested");
+					break;
+				default:
+					throw new IllegalArgumentException("unknown JSON Patch operation " + op);
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * This method applies a JSON Merge Patch, where each field of the patch replaces the
+	 * field of the document with the same name, an object being merged into the object
+	 * it replaces and a null removing the field
+	 *
+	 * @param document containing the {@link JsonNode} to be patched
+	 * @param patch containing the JSON Merge Patch
+	 * @return {@link JsonNode} containing the patched document
+	 */
+	public static JsonNode applyMergePatch(final JsonNode document, final JsonNode patch) {
+		if (null == patch)
+			throw new IllegalArgumentException("a JSON Merge Patch must be a JSON document");
+		if (!patch.isObject())
+			return patch;
+
+		final ObjectNode result = null != document && document.isObject() ? copyOf((ObjectNode) document) : NODE_FACTORY.objectNode();
+		final Iterator<Map.Entry<String, JsonNode>> fields = patch.fields();
+		while (fields.hasNext()) {
+			final Map.Entry<String, JsonNode> field = fields.next();
+			if (field.getValue().isNull())
+				result.remove(field.getKey());
+			else result.set(field.getKey(), applyMergePatch(result.get(field.getKey()), field.getValue()));
+		}
+		return result;
+	}
+
+	private static JsonNode get(final JsonNode document, final JsonPointer path) {
+		final JsonNode value = document.at(path);
+		if (value.isMissingNode())
+			throw new IllegalArgumentException("there is no value at " + path);
+		return value;
+	}
+
+	private static JsonNode add(final JsonNode document, final JsonPointer path, final JsonNode value) {
+		if (path.matches())
+			return value;
+		return edit(document, path, (parent, name) -> {
+			if (parent.isObject())
+				return copyOf((ObjectNode) parent).set(name, value);
+
+			final ArrayNode copy = copyOf((ArrayNode) parent);
+			if ("-".equals(name))
+				return copy.add(value);
+			return copy.insert(indexOf(name, copy.size() + 1, path), value);
+		});
+	}
+
+	private static JsonNode replace(final JsonNode document, final JsonPointer path, final JsonNode value) {
+		if (path.matches())
+			return value;
+		return edit(document, path, (parent, name) -> {
+			if (parent.isObject()) {
+				if (null == parent.get(name))
+					throw new IllegalArgumentException("there is no value at " + path);
+				return copyOf((ObjectNode) parent).set(name, value);
+			}
+
+			final ArrayNode copy = copyOf((ArrayNode) parent);
+			copy.set(indexOf(name, copy.size(), path), value);
+			return copy;
+		});
+	}
+
+	private static JsonNode remove(final JsonNode document, final JsonPointer path) {
+		if (path.matches())
+			throw new IllegalArgumentException("the whole document cannot be removed");
+		return edit(document, path, (parent, name) -> {
+			if (parent.isObject()) {
+				if (null == parent.get(name))
+					throw new IllegalArgumentException("there is no value at " + path);
+				final ObjectNode copy = copyOf((ObjectNode) parent);
+				copy.remove(name);
+				return copy;
+			}
+
+			final ArrayNode copy = copyOf((ArrayNode) parent);
+			copy.remove(indexOf(name, copy.size(), path));
+			return copy;
+		});
+	}
+
+	/*
+	 * This method walks the path down to the parent of its last segment, handing the parent
+	 * to the edit and putting what it returns in place of the parent on a copy of each of the
+	 * containers on the way back up
+	 */
+	private static JsonNode edit(final JsonNode node, final JsonPointer path, final Edit edit) {
+		if (!node.isContainerNode())
+			throw new IllegalArgumentException("there is no object or array holding " + path);
+
+		final String name = path.getMatchingProperty();
+		if (path.tail().matches())
+			return edit.apply(node, name);
+
+		if (node.isObject()) {
+			final JsonNode child = node.get(name);
+			if (null == child)
+				throw new IllegalArgumentException("there is no value at " + path);
+			return copyOf((ObjectNode) node).set(name, edit(child, path.tail(), edit));
+		}
+
+		final ArrayNode copy = copyOf((ArrayNode) node);
+		final int index = indexOf(name, copy.size(), path);
+		copy.set(index, edit(copy.get(index), path.tail(), edit));
+		return copy;
+	}
+
+	/*
+	 * An index is only made of digits, without leading zeros, and must be below the informed bound
+	 */
+	private static int indexOf(final String name, final int bound, final JsonPointer path) {
+		if (name.isEmpty() || name.length() > 10 || (name.length() > 1 && '0' == name.charAt(0)))
+			throw new IllegalArgumentException("invalid array index at " + path);
+		for (int i = 0; i < name.length(); i++)
+			if (name.charAt(i) < '0' || name.charAt(i) > '9')
+				throw new IllegalArgumentException("invalid array index at " + path);
+
+		final long index = Long.parseLong(name);
+		if (index >= bound)
+			throw new IllegalArgumentException("the array index at " + path + " is out of bounds");
+		return (int) index;
+	}
+
+	private static ObjectNode copyOf(final ObjectNode node) {
+		final ObjectNode copy = NODE_FACTORY.objectNode();
+		copy.setAll(node);
+		return copy;
+	}
+
+	private static ArrayNode copyOf(final ArrayNode node) {
+		final ArrayNode copy = NODE_FACTORY.arrayNode(node.size());
+		copy.addAll(node);
+		return copy;
+	}
+
+	private static String textOf(final JsonNode operation, final String member) {
+		final JsonNode value = operation.get(member);
+		if (null == value || !value.isTextual())
+			throw new IllegalArgumentException("the JSON Patch operation " + operation + " has no " + member);
+		return value.textValue();
+	}
+
+	private static JsonPointer pointerOf(final JsonNode operation, final String member) {
+		return JsonPointer.compile(textOf(operation, member));
+	}
+
+	private static JsonNode valueOf(final JsonNode operation) {
+		final JsonNode value = operation.get("value");
+		if (null == value)
+			throw new IllegalArgumentException("the JSON Patch operation " + operation + " has no value");
+		return value;
+	}
+
+	/*
+	 * The change applied to the container holding the last segment of a path, returning the changed copy
+	 */
+	@FunctionalInterface
+	private interface Edit {
+
+		JsonNode apply(JsonNode parent, String name);
+
+	}
+}
@@ -0,0 +1,208 @@
+package com.waes.assessment.common;
+
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.Map;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.JsonNode;
+
+/**
+ * This class writes the difference between two parsed JSON payloads as a JSON Patch
+ * (RFC 6902), being the operations that turn the left payload into the right one,
+ * written straight to a {@link JsonGenerator} as soon as each of them is found, so
+ * nothing but the path of the node being diffed is held while they are written
+ *
+ * The paths are JSON Pointers (RFC 6901), and the operations are applied one after
+ * the other, so the index of an element refers to the array as the prior operations
+ * left it, where the elements of both arrays are aligned through the
+ * {@link ArrayAlignment} and only the ones in between are removed, added or diffed
+ *
+ * @author Daniel Chiuratto Seabra
+ *
+ */
+public final class JsonPatchWriter {
+
+	private final JsonGenerator generator;
+	private final SubtreeHashes leftHashes;
+	private final SubtreeHashes rightHashes;
+	private final int alignmentMaxCost;
+	private final StringBuilder path = new StringBuilder(64);
+
+	private JsonPatchWriter(final JsonGenerator generator, final SubtreeHashes leftHashes, final SubtreeHashes rightHashes,
+			final int alignmentMaxCost) {
+		this.generator = generator;
+		this.leftHashes = leftHashes;
+		this.rightHashes = rightHashes;
+		this.alignmentMaxCost = alignmentMaxCost;
+	}
+
+	/**
+	 * This method writes the JSON Patch that turns the left payload into the right one,
+	 * being an empty array when both of them are equal
+	 *
+	 * @param leftNode containing the {@link JsonNode} of the left payload
+	 * @param leftHashes containing the {@link SubtreeHashes} of the left payload
+	 * @param rightNode containing the {@link JsonNode} of the right payload
+	 * @param rightHashes containing the {@link SubtreeHashes} of the right payload
+	 * @param alignmentMaxCost containing the maximum amount of inserted and removed elements looked for when aligning two arrays
+	 * @param generator containing the {@link JsonGenerator} created by an {@link com.fasterxml.jackson.databind.ObjectMapper},
+	 * so it is able to write the values being added
+	 * @throws IOException when the patch cannot be written
+	 */
+	public static void write(final JsonNode leftNode, final SubtreeHashes leftHashes, final JsonNode rightNode,
+			final SubtreeHashes rightHashes, final int alignmentMaxCost, final JsonGenerator generator) throws IOException {
+		final JsonPatchWriter writer = new JsonPatchWriter(generator, leftHashes, rightHashes, alignmentMaxCost);
+
+		// The start of the array is sent right away, so the requestor starts receiving the
+		// patch before the diff has gone any further
+		generator.writeStartArray();
+		generator.flush();
+		if (!writer.isSame(leftNode, rightNode))
+			writer.diffNodes(leftNode, rightNode);
+		generator.writeEndArray();
+		generator.flush();
+	}
+
+	/*
+	 * Both nodes are already known to be different, where only two objects or two arrays
+	 * are looked into, any other pair being replaced as a whole
+	 */
+	private void diffNodes(final JsonNode left, final JsonNode right) throws IOException {
+		if (left.isObject() && right.isObject())
+			this.diffFields(left, right);
+		else if (left.isArray() && right.isArray())
+			this.diffElements(left, right);
+		else this.operation("replace", right);
+	}
+
+	private void diffFields(final JsonNode left, final JsonNode right) throws IOException {
+		final int length = this.path.length();
+
+		final Iterator<Map.Entry<String, JsonNode>> leftFields = left.fields();
+		while (leftFields.hasNext()) {
+			final Map.Entry<String, JsonNode> field = leftFields.next();
+			final JsonNode rightValue = right.get(field.getKey());
+			if (null != rightValue && this.isSame(field.getValue(), rightValue))
+				continue;
+
+			this.pushField(field.getKey());
+			if (null == rightValue)
+				this.operation("remove", null);
+			else this.diffNodes(field.getValue(), rightValue);
+			this.path.setLength(length);
+		}
+
+		final Iterator<Map.Entry<String, JsonNode>> rightFields = right.fields();
+		while (rightFields.hasNext()) {
+			final Map.Entry<String, JsonNode> field = rightFields.next();
+			if (null != left.get(field.getKey()))
+				continue;
+
+			this.pushField(field.getKey());
+			this.operation("add", field.getValue());
+			this.path.setLength(length);
+		}
+	}
+
+	/*
+	 * The equal elements at the start and at the end of both arrays are left as they are, and the
+	 * ones in between are aligned, where the elements between two aligned pairs are diffed against
+	 * each other while both arrays have them, being the rest of them removed or added
+	 */
+	private void diffElements(final JsonNode left, final JsonNode right) throws IOException {
+		int start = 0;
+		int leftEnd = left.size();
+		int rightEnd = right.size();
+		while (start < leftEnd && start < rightEnd && this.isSame(left.get(start), right.get(start)))
+			start++;
+		while (leftEnd > start && rightEnd > start && this.isSame(left.get(leftEnd - 1), right.get(rightEnd - 1))) {
+			leftEnd--;
+			rightEnd--;
+		}
+
+		final int n = leftEnd - start;
+		final int m = rightEnd - start;
+		final int[] alignment = ArrayAlignment.align(hashesOf(left, this.leftHashes, start, leftEnd),
+				hashesOf(right, this.rightHashes, start, rightEnd), this.alignmentMaxCost);
+
+		// The index is where the next element is in the array as the prior operations left it,
+		// being everything before it already equal to the right array
+		int index = start;
+		int i = 0;
+		int j = 0;
+		while (i < n || j < m) {
+			int leftGapEnd = i;
+			while (leftGapEnd < n && (null == alignment || alignment[leftGapEnd] < 0))
+				leftGapEnd++;
+			final int rightGapEnd = leftGapEnd < n ? alignment[leftGapEnd] : m;
+
+			for (; i < leftGapEnd && j < rightGapEnd; i++, j++, index++)
+				if (!this.isSame(left.get(start + i), right.get(start + j)))
+					this.diffElement(index, left.get(start + i), right.get(start + j));
+			for (; i < leftGapEnd; i++)
+				this.elementOperation(index, "remove", null);
+			for (; j < rightGapEnd; j++, index++)
+				this.elementOperation(index, "add", right.get(start + j));
+
+			// The aligned pair is equal, so it is only stepped over
+			if (i < n) {
+				i++;
+				j++;
+				index++;
+			}
+		}
+	}
+
+	private void diffElement(final int index, final JsonNode left, final JsonNode right) throws IOException {
+		final int length = this.path.length();
+		this.path.append('/').append(index);
+		this.diffNodes(left, right);
+		this.path.setLength(length);
+	}
+
+	private void elementOperation(final int index, final String op, final JsonNode value) throws IOException {
+		final int length = this.path.length();
+		this.path.append('/').append(index);
+		this.operation(op, value);
+		this.path.setLength(length);
+	}
+
+	private void operation(final String op, final JsonNode value) throws IOException {
+		this.generator.writeStartObject();
+		this.generator.writeStringField("op", op);
+		this.generator.writeStringField("path", this.path.toString());
+		if (null != value) {
+			this.generator.writeFieldName("value");
+			this.generator.writeTree(value);
+		}
+		this.generator.writeEndObject();
+	}
+
+	/*
+	 * The name of a field is escaped as the JSON Pointer expects, where the tilde and the slash
+	 * are written as ~0 and ~1
+	 */
+	private void pushField(final String fieldName) {
+		this.path.append('/');
+		for (int i = 0; i < fieldName.length(); i++) {
+			final char c = fieldName.charAt(i);
+			if ('~' == c)
+				this.path.append("~0");
+			else if ('/' == c)
+				this.path.append("~1");
+			else this.path.append(c);
+		}
+	}
+
+	private boolean isSame(final JsonNode left, final JsonNode right) {
+		return SubtreeHashes.isSame(left, this.leftHashes, right, this.rightHashes);
+	}
+
+	private static long[] hashesOf(final JsonNode node, final SubtreeHashes hashes, final int from, final int to) {
+		final long[] keys = new long[to - from];
+		for (int i = from; i < to; i++)
+			keys[i - from] = hashes.hashOf(node.get(i));
+		return keys;
+	}
+}
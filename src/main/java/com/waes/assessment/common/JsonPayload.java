@@ -0,0 +1,135 @@
+package com.waes.assessment.common;
+
+import com.fasterxml.jackson.databind.JsonNode;
+
+/**
+ * This class carries a payload received by the application, already decoded
+ * from Base64 and parsed, holding both the JSON bytes and the {@link JsonNode}
+ * they represent, so nothing has to be decoded or parsed again afterwards,
+ * together with the {@link ContentHash} of the bytes
+ *
+ * The {@link ContentHash} and the size of the {@link CanonicalJson} form of the
+ * payload are kept as well, so two payloads formatted in different ways are
+ * found equal, or of different sizes, without being compared again
+ *
+ * A payload read as {@link PayloadFormat#BINARY} holds only its bytes, which
+ * are compared byte by byte instead of as JSON, being its own canonical form
+ *
+ * A payload patched out of a stored one carries the {@link SubtreeHashes} of its
+ * tree as well, computed from the hashes of the stored tree it shares most of its
+ * subtrees with, so they are not computed again from scratch when it is stored
+ *
+ * @author Daniel Chiuratto Seabra
+ *
+ */
+public final class JsonPayload {
+
+	private final byte[] bytes;
+	private final JsonNode tree;
+	private final ContentHash hash;
+	private final PayloadFormat format;
+	private final ContentHash canonicalHash;
+	private final int canonicalSize;
+	private final SubtreeHashes subtreeHashes;
+
+	public JsonPayload(final byte[] bytes, final JsonNode tree) {
+		this(bytes, tree, PayloadFormat.JSON);
+	}
+
+	public JsonPayload(final byte[] bytes, final JsonNode tree, final PayloadFormat format) {
+		this(bytes, tree, format, null == tree ? bytes : CanonicalJson.of(tree));
+	}
+
+	/**
+	 * @param bytes containing the decoded bytes
+	 * @param tree containing the parsed JSON or {@code null} when it is not kept
+	 * @param format containing the {@link PayloadFormat} the bytes have been read in
+	 * @param canonicalBytes containing the {@link CanonicalJson} form of the bytes
+	 */
+	public JsonPayload(final byte[] bytes, final JsonNode tree, final PayloadFormat format, final byte[] canonicalBytes) {
+		this(bytes, tree, format, canonicalBytes, null);
+	}
+
+	/**
+	 * @param bytes containing the decoded bytes
+	 * @param tree containing the parsed JSON or {@code null} when it is not kept
+	 * @param format containing the {@link PayloadFormat} the bytes have been read in
+	 * @param canonicalBytes containing the {@link CanonicalJson} form of the bytes
+	 * @param subtreeHashes containing the {@link SubtreeHashes} already computed for the tree, if any
+	 */
+	public JsonPayload(final byte[] bytes, final JsonNode tree, final PayloadFormat format, final byte[] canonicalBytes,
+			final SubtreeHashes subtreeHashes) {
+		this.bytes = bytes;
+		this.subtreeHashes = subtreeHashes;
+		this.tree = tree;
+		this.format = format;
+		this.hash = ContentHash.of(bytes, format);
+		this.canonicalHash = canonicalBytes == bytes ? this.hash : ContentHash.of(canonicalBytes, format);
+		this.canonicalSize = canonicalBytes.length;
+	}
+
+	/**
+	 * Returns the decoded JSON bytes
+	 *
+	 * @return {@code byte[]} containing the JSON
+	 */
+	public byte[] getBytes() {
+		return this.bytes;
+	}
+
+	/**
+	 * Returns the parsed representation of the JSON
+	 *
+	 * @return {@link JsonNode} containing the parsed JSON or {@code null} when the
+	 * payloads are compared through the {@link StreamingJsonDiff}
+	 */
+	public JsonNode getTree() {
+		return this.tree;
+	}
+
+	/**
+	 * Returns the hash of the decoded JSON bytes
+	 *
+	 * @return {@link ContentHash} of the bytes
+	 */
+	public ContentHash getHash() {
+		return this.hash;
+	}
+
+	/**
+	 * Returns the hash of the canonical form of the payload
+	 *
+	 * @return {@link ContentHash} of the {@link CanonicalJson} form
+	 */
+	public ContentHash getCanonicalHash() {
+		return this.canonicalHash;
+	}
+
+	/**
+	 * Returns the amount of bytes of the canonical form of the payload
+	 *
+	 * @return {@code int} containing the size in bytes of the {@link CanonicalJson} form
+	 */
+	public int getCanonicalSize() {
+		return this.canonicalSize;
+	}
+
+	/**
+	 * Returns the format the payload has been read in
+	 *
+	 * @return {@link PayloadFormat} being either {@link PayloadFormat#JSON} or {@link PayloadFormat#BINARY}
+	 */
+	public PayloadFormat getFormat() {
+		return this.format;
+	}
+
+	/**
+	 * Returns the hashes of the objects and arrays of the tree, when they have been computed along with it
+	 *
+	 * @return {@link SubtreeHashes} of the tree or {@code null} when they are computed once it is stored
+	 */
+	public SubtreeHashes getSubtreeHashes() {
+		return this.subtreeHashes;
+	}
+
+}
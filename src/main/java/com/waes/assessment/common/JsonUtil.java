@@ -1,10 +1,16 @@
 package com.waes.assessment.common;
 
 import java.util.ArrayList;
-import java.util.Collection;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveTask;
 
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.node.ContainerNode;
@@ -21,6 +27,12 @@ import com.fasterxml.jackson.databind.node.ValueNode;
  */
 public abstract class JsonUtil {
 
+	/**
+	 * The maximum amount of inserted and removed elements looked for when aligning two arrays, after which
+	 * their elements are compared by position
+	 */
+	public static final int DEFAULT_ALIGNMENT_MAX_COST = 512;
+
 	/**
 	 * This method processes both {@link JsonNode} set as parameter, to find which fields has difference
 	 * and the difference itself
@@ -64,109 +76,559 @@ public abstract class JsonUtil {
 	 * @return {@link Map} containing the diff result found on both {@link JsonNode} received by the parameter
 	 */
 	public static Map<String, Map<String, Object>> buildDiffMapResult(final JsonNode leftNode, final JsonNode rightNode) {
+		return buildDiffMapResult(leftNode, null, rightNode, null);
+	}
 
-		final Map<String, Map<String, Object>> result = new HashMap<>();
-		final StringBuilder sb = new StringBuilder();
-		
-		final Collection<String> fieldNames = concatenateFieldNames(leftNode.fieldNames());
-		fieldNames.addAll(concatenateFieldNames(rightNode.fieldNames()));
-		
-		recursiveProcess(sb, result, leftNode, rightNode, fieldNames);
-		
-		return result;
+	/**
+	 * This method builds the same diff as {@link #buildDiffMapResult(JsonNode, JsonNode)}, skipping
+	 * every pair of objects or arrays whose {@link SubtreeHashes} are equal instead of comparing
+	 * them node by node, so only the branches that really differ are descended
+	 * 
+	 * @param leftNode {@link JsonNode} containing the payload coming from the left memory
+	 * @param leftHashes {@link SubtreeHashes} of the left payload or {@code null} to compare it node by node
+	 * @param rightNode {@link JsonNode} containing the payload coming from the right memory
+	 * @param rightHashes {@link SubtreeHashes} of the right payload or {@code null} to compare it node by node
+	 * 
+	 * @return {@link Map} containing the diff result found on both {@link JsonNode} received by the parameter
+	 */
+	public static Map<String, Map<String, Object>> buildDiffMapResult(final JsonNode leftNode, final SubtreeHashes leftHashes,
+			final JsonNode rightNode, final SubtreeHashes rightHashes) {
+		return buildDiffMapResult(leftNode, leftHashes, rightNode, rightHashes, 0, DEFAULT_ALIGNMENT_MAX_COST);
+	}
+
+	/**
+	 * This method builds the same diff as {@link #buildDiffMapResult(JsonNode, SubtreeHashes, JsonNode, SubtreeHashes)},
+	 * splitting the fields of every pair of objects having more than the informed threshold of fields into tasks
+	 * run by the common {@link ForkJoinPool}, whose partial results are merged into the returned {@link Map}
+	 * 
+	 * The elements of two arrays are reported under their index, as in <b>items[12].price</b>, once both arrays
+	 * are aligned by the {@link ArrayAlignment}, so an element inserted or removed is reported by itself instead of
+	 * shifting every element after it, where the arrays needing more than the informed cost of insertions and
+	 * removals to be aligned are compared by position instead
+	 * 
+	 * @param leftNode {@link JsonNode} containing the payload coming from the left memory
+	 * @param leftHashes {@link SubtreeHashes} of the left payload or {@code null} to compare it node by node
+	 * @param rightNode {@link JsonNode} containing the payload coming from the right memory
+	 * @param rightHashes {@link SubtreeHashes} of the right payload or {@code null} to compare it node by node
+	 * @param parallelThreshold containing the amount of fields above which an object is diffed in parallel, where zero never does it
+	 * @param alignmentMaxCost containing the maximum amount of inserted and removed elements looked for when aligning two arrays
+	 * 
+	 * @return {@link Map} containing the diff result found on both {@link JsonNode} received by the parameter
+	 */
+	public static Map<String, Map<String, Object>> buildDiffMapResult(final JsonNode leftNode, final SubtreeHashes leftHashes,
+			final JsonNode rightNode, final SubtreeHashes rightHashes, final int parallelThreshold, final int alignmentMaxCost) {
+		return buildDiffMapResult(leftNode, leftHashes, rightNode, rightHashes, parallelThreshold, alignmentMaxCost, IdentityKeys.NONE);
+	}
+
+	/**
+	 * This method builds the same diff as {@link #buildDiffMapResult(JsonNode, SubtreeHashes, JsonNode, SubtreeHashes, int, int)},
+	 * matching the elements of the arrays configured on the {@link IdentityKeys} by the value of their identity field instead
+	 * of aligning them, where the elements matched are reported under their identity, as in <b>items[sku=abc].price</b>
+	 * 
+	 * @param leftNode {@link JsonNode} containing the payload coming from the left memory
+	 * @param leftHashes {@link SubtreeHashes} of the left payload or {@code null} to compare it node by node
+	 * @param rightNode {@link JsonNode} containing the payload coming from the right memory
+	 * @param rightHashes {@link SubtreeHashes} of the right payload or {@code null} to compare it node by node
+	 * @param parallelThreshold containing the amount of fields above which an object is diffed in parallel, where zero never does it
+	 * @param alignmentMaxCost containing the maximum amount of inserted and removed elements looked for when aligning two arrays
+	 * @param identityKeys containing the {@link IdentityKeys} of the arrays whose elements are matched by an identity field
+	 * 
+	 * @return {@link Map} containing the diff result found on both {@link JsonNode} received by the parameter
+	 */
+	public static Map<String, Map<String, Object>> buildDiffMapResult(final JsonNode leftNode, final SubtreeHashes leftHashes,
+			final JsonNode rightNode, final SubtreeHashes rightHashes, final int parallelThreshold, final int alignmentMaxCost,
+			final IdentityKeys identityKeys) {
+		return buildDiffMapResult(leftNode, leftHashes, rightNode, rightHashes, parallelThreshold, alignmentMaxCost, identityKeys, Integer.MAX_VALUE);
+	}
+
+	/**
+	 * This method builds the same diff as {@link #buildDiffMapResult(JsonNode, SubtreeHashes, JsonNode, SubtreeHashes, int, int, IdentityKeys)},
+	 * stopping as soon as the informed limit of differences has been found, so only the first differences are returned
+	 * 
+	 * @param leftNode {@link JsonNode} containing the payload coming from the left memory
+	 * @param leftHashes {@link SubtreeHashes} of the left payload or {@code null} to compare it node by node
+	 * @param rightNode {@link JsonNode} containing the payload coming from the right memory
+	 * @param rightHashes {@link SubtreeHashes} of the right payload or {@code null} to compare it node by node
+	 * @param parallelThreshold containing the amount of fields above which an object is diffed in parallel, where zero never does it
+	 * @param alignmentMaxCost containing the maximum amount of inserted and removed elements looked for when aligning two arrays
+	 * @param identityKeys containing the {@link IdentityKeys} of the arrays whose elements are matched by an identity field
+	 * @param limit containing the maximum amount of differences returned
+	 * 
+	 * @return {@link Map} containing up to the limit of differences found on both {@link JsonNode} received by the parameter
+	 */
+	public static Map<String, Map<String, Object>> buildDiffMapResult(final JsonNode leftNode, final SubtreeHashes leftHashes,
+			final JsonNode rightNode, final SubtreeHashes rightHashes, final int parallelThreshold, final int alignmentMaxCost,
+			final IdentityKeys identityKeys, final int limit) {
+		final DiffCollector result = DiffCollector.keeping(limit);
+		diff(leftNode, rightNode, result, new DiffContext(leftHashes, rightHashes, parallelThreshold, alignmentMaxCost, identityKeys));
+		return result.getDifferences();
+	}
+
+	/**
+	 * This method counts the differences that {@link #buildDiffMapResult(JsonNode, SubtreeHashes, JsonNode, SubtreeHashes, int, int, IdentityKeys)}
+	 * would return, without building their paths or their values
+	 * 
+	 * @param leftNode {@link JsonNode} containing the payload coming from the left memory
+	 * @param leftHashes {@link SubtreeHashes} of the left payload or {@code null} to compare it node by node
+	 * @param rightNode {@link JsonNode} containing the payload coming from the right memory
+	 * @param rightHashes {@link SubtreeHashes} of the right payload or {@code null} to compare it node by node
+	 * @param parallelThreshold containing the amount of fields above which an object is diffed in parallel, where zero never does it
+	 * @param alignmentMaxCost containing the maximum amount of inserted and removed elements looked for when aligning two arrays
+	 * @param identityKeys containing the {@link IdentityKeys} of the arrays whose elements are matched by an identity field
+	 * 
+	 * @return {@code int} containing the amount of differences found on both {@link JsonNode} received by the parameter
+	 */
+	public static int countDifferences(final JsonNode leftNode, final SubtreeHashes leftHashes, final JsonNode rightNode,
+			final SubtreeHashes rightHashes, final int parallelThreshold, final int alignmentMaxCost, final IdentityKeys identityKeys) {
+		final DiffCollector result = DiffCollector.counting();
+		diff(leftNode, rightNode, result, new DiffContext(leftHashes, rightHashes, parallelThreshold, alignmentMaxCost, identityKeys));
+		return result.getCount();
+	}
+
+	/**
+	 * This method builds the diff of two objects out of the diff built when one of them held a previous
+	 * version, only walking the fields whose subtree hashes changed from that version, so it costs as much
+	 * as the change does rather than as much as the whole payloads do
+	 * 
+	 * The previous diff is already in the order the fields were walked, so the differences under each field
+	 * are found next to each other while walking it once, being the ones of a field that did not change kept
+	 * as they are and the ones of a changed field replaced by the ones found against the current version, in
+	 * the order the full diff walks the fields, where only the objects are walked into, since a change inside
+	 * an array can shift the alignment of all of it
+	 * 
+	 * @param previousDifference containing the diff built against the previous version of the changed side
+	 * @param leftNode {@link JsonNode} containing the payload coming from the left memory
+	 * @param leftHashes {@link SubtreeHashes} of the left payload
+	 * @param rightNode {@link JsonNode} containing the payload coming from the right memory
+	 * @param rightHashes {@link SubtreeHashes} of the right payload
+	 * @param previousNode {@link JsonNode} containing the previous version of the changed side
+	 * @param previousHashes {@link SubtreeHashes} of the previous version of the changed side
+	 * @param rightChanged containing {@code true} when the right side changed and {@code false} when the left one did
+	 * @param alignmentMaxCost containing the maximum amount of inserted and removed elements looked for when aligning two arrays
+	 * @param identityKeys containing the {@link IdentityKeys} of the arrays whose elements are matched by an identity field
+	 * 
+	 * @return {@link Map} containing the difference between both {@link JsonNode}, or {@code null} when any of them is not an
+	 *         object or when a field name walked holds a dot or a bracket, which leaves the paths unable to tell the fields apart
+	 */
+	public static Map<String, Map<String, Object>> rediff(final Map<String, Map<String, Object>> previousDifference,
+			final JsonNode leftNode, final SubtreeHashes leftHashes, final JsonNode rightNode, final SubtreeHashes rightHashes,
+			final JsonNode previousNode, final SubtreeHashes previousHashes, final boolean rightChanged, final int alignmentMaxCost,
+			final IdentityKeys identityKeys) {
+		if (!leftNode.isObject() || !rightNode.isObject() || !previousNode.isObject())
+			return null;
+
+		final DiffCollector result = DiffCollector.keeping(Integer.MAX_VALUE);
+		final DiffContext context = new DiffContext(leftHashes, rightHashes, 0, alignmentMaxCost, identityKeys);
+		final boolean rediffed = rediffFields(new DiffPath(), previousDifference.entrySet().iterator(), result,
+				rightChanged ? leftNode : rightNode, previousNode, previousHashes, rightChanged ? rightNode : leftNode,
+				rightChanged ? rightHashes : leftHashes, rightChanged, context);
+		return rediffed ? result.getDifferences() : null;
+	}
+
+	/*
+	 * This method takes the previous differences under each field of the object out of the ones received, in
+	 * the order the previous version was walked, and then walks the fields in the order of the current version,
+	 * keeping the previous differences of the fields that are the same on both versions, going into the ones
+	 * that are objects on both versions and on the unchanged side as well, and diffing any other of them again
+	 */
+	private static boolean rediffFields(final DiffPath path, final Iterator<Map.Entry<String, Map<String, Object>>> previousDifference,
+			final DiffCollector result, final JsonNode unchangedNode, final JsonNode previousNode, final SubtreeHashes previousHashes,
+			final JsonNode currentNode, final SubtreeHashes currentHashes, final boolean rightChanged, final DiffContext context) {
+		final List<String> previousFieldNames = rightChanged ? fieldNamesOf(unchangedNode, previousNode) : fieldNamesOf(previousNode, unchangedNode);
+		final List<String> currentFieldNames = rightChanged ? fieldNamesOf(unchangedNode, currentNode) : fieldNamesOf(currentNode, unchangedNode);
+		if (!arePlain(previousFieldNames) || !arePlain(currentFieldNames))
+			return false;
+
+		final Map<String, List<Map.Entry<String, Map<String, Object>>>> previousFields = new HashMap<>(previousFieldNames.size() * 4 / 3 + 1);
+		Map.Entry<String, Map<String, Object>> entry = previousDifference.hasNext() ? previousDifference.next() : null;
+		for (final String fieldName : previousFieldNames) {
+			path.pushField(fieldName);
+			final List<Map.Entry<String, Map<String, Object>>> entries = new ArrayList<>();
+			while (null != entry && isUnder(entry.getKey(), path)) {
+				entries.add(entry);
+				entry = previousDifference.hasNext() ? previousDifference.next() : null;
+			}
+			path.pop();
+			previousFields.put(fieldName, entries);
+		}
+
+		for (final String fieldName : currentFieldNames) {
+			final JsonNode unchanged = unchangedNode.get(fieldName);
+			final JsonNode previous = previousNode.get(fieldName);
+			final JsonNode current = currentNode.get(fieldName);
+			final List<Map.Entry<String, Map<String, Object>>> entries = previousFields.get(fieldName);
+			if (null != entries && (null == previous ? null == current
+					: null != current && SubtreeHashes.isSame(previous, previousHashes, current, currentHashes))) {
+				for (final Map.Entry<String, Map<String, Object>> kept : entries)
+					result.keep(kept.getKey(), kept.getValue());
+			} else if (null != entries && null != unchanged && null != previous && null != current && unchanged.isObject()
+					&& previous.isObject() && current.isObject()) {
+				path.pushField(fieldName);
+				final boolean rediffed = rediffFields(path, entries.iterator(), result, unchanged, previous, previousHashes, current,
+						currentHashes, rightChanged, context);
+				path.pop();
+				if (!rediffed)
+					return false;
+			} else diffField(path, result, fieldName, rightChanged ? unchanged : current, rightChanged ? current : unchanged, context);
+		}
+		return true;
+	}
+
+	/*
+	 * A path is under a field when it starts with the path of the field followed by nothing else, by a
+	 * nested field or by an element, which tells the fields apart as long as no name holds a dot or a bracket
+	 */
+	private static boolean isUnder(final String path, final CharSequence fieldPath) {
+		final int length = fieldPath.length();
+		if (path.length() < length)
+			return false;
+		for (int i = 0; i < length; i++)
+			if (path.charAt(i) != fieldPath.charAt(i))
+				return false;
+		return path.length() == length || '.' == path.charAt(length) || '[' == path.charAt(length);
+	}
+
+	private static boolean arePlain(final List<String> fieldNames) {
+		for (final String fieldName : fieldNames)
+			if (-1 != fieldName.indexOf('.') || -1 != fieldName.indexOf('['))
+				return false;
+		return true;
+	}
+
+	private static void diff(final JsonNode leftNode, final JsonNode rightNode, final DiffCollector result, final DiffContext context) {
+		final DiffPath path = new DiffPath();
+		if (leftNode.isArray() && rightNode.isArray())
+			diffElements(path, result, leftNode, rightNode, 0, context);
+		else recursiveProcess(path, result, leftNode, rightNode, context);
+	}
+
+	/*
+	 * This method diffs the fields of both nodes placing them under the DiffPath, which is
+	 * also used by the StreamingJsonDiff on the objects it buffers
+	 */
+	static void diffFields(final DiffPath path, final DiffCollector result, final JsonNode leftNode, final JsonNode rightNode,
+			final int alignmentMaxCost, final IdentityKeys identityKeys) {
+		recursiveProcess(path, result, leftNode, rightNode, new DiffContext(null, null, 0, alignmentMaxCost, identityKeys));
+	}
+
+	/*
+	 * This method diffs the elements of both arrays placing them under the DiffPath, numbering them
+	 * from the informed offset, which is used by the StreamingJsonDiff on the rest of the arrays it
+	 * buffers once their first elements have been found equal
+	 */
+	static void diffElements(final DiffPath path, final DiffCollector result, final JsonNode leftNode, final JsonNode rightNode,
+			final int offset, final int alignmentMaxCost, final IdentityKeys identityKeys) {
+		diffElements(path, result, leftNode, rightNode, offset, new DiffContext(null, null, 0, alignmentMaxCost, identityKeys));
 	}
 
 	/*
 	 * This method was created to attend the approach of using recursion during the JsonNode analysis to build
 	 * the diff Map result
 	 */
-	private static void recursiveProcess(final StringBuilder sb, final Map<String, Map<String, Object>> result, final JsonNode leftNode, final JsonNode rightNode, final Collection<String> fieldNames) {
-		// First call an iteration because each JsonNode contains a set of fields that is dynamic, so
-		// the best approach to avoid the need of knowing their names is iterating through them
-		for (final String fieldName : fieldNames) {
-			
-			// After confirming that both JsonNode contains the respective field name in it
-			// then we can proceed with their check
-			if (leftNode.has(fieldName) && rightNode.has(fieldName)) {
-				final JsonNode left = leftNode.get(fieldName);
-				final JsonNode right = rightNode.get(fieldName);
-				
-				// Below in case of both JsonNode has difference, so we have three scenarios to check:
-				// If both are Containers so we call this recursiveProcess method using its childs as parameters
-				// If both are Values so we set their differences
-				// Otherwise we consider that both are different being one Container and the other a Value
-				// or vice-versa
-				if (!left.equals(right))
-					if (isBothContainerNode(left, right))
-						processBothContainerNode(sb, result, fieldName, left, right);
-					else if (isBothValueNode(left, right))
-						processBothValueNode(sb, result, fieldName, left, right);
-					else processDifferentNode(sb, result, fieldName, left, right);
- 			} else {
- 				// This block is accessed when one of the JsonNode does not contain the respective field name
- 				// so here we find who is unavailable and in which of sides left or right
-				appendPathDot(sb, fieldName);
- 				
-				// Here using ternary statements we define who has value and who's unavailable
- 				final Object leftResult = leftNode.has(fieldName) ? leftNode.get(fieldName).asText() : Constant.UNAVAILABLE_FIELD;
- 				final Object rightResult = rightNode.has(fieldName) ? rightNode.get(fieldName).asText() : Constant.UNAVAILABLE_FIELD;
- 				
- 				// We set the result of the previous process in a sub result to be added on the main result carrier
- 				final Map<String, Object> subResult = new HashMap<>();
- 				subResult.put(Endpoint.LEFT.getValue(), leftResult);
- 				subResult.put(Endpoint.RIGHT.getValue(), rightResult);
- 				
- 				result.put(sb.toString(), subResult);
- 				reducePath(sb);
- 			}
+	private static void recursiveProcess(final DiffPath path, final DiffCollector result, final JsonNode leftNode,
+			final JsonNode rightNode, final DiffContext context) {
+		// The fields of a wide object are diffed by the ForkJoinPool, each task under its own copy of the path
+		if (context.parallelThreshold > 0 && leftNode.size() + rightNode.size() > context.parallelThreshold) {
+			final FieldsTask task = new FieldsTask(path.toString(), result, leftNode, rightNode, fieldNamesOf(leftNode, rightNode), context);
+			result.merge(ForkJoinTask.inForkJoinPool() ? task.invoke() : ForkJoinPool.commonPool().invoke(task));
+			return;
+		}
+
+		// The fields of each JsonNode are dynamic, so the best approach to avoid the need of knowing their
+		// names is iterating through them, first through the left ones and then through the ones only the
+		// right JsonNode has, so each field is visited once without copying their names anywhere, where
+		// the iteration stops as soon as the limit of differences has been found
+		final Iterator<Map.Entry<String, JsonNode>> leftFields = leftNode.fields();
+		while (leftFields.hasNext() && !result.isFull()) {
+			final Map.Entry<String, JsonNode> field = leftFields.next();
+			diffField(path, result, field.getKey(), field.getValue(), rightNode.get(field.getKey()), context);
+		}
+
+		final Iterator<Map.Entry<String, JsonNode>> rightFields = rightNode.fields();
+		while (rightFields.hasNext() && !result.isFull()) {
+			final Map.Entry<String, JsonNode> field = rightFields.next();
+			if (null == leftNode.get(field.getKey()))
+				diffField(path, result, field.getKey(), null, field.getValue(), context);
 		}
 	}
 
 	/*
-	 * This method is used to process in the scenario when the iteration through the child nodes finds two nodes with different
-	 * types like a Container and a Value node
+	 * This method diffs a field of both JsonNode, where either of them can be null when only the other
+	 * JsonNode contains the field
 	 */
-	private static void processDifferentNode(final StringBuilder sb, final Map<String, Map<String, Object>> result,
-			final String fieldName, final JsonNode left, final JsonNode right) {
-		appendPathDot(sb, fieldName);
+	private static void diffField(final DiffPath path, final DiffCollector result, final String fieldName,
+			final JsonNode left, final JsonNode right, final DiffContext context) {
+		// After confirming that both JsonNode contains the respective field name in it
+		// then we can proceed with their check
+		if (null != left && null != right) {
+			// When the hashes of both trees are known, two containers are told apart by their hashes alone
+			if (!SubtreeHashes.isSame(left, context.leftHashes, right, context.rightHashes)) {
+				path.pushField(fieldName);
+				processDifferentNodes(path, result, left, right, context);
+				path.pop();
+			}
+			return;
+		}
+
+		// This block is accessed when one of the JsonNode does not contain the respective field name
+		// so here we find who is unavailable and in which of sides left or right
+		path.pushField(fieldName);
 		
-		final Map<String, Object> subResult = new HashMap<>();
-		subResult.put(Endpoint.LEFT.getValue(), left);
-		subResult.put(Endpoint.RIGHT.getValue(), right);
+		// Here using ternary statements we define who has value and who's unavailable
+		final Object leftResult = null != left ? left.asText() : Constant.UNAVAILABLE_FIELD;
+		final Object rightResult = null != right ? right.asText() : Constant.UNAVAILABLE_FIELD;
 		
-		result.put(sb.toString(), subResult);
-		reducePath(sb);
+		result.report(path, leftResult, rightResult);
+		path.pop();
+	}
+
+	/*
+	 * This method handles two nodes already known to be different, placed under the DiffPath,
+	 * where we have three scenarios to check:
+	 * If both are Containers so we call the recursiveProcess method using its childs as parameters
+	 * If both are Values so we set their differences
+	 * Otherwise we consider that both are different being one Container and the other a Value or vice-versa
+	 */
+	private static void processDifferentNodes(final DiffPath path, final DiffCollector result,
+			final JsonNode left, final JsonNode right, final DiffContext context) {
+		if (isBothContainerNode(left, right))
+			processBothContainerNode(path, result, left, right, context);
+		else if (isBothValueNode(left, right))
+			processBothValueNode(path, result, left, right);
+		else processDifferentNode(path, result, left, right);
+	}
+
+	/*
+	 * This method is used to process in the scenario when the iteration through the child nodes finds two nodes with different
+	 * types like a Container and a Value node
+	 */
+	private static void processDifferentNode(final DiffPath path, final DiffCollector result,
+			final JsonNode left, final JsonNode right) {
+		result.report(path, left, right);
 	}
 
 	/*
 	 * This method is used to process the scenario when the iteration through the child nodes of the parent node finds
 	 * two Value nodes to be set on the result
 	 */
-	private static void processBothValueNode(final StringBuilder sb, final Map<String, Map<String, Object>> result,
-			final String fieldName, final JsonNode left, final JsonNode right) {
-		appendPathDot(sb, fieldName);
-		
-		final Map<String, Object> subResult = new HashMap<>();
-		subResult.put(Endpoint.LEFT.getValue(), left.asText());
-		subResult.put(Endpoint.RIGHT.getValue(), right.asText());
-		
-		result.put(sb.toString(), subResult);
-		reducePath(sb);
+	private static void processBothValueNode(final DiffPath path, final DiffCollector result,
+			final JsonNode left, final JsonNode right) {
+		result.report(path, left.asText(), right.asText());
 	}
 
 	/*
 	 * This method is used to process the scenario when the itetarion through the child nodes of the parent node finds
-	 * two Container nodes to be processed recursively by the recursiveProcess method
+	 * two Container nodes to be processed recursively, by the diffElements method when both are arrays and by the
+	 * recursiveProcess method otherwise
 	 */
-	private static void processBothContainerNode(final StringBuilder sb, final Map<String, Map<String, Object>> result,
-			final String fieldName, final JsonNode left, final JsonNode right) {
-		appendPathDot(sb, fieldName);
-		
-		final Collection<String> fieldNames = concatenateFieldNames(left.fieldNames());
-		fieldNames.addAll(concatenateFieldNames(right.fieldNames()));
-		
-		recursiveProcess(sb, result, left, right, fieldNames);
-		reducePath(sb);
+	private static void processBothContainerNode(final DiffPath path, final DiffCollector result,
+			final JsonNode left, final JsonNode right, final DiffContext context) {
+		if (left.isArray() && right.isArray()) {
+			diffElements(path, result, left, right, 0, context);
+			return;
+		}
+
+		recursiveProcess(path, result, left, right, context);
+	}
+
+	/*
+	 * This method diffs the elements of two arrays, appending the index of each element to the path. The equal
+	 * elements at the start and at the end of both arrays are left out, and the elements in between are aligned,
+	 * unless the array has an identity field configured, where its elements are matched by that field instead
+	 */
+	private static void diffElements(final DiffPath path, final DiffCollector result, final JsonNode leftNode,
+			final JsonNode rightNode, final int offset, final DiffContext context) {
+		if (result.isFull())
+			return;
+
+		// Without the hashes of the whole trees, the elements are keyed by hashes computed once for the
+		// subtree of the outermost array, which are handed down to the arrays nested in it
+		final DiffContext keyed = null == context.leftKeyHashes ? context.withKeyHashes(SubtreeHashes.of(leftNode), SubtreeHashes.of(rightNode)) : context;
+		final SubtreeHashes leftHashes = keyed.leftKeyHashes;
+		final SubtreeHashes rightHashes = keyed.rightKeyHashes;
+
+		final String identityField = keyed.identityKeys.keyOf(path);
+		if (null != identityField) {
+			diffElementsByKey(path, result, leftNode, leftHashes, rightNode, rightHashes, offset, identityField, keyed);
+			return;
+		}
+
+		int start = 0;
+		int leftEnd = leftNode.size();
+		int rightEnd = rightNode.size();
+		while (start < leftEnd && start < rightEnd && leftHashes.hashOf(leftNode.get(start)) == rightHashes.hashOf(rightNode.get(start)))
+			start++;
+		while (leftEnd > start && rightEnd > start && leftHashes.hashOf(leftNode.get(leftEnd - 1)) == rightHashes.hashOf(rightNode.get(rightEnd - 1))) {
+			leftEnd--;
+			rightEnd--;
+		}
+
+		final long[] leftKeys = hashesOf(leftNode, leftHashes, start, leftEnd);
+		final long[] rightKeys = hashesOf(rightNode, rightHashes, start, rightEnd);
+		final int[] alignment = align(leftKeys, rightKeys, keyed.alignmentMaxCost);
+
+		diffUnalignedElements(path, result, leftNode, leftKeys, rightNode, rightKeys, alignment, offset + start, start, keyed);
+	}
+
+	/*
+	 * This method diffs the elements of two arrays of objects matching them by the value of their identity field,
+	 * where the matched elements are diffed under their identity, as in items[sku=abc].price, and the elements
+	 * without a match are reported as removed or added, never being diffed against each other
+	 */
+	private static void diffElementsByKey(final DiffPath path, final DiffCollector result, final JsonNode leftNode,
+			final SubtreeHashes leftHashes, final JsonNode rightNode, final SubtreeHashes rightHashes, final int offset,
+			final String identityField, final DiffContext context) {
+		final Map<JsonNode, Integer> rightIndexes = new HashMap<>(rightNode.size() * 4 / 3 + 1);
+		for (int j = 0; j < rightNode.size(); j++) {
+			final JsonNode identity = identityOf(rightNode.get(j), identityField);
+			if (null != identity)
+				rightIndexes.putIfAbsent(identity, j);
+		}
+		final Set<JsonNode> rightIdentities = new HashSet<>(rightIndexes.keySet());
+		final Set<JsonNode> leftIdentities = new HashSet<>(leftNode.size() * 4 / 3 + 1);
+
+		final boolean[] leftMatched = new boolean[leftNode.size()];
+		final boolean[] rightMatched = new boolean[rightNode.size()];
+		for (int i = 0; i < leftNode.size() && !result.isFull(); i++) {
+			final JsonNode identity = identityOf(leftNode.get(i), identityField);
+			if (null == identity)
+				continue;
+			leftIdentities.add(identity);
+
+			// The index is taken out of the Map, so a repeated identity is left without a counterpart
+			final Integer j = rightIndexes.remove(identity);
+			if (null == j)
+				continue;
+			leftMatched[i] = true;
+			rightMatched[j] = true;
+			if (leftHashes.hashOf(leftNode.get(i)) == rightHashes.hashOf(rightNode.get(j)))
+				continue;
+
+			path.pushIdentity(identityField, identity.asText());
+			processDifferentNodes(path, result, leftNode.get(i), rightNode.get(j), context);
+			path.pop();
+		}
+
+		diffUnmatchedElements(path, result, leftNode, leftHashes, leftMatched, rightIdentities, rightNode, rightHashes, rightMatched,
+				leftIdentities, offset, identityField);
+	}
+
+	/*
+	 * This method reports the elements left without a match as removed from the left side or added on the right one,
+	 * under their identity when the other side does not hold it at all, and under their index otherwise, where an
+	 * element removed and another one added at the same index are reported together as a whole, unless they are equal
+	 */
+	private static void diffUnmatchedElements(final DiffPath path, final DiffCollector result, final JsonNode leftNode,
+			final SubtreeHashes leftHashes, final boolean[] leftMatched, final Set<JsonNode> rightIdentities, final JsonNode rightNode,
+			final SubtreeHashes rightHashes, final boolean[] rightMatched, final Set<JsonNode> leftIdentities, final int offset,
+			final String identityField) {
+		for (int i = 0; i < leftMatched.length && !result.isFull(); i++) {
+			if (leftMatched[i])
+				continue;
+
+			final JsonNode identity = identityOf(leftNode.get(i), identityField);
+			if (null != identity && !rightIdentities.contains(identity)) {
+				path.pushIdentity(identityField, identity.asText());
+				result.report(path, elementResult(leftNode.get(i)), Constant.UNAVAILABLE_FIELD);
+			} else {
+				final boolean replaced = isAddedByIndex(rightNode, rightMatched, leftIdentities, i, identityField);
+				if (replaced && leftHashes.hashOf(leftNode.get(i)) == rightHashes.hashOf(rightNode.get(i)))
+					continue;
+				path.pushIndex(offset + i);
+				result.report(path, elementResult(leftNode.get(i)), replaced ? elementResult(rightNode.get(i)) : Constant.UNAVAILABLE_FIELD);
+			}
+			path.pop();
+		}
+
+		for (int j = 0; j < rightMatched.length && !result.isFull(); j++) {
+			if (rightMatched[j])
+				continue;
+
+			final JsonNode identity = identityOf(rightNode.get(j), identityField);
+			if (null != identity && !leftIdentities.contains(identity)) {
+				path.pushIdentity(identityField, identity.asText());
+				result.report(path, Constant.UNAVAILABLE_FIELD, elementResult(rightNode.get(j)));
+				path.pop();
+			} else if (!isAddedByIndex(leftNode, leftMatched, rightIdentities, j, identityField)) {
+				path.pushIndex(offset + j);
+				result.report(path, Constant.UNAVAILABLE_FIELD, elementResult(rightNode.get(j)));
+				path.pop();
+			}
+		}
+	}
+
+	/*
+	 * An element is reported under its index when it has no match and its identity, if any, is held by the other side
+	 */
+	private static boolean isAddedByIndex(final JsonNode node, final boolean[] matched, final Set<JsonNode> otherIdentities,
+			final int index, final String identityField) {
+		if (index >= matched.length || matched[index])
+			return false;
+		final JsonNode identity = identityOf(node.get(index), identityField);
+		return null == identity || otherIdentities.contains(identity);
+	}
+
+	private static JsonNode identityOf(final JsonNode element, final String identityField) {
+		final JsonNode identity = element.get(identityField);
+		return null != identity && identity.isValueNode() ? identity : null;
+	}
+
+	/*
+	 * This method reports the elements of two arrays left without a counterpart, each of them under its index,
+	 * as being unavailable on the other side, unless the other side has an element without a counterpart at the
+	 * very same index, being both diffed against each other
+	 */
+	private static void diffUnalignedElements(final DiffPath path, final DiffCollector result,
+			final JsonNode leftNode, final long[] leftKeys, final JsonNode rightNode, final long[] rightKeys, final int[] alignment,
+			final int firstIndex, final int start, final DiffContext context) {
+		final boolean[] rightAligned = new boolean[rightKeys.length];
+		for (final int index : alignment)
+			if (index >= 0)
+				rightAligned[index] = true;
+
+		for (int i = 0; i < Math.max(leftKeys.length, rightKeys.length) && !result.isFull(); i++) {
+			final boolean leftOnly = i < leftKeys.length && alignment[i] < 0;
+			final boolean rightOnly = i < rightKeys.length && !rightAligned[i];
+			if (leftOnly && rightOnly && leftKeys[i] == rightKeys[i] || !leftOnly && !rightOnly)
+				continue;
+
+			path.pushIndex(firstIndex + i);
+			if (leftOnly && rightOnly)
+				processDifferentNodes(path, result, leftNode.get(start + i), rightNode.get(start + i), context);
+			else result.report(path, leftOnly ? elementResult(leftNode.get(start + i)) : Constant.UNAVAILABLE_FIELD,
+					rightOnly ? elementResult(rightNode.get(start + i)) : Constant.UNAVAILABLE_FIELD);
+			path.pop();
+		}
+	}
+
+	/*
+	 * An element without a counterpart is reported as it is when it is a Container, since its text is
+	 * empty, and through its text otherwise
+	 */
+	private static Object elementResult(final JsonNode element) {
+		return element.isContainerNode() ? element : element.asText();
+	}
+
+	/*
+	 * This method aligns the elements through the ArrayAlignment, falling back to aligning only the
+	 * equal elements at the same index when the alignment gives up
+	 */
+	private static int[] align(final long[] leftKeys, final long[] rightKeys, final int alignmentMaxCost) {
+		final int[] alignment = ArrayAlignment.align(leftKeys, rightKeys, alignmentMaxCost);
+		if (null != alignment)
+			return alignment;
+
+		final int[] positional = new int[leftKeys.length];
+		for (int i = 0; i < leftKeys.length; i++)
+			positional[i] = i < rightKeys.length && leftKeys[i] == rightKeys[i] ? i : -1;
+		return positional;
+	}
+
+	private static long[] hashesOf(final JsonNode node, final SubtreeHashes hashes, final int from, final int to) {
+		final long[] keys = new long[to - from];
+		for (int i = from; i < to; i++)
+			keys[i - from] = hashes.hashOf(node.get(i));
+		return keys;
 	}
 
 	/*
@@ -186,34 +648,106 @@ public abstract class JsonUtil {
 	}
 
 	/*
-	 * This method is used to remove one part of the field path
-	 * 
-	 * Example:
-	 * 	-> Previous: path1.path2.path3
-	 *	-> After 1 Execution: path1.path2 
-	 */
-	private static void reducePath(final StringBuilder sb) {
-		if (sb.toString().contains(".")) {
-			final String aux = sb.toString().substring(0, sb.toString().lastIndexOf('.'));
-			sb.setLength(0);
-			sb.append(aux);
-		} else sb.setLength(0);
-	}
-	
-	/*
-	 * This method does the opposite of the reducePath do, appending a field name on the path
-	 * using the dot notation in it
-	 */
-	private static void appendPathDot(final StringBuilder sb, final String fieldName) {
-		if (sb.length() > 0)
-			sb.append(".");
-		sb.append(fieldName);
-	}
-	
-	private static Collection<String> concatenateFieldNames(final Iterator<String> lIter) {
-		final Collection<String> fieldNames = new ArrayList<>();
-		while (lIter.hasNext())
-			fieldNames.add(lIter.next());
+	 * This method lists the names of the fields of the left JsonNode followed by the ones only the right
+	 * JsonNode has, which is only needed when the fields are split between the tasks of the ForkJoinPool
+	 */
+	private static List<String> fieldNamesOf(final JsonNode leftNode, final JsonNode rightNode) {
+		final List<String> fieldNames = new ArrayList<>(leftNode.size() + rightNode.size());
+		leftNode.fieldNames().forEachRemaining(fieldNames::add);
+		final Iterator<String> rightFieldNames = rightNode.fieldNames();
+		while (rightFieldNames.hasNext()) {
+			final String fieldName = rightFieldNames.next();
+			if (null == leftNode.get(fieldName))
+				fieldNames.add(fieldName);
+		}
 		return fieldNames;
 	}
+
+	/*
+	 * This class holds what stays the same through the whole diff of two payloads, where the hashes
+	 * telling two subtrees apart are also the keys of the array elements, unless the trees are diffed
+	 * node by node, where only the elements are keyed by the hashes of the array holding them
+	 */
+	private static final class DiffContext {
+
+		private final SubtreeHashes leftHashes;
+		private final SubtreeHashes rightHashes;
+		private final SubtreeHashes leftKeyHashes;
+		private final SubtreeHashes rightKeyHashes;
+		private final int parallelThreshold;
+		private final int alignmentMaxCost;
+		private final IdentityKeys identityKeys;
+
+		private DiffContext(final SubtreeHashes leftHashes, final SubtreeHashes rightHashes, final int parallelThreshold, final int alignmentMaxCost,
+				final IdentityKeys identityKeys) {
+			this(leftHashes, rightHashes, leftHashes, rightHashes, parallelThreshold, alignmentMaxCost, identityKeys);
+		}
+
+		private DiffContext(final SubtreeHashes leftHashes, final SubtreeHashes rightHashes, final SubtreeHashes leftKeyHashes,
+				final SubtreeHashes rightKeyHashes, final int parallelThreshold, final int alignmentMaxCost, final IdentityKeys identityKeys) {
+			this.leftHashes = leftHashes;
+			this.rightHashes = rightHashes;
+			this.leftKeyHashes = leftKeyHashes;
+			this.rightKeyHashes = rightKeyHashes;
+			this.parallelThreshold = parallelThreshold;
+			this.alignmentMaxCost = alignmentMaxCost;
+			this.identityKeys = identityKeys;
+		}
+
+		private DiffContext withKeyHashes(final SubtreeHashes leftKeyHashes, final SubtreeHashes rightKeyHashes) {
+			return new DiffContext(this.leftHashes, this.rightHashes, leftKeyHashes, rightKeyHashes, this.parallelThreshold,
+					this.alignmentMaxCost, this.identityKeys);
+		}
+	}
+
+	/*
+	 * This task diffs a range of the fields of two objects, halving the range until it holds no more
+	 * than the threshold of fields, where each half keeps its own differences that are merged on the way back
+	 */
+	@SuppressWarnings("serial")
+	private static final class FieldsTask extends RecursiveTask<DiffCollector> {
+
+		private final String path;
+		private final DiffCollector result;
+		private final JsonNode leftNode;
+		private final JsonNode rightNode;
+		private final List<String> fieldNames;
+		private final DiffContext context;
+
+		private FieldsTask(final String path, final DiffCollector result, final JsonNode leftNode, final JsonNode rightNode,
+				final List<String> fieldNames, final DiffContext context) {
+			this.path = path;
+			this.result = result;
+			this.leftNode = leftNode;
+			this.rightNode = rightNode;
+			this.fieldNames = fieldNames;
+			this.context = context;
+		}
+
+		@Override
+		protected DiffCollector compute() {
+			final int size = this.fieldNames.size();
+			if (size <= this.context.parallelThreshold) {
+				final DiffCollector result = this.result.fork();
+				final DiffPath diffPath = new DiffPath(this.path);
+				for (int i = 0; i < size && !result.isFull(); i++) {
+					final String fieldName = this.fieldNames.get(i);
+					diffField(diffPath, result, fieldName, this.leftNode.get(fieldName), this.rightNode.get(fieldName), this.context);
+				}
+				return result;
+			}
+
+			final FieldsTask first = this.half(0, size / 2);
+			final FieldsTask second = this.half(size / 2, size);
+			first.fork();
+			final DiffCollector secondResult = second.compute();
+			final DiffCollector result = first.join();
+			result.merge(secondResult);
+			return result;
+		}
+
+		private FieldsTask half(final int from, final int to) {
+			return new FieldsTask(this.path, this.result, this.leftNode, this.rightNode, this.fieldNames.subList(from, to), this.context);
+		}
+	}
 }
@@ -0,0 +1,56 @@
+package com.waes.assessment.common;
+
+/**
+ * This enumerator defines how a received payload is read and compared, being
+ * selected on each POST through its <b>format</b> parameter, or through the
+ * configured default format when the parameter is absent
+ *
+ * @author Daniel Chiuratto Seabra
+ *
+ */
+public enum PayloadFormat {
+
+	/**
+	 * The payload is a JSON document, compared field by field
+	 */
+	JSON("json"),
+
+	/**
+	 * The payload is raw bytes, compared byte by byte
+	 */
+	BINARY("binary"),
+
+	/**
+	 * The payload is read as a JSON document when it looks like one and parses as one,
+	 * being read as raw bytes otherwise
+	 */
+	AUTO("auto");
+
+	private String value;
+
+	private PayloadFormat(final String value) {
+		this.value = value;
+	}
+
+	/**
+	 * Retrieves the PayloadFormat enum as a {@link String}
+	 *
+	 * @return {@link PayloadFormat} as {@link String}
+	 */
+	public String getValue() {
+		return this.value;
+	}
+
+	/**
+	 * This method finds the format of the informed value, ignoring its case
+	 *
+	 * @param value containing the format as it is informed on the request
+	 * @return the {@link PayloadFormat} of the value
+	 */
+	public static PayloadFormat of(final String value) {
+		for (final PayloadFormat format : values())
+			if (format.value.equalsIgnoreCase(value.trim()))
+				return format;
+		throw new IllegalArgumentException("Invalid payload format: " + value);
+	}
+}
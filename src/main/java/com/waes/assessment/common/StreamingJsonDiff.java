@@ -0,0 +1,338 @@
+package com.waes.assessment.common;
+
+import java.io.IOException;
+import java.util.Map;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+/**
+ * This class finds the difference between two JSON payloads walking the tokens of
+ * both of them in lockstep, instead of materializing them as {@link JsonNode} trees
+ * as the {@link JsonUtil} does, so the memory it uses grows with the nesting depth
+ * of the payloads rather than with their size
+ *
+ * The fields of two objects are compared one by one while both objects list the
+ * same field names in the same order, and as soon as they diverge the rest of both
+ * objects is buffered and handed to the {@link JsonUtil}, so the result is always
+ * the very same path keyed {@link Map} built by {@link JsonUtil#buildDiffMapResult}
+ *
+ * The elements of two arrays are compared in lockstep as well, one pair at a time, and
+ * from the first pair that differs on the rest of both arrays is buffered and handed to
+ * the {@link JsonUtil}, which aligns their elements and reports them under their index.
+ * The alignment needs both arrays up to their ends, so the memory only grows with the
+ * nesting depth while the arrays are equal, and grows with the rest of an array once
+ * its elements differ, or with the whole array when it is matched by identity keys
+ *
+ * When only some of the differences are asked for, both parsers stop being read as soon
+ * as they have been found, leaving the rest of both payloads unread
+ *
+ * @author Daniel Chiuratto Seabra
+ *
+ */
+public final class StreamingJsonDiff {
+
+	private final ObjectMapper objectMapper;
+	private final JsonParser left;
+	private final JsonParser right;
+	private final DiffCollector result;
+	private final DiffPath path = new DiffPath();
+	private final int alignmentMaxCost;
+	private final IdentityKeys identityKeys;
+
+	private boolean different;
+
+	private StreamingJsonDiff(final ObjectMapper objectMapper, final JsonParser left, final JsonParser right, final DiffCollector result,
+			final int alignmentMaxCost, final IdentityKeys identityKeys) {
+		this.objectMapper = objectMapper;
+		this.result = result;
+		this.left = left;
+		this.right = right;
+		this.alignmentMaxCost = alignmentMaxCost;
+		this.identityKeys = identityKeys;
+	}
+
+	/**
+	 * This method compares the payloads read by both parsers, which must not have been
+	 * read yet, returning the same outcome that comparing their trees would give
+	 *
+	 * @param objectMapper containing the {@link ObjectMapper} used to build the values being reported
+	 * @param left containing the {@link JsonParser} of the left payload
+	 * @param right containing the {@link JsonParser} of the right payload
+	 * @return {@link DiffOutcome} being either equal or a content mismatch carrying the diff
+	 * @throws IOException when any of the payloads cannot be read
+	 */
+	public static DiffOutcome compare(final ObjectMapper objectMapper, final JsonParser left, final JsonParser right) throws IOException {
+		return compare(objectMapper, left, right, JsonUtil.DEFAULT_ALIGNMENT_MAX_COST, IdentityKeys.NONE);
+	}
+
+	/**
+	 * This method compares the payloads read by both parsers, which must not have been
+	 * read yet, aligning the elements of the arrays with up to the informed cost, unless
+	 * they are matched by the identity field configured for them
+	 *
+	 * @param objectMapper containing the {@link ObjectMapper} used to build the values being reported
+	 * @param left containing the {@link JsonParser} of the left payload
+	 * @param right containing the {@link JsonParser} of the right payload
+	 * @param alignmentMaxCost containing the maximum amount of inserted and removed elements looked for when aligning two arrays
+	 * @param identityKeys containing the {@link IdentityKeys} of the arrays whose elements are matched by an identity field
+	 * @return {@link DiffOutcome} being either equal or a content mismatch carrying the diff
+	 * @throws IOException when any of the payloads cannot be read
+	 */
+	public static DiffOutcome compare(final ObjectMapper objectMapper, final JsonParser left, final JsonParser right,
+			final int alignmentMaxCost, final IdentityKeys identityKeys) throws IOException {
+		return compare(objectMapper, left, right, alignmentMaxCost, identityKeys, DiffMode.FULL, Integer.MAX_VALUE);
+	}
+
+	/**
+	 * This method compares the payloads read by both parsers, which must not have been
+	 * read yet, stopping as soon as it has found what the informed mode asks for
+	 *
+	 * @param objectMapper containing the {@link ObjectMapper} used to build the values being reported
+	 * @param left containing the {@link JsonParser} of the left payload
+	 * @param right containing the {@link JsonParser} of the right payload
+	 * @param alignmentMaxCost containing the maximum amount of inserted and removed elements looked for when aligning two arrays
+	 * @param identityKeys containing the {@link IdentityKeys} of the arrays whose elements are matched by an identity field
+	 * @param mode containing the {@link DiffMode} telling how much of the diff is needed
+	 * @param limit containing the maximum amount of differences carried on {@link DiffMode#FIRST}
+	 * @return {@link DiffOutcome} being either equal or a content mismatch carrying what the mode asks for
+	 * @throws IOException when any of the payloads cannot be read
+	 */
+	public static DiffOutcome compare(final ObjectMapper objectMapper, final JsonParser left, final JsonParser right,
+			final int alignmentMaxCost, final IdentityKeys identityKeys, final DiffMode mode, final int limit) throws IOException {
+		final DiffCollector result;
+		switch (mode) {
+			case BOOLEAN:
+				result = DiffCollector.keeping(1);
+				break;
+			case COUNT:
+				result = DiffCollector.counting();
+				break;
+			case FIRST:
+				// One more than the limit is kept, telling if any difference has been left out
+				result = DiffCollector.keeping((int) Math.min(Integer.MAX_VALUE, limit + 1L));
+				break;
+			default:
+				result = DiffCollector.keeping(Integer.MAX_VALUE);
+		}
+
+		final StreamingJsonDiff diff = new StreamingJsonDiff(objectMapper, left, right, result, alignmentMaxCost, identityKeys);
+		left.nextToken();
+		right.nextToken();
+		diff.diffRoot();
+
+		if (!diff.different)
+			return DiffOutcome.EQUAL;
+
+		switch (mode) {
+			case BOOLEAN:
+				return DiffOutcome.DIFFERENT;
+			case COUNT:
+				return DiffOutcome.differenceCount(result.getCount());
+			case FIRST:
+				return DiffOutcome.firstDifferences(result.getDifferences(), limit);
+			default:
+				return DiffOutcome.contentMismatch(result.getDifferences());
+		}
+	}
+
+	/*
+	 * The root is handled as the JsonUtil does, where only the fields of the root objects and
+	 * the elements of the root arrays are reported, the fields of an object being reported as
+	 * unavailable on the other side when it is not an object
+	 */
+	private void diffRoot() throws IOException {
+		final JsonToken leftToken = this.left.currentToken();
+		final JsonToken rightToken = this.right.currentToken();
+
+		if (JsonToken.START_OBJECT == leftToken && JsonToken.START_OBJECT == rightToken) {
+			this.diffObject();
+		} else if (JsonToken.START_OBJECT == leftToken) {
+			this.listFields(this.left, true);
+			this.right.skipChildren();
+		} else if (JsonToken.START_OBJECT == rightToken) {
+			this.left.skipChildren();
+			this.listFields(this.right, false);
+		} else if (JsonToken.START_ARRAY == leftToken && JsonToken.START_ARRAY == rightToken) {
+			this.diffArray(null);
+		} else this.different = !this.readValue(this.left).equals(this.readValue(this.right));
+	}
+
+	/*
+	 * This method compares the values both parsers are pointing to, leaving both of them on
+	 * the last token of their values
+	 */
+	private void diffValue(final String fieldName) throws IOException {
+		final JsonToken leftToken = this.left.currentToken();
+		final JsonToken rightToken = this.right.currentToken();
+
+		if (JsonToken.START_OBJECT == leftToken && JsonToken.START_OBJECT == rightToken) {
+			this.enter(fieldName);
+			this.diffObject();
+			this.leave();
+		} else if (JsonToken.START_ARRAY == leftToken && JsonToken.START_ARRAY == rightToken) {
+			this.diffArray(fieldName);
+		} else if (leftToken.isStructStart() && rightToken.isStructStart()) {
+			// An object against an array, where the fields of the object are reported as
+			// unavailable on the array side
+			this.enter(fieldName);
+			if (JsonToken.START_OBJECT == leftToken) {
+				this.listFields(this.left, true);
+				this.right.skipChildren();
+			} else {
+				this.left.skipChildren();
+				this.listFields(this.right, false);
+			}
+			this.leave();
+		} else if (leftToken.isStructStart() || rightToken.isStructStart()) {
+			// A container against a value, where both are reported as they are
+			this.enter(fieldName);
+			this.report(this.readValue(this.left), this.readValue(this.right));
+			this.leave();
+		} else {
+			final JsonNode leftValue = this.readValue(this.left);
+			final JsonNode rightValue = this.readValue(this.right);
+			if (!leftValue.equals(rightValue)) {
+				this.enter(fieldName);
+				this.report(leftValue.asText(), rightValue.asText());
+				this.leave();
+			}
+		}
+	}
+
+	/*
+	 * Both parsers are on the start of an object, where the fields are compared in lockstep
+	 * until their names diverge, buffering only what is left of both objects from there
+	 */
+	private void diffObject() throws IOException {
+		while (!this.result.isFull()) {
+			final JsonToken leftToken = this.left.nextToken();
+			final JsonToken rightToken = this.right.nextToken();
+			if (JsonToken.END_OBJECT == leftToken && JsonToken.END_OBJECT == rightToken)
+				return;
+
+			if (JsonToken.FIELD_NAME == leftToken && JsonToken.FIELD_NAME == rightToken
+					&& this.left.getCurrentName().equals(this.right.getCurrentName())) {
+				final String fieldName = this.left.getCurrentName();
+				this.left.nextToken();
+				this.right.nextToken();
+				this.diffValue(fieldName);
+				continue;
+			}
+
+			final ObjectNode leftRest = this.restOf(this.left);
+			final ObjectNode rightRest = this.restOf(this.right);
+			if (!leftRest.equals(rightRest)) {
+				this.different = true;
+				JsonUtil.diffFields(this.path, this.result, leftRest, rightRest, this.alignmentMaxCost, this.identityKeys);
+			}
+			return;
+		}
+	}
+
+	/*
+	 * Both parsers are on the start of an array, whose elements are read one pair at a time while
+	 * they are equal, buffering only what is left of both arrays from the first pair that differs,
+	 * except for the arrays matched by an identity field, which are buffered as a whole, because
+	 * the identities of their first elements are needed to match the rest of them
+	 */
+	private void diffArray(final String fieldName) throws IOException {
+		if (null != fieldName)
+			this.enter(fieldName);
+		final boolean keyed = null != this.identityKeys.keyOf(this.path);
+
+		for (int index = 0; !this.result.isFull(); index++) {
+			final JsonToken leftToken = this.left.nextToken();
+			final JsonToken rightToken = this.right.nextToken();
+			if (JsonToken.END_ARRAY == leftToken && JsonToken.END_ARRAY == rightToken)
+				break;
+
+			final JsonNode leftValue = JsonToken.END_ARRAY == leftToken ? null : this.readValue(this.left);
+			final JsonNode rightValue = JsonToken.END_ARRAY == rightToken ? null : this.readValue(this.right);
+			if (!keyed && null != leftValue && leftValue.equals(rightValue))
+				continue;
+
+			final ArrayNode leftRest = this.restOf(this.left, leftValue);
+			final ArrayNode rightRest = this.restOf(this.right, rightValue);
+			if (!keyed || !leftRest.equals(rightRest)) {
+				this.different = true;
+				JsonUtil.diffElements(this.path, this.result, leftRest, rightRest, index, this.alignmentMaxCost, this.identityKeys);
+			}
+			break;
+		}
+
+		if (null != fieldName)
+			this.leave();
+	}
+
+	/*
+	 * The parser is on the start of an object compared against something that is not an
+	 * object, so each of its fields is reported as unavailable on the other side
+	 */
+	private void listFields(final JsonParser parser, final boolean leftSide) throws IOException {
+		while (!this.result.isFull() && JsonToken.FIELD_NAME == parser.nextToken()) {
+			final String fieldName = parser.getCurrentName();
+			final String value;
+			if (parser.nextToken().isStructStart()) {
+				// The text of a container is empty, as the JsonNode#asText returns
+				parser.skipChildren();
+				value = "";
+			} else value = this.readValue(parser).asText();
+
+			this.enter(fieldName);
+			this.report(leftSide ? value : Constant.UNAVAILABLE_FIELD, leftSide ? Constant.UNAVAILABLE_FIELD : value);
+			this.leave();
+		}
+		this.different = true;
+	}
+
+	/*
+	 * The parser is either on a field name or on the end of an object, where everything up to
+	 * the end of the object is read into a tree
+	 */
+	private ObjectNode restOf(final JsonParser parser) throws IOException {
+		final ObjectNode rest = this.objectMapper.createObjectNode();
+		for (JsonToken token = parser.currentToken(); JsonToken.FIELD_NAME == token; token = parser.nextToken()) {
+			final String fieldName = parser.getCurrentName();
+			parser.nextToken();
+			rest.set(fieldName, this.readValue(parser));
+		}
+		return rest;
+	}
+
+	/*
+	 * The parser is on the last token of the informed element of an array, or on the end of the array
+	 * when the element is null, where the element and everything up to the end of the array is kept
+	 */
+	private ArrayNode restOf(final JsonParser parser, final JsonNode element) throws IOException {
+		final ArrayNode rest = this.objectMapper.createArrayNode();
+		if (null == element)
+			return rest;
+
+		rest.add(element);
+		while (JsonToken.END_ARRAY != parser.nextToken())
+			rest.add(this.readValue(parser));
+		return rest;
+	}
+
+	private JsonNode readValue(final JsonParser parser) throws IOException {
+		return this.objectMapper.readTree(parser);
+	}
+
+	private void report(final Object leftValue, final Object rightValue) {
+		this.different = true;
+		this.result.report(this.path, leftValue, rightValue);
+	}
+
+	private void enter(final String fieldName) {
+		this.path.pushField(fieldName);
+	}
+
+	private void leave() {
+		this.path.pop();
+	}
+}
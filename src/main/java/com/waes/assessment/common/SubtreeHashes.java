@@ -0,0 +1,228 @@
+package com.waes.assessment.common;
+
+import java.math.BigDecimal;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.Map;
+
+import com.fasterxml.jackson.databind.JsonNode;
+
+/**
+ * This class annotates a parsed {@link JsonNode} tree with a Merkle hash of each of
+ * its objects and arrays, computed once from the hashes of their children, so two
+ * subtrees can be told apart in constant time instead of walking both of them
+ * through {@link JsonNode#equals(Object)}
+ *
+ * The hash of an object does not depend on the order of its fields, since two
+ * objects with the same fields in another order are equal, while the hash of an
+ * array does depend on the order of its elements
+ *
+ * Different hashes always mean different subtrees, while equal hashes mean equal
+ * subtrees except for a 64 bits collision, which is why the comparisons that decide
+ * the outcome of a whole payload still confirm an equal hash through equals
+ *
+ * The hashes of a tree derived from another one, sharing the subtrees it did not
+ * change, are computed only for the containers that are not shared, copying the
+ * others from the hashes of the original tree, which can then be collected together
+ * with the subtrees that were removed
+ *
+ * The bytes held on the heap by the tree and by its hashes are estimated along the
+ * way, out of the amount of nodes and the length of their texts, so the stores
+ * keeping the tree can weigh it rather than only its bytes
+ *
+ * @author Daniel Chiuratto Seabra
+ *
+ */
+public final class SubtreeHashes {
+
+	private static final long OBJECT = 0x9e3779b97f4a7c15L;
+	private static final long ARRAY = 0xc2b2ae3d27d4eb4fL;
+	private static final long FIELD = 0x165667b19e3779f9L;
+
+	private static final long VALUE_BYTES = 24;
+	private static final long TEXT_BYTES = 40;
+	private static final long CONTAINER_BYTES = 64;
+	private static final long FIELD_BYTES = 88;
+	private static final long ELEMENT_BYTES = 8;
+	private static final long HASH_BYTES = 48;
+
+	// Only the containers are kept, since the hash of a value is as cheap as comparing it
+	private final Map<JsonNode, Long> hashes = new IdentityHashMap<>();
+	private long estimatedBytes;
+
+	private SubtreeHashes() {}
+
+	/**
+	 * This method computes the hashes of every object and array of the informed tree
+	 *
+	 * @param root containing the {@link JsonNode} tree to be annotated
+	 * @return the {@link SubtreeHashes} of the tree
+	 */
+	public static SubtreeHashes of(final JsonNode root) {
+		return of(root, null);
+	}
+
+	/**
+	 * This method computes the hashes of the objects and arrays of a tree derived from
+	 * another one, reusing the hashes of every container it shares with that tree
+	 *
+	 * @param root containing the {@link JsonNode} tree to be annotated
+	 * @param previous containing the {@link SubtreeHashes} of the tree it was derived from, if any
+	 * @return the {@link SubtreeHashes} of the tree
+	 */
+	public static SubtreeHashes of(final JsonNode root, final SubtreeHashes previous) {
+		final SubtreeHashes subtreeHashes = new SubtreeHashes();
+		subtreeHashes.compute(root, previous);
+		return subtreeHashes;
+	}
+
+	/**
+	 * Returns the hash of a node of the annotated tree
+	 *
+	 * @param node containing the {@link JsonNode} that belongs to the annotated tree
+	 * @return {@code long} containing the hash of the node
+	 */
+	public long hashOf(final JsonNode node) {
+		final Long hash = this.hashes.get(node);
+		return null == hash ? valueHash(node) : hash;
+	}
+
+	/**
+	 * Returns an estimate of the bytes held on the heap by the annotated tree and by its hashes
+	 *
+	 * @return {@code long} containing the estimated bytes
+	 */
+	public long getEstimatedBytes() {
+		return this.estimatedBytes;
+	}
+
+	/**
+	 * This method checks if two nodes are equal, comparing the hashes of both of them when
+	 * they are containers of annotated trees, and falling back to {@link JsonNode#equals(Object)}
+	 * otherwise
+	 *
+	 * @param left containing the left {@link JsonNode}
+	 * @param leftHashes containing the {@link SubtreeHashes} of the left tree, if any
+	 * @param right containing the right {@link JsonNode}
+	 * @param rightHashes containing the {@link SubtreeHashes} of the right tree, if any
+	 * @return {@code true} when both nodes are considered equal
+	 */
+	public static boolean isSame(final JsonNode left, final SubtreeHashes leftHashes, final JsonNode right, final SubtreeHashes rightHashes) {
+		if (null == leftHashes || null == rightHashes || !left.isContainerNode() || !right.isContainerNode())
+			return left.equals(right);
+		return leftHashes.hashOf(left) == rightHashes.hashOf(right);
+	}
+
+	private long compute(final JsonNode node, final SubtreeHashes previous) {
+		// A container shared with the tree this one was derived from has not changed
+		final Long known = null == previous || !node.isContainerNode() ? null : previous.hashes.get(node);
+		if (null != known) {
+			this.copy(node, previous);
+			return known;
+		}
+
+		this.estimatedBytes += bytesOf(node);
+
+		long hash;
+		if (node.isObject()) {
+			// The fields are summed, which keeps the hash the same whatever their order is
+			hash = OBJECT;
+			final Iterator<Map.Entry<String, JsonNode>> fields = node.fields();
+			while (fields.hasNext()) {
+				final Map.Entry<String, JsonNode> field = fields.next();
+				hash += mix(stringHash(field.getKey()) * FIELD ^ this.compute(field.getValue(), previous));
+			}
+			hash = mix(hash + node.size());
+		} else if (node.isArray()) {
+			hash = ARRAY;
+			for (final JsonNode element : node)
+				hash = mix(hash * FIELD + this.compute(element, previous));
+			hash = mix(hash + node.size());
+		} else return valueHash(node);
+
+		this.hashes.put(node, hash);
+		return hash;
+	}
+
+	/*
+	 * Copies the hashes of a shared container and of every container under it
+	 */
+	private void copy(final JsonNode node, final SubtreeHashes previous) {
+		this.estimatedBytes += bytesOf(node);
+		if (!node.isContainerNode())
+			return;
+
+		this.hashes.put(node, previous.hashes.get(node));
+		for (final JsonNode child : node)
+			this.copy(child, previous);
+	}
+
+	/*
+	 * The bytes of a node alone, being a container its collection, the names of its fields and
+	 * its hash, and a value its text, where the children are counted on their own
+	 */
+	private static long bytesOf(final JsonNode node) {
+		if (node.isObject()) {
+			long bytes = CONTAINER_BYTES + HASH_BYTES;
+			final Iterator<String> fieldNames = node.fieldNames();
+			while (fieldNames.hasNext())
+				bytes += FIELD_BYTES + fieldNames.next().length();
+			return bytes;
+		}
+		if (node.isArray())
+			return CONTAINER_BYTES + HASH_BYTES + node.size() * ELEMENT_BYTES;
+		if (node.isTextual())
+			return VALUE_BYTES + TEXT_BYTES + node.textValue().length();
+		// The booleans and the null are shared by every tree
+		return node.isBoolean() || node.isNull() ? 0 : VALUE_BYTES;
+	}
+
+	/*
+	 * The hash of a value follows the JsonNode equality, where numbers of different types
+	 * are different even when they hold the same value, except for the decimals, whose
+	 * equality ignores their scale
+	 */
+	private static long valueHash(final JsonNode node) {
+		final long type = node.getNodeType().ordinal() + 1;
+		switch (node.getNodeType()) {
+			case STRING:
+				return mix(type * OBJECT ^ stringHash(node.textValue()));
+			case BOOLEAN:
+				return mix(type * OBJECT ^ (node.booleanValue() ? 1 : 2));
+			case NUMBER:
+				final long numberType = type * OBJECT ^ (node.numberType().ordinal() + 1) * ARRAY;
+				if (node.isBigDecimal()) {
+					final BigDecimal value = node.decimalValue();
+					return mix(numberType ^ stringHash(0 == value.signum() ? "0" : value.stripTrailingZeros().toString()));
+				}
+				if (node.isBigInteger())
+					return mix(numberType ^ stringHash(node.bigIntegerValue().toString()));
+				if (node.isFloat())
+					return mix(numberType ^ Float.floatToIntBits(node.floatValue()));
+				if (node.isDouble())
+					return mix(numberType ^ Double.doubleToLongBits(node.doubleValue()));
+				return mix(numberType ^ node.longValue());
+			default:
+				return mix(type * OBJECT ^ node.hashCode());
+		}
+	}
+
+	private static long stringHash(final String value) {
+		long hash = 0xcbf29ce484222325L;
+		for (int i = 0; i < value.length(); i++)
+			hash = (hash ^ value.charAt(i)) * 0x100000001b3L;
+		return hash;
+	}
+
+	/*
+	 * The finalizer of the MurmurHash3, spreading every bit of the input through the output
+	 */
+	private static long mix(long hash) {
+		hash ^= hash >>> 33;
+		hash *= 0xff51afd7ed558ccdL;
+		hash ^= hash >>> 33;
+		hash *= 0xc4ceb9fe1a85ec53L;
+		hash ^= hash >>> 33;
+		return hash;
+	}
+}
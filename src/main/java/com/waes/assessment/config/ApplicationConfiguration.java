@@ -1,11 +1,21 @@
 package com.waes.assessment.config;
 
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
 
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.waes.assessment.common.IdentityKeys;
+import com.waes.assessment.common.Constant.Metric;
+import com.waes.assessment.metric.MetricService;
 
 /**
  * This class is inteded to contain the beans that needs to be controlled
@@ -28,5 +38,47 @@ public class ApplicationConfiguration implements WebMvcConfigurer {
 	public ObjectMapper objectMapper() {
 		return new ObjectMapper();
 	}
+
+	/**
+	 * This method reads the identity field of each array whose elements are matched by
+	 * that field when diffed, instead of being aligned by their position
+	 * 
+	 * @param identityKeys containing the comma separated pairs of array path and identity field
+	 * @return {@link IdentityKeys} instance
+	 */
+	@Bean
+	public IdentityKeys identityKeys(final @Value("${waes.diff.array-identity-keys:}") String identityKeys) {
+		return IdentityKeys.parse(identityKeys);
+	}
+
+	/**
+	 * This method instantiates the {@link ThreadPoolExecutor} that compares the payloads
+	 * of an id in background as soon as both of them are set, which only exists when
+	 * the eager comparison is enabled
+	 * 
+	 * Its queue is bounded and it rejects any comparison that does not fit on it, where
+	 * the rejected ids are compared on their first GET as usual
+	 * 
+	 * @param threads containing the amount of threads comparing the payloads
+	 * @param queueCapacity containing the amount of comparisons that can wait for a thread
+	 * @param metricService containing the {@link MetricService} where the queue depth is exposed
+	 * @return {@link ThreadPoolExecutor} instance
+	 */
+	@Bean(name = "diffExecutor")
+	@ConditionalOnProperty(name = "waes.diff.eager.enabled", havingValue = "true")
+	public ThreadPoolExecutor diffExecutor(final @Value("${waes.diff.eager.threads:2}") int threads,
+										   final @Value("${waes.diff.eager.queue-capacity:256}") int queueCapacity,
+										   final MetricService metricService) {
+		final AtomicInteger sequence = new AtomicInteger();
+		final ThreadPoolExecutor executor = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS,
+				new ArrayBlockingQueue<>(queueCapacity), runnable -> {
+					final Thread thread = new Thread(runnable, "diff-precompute-" + sequence.incrementAndGet());
+					thread.setDaemon(true);
+					return thread;
+				}, new ThreadPoolExecutor.AbortPolicy());
+
+		metricService.gauge(Metric.DIFF_EAGER_QUEUE_DEPTH, () -> executor.getQueue().size());
+		return executor;
+	}
 	
 }
@@ -3,16 +3,23 @@ package com.waes.assessment.controller;
 import java.io.IOException;
 import java.io.InputStream;
 
+import javax.servlet.http.HttpServletResponse;
+
 import org.slf4j.Logger;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PatchMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
+import com.waes.assessment.common.Constant;
 import com.waes.assessment.common.Constant.LogMessage;
 import com.waes.assessment.dto.ResponseDTO;
 import com.waes.assessment.logger.WAESLoggerFactory;
@@ -39,14 +46,16 @@ public class AssessmentApplicationController {
 	 * 
 	 * @param id of the payload to save it into the left memory
 	 * @param inputStream containing the Base64 encoded binary data to be store into memory
+	 * @param format containing how the binary data is read, being <b>json</b>, <b>binary</b> or <b>auto</b>
 	 * @return {@link ResponseDTO} containing the result of the setting
 	 * @throws IOException
 	 */
 	@PostMapping(value = "/{ID}/left", produces = MediaType.APPLICATION_JSON_UTF8_VALUE)
-	public ResponseEntity<ResponseDTO> left(final @PathVariable("ID") String id, final InputStream inputStream) throws IOException {
+	public ResponseEntity<ResponseDTO> left(final @PathVariable("ID") String id, final InputStream inputStream,
+			final @RequestParam(value = "format", required = false) String format) throws IOException {
 		LOGGER.info(LogMessage.CONTROLLER_LEFT_OR_RIGHT_LOG_MESSAGE, id, "left");
 
-		return ResponseEntity.ok(this.assessmentApplicationService.setLeft(id, inputStream));
+		return ResponseEntity.ok(this.assessmentApplicationService.setLeft(id, inputStream, format));
 	}
 
 	/**
@@ -54,14 +63,54 @@ public class AssessmentApplicationController {
 	 * 
 	 * @param id of the payload to save it into the right memory
 	 * @param inputStream containing the Base64 encoded binary data to be store into memory
+	 * @param format containing how the binary data is read, being <b>json</b>, <b>binary</b> or <b>auto</b>
 	 * @return {@link ResponseDTO} containing the result of the setting
 	 * @throws IOException
 	 */
 	@PostMapping(value = "/{ID}/right", produces = MediaType.APPLICATION_JSON_UTF8_VALUE)
-	public ResponseEntity<ResponseDTO> right(final @PathVariable("ID") String id, final InputStream inputStream) throws IOException {
+	public ResponseEntity<ResponseDTO> right(final @PathVariable("ID") String id, final InputStream inputStream,
+			final @RequestParam(value = "format", required = false) String format) throws IOException {
 		LOGGER.info(LogMessage.CONTROLLER_LEFT_OR_RIGHT_LOG_MESSAGE, id, "right");
 		
-		return ResponseEntity.ok(this.assessmentApplicationService.setRight(id, inputStream));
+		return ResponseEntity.ok(this.assessmentApplicationService.setRight(id, inputStream, format));
+	}
+	
+	/**
+	 * This endpoint applies a JSON Patch or a JSON Merge Patch to the payload stored into the left
+	 * memory on the specific id, without sending the whole payload again
+	 * 
+	 * @param id of the payload stored into the left memory
+	 * @param inputStream containing the patch, as it is
+	 * @param contentType containing <b>application/json-patch+json</b> or <b>application/merge-patch+json</b>
+	 * @return {@link ResponseDTO} containing the result of the patching
+	 * @throws IOException
+	 */
+	@PatchMapping(value = "/{ID}/left", consumes = { Constant.JSON_PATCH_MEDIA_TYPE, Constant.MERGE_PATCH_MEDIA_TYPE },
+			produces = MediaType.APPLICATION_JSON_UTF8_VALUE)
+	public ResponseEntity<ResponseDTO> patchLeft(final @PathVariable("ID") String id, final InputStream inputStream,
+			final @RequestHeader(HttpHeaders.CONTENT_TYPE) String contentType) throws IOException {
+		LOGGER.info(LogMessage.CONTROLLER_PATCH_LOG_MESSAGE, id, "left");
+
+		return ResponseEntity.ok(this.assessmentApplicationService.patchLeft(id, inputStream, contentType));
+	}
+
+	/**
+	 * This endpoint applies a JSON Patch or a JSON Merge Patch to the payload stored into the right
+	 * memory on the specific id, without sending the whole payload again
+	 * 
+	 * @param id of the payload stored into the right memory
+	 * @param inputStream containing the patch, as it is
+	 * @param contentType containing <b>application/json-patch+json</b> or <b>application/merge-patch+json</b>
+	 * @return {@link ResponseDTO} containing the result of the patching
+	 * @throws IOException
+	 */
+	@PatchMapping(value = "/{ID}/right", consumes = { Constant.JSON_PATCH_MEDIA_TYPE, Constant.MERGE_PATCH_MEDIA_TYPE },
+			produces = MediaType.APPLICATION_JSON_UTF8_VALUE)
+	public ResponseEntity<ResponseDTO> patchRight(final @PathVariable("ID") String id, final InputStream inputStream,
+			final @RequestHeader(HttpHeaders.CONTENT_TYPE) String contentType) throws IOException {
+		LOGGER.info(LogMessage.CONTROLLER_PATCH_LOG_MESSAGE, id, "right");
+
+		return ResponseEntity.ok(this.assessmentApplicationService.patchRight(id, inputStream, contentType));
 	}
 	
 	/**
@@ -69,14 +118,36 @@ public class AssessmentApplicationController {
 	 * validation result according to the requirements
 	 * 
 	 * @param id of the payloads stored on both left and right memories
+	 * @param mode containing how much of the difference is returned, being <b>full</b>, <b>boolean</b>, <b>count</b> or <b>first</b>
+	 * @param limit containing the maximum amount of differences returned on the <b>first</b> mode
 	 * @return {@link ResponseDTO} containing the validation result
 	 * @throws IOException
 	 */
 	@GetMapping(value = "/{ID}", produces = MediaType.APPLICATION_JSON_UTF8_VALUE)
-	public ResponseEntity<ResponseDTO> id(final @PathVariable("ID") String id) throws IOException {
+	public ResponseEntity<ResponseDTO> id(final @PathVariable("ID") String id,
+			final @RequestParam(value = "mode", required = false) String mode,
+			final @RequestParam(value = "limit", defaultValue = "10") int limit) throws IOException {
 		LOGGER.info(LogMessage.CONTROLLER_LEFT_AND_RIGHT_PROCESS_LOG_MESSAGE, id);
 		
-		return ResponseEntity.ok(this.assessmentApplicationService.processLeftAndRight(id));
+		return ResponseEntity.ok(this.assessmentApplicationService.processLeftAndRight(id, mode, limit));
+	}
+
+	/**
+	 * This endpoint retrieves both payloads from both memory sides and writes their difference as a
+	 * JSON Patch (RFC 6902) turning the left payload into the right one, being selected when the
+	 * request accepts <b>application/json-patch+json</b>, where each operation is written straight to
+	 * the response as soon as it is found
+	 * 
+	 * @param id of the payloads stored on both left and right memories
+	 * @param response containing the {@link HttpServletResponse} where the patch is written
+	 * @throws IOException
+	 */
+	@GetMapping(value = "/{ID}", produces = Constant.JSON_PATCH_MEDIA_TYPE)
+	public void patch(final @PathVariable("ID") String id, final HttpServletResponse response) throws IOException {
+		LOGGER.info(LogMessage.CONTROLLER_JSON_PATCH_LOG_MESSAGE, id);
+		
+		response.setContentType(Constant.JSON_PATCH_MEDIA_TYPE);
+		this.assessmentApplicationService.writePatch(id, response.getOutputStream());
 	}
 
 }
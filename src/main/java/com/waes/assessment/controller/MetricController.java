@@ -0,0 +1,49 @@
+package com.waes.assessment.controller;
+
+import java.io.Serializable;
+
+import org.slf4j.Logger;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.waes.assessment.common.Constant.LogMessage;
+import com.waes.assessment.common.Constant.ResponseMessage;
+import com.waes.assessment.dto.ResponseDTO;
+import com.waes.assessment.logger.WAESLoggerFactory;
+import com.waes.assessment.metric.MetricService;
+
+/**
+ * This class is the controller which exposes the application metrics, like the
+ * memory used by the stored payloads and the evictions done to keep it bounded
+ * 
+ * @author Daniel Chiuratto Seabra
+ *
+ */
+@RestController
+@RequestMapping("/v1/metrics")
+public class MetricController {
+
+	private static final Logger LOGGER = WAESLoggerFactory.getLogger(MetricController.class);
+
+	@Autowired
+	private MetricService metricService;
+
+	/**
+	 * This endpoint retrieves the current value of all the application metrics
+	 * 
+	 * @return {@link ResponseDTO} containing the metrics as detail
+	 */
+	@GetMapping(produces = MediaType.APPLICATION_JSON_UTF8_VALUE)
+	public ResponseEntity<ResponseDTO> metrics() {
+		LOGGER.info(LogMessage.CONTROLLER_METRICS_LOG_MESSAGE);
+
+		return ResponseEntity.ok(ResponseDTO.builder().withMessage(ResponseMessage.METRICS_RESPONSE_MESSAGE)
+													  .withDetail((Serializable) this.metricService.getMetrics())
+													  .build());
+	}
+
+}
@@ -0,0 +1,52 @@
+package com.waes.assessment.exception;
+
+import com.waes.assessment.common.DiffMode;
+
+/**
+ * This exception is thrown when the GET Diff is requested with a mode that
+ * is not any {@link DiffMode}, or with a limit of differences below one
+ * 
+ * @author Daniel Chiuratto Seabra
+ *
+ */
+public class InvalidDiffModeException extends RuntimeException {
+
+	/**
+	 * 
+	 */
+	private static final long serialVersionUID = 1L;
+
+	private String mode;
+	private int limit;
+
+	public InvalidDiffModeException(final String mode, final int limit) {
+		this.mode = mode;
+		this.limit = limit;
+	}
+
+	/**
+	 * Returns the mode informed on the request
+	 * 
+	 * @return {@link String} containing the mode as it has been informed
+	 */
+	public String getMode() {
+		return this.mode;
+	}
+
+	/**
+	 * Returns the limit of differences informed on the request
+	 * 
+	 * @return {@code int} containing the limit
+	 */
+	public int getLimit() {
+		return this.limit;
+	}
+
+	@Override
+	public String toString() {
+		return new StringBuilder()
+				.append("mode: ").append(this.mode).append(", ")
+				.append("limit: ").append(this.limit)
+				.toString();
+	}
+}
@@ -0,0 +1,67 @@
+package com.waes.assessment.exception;
+
+import com.waes.assessment.common.Endpoint;
+
+/**
+ * This exception is thrown when the PATCH made on one of the endpoints (left or right)
+ * carries a JSON Patch or a JSON Merge Patch that cannot be read, or that cannot be
+ * applied to the payload stored on that side
+ * 
+ * @author Daniel Chiuratto Seabra
+ *
+ */
+public class InvalidPatchException extends RuntimeException {
+
+	/**
+	 * 
+	 */
+	private static final long serialVersionUID = 1L;
+
+	private Endpoint endpoint;
+	private String id;
+	private String reason;
+
+	public InvalidPatchException(final Endpoint endpoint, final String id, final String reason) {
+		super(null, null, false, false);
+		this.endpoint = endpoint;
+		this.id = id;
+		this.reason = reason;
+	}
+
+	/**
+	 * Returns which memory flow thrown the exception
+	 * 
+	 * @return {@link String} containing the memory name (left or right)
+	 */
+	public String getMemoryName() {
+		return this.endpoint.getValue();
+	}
+
+	/**
+	 * Returns which id the patch has been sent to
+	 * 
+	 * @return {@link String} containing the id
+	 */
+	public String getId() {
+		return this.id;
+	}
+
+	/**
+	 * Returns why the patch cannot be applied
+	 * 
+	 * @return {@link String} describing the failure
+	 */
+	public String getReason() {
+		return this.reason;
+	}
+
+	@Override
+	public String toString() {
+		return new StringBuilder("InvalidPatchException:(")
+				.append("endpoint: ").append(this.endpoint.getValue()).append(", ")
+				.append("id: ").append(this.id).append(", ")
+				.append("reason: ").append(this.reason)
+				.append(")")
+				.toString();
+	}
+}
@@ -0,0 +1,40 @@
+package com.waes.assessment.exception;
+
+import com.waes.assessment.common.PayloadFormat;
+
+/**
+ * This exception is thrown when a POST is made on one of the endpoints (left or
+ * right) with a format that is not any {@link PayloadFormat}
+ * 
+ * @author Daniel Chiuratto Seabra
+ *
+ */
+public class InvalidPayloadFormatException extends RuntimeException {
+
+	/**
+	 * 
+	 */
+	private static final long serialVersionUID = 1L;
+
+	private String format;
+
+	public InvalidPayloadFormatException(final String format) {
+		this.format = format;
+	}
+
+	/**
+	 * Returns the format informed on the request
+	 * 
+	 * @return {@link String} containing the format as it has been informed
+	 */
+	public String getFormat() {
+		return this.format;
+	}
+
+	@Override
+	public String toString() {
+		return new StringBuilder()
+				.append("format: ").append(this.format)
+				.toString();
+	}
+}
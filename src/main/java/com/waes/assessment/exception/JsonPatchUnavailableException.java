@@ -0,0 +1,40 @@
+package com.waes.assessment.exception;
+
+/**
+ * This exception is thrown when the GET Diff asks for a JSON Patch of an id
+ * where any of the payloads has been read as binary, having no JSON to be patched
+ * 
+ * @author Daniel Chiuratto Seabra
+ *
+ */
+public class JsonPatchUnavailableException extends RuntimeException {
+
+	/**
+	 * 
+	 */
+	private static final long serialVersionUID = 1L;
+
+	private String id;
+
+	public JsonPatchUnavailableException(final String id) {
+		super(null, null, false, false);
+		this.id = id;
+	}
+
+	/**
+	 * Returns which id holds a binary payload
+	 *  
+	 * @return {@link String} containing the id
+	 */
+	public String getId() {
+		return this.id;
+	}
+
+	@Override
+	public String toString() {
+		return new StringBuilder("JsonPatchUnavailableException:(")
+				.append("id: ").append(this.id)
+				.append(")")
+				.toString();
+	}
+}
@@ -20,6 +20,7 @@ public class MissingInMemoryPayloadException extends RuntimeException {
 	private String id;
 
 	public MissingInMemoryPayloadException(final Endpoint endpoint, final String id) {
+		super(null, null, false, false);
 		this.endpoint = endpoint;
 		this.id = id;
 	}
@@ -6,6 +6,9 @@ import java.util.Map;
  * This exception is thrown when both payloads has the same size but contains
  * different data
  * 
+ * When the GET asks for less than the whole diff, it carries either only the
+ * amount of differences or only the first of them, or nothing at all
+ * 
  * @author Daniel Chiuratto Seabra
  *
  */
@@ -17,9 +20,18 @@ public class PayloadContentMismatchException extends RuntimeException {
 	private static final long serialVersionUID = 1L;
 
 	private Map<String, Map<String, Object>> difference;
+	private int differenceCount;
+	private boolean complete;
 
 	public PayloadContentMismatchException(final Map<String, Map<String, Object>> result) {
+		this(result, result.size(), true);
+	}
+
+	public PayloadContentMismatchException(final Map<String, Map<String, Object>> result, final int differenceCount, final boolean complete) {
+		super(null, null, false, false);
 		this.difference = result;
+		this.differenceCount = differenceCount;
+		this.complete = complete;
 	}
 
 	/**
@@ -33,10 +45,30 @@ public class PayloadContentMismatchException extends RuntimeException {
 		return this.difference;
 	}
 
+	/**
+	 * This method returns the amount of differences between both nodes
+	 * 
+	 * @return {@code int} containing the amount of differences, or -1 when it is not known
+	 */
+	public int getDifferenceCount() {
+		return this.differenceCount;
+	}
+
+	/**
+	 * This method tells if the diff carried holds every difference between both nodes
+	 * 
+	 * @return {@code true} when no difference has been left out
+	 */
+	public boolean isComplete() {
+		return this.complete;
+	}
+
 	@Override
 	public String toString() {
 		return new StringBuilder()
-				.append("difference: ").append(this.difference)
+				.append("difference: ").append(this.difference).append(", ")
+				.append("differenceCount: ").append(this.differenceCount).append(", ")
+				.append("complete: ").append(this.complete)
 				.toString();
 	}
 }
@@ -18,7 +18,7 @@ public class PayloadSizeMismatchException extends RuntimeException {
 	private int rightSize;
 
 	public PayloadSizeMismatchException(final int leftSize, final int rightSize) {
-		super();
+		super(null, null, false, false);
 		this.leftSize = leftSize;
 		this.rightSize = rightSize;
 	}
@@ -20,6 +20,7 @@ public class RequiredPayloadException extends RuntimeException {
 	private String id;
 
 	public RequiredPayloadException(final Endpoint endpoint, final String id) {
+		super(null, null, false, false);
 		this.endpoint = endpoint;
 		this.id = id;
 	}
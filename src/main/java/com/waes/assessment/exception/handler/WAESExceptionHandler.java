@@ -14,6 +14,10 @@ import com.waes.assessment.common.Constant.ExceptionHandlerMessage;
 import com.waes.assessment.common.JsonUtil;
 import com.waes.assessment.dto.ResponseDTO;
 import com.waes.assessment.exception.DeserializationException;
+import com.waes.assessment.exception.InvalidDiffModeException;
+import com.waes.assessment.exception.InvalidPatchException;
+import com.waes.assessment.exception.InvalidPayloadFormatException;
+import com.waes.assessment.exception.JsonPatchUnavailableException;
 import com.waes.assessment.exception.MissingInMemoryPayloadException;
 import com.waes.assessment.exception.PayloadContentMismatchException;
 import com.waes.assessment.exception.PayloadSizeMismatchException;
@@ -26,6 +30,10 @@ import com.waes.assessment.logger.WAESLoggerFactory;
  * the error is parsed into the {@link ResponseDTO} entity to return
  * accordingly to the requestor
  * 
+ * The exceptions describing an expected outcome, such as a missing payload or a
+ * mismatch, are created without a stack trace, because they are rendered here as
+ * a response rather than logged as a failure
+ * 
  * @author Daniel Chiuratto Seabra
  *
  */
@@ -97,14 +105,20 @@ public class WAESExceptionHandler {
 	 * size but with different data/values
 	 * 
 	 * It receives a {@link Map} containing the diff built but the {@link JsonUtil} abstract class, and returns
-	 * it to the requestor
+	 * it to the requestor, unless the GET asked only for the amount of differences or only if there is any,
+	 * where the message carries the amount or nothing else at all
 	 * 
 	 * @param e containing the {@link PayloadContentMismatchException} instance with the failure data to be returned to the requestor
 	 * @return {@link ResponseEntity} containing the {@link ResponseDTO} with the details of what happened
 	 */
 	@ExceptionHandler(value = PayloadContentMismatchException.class)
 	public ResponseEntity<ResponseDTO> payloadContentMismatchException(final PayloadContentMismatchException e) {
-		final String message = ExceptionHandlerMessage.PAYLOAD_CONTENT_MISMATCH_EXCEPTION_MESSAGE;
+		final String message;
+		if (null != e.getDifference() && !e.isComplete())
+			message = String.format(ExceptionHandlerMessage.PAYLOAD_CONTENT_MISMATCH_FIRST_EXCEPTION_MESSAGE, e.getDifference().size());
+		else if (null == e.getDifference() && e.getDifferenceCount() >= 0)
+			message = String.format(ExceptionHandlerMessage.PAYLOAD_CONTENT_MISMATCH_COUNT_EXCEPTION_MESSAGE, e.getDifferenceCount());
+		else message = ExceptionHandlerMessage.PAYLOAD_CONTENT_MISMATCH_EXCEPTION_MESSAGE;
 		
 		LOGGER.error(message);
 		
@@ -114,6 +128,80 @@ public class WAESExceptionHandler {
 									 				    .build());
 	}
 	
+	/**
+	 * This method is related with the {@link JsonPatchUnavailableException} handling, where it handles
+	 * situations when the GET Diff asks for a JSON Patch of an id holding a binary payload
+	 * 
+	 * @param e containing the {@link JsonPatchUnavailableException} instance with the failure data to be returned to the requestor
+	 * @return {@link ResponseEntity} containing the {@link ResponseDTO} with the details of what happened
+	 */
+	@ExceptionHandler(value = JsonPatchUnavailableException.class)
+	public ResponseEntity<ResponseDTO> jsonPatchUnavailableException(final JsonPatchUnavailableException e) {
+		final String message = String.format(ExceptionHandlerMessage.JSON_PATCH_UNAVAILABLE_EXCEPTION_MESSAGE, e.getId());
+		
+		LOGGER.error(message);
+		
+		return ResponseEntity.status(HttpStatus.NOT_ACCEPTABLE)
+							 .body(ResponseDTO.builder().withMessage(message)
+							 					  		.build());
+	}
+	
+	/**
+	 * This method is related with the {@link InvalidDiffModeException} handling, where it handles
+	 * situations when the GET Diff is requested with a mode or a limit that does not exist
+	 * 
+	 * @param e containing the {@link InvalidDiffModeException} instance with the failure data to be returned to the requestor
+	 * @return {@link ResponseEntity} containing the {@link ResponseDTO} with the details of what happened
+	 */
+	@ExceptionHandler(value = InvalidDiffModeException.class)
+	public ResponseEntity<ResponseDTO> invalidDiffModeException(final InvalidDiffModeException e) {
+		final String message = String.format(ExceptionHandlerMessage.INVALID_DIFF_MODE_EXCEPTION_MESSAGE, e.getMode(), e.getLimit());
+		
+		LOGGER.error(message);
+		
+		return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+							 .body(ResponseDTO.builder().withMessage(message)
+							 					  		.build());
+	}
+	
+	/**
+	 * This method is related with the {@link InvalidPayloadFormatException} handling, where it handles
+	 * situations when a POST is made on one of the endpoints (left or right) with a format that does not exist
+	 * 
+	 * @param e containing the {@link InvalidPayloadFormatException} instance with the failure data to be returned to the requestor
+	 * @return {@link ResponseEntity} containing the {@link ResponseDTO} with the details of what happened
+	 */
+	@ExceptionHandler(value = InvalidPayloadFormatException.class)
+	public ResponseEntity<ResponseDTO> invalidPayloadFormatException(final InvalidPayloadFormatException e) {
+		final String message = String.format(ExceptionHandlerMessage.INVALID_PAYLOAD_FORMAT_EXCEPTION_MESSAGE, e.getFormat());
+		
+		LOGGER.error(message);
+		
+		return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+							 .body(ResponseDTO.builder().withMessage(message)
+							 					  		.build());
+	}
+	
+	/**
+	 * This method is related with the {@link InvalidPatchException} handling, where it handles
+	 * situations when a PATCH is made on one of the endpoints (left or right) with a patch that
+	 * cannot be read or applied to the payload stored on that side
+	 * 
+	 * @param e containing the {@link InvalidPatchException} instance with the failure data to be returned to the requestor
+	 * @return {@link ResponseEntity} containing the {@link ResponseDTO} with the details of what happened
+	 */
+	@ExceptionHandler(value = InvalidPatchException.class)
+	public ResponseEntity<ResponseDTO> invalidPatchException(final InvalidPatchException e) {
+		final String message = String.format(ExceptionHandlerMessage.INVALID_PATCH_EXCEPTION_MESSAGE, e.getMemoryName(), e.getId());
+
+		LOGGER.error(message);
+		
+		return ResponseEntity.status(HttpStatus.UNPROCESSABLE_ENTITY)
+							 .body(ResponseDTO.builder().withMessage(message)
+									 				    .withDetail(e.getReason())
+									 				    .build());
+	}
+
 	/**
 	 * This method is related with the {@link MissingInMemoryPayloadException} handling, where it handles
 	 * situations when the GET Diff is requested for an ID that has only one of the memories (left or right)
@@ -0,0 +1,47 @@
+package com.waes.assessment.metric;
+
+import java.util.Map;
+import java.util.function.LongSupplier;
+
+/**
+ * This interface is focused in keeping the application metrics, like counters of
+ * events that happened since the application started and gauges of values that
+ * are read on demand, allowing them to be exposed to whoever monitors the application
+ * 
+ * @author Daniel Chiuratto Seabra
+ *
+ */
+public interface MetricService {
+
+	/**
+	 * This method increments the counter with the informed name by one
+	 * 
+	 * @param name containing the name of the counter
+	 */
+	void increment(String name);
+
+	/**
+	 * This method adds the informed amount to the counter with the informed name
+	 * 
+	 * @param name containing the name of the counter
+	 * @param amount containing the amount to be added
+	 */
+	void add(String name, long amount);
+
+	/**
+	 * This method registers a gauge, whose value is read from the supplier every
+	 * time the metrics are retrieved
+	 * 
+	 * @param name containing the name of the gauge
+	 * @param supplier containing the function that reads the current value
+	 */
+	void gauge(String name, LongSupplier supplier);
+
+	/**
+	 * This method retrieves the current value of all the counters and gauges
+	 * 
+	 * @return {@link Map} containing the metric names and their values sorted by name
+	 */
+	Map<String, Long> getMetrics();
+
+}
@@ -0,0 +1,45 @@
+package com.waes.assessment.metric.impl;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+import org.springframework.stereotype.Service;
+
+import com.waes.assessment.metric.MetricService;
+
+@Service
+public class MetricServiceImpl implements MetricService {
+
+	private final Map<String, LongAdder> counters = new ConcurrentHashMap<>();
+	private final Map<String, LongSupplier> gauges = new ConcurrentHashMap<>();
+
+	@Override
+	public void increment(final String name) {
+		this.counterOf(name).increment();
+	}
+
+	@Override
+	public void add(final String name, final long amount) {
+		this.counterOf(name).add(amount);
+	}
+
+	@Override
+	public void gauge(final String name, final LongSupplier supplier) {
+		this.gauges.put(name, supplier);
+	}
+
+	@Override
+	public Map<String, Long> getMetrics() {
+		final Map<String, Long> metrics = new TreeMap<>();
+		this.counters.forEach((name, counter) -> metrics.put(name, counter.sum()));
+		this.gauges.forEach((name, supplier) -> metrics.put(name, supplier.getAsLong()));
+		return metrics;
+	}
+
+	private LongAdder counterOf(final String name) {
+		return this.counters.computeIfAbsent(name, key -> new LongAdder());
+	}
+}
@@ -2,6 +2,7 @@ package com.waes.assessment.service;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
 
 import com.waes.assessment.dto.ResponseDTO;
 
@@ -19,29 +20,71 @@ public interface AssessmentApplicationService {
 	 * 
 	 * @param id of the memory where the binary data needs to be stored
 	 * @param inputStream containing the base64 encoded binary data to be stored
+	 * @param format containing how the binary data is read, being <b>json</b>, <b>binary</b> or <b>auto</b>,
+	 * or {@code null} for the configured one
 	 * @return {@link ResponseDTO} containing the result of this addition
 	 * @throws IOException
 	 */
-	ResponseDTO setLeft(String id, InputStream inputStream) throws IOException;
+	ResponseDTO setLeft(String id, InputStream inputStream, String format) throws IOException;
 
 	/**
 	 * This method has the goal to set the received binary data into the right memory
 	 * 
 	 * @param id of the memory where the binary data needs to be stored
 	 * @param inputStream containing the base64 encoded binary data to be stored
+	 * @param format containing how the binary data is read, being <b>json</b>, <b>binary</b> or <b>auto</b>,
+	 * or {@code null} for the configured one
 	 * @return {@link ResponseDTO} containing the result of this addition
 	 * @throws IOException
 	 */
-	ResponseDTO setRight(String id, InputStream inputStream) throws IOException;
+	ResponseDTO setRight(String id, InputStream inputStream, String format) throws IOException;
+
+	/**
+	 * This method has the goal to apply the received patch to the payload stored into the left memory
+	 * 
+	 * @param id of the memory where the patched payload is stored
+	 * @param inputStream containing the JSON Patch or the JSON Merge Patch, as it is
+	 * @param mediaType containing the media type of the patch, being <b>application/json-patch+json</b>
+	 * or <b>application/merge-patch+json</b>
+	 * @return {@link ResponseDTO} containing the result of this update
+	 * @throws IOException
+	 */
+	ResponseDTO patchLeft(String id, InputStream inputStream, String mediaType) throws IOException;
+
+	/**
+	 * This method has the goal to apply the received patch to the payload stored into the right memory
+	 * 
+	 * @param id of the memory where the patched payload is stored
+	 * @param inputStream containing the JSON Patch or the JSON Merge Patch, as it is
+	 * @param mediaType containing the media type of the patch, being <b>application/json-patch+json</b>
+	 * or <b>application/merge-patch+json</b>
+	 * @return {@link ResponseDTO} containing the result of this update
+	 * @throws IOException
+	 */
+	ResponseDTO patchRight(String id, InputStream inputStream, String mediaType) throws IOException;
 
 	/**
 	 * This method has the goal of validating and processing both stored base64 binary data
 	 * in order to return to the requestor if they are equal or has any issue or difference
 	 * 
 	 * @param id of the memory where the binary data needs to be retrieved in both memories
+	 * @param mode containing how much of the difference is returned, being <b>full</b>, <b>boolean</b>,
+	 * <b>count</b> or <b>first</b>, or {@code null} for the full one
+	 * @param limit containing the maximum amount of differences returned on the <b>first</b> mode
 	 * @return {@link ResponseDTO} containing the result of the validation/process
 	 * @throws IOException
 	 */
-	ResponseDTO processLeftAndRight(String id) throws IOException;
+	ResponseDTO processLeftAndRight(String id, String mode, int limit) throws IOException;
+
+	/**
+	 * This method has the goal of writing the difference between both stored payloads as
+	 * a JSON Patch (RFC 6902), which turns the left payload into the right one, straight
+	 * into the informed stream as the difference is found
+	 * 
+	 * @param id of the memory where the binary data needs to be retrieved in both memories
+	 * @param outputStream containing the stream where the JSON Patch is written
+	 * @throws IOException
+	 */
+	void writePatch(String id, OutputStream outputStream) throws IOException;
 
 }
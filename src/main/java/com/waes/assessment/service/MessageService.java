@@ -3,8 +3,9 @@ package com.waes.assessment.service;
 import java.io.IOException;
 import java.io.InputStream;
 
-import com.fasterxml.jackson.databind.JsonNode;
 import com.waes.assessment.common.Endpoint;
+import com.waes.assessment.common.JsonPayload;
+import com.waes.assessment.common.PayloadFormat;
 
 /**
  * This interface is focused in message parsing process where it containg
@@ -17,25 +18,21 @@ import com.waes.assessment.common.Endpoint;
 public interface MessageService {
 
 	/**
-	 * This method parses the received Base64 encoded {@code String} into a
-	 * {@link JsonNode} for further processes
+	 * This method reads the received Base64 encoded binary data decoding it while
+	 * it is streamed into the JSON parser, so the payload is decoded and parsed
+	 * in a single pass without building any intermediate {@link String}, where
+	 * only a buffer of a configured size is used to read the encoded data
 	 * 
-	 * @param endpoint containing which endpoint that called the method
-	 * @param jsonString containing the Base64 encoded {@link String}
-	 * @return parsed {@link JsonNode} instance
-	 * @throws IOException
-	 */
-	JsonNode parseJsonNode(Endpoint endpoint, String jsonString) throws IOException;
-
-	/**
-	 * This method parses the recevied Base64 encoded binary data into a
-	 * {@link String}
+	 * A payload read as {@link PayloadFormat#BINARY} is only decoded, being
+	 * kept as the raw bytes it holds
 	 * 
 	 * @param endpoint containing which endpoint that called the method
 	 * @param inputStream containing the base64 encoded binary data
-	 * @return paesed {@link String}
+	 * @param format containing the {@link PayloadFormat} value of the payload, or {@code null} for the configured one
+	 * @return the {@link JsonPayload} read or {@code null} when the payload is empty
+	 * @throws IOException
 	 */
-	String parseString(Endpoint endpoint, InputStream inputStream);
+	JsonPayload readPayload(Endpoint endpoint, InputStream inputStream, String format) throws IOException;
 
 	/**
 	 * This method parses the received {@link Endpoint} and {@code id} values into
@@ -2,20 +2,52 @@ package com.waes.assessment.service.impl;
 
 import java.io.IOException;
 import java.io.InputStream;
-import java.util.HashMap;
-import java.util.Map;
+import java.io.OutputStream;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
 
 import org.slf4j.Logger;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.http.MediaType;
 import org.springframework.stereotype.Service;
 
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.waes.assessment.cache.DiffResultCache;
+import com.waes.assessment.common.CanonicalJson;
+import com.waes.assessment.common.Constant;
+import com.waes.assessment.common.Constant.ExceptionHandlerMessage;
 import com.waes.assessment.common.Constant.LogMessage;
+import com.waes.assessment.common.Constant.Metric;
 import com.waes.assessment.common.Constant.ResponseMessage;
+import com.waes.assessment.common.DiffMode;
+import com.waes.assessment.common.DiffOutcome;
 import com.waes.assessment.common.Endpoint;
+import com.waes.assessment.common.JsonPatchApplier;
+import com.waes.assessment.common.JsonPayload;
+import com.waes.assessment.common.PayloadFormat;
+import com.waes.assessment.common.SubtreeHashes;
 import com.waes.assessment.dto.ResponseDTO;
+import com.waes.assessment.exception.InvalidDiffModeException;
+import com.waes.assessment.exception.InvalidPatchException;
+import com.waes.assessment.exception.MissingInMemoryPayloadException;
+import com.waes.assessment.exception.RequiredPayloadException;
 import com.waes.assessment.logger.WAESLoggerFactory;
+import com.waes.assessment.metric.MetricService;
 import com.waes.assessment.service.AssessmentApplicationService;
 import com.waes.assessment.service.MessageService;
+import com.waes.assessment.store.PayloadBlob;
+import com.waes.assessment.store.PayloadSlot;
+import com.waes.assessment.store.PayloadStore;
 import com.waes.assessment.validator.Validator;
 
 @Service
@@ -23,8 +55,8 @@ public class AssessmentApplicationServiceImpl implements AssessmentApplicationSe
 
 	private static final Logger LOGGER = WAESLoggerFactory.getLogger(AssessmentApplicationServiceImpl.class);
 
-	private static final Map<String, String> IN_MEMORY_LEFT_MAP = new HashMap<>();
-	private static final Map<String, String> IN_MEMORY_RIGHT_MAP = new HashMap<>();
+	@Autowired
+	private PayloadStore payloadStore;
 	
 	@Autowired
 	private Validator validator;
@@ -32,13 +64,28 @@ public class AssessmentApplicationServiceImpl implements AssessmentApplicationSe
 	@Autowired
 	private MessageService messageService;
 	
+	@Autowired
+	private DiffResultCache diffResultCache;
+	
+	@Autowired
+	private MetricService metricService;
+	
+	@Autowired
+	private ObjectMapper objectMapper;
+	
+	@Autowired(required = false)
+	@Qualifier("diffExecutor")
+	private Executor diffExecutor;
+	
+	private final ConcurrentMap<String, Computation> computations = new ConcurrentHashMap<>();
+	
 	@Override
-	public ResponseDTO setLeft(final String id, final InputStream inputStream) throws IOException {
-		final String parsedString = this.messageService.parseString(Endpoint.LEFT, inputStream);
+	public ResponseDTO setLeft(final String id, final InputStream inputStream, final String format) throws IOException {
+		final JsonPayload payload = this.messageService.readPayload(Endpoint.LEFT, inputStream, format);
 
-		this.validator.validate(Endpoint.LEFT, id, parsedString);
+		this.validator.validate(Endpoint.LEFT, id, payload);
 		
-		IN_MEMORY_LEFT_MAP.put(id, parsedString);
+		this.precompute(id, this.payloadStore.put(Endpoint.LEFT, id, payload));
 
 		LOGGER.info(LogMessage.MEMORY_SETTING_LOG_MESSAGE, Endpoint.LEFT.getValue(), id);
 
@@ -47,12 +94,12 @@ public class AssessmentApplicationServiceImpl implements AssessmentApplicationSe
 	}
 
 	@Override
-	public ResponseDTO setRight(final String id, final InputStream inputStream) throws IOException {
-		final String parsedString = this.messageService.parseString(Endpoint.RIGHT, inputStream);
+	public ResponseDTO setRight(final String id, final InputStream inputStream, final String format) throws IOException {
+		final JsonPayload payload = this.messageService.readPayload(Endpoint.RIGHT, inputStream, format);
 		
-		this.validator.validate(Endpoint.RIGHT, id, parsedString);
+		this.validator.validate(Endpoint.RIGHT, id, payload);
 		
-		IN_MEMORY_RIGHT_MAP.put(id, parsedString);
+		this.precompute(id, this.payloadStore.put(Endpoint.RIGHT, id, payload));
 
 		LOGGER.info(LogMessage.MEMORY_SETTING_LOG_MESSAGE, Endpoint.RIGHT.getValue(), id);
 		
@@ -61,13 +108,285 @@ public class AssessmentApplicationServiceImpl implements AssessmentApplicationSe
 	}
 
 	@Override
-	public ResponseDTO processLeftAndRight(final String id) throws IOException {
+	public ResponseDTO patchLeft(final String id, final InputStream inputStream, final String mediaType) throws IOException {
+		return this.patch(Endpoint.LEFT, id, inputStream, mediaType);
+	}
+
+	@Override
+	public ResponseDTO patchRight(final String id, final InputStream inputStream, final String mediaType) throws IOException {
+		return this.patch(Endpoint.RIGHT, id, inputStream, mediaType);
+	}
+
+	@Override
+	public ResponseDTO processLeftAndRight(final String id, final String mode, final int limit) throws IOException {
 		LOGGER.info(LogMessage.LEFT_AND_RIGHT_PROCESS_LOG_MESSAGE, id);
 		
-		this.validator.validate(id, IN_MEMORY_LEFT_MAP.get(id), IN_MEMORY_RIGHT_MAP.get(id));
+		final DiffMode diffMode = modeOf(mode, limit);
+		
+		// The slot is read once, so the left and right being validated are always from the
+		// same moment, and the cached outcome is only present if it was computed from them
+		final PayloadSlot slot = this.payloadStore.get(id);
+		DiffOutcome outcome = null == slot ? null : slot.getOutcome();
+		
+		if (null != outcome) {
+			LOGGER.info(LogMessage.RETRIEVING_CACHED_DATA);
+			
+			if (outcome.isEqual())
+				LOGGER.info(LogMessage.NO_ERRORS_CACHED_DATA);
+		} else if (DiffMode.FULL == diffMode) {
+			outcome = this.computeOnce(id, slot);
+		} else outcome = this.compare(id, slot, diffMode, limit);
+
+		// Only complete outcomes are cached, which are narrowed down to what the mode asks for
+		return render(outcome.inMode(diffMode, limit));
+	}
+
+	@Override
+	public void writePatch(final String id, final OutputStream outputStream) throws IOException {
+		LOGGER.info(LogMessage.LEFT_AND_RIGHT_PROCESS_LOG_MESSAGE, id);
+		
+		// The patch is written as it is found, so there is nothing to be cached
+		this.validator.writePatch(id, this.payloadStore.get(id), outputStream);
+	}
+
+	/*
+	 * This method applies the patch to the payload stored on the side, storing the patched one only
+	 * while the side still holds the payload it has been derived from, so a payload set meanwhile is
+	 * patched instead of being overwritten, as is a payload whose bytes were released meanwhile
+	 *
+	 * Only one side changes, so the cached outcome of the id is brought up to date by diffing again
+	 * only the subtrees the patch has reached
+	 */
+	private ResponseDTO patch(final Endpoint endpoint, final String id, final InputStream inputStream, final String mediaType) throws IOException {
+		final JsonNode patch = this.readPatch(endpoint, id, inputStream);
+		final boolean merge = null != mediaType && MediaType.valueOf(Constant.MERGE_PATCH_MEDIA_TYPE).includes(MediaType.parseMediaType(mediaType));
+		
+		PayloadSlot slot;
+		do {
+			final PayloadSlot current = this.payloadStore.get(id);
+			final PayloadBlob blob = null == current ? null : current.get(endpoint);
+			if (null == blob)
+				throw new MissingInMemoryPayloadException(endpoint, id);
+			final JsonPayload patched = this.patched(endpoint, id, blob, patch, merge);
+			slot = null == patched ? null : this.payloadStore.replace(endpoint, id, blob, patched);
+		} while (null == slot);
+		
+		this.precompute(id, slot);
+
+		LOGGER.info(LogMessage.MEMORY_PATCHING_LOG_MESSAGE, endpoint.getValue(), id);
+
+		return ResponseDTO.builder().withMessage(this.messageService.parse(endpoint, id))
+								    .build();
+	}
+
+	/*
+	 * This method reads the patch as the payloads of the POST are read, where anything after it is refused
+	 */
+	private JsonNode readPatch(final Endpoint endpoint, final String id, final InputStream inputStream) throws IOException {
+		if (null == inputStream)
+			throw new RequiredPayloadException(endpoint, id);
+		
+		final JsonNode patch;
+		try (final JsonParser parser = this.objectMapper.getFactory().createParser(inputStream)) {
+			patch = null == parser.nextToken() ? null : this.objectMapper.readTree(parser);
+			if (null != patch && null != parser.nextToken())
+				throw new JsonParseException(parser, ExceptionHandlerMessage.TRAILING_CONTENT_EXCEPTION_MESSAGE);
+		} catch (final JsonProcessingException e) {
+			throw new InvalidPatchException(endpoint, id, e.getOriginalMessage());
+		}
+		
+		if (null == patch || patch.isMissingNode())
+			throw new RequiredPayloadException(endpoint, id);
+		return patch;
+	}
+
+	/*
+	 * The patched payload shares with the stored tree every subtree the patch has not reached,
+	 * so only the hashes of the containers on the way to the changes are computed, where the
+	 * tree is parsed from the bytes when only the bytes are kept, being null returned when they
+	 * were released by a replace or an eviction meanwhile, so the side is read again
+	 */
+	private JsonPayload patched(final Endpoint endpoint, final String id, final PayloadBlob blob, final JsonNode patch,
+			final boolean merge) throws IOException {
+		if (PayloadFormat.BINARY == blob.getFormat())
+			throw new InvalidPatchException(endpoint, id, ExceptionHandlerMessage.BINARY_PAYLOAD_PATCH_REASON);
+		
+		JsonNode tree = blob.getTree();
+		if (null == tree) {
+			final byte[] bytes = blob.getPayload().getBytes();
+			if (null == bytes)
+				return null;
+			tree = this.objectMapper.readTree(bytes);
+		}
+		
+		final JsonNode patched;
+		try {
+			patched = merge ? JsonPatchApplier.applyMergePatch(tree, patch) : JsonPatchApplier.applyPatch(tree, patch);
+		} catch (final IllegalArgumentException e) {
+			throw new InvalidPatchException(endpoint, id, e.getMessage());
+		}
+		
+		final byte[] bytes = this.objectMapper.writeValueAsBytes(patched);
+		if (null == blob.getTree())
+			return new JsonPayload(bytes, null, PayloadFormat.JSON, CanonicalJson.of(patched));
+		return new JsonPayload(bytes, patched, PayloadFormat.JSON, CanonicalJson.of(patched), SubtreeHashes.of(patched, blob.getSubtreeHashes()));
+	}
+
+	/*
+	 * This method finds the mode of the request, where a limit is only needed by the first mode
+	 */
+	private static DiffMode modeOf(final String mode, final int limit) {
+		final DiffMode diffMode;
+		try {
+			diffMode = DiffMode.of(mode);
+		} catch (final IllegalArgumentException e) {
+			throw new InvalidDiffModeException(mode, limit);
+		}
+		
+		if (DiffMode.FIRST == diffMode && limit < 1)
+			throw new InvalidDiffModeException(mode, limit);
+		return diffMode;
+	}
+
+	/*
+	 * This method enqueues the comparison of the id once both sides are set, when the
+	 * eager comparison is enabled, so its outcome is cached before the first GET arrives
+	 *
+	 * When the executor is saturated nothing is enqueued, and the id is compared on its
+	 * first GET as it would be without the eager comparison
+	 */
+	private void precompute(final String id, final PayloadSlot slot) {
+		if (null == this.diffExecutor || null == slot || null == slot.get(Endpoint.LEFT) || null == slot.get(Endpoint.RIGHT))
+			return;
+
+		final long submitted = System.nanoTime();
+		try {
+			this.diffExecutor.execute(() -> {
+				try {
+					this.computeOnce(id, slot);
+					this.metricService.increment(Metric.DIFF_EAGER_COMPLETED_COUNT);
+					this.metricService.add(Metric.DIFF_EAGER_LATENCY_MICROS, TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - submitted));
+				} catch (final IOException | RuntimeException e) {
+					LOGGER.error(LogMessage.EAGER_COMPARISON_FAILED, id, e);
+				}
+			});
+			this.metricService.increment(Metric.DIFF_EAGER_SUBMITTED_COUNT);
+		} catch (final RejectedExecutionException e) {
+			LOGGER.warn(LogMessage.EAGER_COMPARISON_REJECTED, id);
+			this.metricService.increment(Metric.DIFF_EAGER_REJECTED_COUNT);
+		}
+	}
+
+	/*
+	 * This method makes sure that only one thread compares the same snapshot of an id at
+	 * a time, where the threads arriving meanwhile wait for its outcome instead of
+	 * comparing the same payloads in parallel
+	 *
+	 * A thread holding a snapshot other than the one being compared does not wait, since
+	 * the outcome being computed is not the outcome of its payloads
+	 */
+	private DiffOutcome computeOnce(final String id, final PayloadSlot slot) throws IOException {
+		if (null == slot)
+			return this.compare(id, null, DiffMode.FULL, Integer.MAX_VALUE);
+
+		final Computation own = new Computation(slot);
+		final Computation running = this.computations.putIfAbsent(id, own);
+		if (null != running) {
+			if (!running.slot.isSameVersion(slot))
+				return this.compare(id, slot, DiffMode.FULL, Integer.MAX_VALUE);
+
+			LOGGER.info(LogMessage.AWAITING_RUNNING_COMPARISON, id);
+			this.metricService.increment(Metric.DIFF_COALESCED_COUNT);
+			return running.await();
+		}
+
+		try {
+			final DiffOutcome outcome = this.compare(id, slot, DiffMode.FULL, Integer.MAX_VALUE);
+			own.future.complete(outcome);
+			return outcome;
+		} catch (final IOException | RuntimeException e) {
+			own.future.completeExceptionally(e);
+			throw e;
+		} finally {
+			this.computations.remove(id, own);
+		}
+	}
+
+	/*
+	 * This method compares both sides of the slot caching the outcome on it, where the
+	 * payloads have already been parsed when they were received, so only the comparison
+	 * outcomes are left to be cached
+	 *
+	 * The outcome is cached by the hashes of both contents as well, so any other id
+	 * holding the same pair of contents reuses it instead of comparing them again
+	 *
+	 * An outcome found by a mode other than the full one only carries part of the diff,
+	 * so it is never cached, since it cannot be narrowed down to the other modes
+	 *
+	 * A payload released while being compared has been replaced or evicted, so the id is
+	 * compared again as it is now, and only outcomes found from content are cached
+	 */
+	private DiffOutcome compare(final String id, final PayloadSlot slot, final DiffMode mode, final int limit) throws IOException {
+		final PayloadBlob left = null == slot ? null : slot.get(Endpoint.LEFT);
+		final PayloadBlob right = null == slot ? null : slot.get(Endpoint.RIGHT);
+		final boolean complete = null != left && null != right;
+
+		DiffOutcome outcome = complete ? this.diffResultCache.get(left.getHash(), right.getHash()) : null;
+		if (null != outcome) {
+			LOGGER.info(LogMessage.RETRIEVING_CACHED_CONTENT_DATA);
+		} else {
+			outcome = DiffMode.FULL == mode ? this.validator.compare(id, slot) : this.validator.compare(id, slot, mode, limit);
+			if (complete && !outcome.isComplete() && DiffOutcome.Type.MISSING_SIDE == outcome.getType()) {
+				final PayloadSlot current = this.payloadStore.get(id);
+				if (null == current || !current.isSameVersion(slot))
+					return this.compare(id, current, mode, limit);
+				return outcome;
+			}
+			if (complete && outcome.isComplete() && DiffOutcome.Type.MISSING_SIDE != outcome.getType())
+				this.diffResultCache.put(left.getHash(), right.getHash(), outcome);
+		}
+		
+		if (null != slot && outcome.isComplete())
+			this.payloadStore.cacheOutcome(id, slot, outcome);
+		return outcome;
+	}
+
+	/*
+	 * The outcomes other than equal are rendered by the WAESExceptionHandler, through
+	 * exceptions built only at this point that do not fill their stack traces
+	 */
+	private static ResponseDTO render(final DiffOutcome outcome) {
+		if (!outcome.isEqual())
+			throw outcome.toException();
 
 		return ResponseDTO.builder().withMessage(ResponseMessage.LEFT_AND_RIGHT_PROCESS_RESPONSE_MESSAGE)
 								    .build();
 	}
 
+	/*
+	 * This class is a comparison in progress, holding the snapshot being compared and the
+	 * future that the coalesced threads wait on
+	 */
+	private static class Computation {
+
+		private final PayloadSlot slot;
+		private final CompletableFuture<DiffOutcome> future = new CompletableFuture<>();
+
+		private Computation(final PayloadSlot slot) {
+			this.slot = slot;
+		}
+
+		private DiffOutcome await() throws IOException {
+			try {
+				return this.future.join();
+			} catch (final CompletionException e) {
+				if (e.getCause() instanceof IOException)
+					throw (IOException) e.getCause();
+				if (e.getCause() instanceof RuntimeException)
+					throw (RuntimeException) e.getCause();
+				throw e;
+			}
+		}
+	}
+
 }
@@ -2,20 +2,29 @@ package com.waes.assessment.service.impl;
 
 import java.io.IOException;
 import java.io.InputStream;
-import java.nio.charset.Charset;
-import java.util.Base64;
+import java.io.PushbackInputStream;
 
-import org.apache.commons.io.IOUtils;
 import org.slf4j.Logger;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.waes.assessment.common.Base64DecodingInputStream;
+import com.waes.assessment.common.CanonicalJson;
+import com.waes.assessment.common.Constant;
+import com.waes.assessment.common.Constant.ExceptionHandlerMessage;
 import com.waes.assessment.common.Constant.LogMessage;
 import com.waes.assessment.common.Constant.ResponseMessage;
 import com.waes.assessment.common.Endpoint;
+import com.waes.assessment.common.JsonPayload;
+import com.waes.assessment.common.PayloadFormat;
 import com.waes.assessment.exception.DeserializationException;
+import com.waes.assessment.exception.InvalidPayloadFormatException;
 import com.waes.assessment.logger.WAESLoggerFactory;
 import com.waes.assessment.service.MessageService;
 
@@ -27,16 +36,14 @@ public class MessageServiceImpl implements MessageService {
 	@Autowired
 	private ObjectMapper objectMapper;
 	
-	@Override
-	public JsonNode parseJsonNode(final Endpoint endpoint, final String jsonString) throws IOException {
-		try {
-			final String decMessage = new String(Base64.getDecoder().decode(jsonString), Charset.forName("UTF-8"));
-			return this.objectMapper.readTree(decMessage);
-		} catch (final Exception e) {
-			LOGGER.error(LogMessage.DESERIALIZATION_ERROR_MESSAGE, e);
-			throw new DeserializationException(endpoint, e);
-		}
-	}
+	@Value("${waes.ingest.buffer-bytes:8192}")
+	private int bufferBytes;
+	
+	@Value("${waes.diff.engine:tree}")
+	private String diffEngine;
+	
+	@Value("${waes.ingest.default-format:json}")
+	private String defaultFormat;
 	
 	@Override
 	public String parse(final Endpoint endpoint, final String id) {
@@ -50,12 +57,90 @@ public class MessageServiceImpl implements MessageService {
 	}
 	
 	@Override
-	public String parseString(final Endpoint endpoint, final InputStream inputStream) {
+	public JsonPayload readPayload(final Endpoint endpoint, final InputStream inputStream, final String format) throws IOException {
+		final PayloadFormat payloadFormat = formatOf(null == format ? this.defaultFormat : format);
+		final Base64DecodingInputStream decodingInputStream = new Base64DecodingInputStream(inputStream, this.bufferBytes);
 		try {
-			return IOUtils.toString(inputStream, Charset.forName("UTF-8"));
-		} catch (final IOException e) {
+			if (PayloadFormat.BINARY == payloadFormat)
+				return this.readBinary(decodingInputStream);
+			if (PayloadFormat.JSON == payloadFormat)
+				return this.readJson(decodingInputStream, decodingInputStream);
+			
+			// Only a payload starting as a JSON document does is parsed, where any payload
+			// failing to be parsed is kept as the raw bytes decoded so far and after it
+			final PushbackInputStream sniffingInputStream = new PushbackInputStream(decodingInputStream);
+			final int first = firstNonWhitespace(sniffingInputStream);
+			if (-1 == first)
+				return null;
+			sniffingInputStream.unread(first);
+			if (!isJsonStart(first))
+				return this.readBinary(decodingInputStream);
+			try {
+				return this.readJson(decodingInputStream, sniffingInputStream);
+			} catch (final JsonProcessingException e) {
+				return this.readBinary(decodingInputStream);
+			}
+		} catch (final Exception e) {
 			LOGGER.error(LogMessage.DESERIALIZATION_ERROR_MESSAGE, e);
 			throw new DeserializationException(endpoint, e);
 		}
 	}
+	
+	/*
+	 * This method parses the payload read from the informed stream, which reads from the decoding one, where
+	 * closing the parser leaves the stream open, so a payload failing to be parsed can still be read as binary
+	 */
+	private JsonPayload readJson(final Base64DecodingInputStream decodingInputStream, final InputStream inputStream) throws IOException {
+		try (final JsonParser parser = this.objectMapper.getFactory().createParser(inputStream).disable(JsonParser.Feature.AUTO_CLOSE_SOURCE)) {
+			if (null == parser.nextToken())
+				return null;
+			
+			final JsonNode tree = this.objectMapper.readTree(parser);
+			
+			if (null != parser.nextToken())
+				throw new JsonParseException(parser, ExceptionHandlerMessage.TRAILING_CONTENT_EXCEPTION_MESSAGE);
+			
+			// The streaming engine compares the payloads straight from their bytes, so their tree
+			// is only used to write their canonical form, without being kept
+			if (Constant.STREAMING_DIFF_ENGINE.equals(this.diffEngine))
+				return new JsonPayload(decodingInputStream.toByteArray(), null, PayloadFormat.JSON, CanonicalJson.of(tree));
+			return new JsonPayload(decodingInputStream.toByteArray(), tree);
+		}
+	}
+	
+	/*
+	 * This method decodes the rest of the payload keeping all of its bytes, as they are
+	 */
+	private JsonPayload readBinary(final Base64DecodingInputStream decodingInputStream) throws IOException {
+		final byte[] buffer = new byte[Math.max(1, this.bufferBytes)];
+		while (-1 != decodingInputStream.read(buffer, 0, buffer.length));
+		
+		final byte[] bytes = decodingInputStream.toByteArray();
+		return 0 == bytes.length ? null : new JsonPayload(bytes, null, PayloadFormat.BINARY);
+	}
+	
+	/*
+	 * This method finds the format of the request before anything is read, so an unknown
+	 * format is told apart from a payload that cannot be deserialized
+	 */
+	private static PayloadFormat formatOf(final String format) {
+		try {
+			return PayloadFormat.of(format);
+		} catch (final IllegalArgumentException e) {
+			throw new InvalidPayloadFormatException(format);
+		}
+	}
+	
+	private static int firstNonWhitespace(final InputStream inputStream) throws IOException {
+		int current;
+		do {
+			current = inputStream.read();
+		} while (' ' == current || '\t' == current || '\n' == current || '\r' == current);
+		return current;
+	}
+	
+	private static boolean isJsonStart(final int first) {
+		return '{' == first || '[' == first || '"' == first || '-' == first || (first >= '0' && first <= '9')
+				|| 't' == first || 'f' == first || 'n' == first;
+	}
 }
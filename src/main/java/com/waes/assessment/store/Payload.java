@@ -0,0 +1,37 @@
+package com.waes.assessment.store;
+
+/**
+ * This interface represents the bytes of a payload kept by the {@link PayloadStore},
+ * hiding if they live on the heap or outside of it
+ *
+ * A payload is owned by the store, which releases it once it is replaced or evicted,
+ * so the ones living outside of the heap can have their memory reused. Whoever is
+ * still holding a released payload gets {@code null} when reading its bytes, which
+ * means that a newer slot has to be retrieved from the store
+ *
+ * @author Daniel Chiuratto Seabra
+ *
+ */
+public interface Payload {
+
+	/**
+	 * Returns the amount of bytes of the payload
+	 *
+	 * @return {@code int} containing the size in bytes
+	 */
+	int size();
+
+	/**
+	 * This method retrieves the bytes of the payload
+	 *
+	 * @return {@code byte[]} containing the payload, or {@code null} when it has been released
+	 */
+	byte[] getBytes();
+
+	/**
+	 * This method gives back the memory used by the payload, being called only by
+	 * the store that owns it
+	 */
+	void release();
+
+}
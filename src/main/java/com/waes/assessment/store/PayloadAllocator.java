@@ -0,0 +1,21 @@
+package com.waes.assessment.store;
+
+/**
+ * This interface defines where the bytes of the payloads set into the
+ * {@link PayloadStore} are kept, allowing them to live on the heap or on
+ * memory managed by the application itself
+ *
+ * @author Daniel Chiuratto Seabra
+ *
+ */
+public interface PayloadAllocator {
+
+	/**
+	 * This method copies the informed bytes into a new {@link Payload}
+	 *
+	 * @param bytes containing the content of the payload
+	 * @return the allocated {@link Payload}
+	 */
+	Payload allocate(byte[] bytes);
+
+}
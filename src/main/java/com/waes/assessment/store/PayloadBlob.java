@@ -0,0 +1,162 @@
+package com.waes.assessment.store;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.waes.assessment.common.ContentHash;
+import com.waes.assessment.common.JsonPayload;
+import com.waes.assessment.common.PayloadFormat;
+import com.waes.assessment.common.SubtreeHashes;
+
+/**
+ * This class is a stored content shared by every id side that has been set
+ * with the very same payload, holding its bytes, its parsed tree and the
+ * {@link ContentHash} that identifies it
+ *
+ * The {@link SubtreeHashes} of the tree are computed along with the blob, unless
+ * the {@link JsonPayload} already carries them, so every diff against this content
+ * reuses them instead of computing them again, and the hash and size of its
+ * canonical form are kept from the {@link JsonPayload}
+ *
+ * The blob counts how many sides are referencing it, so its {@link Payload}
+ * is only released once the last of them is replaced or evicted
+ *
+ * @author Daniel Chiuratto Seabra
+ *
+ */
+public final class PayloadBlob {
+
+	private final ContentHash hash;
+	private final Payload payload;
+	private final JsonNode tree;
+	private final SubtreeHashes subtreeHashes;
+	private final PayloadFormat format;
+	private final ContentHash canonicalHash;
+	private final int canonicalSize;
+	private final AtomicInteger references = new AtomicInteger(1);
+
+	/**
+	 * @param value containing the {@link JsonPayload} the content is read from
+	 * @param payload containing the {@link Payload} holding the bytes of the content
+	 */
+	public PayloadBlob(final JsonPayload value, final Payload payload) {
+		this.hash = value.getHash();
+		this.payload = payload;
+		this.tree = value.getTree();
+		this.format = value.getFormat();
+		this.canonicalHash = value.getCanonicalHash();
+		this.canonicalSize = value.getCanonicalSize();
+		if (null != this.tree && null != value.getSubtreeHashes())
+			this.subtreeHashes = value.getSubtreeHashes();
+		else this.subtreeHashes = null == this.tree ? null : SubtreeHashes.of(this.tree);
+	}
+
+	/**
+	 * Returns the hash of the content
+	 *
+	 * @return {@link ContentHash} of the content
+	 */
+	public ContentHash getHash() {
+		return this.hash;
+	}
+
+	/**
+	 * Returns the {@link Payload} holding the bytes of the content
+	 *
+	 * @return the {@link Payload} of the content
+	 */
+	public Payload getPayload() {
+		return this.payload;
+	}
+
+	/**
+	 * Returns the parsed representation of the content
+	 *
+	 * @return {@link JsonNode} of the content or {@code null} when the trees are not kept
+	 */
+	public JsonNode getTree() {
+		return this.tree;
+	}
+
+	/**
+	 * Returns the hashes of the objects and arrays of the parsed representation
+	 *
+	 * @return {@link SubtreeHashes} of the content or {@code null} when the trees are not kept
+	 */
+	public SubtreeHashes getSubtreeHashes() {
+		return this.subtreeHashes;
+	}
+
+	/**
+	 * Returns the format the content has been read in
+	 *
+	 * @return {@link PayloadFormat} being either {@link PayloadFormat#JSON} or {@link PayloadFormat#BINARY}
+	 */
+	public PayloadFormat getFormat() {
+		return this.format;
+	}
+
+	/**
+	 * Returns the hash of the canonical form of the content
+	 *
+	 * @return {@link ContentHash} of the canonical form
+	 */
+	public ContentHash getCanonicalHash() {
+		return this.canonicalHash;
+	}
+
+	/**
+	 * Returns the amount of bytes of the canonical form of the content
+	 *
+	 * @return {@code int} containing the size in bytes of the canonical form
+	 */
+	public int getCanonicalSize() {
+		return this.canonicalSize;
+	}
+
+	/**
+	 * Returns the amount of bytes of the content
+	 *
+	 * @return {@code int} containing the size in bytes
+	 */
+	public int size() {
+		return this.payload.size();
+	}
+
+	/**
+	 * Returns the amount of heap and payload bytes the blob keeps alive, being its content
+	 * together with the estimate of its tree and of its {@link SubtreeHashes}, which take
+	 * several times the bytes of the content
+	 *
+	 * @return {@code long} containing the weight in bytes
+	 */
+	public long weight() {
+		return this.payload.size() + (null == this.subtreeHashes ? 0 : this.subtreeHashes.getEstimatedBytes());
+	}
+
+	/**
+	 * Takes one more reference to the blob, unless it has already been released by all
+	 * of its references
+	 *
+	 * @return {@code true} when the reference has been taken
+	 */
+	public boolean retain() {
+		int current;
+		do {
+			current = this.references.get();
+			if (current <= 0)
+				return false;
+		} while (!this.references.compareAndSet(current, current + 1));
+		return true;
+	}
+
+	/**
+	 * Gives back one reference of the blob
+	 *
+	 * @return {@code true} when it was the last reference, so the blob is not used anymore
+	 */
+	public boolean release() {
+		return 0 == this.references.decrementAndGet();
+	}
+
+}
@@ -0,0 +1,168 @@
+package com.waes.assessment.store;
+
+import com.waes.assessment.common.DiffOutcome;
+import com.waes.assessment.common.Endpoint;
+
+/**
+ * This class is an immutable snapshot of everything the application keeps for
+ * one id: the {@link PayloadBlob} of the left and right payloads, the version
+ * each of them was set with and the cached outcome of their validation
+ *
+ * Since it is immutable, the {@link PayloadStore} replaces the whole slot
+ * at once, so whoever reads it always sees a left and a right that existed at the
+ * same moment, and the cached {@link DiffOutcome} is only exposed when it was computed from
+ * exactly the left and right versions present on the slot
+ *
+ * The {@link PayloadBlob} the cached outcome was computed from are kept along with it,
+ * even after a side has been replaced, so the next validation is able to diff only
+ * what changed since then, where only their trees and subtree hashes are looked at,
+ * which stay usable after their bytes have been released
+ *
+ * @author Daniel Chiuratto Seabra
+ *
+ */
+public final class PayloadSlot {
+
+	/**
+	 * The slot of an id that has never been set
+	 */
+	public static final PayloadSlot EMPTY = new PayloadSlot(null, 0, null, 0, null, 0, 0, null, null);
+
+	private final PayloadBlob left;
+	private final long leftVersion;
+	private final PayloadBlob right;
+	private final long rightVersion;
+	private final DiffOutcome outcome;
+	private final long outcomeLeftVersion;
+	private final long outcomeRightVersion;
+	private final PayloadBlob outcomeLeft;
+	private final PayloadBlob outcomeRight;
+
+	private PayloadSlot(final PayloadBlob left, final long leftVersion, final PayloadBlob right, final long rightVersion,
+			final DiffOutcome outcome, final long outcomeLeftVersion, final long outcomeRightVersion,
+			final PayloadBlob outcomeLeft, final PayloadBlob outcomeRight) {
+		this.left = left;
+		this.leftVersion = leftVersion;
+		this.right = right;
+		this.rightVersion = rightVersion;
+		this.outcome = outcome;
+		this.outcomeLeftVersion = outcomeLeftVersion;
+		this.outcomeRightVersion = outcomeRightVersion;
+		this.outcomeLeft = outcomeLeft;
+		this.outcomeRight = outcomeRight;
+	}
+
+	/**
+	 * Returns a copy of this slot with the payload of the informed {@link Endpoint}
+	 * replaced, keeping the other side and its version untouched
+	 *
+	 * The payloads the cached outcome was computed from are only kept while one of them
+	 * is still present, since the outcome cannot be brought up to date once both sides
+	 * have been replaced
+	 *
+	 * @param endpoint containing which side is being replaced
+	 * @param value containing the {@link PayloadBlob} of the new payload
+	 * @param version containing the version the new payload is being set with
+	 * @return the new {@link PayloadSlot} instance
+	 */
+	public PayloadSlot with(final Endpoint endpoint, final PayloadBlob value, final long version) {
+		final PayloadBlob left = Endpoint.LEFT == endpoint ? value : this.left;
+		final PayloadBlob right = Endpoint.LEFT == endpoint ? this.right : value;
+		final boolean retained = this.outcomeLeft == left || this.outcomeRight == right;
+		if (Endpoint.LEFT == endpoint)
+			return new PayloadSlot(value, version, this.right, this.rightVersion, this.outcome, this.outcomeLeftVersion,
+					this.outcomeRightVersion, retained ? this.outcomeLeft : null, retained ? this.outcomeRight : null);
+		return new PayloadSlot(this.left, this.leftVersion, value, version, this.outcome, this.outcomeLeftVersion,
+				this.outcomeRightVersion, retained ? this.outcomeLeft : null, retained ? this.outcomeRight : null);
+	}
+
+	/**
+	 * Returns a copy of this slot carrying the informed outcome, stamped with the
+	 * left and right versions it was computed from, where the payloads present on this
+	 * slot are kept as the ones the outcome was computed from
+	 *
+	 * @param outcome containing the {@link DiffOutcome} to be cached
+	 * @param leftVersion containing the left version the outcome was computed from
+	 * @param rightVersion containing the right version the outcome was computed from
+	 * @return the new {@link PayloadSlot} instance
+	 */
+	public PayloadSlot withOutcome(final DiffOutcome outcome, final long leftVersion, final long rightVersion) {
+		return new PayloadSlot(this.left, this.leftVersion, this.right, this.rightVersion,
+				outcome, leftVersion, rightVersion, this.left, this.right);
+	}
+
+	/**
+	 * Returns the {@link PayloadBlob} set on the informed {@link Endpoint}
+	 *
+	 * @param endpoint containing which side should be returned
+	 * @return the {@link PayloadBlob} or {@code null} when the side has not been set
+	 */
+	public PayloadBlob get(final Endpoint endpoint) {
+		return Endpoint.LEFT == endpoint ? this.left : this.right;
+	}
+
+	/**
+	 * Returns the version that the payload of the informed {@link Endpoint} has been
+	 * set with, being {@code 0} when the side has not been set
+	 *
+	 * @param endpoint containing which side the version is related with
+	 * @return {@code long} containing the version
+	 */
+	public long getVersion(final Endpoint endpoint) {
+		return Endpoint.LEFT == endpoint ? this.leftVersion : this.rightVersion;
+	}
+
+	/**
+	 * Returns the cached outcome only when it has been computed from the very same
+	 * left and right versions present on this slot
+	 *
+	 * @return the cached {@link DiffOutcome} or {@code null} when there is none or it is stale
+	 */
+	public DiffOutcome getOutcome() {
+		if (this.outcomeLeftVersion == this.leftVersion && this.outcomeRightVersion == this.rightVersion)
+			return this.outcome;
+		return null;
+	}
+
+	/**
+	 * Returns the cached outcome even when any side has been replaced since it was computed,
+	 * so it can be brought up to date through {@link #getPreviousBlob(Endpoint)}
+	 *
+	 * @return the cached {@link DiffOutcome} or {@code null} when there is none
+	 */
+	public DiffOutcome getPreviousOutcome() {
+		return this.outcome;
+	}
+
+	/**
+	 * Returns the {@link PayloadBlob} of the informed {@link Endpoint} that the cached
+	 * outcome was computed from, whose bytes may have been released already
+	 *
+	 * @param endpoint containing which side should be returned
+	 * @return the {@link PayloadBlob} or {@code null} when there is no cached outcome
+	 */
+	public PayloadBlob getPreviousBlob(final Endpoint endpoint) {
+		return Endpoint.LEFT == endpoint ? this.outcomeLeft : this.outcomeRight;
+	}
+
+	/**
+	 * Checks if this slot contains the same left and right versions than the
+	 * informed one
+	 *
+	 * @param other containing the {@link PayloadSlot} to be compared with
+	 * @return {@code true} when both slots holds the same versions
+	 */
+	public boolean isSameVersion(final PayloadSlot other) {
+		return this.leftVersion == other.leftVersion && this.rightVersion == other.rightVersion;
+	}
+
+	@Override
+	public String toString() {
+		return new StringBuilder("PayloadSlot:(")
+				.append("leftVersion: ").append(this.leftVersion).append(", ")
+				.append("rightVersion: ").append(this.rightVersion).append(", ")
+				.append("outcome: ").append(this.getOutcome())
+				.append(")")
+				.toString();
+	}
+}
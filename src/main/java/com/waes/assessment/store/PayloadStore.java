@@ -0,0 +1,71 @@
+package com.waes.assessment.store;
+
+import com.waes.assessment.common.DiffOutcome;
+import com.waes.assessment.common.Endpoint;
+import com.waes.assessment.common.JsonPayload;
+
+/**
+ * This interface defines the storage where the payloads received through the
+ * left and right endpoints are kept in memory, allowing the implementation to
+ * be replaced without affecting the services that consume it
+ *
+ * Everything related with an id is kept on a single {@link PayloadSlot}, which
+ * is replaced atomically on every change, and the implementations must be thread
+ * safe, since the payloads are set and retrieved concurrently by the server
+ * worker threads
+ *
+ * @author Daniel Chiuratto Seabra
+ *
+ */
+public interface PayloadStore {
+
+	/**
+	 * This method stores the payload into the memory related with the informed
+	 * {@link Endpoint} on the specific id, replacing any prior payload set on it
+	 * with a version greater than any other version given before
+	 *
+	 * The content is kept on a {@link PayloadBlob} shared by every side set with the
+	 * same content, where the blob being replaced is released once nobody else uses it
+	 *
+	 * @param endpoint containing which memory (left or right) the payload belongs to
+	 * @param id of the memory where the payload needs to be stored
+	 * @param value containing the {@link JsonPayload} to be stored
+	 * @return the {@link PayloadSlot} resulting from this update
+	 */
+	PayloadSlot put(Endpoint endpoint, String id, JsonPayload value);
+
+	/**
+	 * This method stores the payload into the memory related with the informed
+	 * {@link Endpoint} on the specific id as {@link #put(Endpoint, String, JsonPayload)}
+	 * does, but only while that side still holds the expected {@link PayloadBlob},
+	 * so a payload derived from the stored one never overwrites a newer one
+	 *
+	 * @param endpoint containing which memory (left or right) the payload belongs to
+	 * @param id of the memory where the payload needs to be stored
+	 * @param expected containing the {@link PayloadBlob} the payload has been derived from
+	 * @param value containing the {@link JsonPayload} to be stored
+	 * @return the {@link PayloadSlot} resulting from this update or {@code null} if the side changed meanwhile
+	 */
+	PayloadSlot replace(Endpoint endpoint, String id, PayloadBlob expected, JsonPayload value);
+
+	/**
+	 * This method retrieves a consistent snapshot of everything stored on the
+	 * specific id
+	 *
+	 * @param id of the memory where the payloads are stored
+	 * @return the {@link PayloadSlot} of the id or {@code null} if nothing has been set on it
+	 */
+	PayloadSlot get(String id);
+
+	/**
+	 * This method caches the outcome computed from the informed snapshot, which is
+	 * only accepted if the id still holds the same left and right versions of it
+	 *
+	 * @param id of the memory where the payloads are stored
+	 * @param snapshot containing the {@link PayloadSlot} the outcome has been computed from
+	 * @param outcome containing the {@link DiffOutcome} to be cached
+	 * @return {@code true} if the outcome has been cached, {@code false} if any side changed meanwhile
+	 */
+	boolean cacheOutcome(String id, PayloadSlot snapshot, DiffOutcome outcome);
+
+}
@@ -0,0 +1,101 @@
+package com.waes.assessment.store.impl;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.springframework.stereotype.Component;
+
+import com.waes.assessment.common.Constant.Metric;
+import com.waes.assessment.common.ContentHash;
+import com.waes.assessment.common.JsonPayload;
+import com.waes.assessment.metric.MetricService;
+import com.waes.assessment.store.PayloadAllocator;
+import com.waes.assessment.store.PayloadBlob;
+
+/**
+ * This class keeps every distinct content set on the store only once, keyed by its
+ * {@link ContentHash}, so when the same document is set on many ids all of them
+ * point to a single {@link PayloadBlob} and the memory grows with the amount of
+ * distinct contents instead of with the amount of ids
+ *
+ * @author Daniel Chiuratto Seabra
+ *
+ */
+@Component
+public class ContentAddressedBlobStore {
+
+	private final Map<ContentHash, PayloadBlob> blobs = new ConcurrentHashMap<>();
+	private final LongAdder bytes = new LongAdder();
+	private final LongAdder hits = new LongAdder();
+	private final LongAdder misses = new LongAdder();
+	private final PayloadAllocator payloadAllocator;
+
+	public ContentAddressedBlobStore(final PayloadAllocator payloadAllocator, final MetricService metricService) {
+		this.payloadAllocator = payloadAllocator;
+		metricService.gauge(Metric.STORE_BLOB_COUNT, this.blobs::size);
+		metricService.gauge(Metric.STORE_BLOB_BYTES, this.bytes::sum);
+		metricService.gauge(Metric.STORE_DEDUP_HIT_COUNT, this.hits::sum);
+		metricService.gauge(Metric.STORE_DEDUP_MISS_COUNT, this.misses::sum);
+		metricService.gauge(Metric.STORE_DEDUP_HIT_RATE_PERCENT, this::getHitRatePercent);
+	}
+
+	/**
+	 * This method returns the blob holding the content of the informed payload taking a
+	 * reference to it, where a new blob is only created when the content is not stored yet
+	 *
+	 * @param value containing the {@link JsonPayload} being stored
+	 * @return the {@link PayloadBlob} holding the content
+	 */
+	public PayloadBlob acquire(final JsonPayload value) {
+		final ContentHash hash = value.getHash();
+		while (true) {
+			final PayloadBlob existing = this.blobs.get(hash);
+			if (null != existing) {
+				if (existing.retain()) {
+					this.hits.increment();
+					return existing;
+				}
+				// The last reference has just been released, so the blob is on its way out
+				this.blobs.remove(hash, existing);
+				continue;
+			}
+
+			final PayloadBlob created = new PayloadBlob(value, this.payloadAllocator.allocate(value.getBytes()));
+			if (null == this.blobs.putIfAbsent(hash, created)) {
+				this.misses.increment();
+				this.bytes.add(created.size());
+				return created;
+			}
+			// Another thread stored the same content meanwhile, so its blob is used instead
+			created.getPayload().release();
+		}
+	}
+
+	/**
+	 * This method gives back a reference taken through {@link #acquire(JsonPayload)},
+	 * releasing the content once nobody references it anymore
+	 *
+	 * @param blob containing the {@link PayloadBlob} that is not referenced anymore
+	 */
+	public void release(final PayloadBlob blob) {
+		if (!blob.release())
+			return;
+
+		this.blobs.remove(blob.getHash(), blob);
+		this.bytes.add(-blob.size());
+		blob.getPayload().release();
+	}
+
+	/**
+	 * Returns the percentage of the stored payloads whose content was already stored
+	 *
+	 * @return {@code long} containing the hit rate from 0 to 100
+	 */
+	public long getHitRatePercent() {
+		final long hits = this.hits.sum();
+		final long total = hits + this.misses.sum();
+		return 0 == total ? 0 : hits * 100 / total;
+	}
+
+}
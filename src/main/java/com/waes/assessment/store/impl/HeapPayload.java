@@ -0,0 +1,31 @@
+package com.waes.assessment.store.impl;
+
+import com.waes.assessment.store.Payload;
+
+/*
+ * This class is the Payload kept on the heap, which is released by the garbage collector
+ * once nobody references it anymore
+ */
+final class HeapPayload implements Payload {
+
+	private final byte[] bytes;
+
+	HeapPayload(final byte[] bytes) {
+		this.bytes = bytes;
+	}
+
+	@Override
+	public int size() {
+		return this.bytes.length;
+	}
+
+	@Override
+	public byte[] getBytes() {
+		return this.bytes;
+	}
+
+	@Override
+	public void release() {
+		// nothing to do, the garbage collector takes care of it
+	}
+}
@@ -0,0 +1,25 @@
+package com.waes.assessment.store.impl;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import com.waes.assessment.store.Payload;
+import com.waes.assessment.store.PayloadAllocator;
+
+/**
+ * This is the default {@link PayloadAllocator}, which keeps the payloads as
+ * {@code byte[]} on the heap
+ *
+ * @author Daniel Chiuratto Seabra
+ *
+ */
+@Component
+@ConditionalOnProperty(name = "waes.store.allocator", havingValue = "heap", matchIfMissing = true)
+public class HeapPayloadAllocator implements PayloadAllocator {
+
+	@Override
+	public Payload allocate(final byte[] bytes) {
+		return new HeapPayload(bytes);
+	}
+
+}
@@ -0,0 +1,59 @@
+package com.waes.assessment.store.impl;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.waes.assessment.store.Payload;
+
+/*
+ * This class is the handle of a Payload kept on the slabs of the SlabPayloadAllocator,
+ * counting the references to it so its chunks are only reused after the store has
+ * released it and no reader is copying them anymore
+ */
+final class SlabPayload implements Payload {
+
+	private final SlabPayloadAllocator allocator;
+	private final long[] chunks;
+	private final int length;
+	private final AtomicInteger references = new AtomicInteger(1);
+
+	SlabPayload(final SlabPayloadAllocator allocator, final long[] chunks, final int length) {
+		this.allocator = allocator;
+		this.chunks = chunks;
+		this.length = length;
+	}
+
+	@Override
+	public int size() {
+		return this.length;
+	}
+
+	@Override
+	public byte[] getBytes() {
+		if (!this.retain())
+			return null;
+		try {
+			return this.allocator.read(this.chunks, this.length);
+		} finally {
+			this.release();
+		}
+	}
+
+	@Override
+	public void release() {
+		if (0 == this.references.decrementAndGet())
+			this.allocator.free(this.chunks, this.chunks.length, this.length);
+	}
+
+	/*
+	 * Takes a reference unless the payload has already been released by everyone
+	 */
+	private boolean retain() {
+		int current;
+		do {
+			current = this.references.get();
+			if (current <= 0)
+				return false;
+		} while (!this.references.compareAndSet(current, current + 1));
+		return true;
+	}
+}
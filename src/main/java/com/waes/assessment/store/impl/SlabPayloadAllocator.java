@@ -0,0 +1,315 @@
+package com.waes.assessment.store.impl;
+
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import com.waes.assessment.common.Constant.Metric;
+import com.waes.assessment.metric.MetricService;
+import com.waes.assessment.store.Payload;
+import com.waes.assessment.store.PayloadAllocator;
+
+/**
+ * This {@link PayloadAllocator} keeps the payloads outside of the heap, into direct
+ * {@link ByteBuffer} slabs of a fixed size, so the garbage collector never has to
+ * copy or scan them and only a small handle per payload remains on the heap
+ *
+ * Each slab is carved into chunks of a single size class, being the classes the
+ * powers of two from 64 bytes up to the slab size, and every class keeps the slabs
+ * it owns that still have free chunks. A payload uses one chunk of the smallest
+ * class that fits it, or many chunks when it is bigger than a slab, and its chunks
+ * go back to their slabs once it is released
+ *
+ * A slab whose chunks are all free again leaves its class for a shared pool, from
+ * where any class takes it before creating a new one, so the off-heap memory follows
+ * the sizes of the payloads being kept instead of the sizes kept in the past
+ *
+ * When the configured amount of off-heap memory is exhausted the payload is kept
+ * on the heap instead, which is counted so the limit can be adjusted
+ *
+ * @author Daniel Chiuratto Seabra
+ *
+ */
+@Component
+@ConditionalOnProperty(name = "waes.store.allocator", havingValue = "off-heap")
+public class SlabPayloadAllocator implements PayloadAllocator {
+
+	private static final int MINIMUM_CHUNK_SHIFT = 6;
+
+	private final int slabShift;
+	private final int slabBytes;
+	private final AtomicReferenceArray<Slab> slabs;
+	private final AtomicInteger slabCount = new AtomicInteger();
+	private final Queue<Slab> pooledSlabs = new ConcurrentLinkedQueue<>();
+	private final AtomicInteger pooledCount = new AtomicInteger();
+	private final SizeClass[] sizeClasses;
+	private final LongAdder usedBytes = new LongAdder();
+	private final MetricService metricService;
+
+	public SlabPayloadAllocator(final @Value("${waes.store.off-heap.slab-bytes:1048576}") int slabBytes,
+								final @Value("${waes.store.off-heap.maximum-bytes:268435456}") long maximumBytes,
+								final MetricService metricService) {
+		// The slab size is rounded up to a power of two, so every size class
+		// divides it exactly and no slab space is left unused
+		int shift = MINIMUM_CHUNK_SHIFT;
+		while ((1 << shift) < slabBytes && shift < 30)
+			shift++;
+
+		this.slabShift = shift;
+		this.slabBytes = 1 << shift;
+		this.slabs = new AtomicReferenceArray<>((int) Math.min(Integer.MAX_VALUE, Math.max(1, maximumBytes >> shift)));
+		this.sizeClasses = new SizeClass[shift - MINIMUM_CHUNK_SHIFT + 1];
+		for (int i = 0; i < this.sizeClasses.length; i++)
+			this.sizeClasses[i] = new SizeClass(1 << (MINIMUM_CHUNK_SHIFT + i));
+
+		this.metricService = metricService;
+		this.metricService.gauge(Metric.STORE_OFF_HEAP_RESERVED_BYTES, this::getReservedBytes);
+		this.metricService.gauge(Metric.STORE_OFF_HEAP_USED_BYTES, this::getUsedBytes);
+		this.metricService.gauge(Metric.STORE_OFF_HEAP_POOLED_BYTES, this::getPooledBytes);
+	}
+
+	@Override
+	public Payload allocate(final byte[] bytes) {
+		final int length = bytes.length;
+		final long[] chunks = new long[Math.max(1, (length + this.slabBytes - 1) >> this.slabShift)];
+
+		for (int i = 0; i < chunks.length; i++) {
+			final int chunkLength = this.chunkLength(length, i);
+			final long address = this.allocateChunk(this.classOf(chunkLength));
+			if (address < 0) {
+				this.free(chunks, i, length);
+				this.metricService.increment(Metric.STORE_OFF_HEAP_FALLBACK_COUNT);
+				return new HeapPayload(bytes);
+			}
+
+			chunks[i] = address;
+			final ByteBuffer buffer = this.bufferOf(address);
+			buffer.put(bytes, i << this.slabShift, chunkLength);
+		}
+
+		return new SlabPayload(this, chunks, length);
+	}
+
+	/**
+	 * Returns the amount of off-heap bytes reserved by the slabs created so far
+	 *
+	 * @return {@code long} containing the reserved bytes
+	 */
+	public long getReservedBytes() {
+		return (long) this.slabCount.get() << this.slabShift;
+	}
+
+	/**
+	 * Returns the amount of off-heap bytes used by the chunks of the live payloads
+	 *
+	 * @return {@code long} containing the used bytes
+	 */
+	public long getUsedBytes() {
+		return this.usedBytes.sum();
+	}
+
+	/**
+	 * Returns the amount of off-heap bytes of the slabs whose chunks are all free, which
+	 * wait on the shared pool to be taken by any size class
+	 *
+	 * @return {@code long} containing the pooled bytes
+	 */
+	public long getPooledBytes() {
+		return (long) this.pooledCount.get() << this.slabShift;
+	}
+
+	/*
+	 * Copies the content of the chunks back into the heap
+	 */
+	byte[] read(final long[] chunks, final int length) {
+		final byte[] bytes = new byte[length];
+		for (int i = 0; i < chunks.length; i++)
+			this.bufferOf(chunks[i]).get(bytes, i << this.slabShift, this.chunkLength(length, i));
+		return bytes;
+	}
+
+	/*
+	 * Gives the first informed amount of chunks back to their slabs, moving to the shared
+	 * pool every slab left with no chunk in use
+	 */
+	void free(final long[] chunks, final int count, final int length) {
+		for (int i = 0; i < count; i++) {
+			final SizeClass sizeClass = this.sizeClasses[this.classOf(this.chunkLength(length, i))];
+			final Slab slab = this.slabs.get((int) (chunks[i] >>> 32));
+			if (sizeClass.push(slab, (int) chunks[i])) {
+				this.pooledSlabs.offer(slab);
+				this.pooledCount.incrementAndGet();
+			}
+			this.usedBytes.add(-sizeClass.chunkSize);
+		}
+	}
+
+	private long allocateChunk(final int classIndex) {
+		final SizeClass sizeClass = this.sizeClasses[classIndex];
+		long address = sizeClass.pop();
+		if (address < 0) {
+			final Slab slab = this.takeSlab();
+			address = null == slab ? -1 : sizeClass.adopt(slab);
+		}
+		if (address >= 0)
+			this.usedBytes.add(sizeClass.chunkSize);
+		return address;
+	}
+
+	/*
+	 * Takes a slab from the shared pool, or creates a new one while the off-heap budget
+	 * allows it, returning null when it is exhausted
+	 */
+	private Slab takeSlab() {
+		final Slab pooled = this.pooledSlabs.poll();
+		if (null != pooled) {
+			this.pooledCount.decrementAndGet();
+			return pooled;
+		}
+
+		final int index = this.slabCount.getAndIncrement();
+		if (index >= this.slabs.length()) {
+			this.slabCount.decrementAndGet();
+			return null;
+		}
+
+		final Slab slab = new Slab(index, ByteBuffer.allocateDirect(this.slabBytes));
+		this.slabs.set(index, slab);
+		return slab;
+	}
+
+	/*
+	 * Returns a view of the slab positioned on the chunk, so concurrent readers and writers
+	 * never share the position of the same buffer
+	 */
+	private ByteBuffer bufferOf(final long address) {
+		final ByteBuffer buffer = this.slabs.get((int) (address >>> 32)).buffer.duplicate();
+		// Cast to Buffer so it binds to the Java 8 method, since ByteBuffer only overrides it from Java 9
+		((Buffer) buffer).position((int) address);
+		return buffer;
+	}
+
+	private int chunkLength(final int length, final int chunk) {
+		return Math.min(this.slabBytes, length - (chunk << this.slabShift));
+	}
+
+	private int classOf(final int length) {
+		int shift = MINIMUM_CHUNK_SHIFT;
+		while ((1 << shift) < length)
+			shift++;
+		return shift - MINIMUM_CHUNK_SHIFT;
+	}
+
+	/*
+	 * This class holds the slabs owned by the chunks of one size that still have a free chunk,
+	 * where the addresses keep the slab index on the higher 32 bits and the offset on the lower ones
+	 */
+	private static final class SizeClass {
+
+		private final int chunkSize;
+		private final Set<Slab> available = new LinkedHashSet<>();
+
+		private SizeClass(final int chunkSize) {
+			this.chunkSize = chunkSize;
+		}
+
+		private synchronized long pop() {
+			final Iterator<Slab> iterator = this.available.iterator();
+			if (!iterator.hasNext())
+				return -1;
+
+			final Slab slab = iterator.next();
+			final long address = slab.take();
+			if (slab.isFull())
+				iterator.remove();
+			return address;
+		}
+
+		/*
+		 * Makes the slab taken from the pool one of this size, returning its first chunk
+		 */
+		private synchronized long adopt(final Slab slab) {
+			slab.carve(this.chunkSize);
+			final long address = slab.take();
+			if (!slab.isFull())
+				this.available.add(slab);
+			return address;
+		}
+
+		/*
+		 * Gives the chunk back to its slab, returning true when the slab has no chunk in use
+		 * anymore, in which case it no longer belongs to this size
+		 */
+		private synchronized boolean push(final Slab slab, final int offset) {
+			slab.give(offset);
+			if (slab.isEmpty()) {
+				this.available.remove(slab);
+				return true;
+			}
+			this.available.add(slab);
+			return false;
+		}
+	}
+
+	/*
+	 * This class holds one slab with the chunks it has been carved into, which are handed out
+	 * from the end of the ones used so far until the slab is exhausted, and afterwards from the
+	 * ones given back, being only changed while holding the lock of the size owning it
+	 */
+	private static final class Slab {
+
+		private final int index;
+		private final ByteBuffer buffer;
+		private int chunkSize;
+		private int capacity;
+		private int carved;
+		private int used;
+		private int[] free = new int[16];
+		private int freeCount;
+
+		private Slab(final int index, final ByteBuffer buffer) {
+			this.index = index;
+			this.buffer = buffer;
+		}
+
+		private void carve(final int chunkSize) {
+			this.chunkSize = chunkSize;
+			this.capacity = this.buffer.capacity() / chunkSize;
+			this.carved = 0;
+			this.freeCount = 0;
+		}
+
+		private long take() {
+			final int offset = 0 == this.freeCount ? this.carved++ * this.chunkSize : this.free[--this.freeCount];
+			this.used++;
+			return (long) this.index << 32 | offset;
+		}
+
+		private void give(final int offset) {
+			if (this.freeCount == this.free.length)
+				this.free = Arrays.copyOf(this.free, this.free.length << 1);
+			this.free[this.freeCount++] = offset;
+			this.used--;
+		}
+
+		private boolean isFull() {
+			return this.used == this.capacity;
+		}
+
+		private boolean isEmpty() {
+			return 0 == this.used;
+		}
+	}
+}
@@ -0,0 +1,342 @@
+package com.waes.assessment.store.impl;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.LongSupplier;
+
+import org.slf4j.Logger;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.waes.assessment.cache.WTinyLfuPolicy;
+import com.waes.assessment.cache.WTinyLfuPolicy.Eviction;
+import com.waes.assessment.common.Constant.LogMessage;
+import com.waes.assessment.common.Constant.Metric;
+import com.waes.assessment.common.DiffOutcome;
+import com.waes.assessment.common.Endpoint;
+import com.waes.assessment.common.JsonPayload;
+import com.waes.assessment.logger.WAESLoggerFactory;
+import com.waes.assessment.metric.MetricService;
+import com.waes.assessment.store.PayloadBlob;
+import com.waes.assessment.store.PayloadSlot;
+import com.waes.assessment.store.PayloadStore;
+
+/**
+ * This is the default {@link PayloadStore} implementation, where the ids are
+ * distributed through a fixed amount of stripes according to their hash, with
+ * each stripe having its own map of slots, its own {@link WTinyLfuPolicy} and its
+ * own version sequence, so the writes of ids living on different stripes never
+ * meet on a shared lock, buffer or counter
+ *
+ * Each id owns an {@link AtomicReference} to its current {@link PayloadSlot},
+ * and every change is done replacing the slot through compare-and-set, so no
+ * lock is held while setting a side or caching an outcome
+ *
+ * The payloads are kept as {@link PayloadBlob} shared by every id holding the same
+ * content, which are released as soon as no id references them anymore
+ *
+ * The memory is bounded by the policy of each stripe, which weighs each id by the
+ * size of its payloads and evicts the ids that are least likely to be used
+ * again once its slice of the configured budget is exceeded, as well as the ids
+ * that have not been written for longer than the configured time to live, where
+ * each write is stamped with the version it set, so an id written again after
+ * being chosen for eviction keeps its new payload
+ *
+ * The budget is split evenly between the stripes, so a stripe can evict while
+ * the others still have room, which the hash of the ids keeps rare as long as
+ * a slice is much heavier than a single id
+ *
+ * @author Daniel Chiuratto Seabra
+ *
+ */
+@Component
+public class StripedPayloadStore implements PayloadStore {
+
+	private static final Logger LOGGER = WAESLoggerFactory.getLogger(StripedPayloadStore.class);
+
+	private final Stripe[] stripes;
+	private final int mask;
+	private final MetricService metricService;
+	private final ContentAddressedBlobStore blobStore;
+
+	private LongSupplier clock = System::currentTimeMillis;
+
+	public StripedPayloadStore(final @Value("${waes.store.stripes:16}") int stripes,
+							   final @Value("${waes.store.maximum-weight-bytes:268435456}") long maximumWeightBytes,
+							   final @Value("${waes.store.expire-after-write-seconds:86400}") long expireAfterWriteSeconds,
+							   final MetricService metricService,
+							   final ContentAddressedBlobStore blobStore) {
+		// The amount of stripes is rounded up to a power of two so the stripe
+		// can be found with a bit mask instead of a modulo operation
+		int size = 1;
+		while (size < stripes)
+			size <<= 1;
+
+		this.stripes = new Stripe[size];
+		for (int i = 0; i < size; i++)
+			this.stripes[i] = new Stripe(maximumWeightBytes / size, TimeUnit.SECONDS.toMillis(expireAfterWriteSeconds));
+		this.mask = size - 1;
+
+		this.blobStore = blobStore;
+		this.metricService = metricService;
+		this.metricService.gauge(Metric.STORE_SIZE, this::getSize);
+		this.metricService.gauge(Metric.STORE_WEIGHT_BYTES, this::getWeightedSize);
+	}
+
+	@Override
+	public PayloadSlot put(final Endpoint endpoint, final String id, final JsonPayload value) {
+		return this.write(endpoint, id, null, value);
+	}
+
+	@Override
+	public PayloadSlot replace(final Endpoint endpoint, final String id, final PayloadBlob expected, final JsonPayload value) {
+		return this.write(endpoint, id, expected, value);
+	}
+
+	@Override
+	public PayloadSlot get(final String id) {
+		final Stripe stripe = this.stripeOf(id);
+		final SlotReference reference = stripe.slots.get(id);
+		if (null == reference)
+			return null;
+
+		final PayloadSlot slot = reference.get();
+		if (null == slot)
+			return null;
+
+		if (stripe.policy.isExpired(reference.writeTime, this.clock.getAsLong())) {
+			// The id written again meanwhile is not expired anymore, so it is read once more
+			if (!this.discard(stripe, id, reference, versionOf(slot)))
+				return this.get(id);
+			stripe.policy.onRemove(id, versionOf(slot));
+			this.metricService.increment(Metric.STORE_EXPIRATION_COUNT);
+			this.metricService.add(Metric.STORE_EXPIRATION_BYTES, weightOf(slot));
+			return null;
+		}
+
+		stripe.policy.onRead(id);
+		return slot;
+	}
+
+	@Override
+	public boolean cacheOutcome(final String id, final PayloadSlot snapshot, final DiffOutcome outcome) {
+		final SlotReference reference = this.stripeOf(id).slots.get(id);
+		if (null == reference)
+			return false;
+
+		PayloadSlot current;
+		do {
+			current = reference.get();
+			if (null == current || !current.isSameVersion(snapshot))
+				return false;
+		} while (!reference.compareAndSet(current, current.withOutcome(outcome,
+				snapshot.getVersion(Endpoint.LEFT), snapshot.getVersion(Endpoint.RIGHT))));
+
+		return true;
+	}
+
+	/*
+	 * This method sets the side through compare-and-set, where an expected blob makes the
+	 * write conditional on the side still holding it, giving up as soon as it does not
+	 */
+	private PayloadSlot write(final Endpoint endpoint, final String id, final PayloadBlob expected, final JsonPayload value) {
+		final long now = this.clock.getAsLong();
+		final PayloadBlob blob = this.blobStore.acquire(value);
+		final Stripe stripe = this.stripeOf(id);
+		final Map<String, SlotReference> slots = stripe.slots;
+
+		// The version is taken after reading the current slot on each attempt, so a
+		// successful compare-and-set always carries a version greater than the one
+		// it is replacing, even when many threads are setting the same id
+		SlotReference reference;
+		PayloadSlot current;
+		PayloadSlot updated;
+		while (true) {
+			// A conditional write never creates the id, since the expected blob cannot be on a new one
+			reference = null == expected ? slots.computeIfAbsent(id, key -> new SlotReference(now)) : slots.get(id);
+			current = null == reference ? null : reference.get();
+			if (null != reference && null == current) {
+				// The id has been evicted right after being found, so its reference is
+				// discarded and a new one is created on the next attempt
+				slots.remove(id, reference);
+				continue;
+			}
+			if (null != expected && (null == current || expected != current.get(endpoint))) {
+				this.blobStore.release(blob);
+				return null;
+			}
+			updated = current.with(endpoint, blob, stripe.versionSequence.incrementAndGet());
+			reference.writeTime = now;
+			if (reference.compareAndSet(current, updated))
+				break;
+		}
+
+		final PayloadBlob replaced = current.get(endpoint);
+		if (null != replaced)
+			this.blobStore.release(replaced);
+
+		this.release(stripe, stripe.policy.onWrite(id, versionOf(updated), weightOf(updated), now), Metric.STORE_EVICTION_COUNT, Metric.STORE_EVICTION_BYTES, LogMessage.EVICTING_PAYLOADS);
+		this.release(stripe, stripe.policy.expire(now), Metric.STORE_EXPIRATION_COUNT, Metric.STORE_EXPIRATION_BYTES, LogMessage.EXPIRING_PAYLOADS);
+
+		return updated;
+	}
+
+	/**
+	 * Returns the amount of stripes that the ids are distributed through
+	 *
+	 * @return {@code int} containing the amount of stripes
+	 */
+	public int getStripeCount() {
+		return this.stripes.length;
+	}
+
+	/**
+	 * Returns the amount of ids tracked by the stripes, as of their last drain
+	 *
+	 * @return {@code long} containing the amount of ids
+	 */
+	public long getSize() {
+		long size = 0;
+		for (final Stripe stripe : this.stripes)
+			size += stripe.policy.getSize();
+		return size;
+	}
+
+	/**
+	 * Returns the weight of the ids tracked by the stripes, as of their last drain
+	 *
+	 * @return {@code long} containing the total weight in bytes
+	 */
+	public long getWeightedSize() {
+		long weight = 0;
+		for (final Stripe stripe : this.stripes)
+			weight += stripe.policy.getWeightedSize();
+		return weight;
+	}
+
+	/*
+	 * Removes the ids the policy of the stripe decided to drop, recording how many were removed
+	 * and how many bytes were reclaimed, where an id written again since the policy decided it
+	 * only keeps its new payload, which the policy is already tracking
+	 */
+	private void release(final Stripe stripe, final List<Eviction<String>> released, final String countMetric, final String bytesMetric, final String logMessage) {
+		if (released.isEmpty())
+			return;
+
+		int count = 0;
+		long bytes = 0;
+		for (final Eviction<String> eviction : released) {
+			final SlotReference reference = stripe.slots.get(eviction.getKey());
+			if (null != reference && this.discard(stripe, eviction.getKey(), reference, eviction.getStamp())) {
+				count++;
+				bytes += eviction.getWeight();
+			}
+		}
+		if (0 == count)
+			return;
+
+		this.metricService.add(countMetric, count);
+		this.metricService.add(bytesMetric, bytes);
+
+		LOGGER.info(logMessage, count, bytes);
+	}
+
+	/*
+	 * Marks the reference as discarded before removing it, so a writer that already holds
+	 * it notices and starts over with a new reference instead of writing into a lost one,
+	 * which is only done while the reference still holds the informed version
+	 */
+	private boolean discard(final Stripe stripe, final String id, final SlotReference reference, final long version) {
+		PayloadSlot slot;
+		do {
+			slot = reference.get();
+			if (null == slot || version != versionOf(slot))
+				return false;
+		} while (!reference.compareAndSet(slot, null));
+		stripe.slots.remove(id, reference);
+
+		for (final Endpoint endpoint : Endpoint.values()) {
+			final PayloadBlob blob = slot.get(endpoint);
+			if (null != blob)
+				this.blobStore.release(blob);
+		}
+		return true;
+	}
+
+	/*
+	 * This method finds the stripe of the id, spreading the higher bits of the hash
+	 * into the lower ones, as the HashMap does, to avoid that ids with similar hashes
+	 * end up always in the same stripe
+	 */
+	private Stripe stripeOf(final String id) {
+		final int hash = id.hashCode();
+		return this.stripes[(hash ^ (hash >>> 16)) & this.mask];
+	}
+
+	/*
+	 * The weight of an id is the amount of bytes of its payloads and of their parsed trees,
+	 * where a content shared with other ids is counted on each of them, so the budget never
+	 * underestimates what an id is keeping alive
+	 *
+	 * A replaced payload still kept to bring the cached outcome up to date counts as well
+	 */
+	private static long weightOf(final PayloadSlot slot) {
+		long weight = 0;
+		for (final Endpoint endpoint : Endpoint.values()) {
+			final PayloadBlob blob = slot.get(endpoint);
+			final PayloadBlob previous = slot.getPreviousBlob(endpoint);
+			weight += weightOf(blob);
+			if (previous != blob)
+				weight += weightOf(previous);
+		}
+		return weight;
+	}
+
+	/*
+	 * The version of the last write of an id, since every write takes a version greater than
+	 * the ones already on the slot, where the versions of ids on different stripes are never
+	 * compared, as an id always lives on the same stripe
+	 */
+	private static long versionOf(final PayloadSlot slot) {
+		return Math.max(slot.getVersion(Endpoint.LEFT), slot.getVersion(Endpoint.RIGHT));
+	}
+
+	private static long weightOf(final PayloadBlob blob) {
+		return null == blob ? 0 : blob.weight();
+	}
+
+	/*
+	 * This class holds the slots of the ids related with one stripe, together with the
+	 * policy bounding them within the slice of the budget given to the stripe
+	 */
+	private static class Stripe {
+
+		private final Map<String, SlotReference> slots = new ConcurrentHashMap<>();
+		private final AtomicLong versionSequence = new AtomicLong();
+		private final WTinyLfuPolicy<String> policy;
+
+		private Stripe(final long maximumWeightBytes, final long expireAfterWriteMillis) {
+			this.policy = new WTinyLfuPolicy<>(maximumWeightBytes, expireAfterWriteMillis);
+		}
+	}
+
+	/*
+	 * This class is the reference to the current slot of an id, which holds null once the
+	 * id is evicted, together with the time of its last write
+	 */
+	private static class SlotReference extends AtomicReference<PayloadSlot> {
+
+		private static final long serialVersionUID = 1L;
+
+		private volatile long writeTime;
+
+		private SlotReference(final long writeTime) {
+			super(PayloadSlot.EMPTY);
+			this.writeTime = writeTime;
+		}
+	}
+}
@@ -1,14 +1,23 @@
 package com.waes.assessment.validator;
 
 import java.io.IOException;
+import java.io.OutputStream;
 
+import com.waes.assessment.common.DiffMode;
+import com.waes.assessment.common.DiffOutcome;
 import com.waes.assessment.common.Endpoint;
+import com.waes.assessment.common.JsonPayload;
+import com.waes.assessment.store.PayloadSlot;
 
 
 public interface Validator {
 
-	void validate(Endpoint endpoint, String id, String value) throws IOException;
+	void validate(Endpoint endpoint, String id, JsonPayload value) throws IOException;
 
-	void validate(String id, String left, String right) throws IOException;
+	DiffOutcome compare(String id, PayloadSlot slot) throws IOException;
+
+	DiffOutcome compare(String id, PayloadSlot slot, DiffMode mode, int limit) throws IOException;
+
+	void writePatch(String id, PayloadSlot slot, OutputStream outputStream) throws IOException;
 
 }
@@ -0,0 +1,94 @@
+package com.waes.assessment.validator.impl;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.springframework.stereotype.Component;
+
+import com.waes.assessment.common.Constant.Metric;
+import com.waes.assessment.metric.MetricService;
+
+/**
+ * This class counts which tier of the comparison settled each pair of payloads, from
+ * the cheapest to the most expensive one, so the metrics endpoint shows how many of
+ * the pairs never had to be diffed
+ *
+ * @author Daniel Chiuratto Seabra
+ *
+ */
+@Component
+public class EqualityTiers {
+
+	/**
+	 * The tiers of the comparison, in the order they are tried
+	 */
+	public enum Tier {
+
+		/**
+		 * Both payloads hold the very same bytes, so they are equal without being looked at
+		 */
+		BYTES("bytes"),
+
+		/**
+		 * Both payloads have the same canonical form, so they are equal without being diffed, or different
+		 * ones when only whether they are equal has been asked for
+		 */
+		HASH("hash"),
+
+		/**
+		 * Both payloads have different sizes, so they differ without being looked at
+		 */
+		SIZE("size"),
+
+		/**
+		 * Only one of the payloads changed since the last diff, so only the changed parts of it were diffed
+		 */
+		INCREMENTAL("incremental"),
+
+		/**
+		 * Both payloads had to be diffed
+		 */
+		DIFF("diff");
+
+		private String value;
+
+		private Tier(final String value) {
+			this.value = value;
+		}
+	}
+
+	private final Map<Tier, LongAdder> counters = new EnumMap<>(Tier.class);
+	private final LongAdder total = new LongAdder();
+
+	public EqualityTiers(final MetricService metricService) {
+		for (final Tier tier : Tier.values()) {
+			final LongAdder counter = new LongAdder();
+			this.counters.put(tier, counter);
+			metricService.gauge(String.format(Metric.DIFF_TIER_COUNT, tier.value), counter::sum);
+			metricService.gauge(String.format(Metric.DIFF_TIER_HIT_RATE_PERCENT, tier.value), () -> this.getHitRatePercent(tier));
+		}
+	}
+
+	/**
+	 * This method counts a pair of payloads settled by the informed tier
+	 *
+	 * @param tier containing the {@link Tier} that settled the pair
+	 */
+	public void settled(final Tier tier) {
+		this.counters.get(tier).increment();
+		this.total.increment();
+	}
+
+	/**
+	 * Returns the percentage of the pairs settled by the informed tier
+	 *
+	 * @param tier containing the {@link Tier} to be checked
+	 * @return {@code long} containing the hit rate from 0 to 100
+	 */
+	public long getHitRatePercent(final Tier tier) {
+		final long total = this.total.sum();
+		return 0 == total ? 0 : this.counters.get(tier).sum() * 100 / total;
+	}
+
+}
@@ -1,101 +1,298 @@
 package com.waes.assessment.validator.impl;
 
 import java.io.IOException;
-import java.util.HashMap;
+import java.io.OutputStream;
+import java.util.Collections;
 import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
 
-import org.apache.commons.lang3.StringUtils;
 import org.slf4j.Logger;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
 import com.fasterxml.jackson.databind.JsonNode;
-import com.waes.assessment.common.Constant;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.waes.assessment.common.ByteRangeDiff;
 import com.waes.assessment.common.Constant.LogMessage;
+import com.waes.assessment.common.DiffMode;
+import com.waes.assessment.common.DiffOutcome;
 import com.waes.assessment.common.Endpoint;
+import com.waes.assessment.common.IdentityKeys;
+import com.waes.assessment.common.JsonPatchWriter;
+import com.waes.assessment.common.JsonPayload;
 import com.waes.assessment.common.JsonUtil;
+import com.waes.assessment.common.PayloadFormat;
+import com.waes.assessment.common.StreamingJsonDiff;
+import com.waes.assessment.common.SubtreeHashes;
+import com.waes.assessment.exception.JsonPatchUnavailableException;
 import com.waes.assessment.exception.MissingInMemoryPayloadException;
-import com.waes.assessment.exception.PayloadContentMismatchException;
-import com.waes.assessment.exception.PayloadSizeMismatchException;
 import com.waes.assessment.exception.RequiredPayloadException;
 import com.waes.assessment.logger.WAESLoggerFactory;
-import com.waes.assessment.service.MessageService;
+import com.waes.assessment.store.PayloadBlob;
+import com.waes.assessment.store.PayloadSlot;
 import com.waes.assessment.validator.Validator;
+import com.waes.assessment.validator.impl.EqualityTiers.Tier;
 
 @Component
 public class ValidatorImpl implements Validator {
 	
 	private static final Logger LOGGER = WAESLoggerFactory.getLogger(ValidatorImpl.class);
-
-	private static final Map<String, Object> CACHE_MAP = new HashMap<>();
 	
 	@Autowired
-	private MessageService messageService;
-	
+	private ObjectMapper objectMapper;
+
+	@Value("${waes.diff.parallel-threshold:8192}")
+	private int parallelThreshold;
+
+	@Value("${waes.diff.array-alignment-max-cost:512}")
+	private int alignmentMaxCost;
+
+	@Autowired
+	private IdentityKeys identityKeys;
+
+	@Autowired
+	private EqualityTiers equalityTiers;
+
 	@Override
-	public void validate(final Endpoint endpoint, final String id, final String value) throws IOException {
-		if (CACHE_MAP.containsKey(id))
-			CACHE_MAP.remove(id);
-		
-		if (StringUtils.isBlank(value))
+	public void validate(final Endpoint endpoint, final String id, final JsonPayload value) throws IOException {
+		if (null == value)
 			throw new RequiredPayloadException(endpoint, id);
 	}
 
 	@Override
-	public void validate(final String id, String left, String right) throws IOException {
+	public DiffOutcome compare(final String id, final PayloadSlot slot) throws IOException {
+		return this.compare(id, slot, DiffMode.FULL, Integer.MAX_VALUE);
+	}
+
+	@Override
+	public DiffOutcome compare(final String id, final PayloadSlot slot, final DiffMode mode, final int limit) throws IOException {
 		
 		LOGGER.info(LogMessage.STARTING_VALIDATION);
 		
-		if (CACHE_MAP.containsKey(id)) {
-			LOGGER.info(LogMessage.RETRIEVING_CACHED_DATA);
-
-			final Object object = CACHE_MAP.get(id);
-			if (RuntimeException.class.isAssignableFrom(object.getClass())) {
-				final RuntimeException exception = (RuntimeException) object;
-				
-				LOGGER.error(LogMessage.THROWING_CACHED_EXCEPTION, exception);
-
-				throw exception;
-			} else if (Constant.OK_STATUS.equals(object)) {
-				LOGGER.info(LogMessage.NO_ERRORS_CACHED_DATA);
-				
-				return;
-			}
+		final PayloadBlob left = null == slot ? null : slot.get(Endpoint.LEFT);
+		final PayloadBlob right = null == slot ? null : slot.get(Endpoint.RIGHT);
+		
+		if (null == left)
+			return DiffOutcome.missing(Endpoint.LEFT, id);
+		
+		if (null == right)
+			return DiffOutcome.missing(Endpoint.RIGHT, id);
+		
+		// The comparison goes from the cheapest tier to the most expensive one, where most of the
+		// pairs are equal and get settled by the content hashes computed when they were received
+		if (left.getHash().equals(right.getHash())) {
+			this.equalityTiers.settled(Tier.BYTES);
+			LOGGER.info(LogMessage.FINISHING_VALIDATION_NO_ISSUES);
+			return DiffOutcome.EQUAL;
 		}
 		
-		if (null == left) {
-			final MissingInMemoryPayloadException exception = new MissingInMemoryPayloadException(Endpoint.LEFT, id);
-			CACHE_MAP.put(id, exception);
-			throw exception;
+		// Any side read as raw bytes has no JSON to be compared, so both sides are compared byte by byte
+		if (PayloadFormat.BINARY == left.getFormat() || PayloadFormat.BINARY == right.getFormat()) {
+			if (left.size() != right.size()) {
+				this.equalityTiers.settled(Tier.SIZE);
+				return DiffOutcome.sizeMismatch(left.size(), right.size());
+			}
+			this.equalityTiers.settled(Tier.DIFF);
+			return this.compareBinary(id, left, right, mode, limit);
 		}
 		
-		if (null == right) {
-			final MissingInMemoryPayloadException exception = new MissingInMemoryPayloadException(Endpoint.RIGHT, id);
-			CACHE_MAP.put(id, exception);
-			throw exception;
+		// The JSON payloads are equal when their canonical forms are, no matter how they are formatted
+		if (left.getCanonicalHash().equals(right.getCanonicalHash())) {
+			this.equalityTiers.settled(Tier.HASH);
+			LOGGER.info(LogMessage.FINISHING_VALIDATION_NO_ISSUES);
+			return DiffOutcome.EQUAL;
 		}
 		
-		final int leftSize = left.length();
-		final int rightSize = right.length();
+		final int leftSize = left.getCanonicalSize();
+		final int rightSize = right.getCanonicalSize();
 		if (leftSize != rightSize) {
-			final PayloadSizeMismatchException exception = new PayloadSizeMismatchException(leftSize, rightSize);
-			CACHE_MAP.put(id, exception);
-			throw exception;
+			this.equalityTiers.settled(Tier.SIZE);
+			return DiffOutcome.sizeMismatch(leftSize, rightSize);
+		}
+		
+		// Different canonical hashes already tell that the payloads differ, so nothing is diffed when
+		// that is all the requestor wants to know
+		if (DiffMode.BOOLEAN == mode) {
+			this.equalityTiers.settled(Tier.HASH);
+			return DiffOutcome.DIFFERENT;
+		}
+		
+		// When only one side changed since the last diff, only the parts of it that changed are diffed again
+		final DiffOutcome rediffed = this.rediff(slot, left, right);
+		if (null != rediffed) {
+			this.equalityTiers.settled(Tier.INCREMENTAL);
+			return rediffed.inMode(mode, limit);
+		}
+		
+		this.equalityTiers.settled(Tier.DIFF);
+		
+		// The payloads have been parsed when they were received, so only the comparison is left,
+		// unless their trees are not kept, where they are compared straight from their bytes
+		final JsonNode leftNode = left.getTree();
+		final JsonNode rightNode = right.getTree();
+		if (null == leftNode || null == rightNode)
+			return this.compareStreaming(id, left, right, mode, limit);
+
+		// The subtree hashes let the diff skip the equal branches, unless the root hashes collide,
+		// where the trees known to be different are diffed node by node
+		final SubtreeHashes leftHashes = left.getSubtreeHashes();
+		final SubtreeHashes rightHashes = right.getSubtreeHashes();
+		if (leftHashes.hashOf(leftNode) == rightHashes.hashOf(rightNode))
+			return this.diffTrees(leftNode, null, rightNode, null, 0, mode, limit);
+
+		// Splitting the wide objects only pays off when the pool has other threads to run the tasks
+		final int threshold = ForkJoinPool.getCommonPoolParallelism() > 1 ? this.parallelThreshold : 0;
+		return this.diffTrees(leftNode, leftHashes, rightNode, rightHashes, threshold, mode, limit);
+	}
+
+	@Override
+	public void writePatch(final String id, final PayloadSlot slot, final OutputStream outputStream) throws IOException {
+		final PayloadBlob left = null == slot ? null : slot.get(Endpoint.LEFT);
+		final PayloadBlob right = null == slot ? null : slot.get(Endpoint.RIGHT);
+		
+		if (null == left)
+			throw new MissingInMemoryPayloadException(Endpoint.LEFT, id);
+		
+		if (null == right)
+			throw new MissingInMemoryPayloadException(Endpoint.RIGHT, id);
+		
+		if (PayloadFormat.BINARY == left.getFormat() || PayloadFormat.BINARY == right.getFormat())
+			throw new JsonPatchUnavailableException(id);
+		
+		// Everything that can fail is done before the first byte of the patch is written
+		final JsonNode leftNode = this.treeOf(Endpoint.LEFT, id, left);
+		final JsonNode rightNode = this.treeOf(Endpoint.RIGHT, id, right);
+		final SubtreeHashes leftHashes = null == left.getTree() ? SubtreeHashes.of(leftNode) : left.getSubtreeHashes();
+		final SubtreeHashes rightHashes = null == right.getTree() ? SubtreeHashes.of(rightNode) : right.getSubtreeHashes();
+		
+		try (final JsonGenerator generator = this.objectMapper.getFactory().createGenerator(outputStream)) {
+			// The stream belongs to the response, which closes it
+			generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+			JsonPatchWriter.write(leftNode, leftHashes, rightNode, rightHashes, this.alignmentMaxCost, generator);
 		}
+	}
+
+	/*
+	 * The tree of a payload is parsed from its bytes when only the bytes are kept, where a
+	 * payload released meanwhile by the store is handled as a missing one
+	 */
+	private JsonNode treeOf(final Endpoint endpoint, final String id, final PayloadBlob blob) throws IOException {
+		if (null != blob.getTree())
+			return blob.getTree();
 		
-		final JsonNode leftNode = this.messageService.parseJsonNode(Endpoint.LEFT, left);
-		final JsonNode rightNode = this.messageService.parseJsonNode(Endpoint.RIGHT, right);
+		final byte[] bytes = blob.getPayload().getBytes();
+		if (null == bytes)
+			throw new MissingInMemoryPayloadException(endpoint, id);
+		return this.objectMapper.readTree(bytes);
+	}
 
-		if (!leftNode.equals(rightNode)) {
-			final Map<String, Map<String, Object>> result = JsonUtil.buildDiffMapResult(leftNode, rightNode);
-			final PayloadContentMismatchException exception = new PayloadContentMismatchException(result);
-			CACHE_MAP.put(id, exception);
-			throw exception;
+	/*
+	 * This method brings the complete diff cached on the slot up to date, when it was computed with the
+	 * very same payload that is still set on one side, through the JsonUtil, which diffs again only the fields
+	 * whose subtree hashes differ from the ones the other side had back then, returning null whenever the
+	 * whole trees have to be diffed instead
+	 */
+	private DiffOutcome rediff(final PayloadSlot slot, final PayloadBlob left, final PayloadBlob right) {
+		final DiffOutcome previous = slot.getPreviousOutcome();
+		if (null == previous || !previous.isComplete() || !(previous.isEqual() || DiffOutcome.Type.CONTENT_MISMATCH == previous.getType()))
+			return null;
+		
+		final PayloadBlob previousLeft = slot.getPreviousBlob(Endpoint.LEFT);
+		final PayloadBlob previousRight = slot.getPreviousBlob(Endpoint.RIGHT);
+		if (null == previousLeft || null == previousRight)
+			return null;
+		
+		final boolean sameLeft = left.getHash().equals(previousLeft.getHash());
+		final boolean sameRight = right.getHash().equals(previousRight.getHash());
+		if (sameLeft == sameRight)
+			return null;
+		
+		final PayloadBlob previousBlob = sameLeft ? previousRight : previousLeft;
+		if (null == left.getTree() || null == right.getTree() || null == previousBlob.getTree())
+			return null;
+		
+		// Colliding root hashes leave the subtree hashes unable to tell the changed fields apart
+		if (left.getSubtreeHashes().hashOf(left.getTree()) == right.getSubtreeHashes().hashOf(right.getTree()))
+			return null;
+		
+		final Map<String, Map<String, Object>> previousDifference = previous.isEqual() ? Collections.emptyMap() : previous.getDifference();
+		final Map<String, Map<String, Object>> result = JsonUtil.rediff(previousDifference, left.getTree(), left.getSubtreeHashes(),
+				right.getTree(), right.getSubtreeHashes(), previousBlob.getTree(), previousBlob.getSubtreeHashes(), sameLeft,
+				this.alignmentMaxCost, this.identityKeys);
+		
+		// The canonical hashes already told that the payloads differ, so no difference left means colliding subtree hashes
+		if (null == result || result.isEmpty())
+			return null;
+		return DiffOutcome.contentMismatch(result);
+	}
+
+	/*
+	 * This method diffs both trees through the JsonUtil, which stops as soon as it has found
+	 * what the mode asks for, where one more difference than the limit tells if any was left out
+	 */
+	private DiffOutcome diffTrees(final JsonNode leftNode, final SubtreeHashes leftHashes, final JsonNode rightNode,
+			final SubtreeHashes rightHashes, final int threshold, final DiffMode mode, final int limit) {
+		if (DiffMode.COUNT == mode)
+			return DiffOutcome.differenceCount(JsonUtil.countDifferences(leftNode, leftHashes, rightNode, rightHashes, threshold, this.alignmentMaxCost, this.identityKeys));
+		
+		// The fields are diffed one after the other, so the differences kept are the first ones in
+		// the order the full diff finds them, rather than the ones the parallel tasks reached first
+		if (DiffMode.FIRST == mode) {
+			final int keeping = (int) Math.min(Integer.MAX_VALUE, limit + 1L);
+			return DiffOutcome.firstDifferences(JsonUtil.buildDiffMapResult(leftNode, leftHashes, rightNode, rightHashes, 0, this.alignmentMaxCost, this.identityKeys, keeping), limit);
 		}
+		
+		final Map<String, Map<String, Object>> result = JsonUtil.buildDiffMapResult(leftNode, leftHashes, rightNode, rightHashes, threshold, this.alignmentMaxCost, this.identityKeys);
+		return DiffOutcome.contentMismatch(result);
+	}
 
-		CACHE_MAP.put(id, Constant.OK_STATUS);
+	/*
+	 * This method compares the payloads through the ByteRangeDiff, where a payload
+	 * released meanwhile by the store gives a released outcome, being the ranges
+	 * cheap enough to be always found in full before being narrowed down to the mode
+	 */
+	private DiffOutcome compareBinary(final String id, final PayloadBlob left, final PayloadBlob right, final DiffMode mode,
+			final int limit) {
+		final byte[] leftBytes = left.getPayload().getBytes();
+		if (null == leftBytes)
+			return DiffOutcome.released(Endpoint.LEFT, id);
+		
+		final byte[] rightBytes = right.getPayload().getBytes();
+		if (null == rightBytes)
+			return DiffOutcome.released(Endpoint.RIGHT, id);
+		
+		final Map<String, Map<String, Object>> result = ByteRangeDiff.buildDiffMapResult(leftBytes, rightBytes);
+		if (!result.isEmpty())
+			return DiffOutcome.contentMismatch(result).inMode(mode, limit);
 		
 		LOGGER.info(LogMessage.FINISHING_VALIDATION_NO_ISSUES);
+		return DiffOutcome.EQUAL;
+	}
+
+	/*
+	 * This method compares the payloads through the StreamingJsonDiff, where a payload
+	 * released meanwhile by the store gives a released outcome
+	 */
+	private DiffOutcome compareStreaming(final String id, final PayloadBlob left, final PayloadBlob right, final DiffMode mode,
+			final int limit) throws IOException {
+		final byte[] leftBytes = left.getPayload().getBytes();
+		if (null == leftBytes)
+			return DiffOutcome.released(Endpoint.LEFT, id);
+		
+		final byte[] rightBytes = right.getPayload().getBytes();
+		if (null == rightBytes)
+			return DiffOutcome.released(Endpoint.RIGHT, id);
+		
+		try (final JsonParser leftParser = this.objectMapper.getFactory().createParser(leftBytes);
+			 final JsonParser rightParser = this.objectMapper.getFactory().createParser(rightBytes)) {
+			final DiffOutcome outcome = StreamingJsonDiff.compare(this.objectMapper, leftParser, rightParser, this.alignmentMaxCost, this.identityKeys, mode, limit);
+			if (outcome.isEqual())
+				LOGGER.info(LogMessage.FINISHING_VALIDATION_NO_ISSUES);
+			return outcome;
+		}
 	}
 
 }
@@ -53,7 +53,8 @@ public abstract class BaseApplicationTests {
 	 */
 	protected enum HttpMethod {
 		POST,
-		GET;
+		GET,
+		PATCH;
 	}
 	
 	@Autowired
@@ -155,6 +156,8 @@ public abstract class BaseApplicationTests {
 		private HttpMethod httpMethod = HttpMethod.POST;
 		private String body;
 		private String endpoint;
+		private String accept;
+		private String contentType;
 		private boolean isToEncode = true;
 
 		private RequestBuilder(final MockMvc mockMvc) {
@@ -197,6 +200,30 @@ public abstract class BaseApplicationTests {
 			return this;
 		}
 		
+		/**
+		 * This method sets the media type accepted by the request, on the scenarios
+		 * that negotiate the format of the response
+		 * 
+		 * @param accept containing the media type to be accepted
+		 * @return {@link RequestBuilder} instance
+		 */
+		public RequestBuilder withAccept(final String accept) {
+			this.accept = accept;
+			return this;
+		}
+		
+		/**
+		 * This method sets the media type of the body sent by the request, on the
+		 * scenarios that accept more than one of them
+		 * 
+		 * @param contentType containing the media type of the body
+		 * @return {@link RequestBuilder} instance
+		 */
+		public RequestBuilder withContentType(final String contentType) {
+			this.contentType = contentType;
+			return this;
+		}
+		
 		/**
 		 * This method sets a body to be sent on the request on the scenario
 		 * that needs to be tested
@@ -227,7 +254,17 @@ public abstract class BaseApplicationTests {
 				case GET:
 					requestBuilders = MockMvcRequestBuilders.get(this.endpoint);
 					break;
+				case PATCH:
+					// A patch is sent as it is, without being encoded
+					requestBuilders = MockMvcRequestBuilders.patch(this.endpoint);
+					if (null != this.body)
+						requestBuilders.content(this.body);
+					break;
 			}
+			if (null != this.accept)
+				requestBuilders.accept(this.accept);
+			if (null != this.contentType)
+				requestBuilders.contentType(this.contentType);
 			
 			final MockHttpServletResponse response = this.mockMvc.perform(requestBuilders)
 															     .andReturn()
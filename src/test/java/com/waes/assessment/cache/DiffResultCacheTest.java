@@ -0,0 +1,101 @@
+package com.waes.assessment.cache;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.waes.assessment.common.CanonicalJson;
+import com.waes.assessment.common.Constant.Metric;
+import com.waes.assessment.common.ContentHash;
+import com.waes.assessment.common.DiffOutcome;
+import com.waes.assessment.metric.MetricService;
+import com.waes.assessment.metric.impl.MetricServiceImpl;
+
+public class DiffResultCacheTest {
+
+	@Test
+	public void givenACachedPair_whenItIsLookedUp_thenOnlyTheSameOrderShouldBeFound() {
+		// GIVEN a cached pair
+		final MetricService metricService = new MetricServiceImpl();
+		final DiffResultCache diffResultCache = new DiffResultCache(6_400, metricService);
+		diffResultCache.put(this.hashOf("fakeLeft"), this.hashOf("fakeRight"), DiffOutcome.EQUAL);
+
+		// WHEN it is looked up
+		final Object outcome = diffResultCache.get(this.hashOf("fakeLeft"), this.hashOf("fakeRight"));
+		final Object swapped = diffResultCache.get(this.hashOf("fakeRight"), this.hashOf("fakeLeft"));
+
+		// THEN only the same order should be found
+		Assert.assertEquals(DiffOutcome.EQUAL, outcome);
+		Assert.assertNull(swapped);
+		final Map<String, Long> metrics = metricService.getMetrics();
+		Assert.assertEquals(1L, (long) metrics.get(Metric.RESULT_CACHE_HIT_COUNT));
+		Assert.assertEquals(1L, (long) metrics.get(Metric.RESULT_CACHE_MISS_COUNT));
+	}
+
+	@Test
+	public void givenMorePairsThanTheMaximum_whenTheyAreCached_thenTheSizeShouldStayWithinTheMaximum() {
+		// GIVEN more pairs than the maximum
+		final MetricService metricService = new MetricServiceImpl();
+		final DiffResultCache diffResultCache = new DiffResultCache(6_400, metricService);
+
+		// WHEN they are cached
+		for (int i = 0; i < 1_000; i++)
+			diffResultCache.put(this.hashOf("fakeLeft" + i), this.hashOf("fakeRight" + i), DiffOutcome.EQUAL);
+
+		// THEN the size should stay within the maximum
+		final Map<String, Long> metrics = metricService.getMetrics();
+		Assert.assertEquals(100L, (long) metrics.get(Metric.RESULT_CACHE_SIZE));
+		Assert.assertEquals(900L, (long) metrics.get(Metric.RESULT_CACHE_EVICTION_COUNT));
+		Assert.assertEquals(900L * 64, (long) metrics.get(Metric.RESULT_CACHE_EVICTION_BYTES));
+		Assert.assertEquals(6_400L, (long) metrics.get(Metric.RESULT_CACHE_WEIGHT_BYTES));
+	}
+
+	@Test
+	public void givenAnOutcomeWithManyDifferences_whenItIsCached_thenTheEstimatedBytesShouldStayWithinTheMaximum() {
+		// GIVEN an outcome with many differences
+		final MetricService metricService = new MetricServiceImpl();
+		final DiffResultCache diffResultCache = new DiffResultCache(6_400, metricService);
+		for (int i = 0; i < 10; i++)
+			diffResultCache.put(this.hashOf("fakeLeft" + i), this.hashOf("fakeRight" + i), DiffOutcome.EQUAL);
+		final Map<String, Map<String, Object>> difference = new LinkedHashMap<>();
+		for (int i = 0; i < 50; i++)
+			difference.put("/field" + i, Collections.singletonMap("left", i));
+
+		// WHEN it is cached, being only evicted by the next outcome cached
+		diffResultCache.put(this.hashOf("fakeLeft"), this.hashOf("fakeRight"), DiffOutcome.contentMismatch(difference));
+		diffResultCache.put(this.hashOf("fakeNextLeft"), this.hashOf("fakeNextRight"), DiffOutcome.EQUAL);
+
+		// THEN the estimated bytes should stay within the maximum
+		final Map<String, Long> metrics = metricService.getMetrics();
+		Assert.assertNull(diffResultCache.get(this.hashOf("fakeLeft"), this.hashOf("fakeRight")));
+		Assert.assertTrue(metrics.get(Metric.RESULT_CACHE_WEIGHT_BYTES) <= 6_400L);
+		Assert.assertEquals(DiffOutcome.EQUAL, diffResultCache.get(this.hashOf("fakeLeft9"), this.hashOf("fakeRight9")));
+	}
+
+	@Test
+	public void givenAnOutcomeHoldingALargeSubtree_whenItIsCached_thenItShouldWeighAsMuchAsTheSubtree() {
+		// GIVEN an outcome holding a large subtree
+		final MetricService metricService = new MetricServiceImpl();
+		final DiffResultCache diffResultCache = new DiffResultCache(1_000_000, metricService);
+		final ObjectNode subtree = JsonNodeFactory.instance.objectNode();
+		for (int i = 0; i < 1_000; i++)
+			subtree.put("fakeField" + i, "fakeValue" + i);
+		final int subtreeBytes = CanonicalJson.of(subtree).length;
+
+		// WHEN it is cached
+		diffResultCache.put(this.hashOf("fakeLeft"), this.hashOf("fakeRight"), DiffOutcome.contentMismatch(Collections.singletonMap("/fakeNode", Collections.singletonMap("left", subtree))));
+
+		// THEN it should weigh as much as the subtree
+		Assert.assertTrue(metricService.getMetrics().get(Metric.RESULT_CACHE_WEIGHT_BYTES) >= subtreeBytes);
+	}
+
+	private ContentHash hashOf(final String value) {
+		return ContentHash.of(value.getBytes(StandardCharsets.UTF_8));
+	}
+}
@@ -0,0 +1,56 @@
+package com.waes.assessment.cache;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class FrequencySketchTest {
+
+	@Test
+	public void givenAnElementIncrementedManyTimes_whenItsFrequencyIsRetrieved_thenItShouldBeHigherThanAnUnseenOne() {
+		// GIVEN an element incremented many times
+		final FrequencySketch sketch = new FrequencySketch();
+		sketch.ensureCapacity(512);
+		for (int i = 0; i < 5; i++)
+			sketch.increment("fakeHotElement");
+		sketch.increment("fakeColdElement");
+
+		// WHEN its frequency is retrieved
+		final int hotFrequency = sketch.frequency("fakeHotElement");
+
+		// THEN it should be higher than an unseen one
+		Assert.assertEquals(5, hotFrequency);
+		Assert.assertEquals(1, sketch.frequency("fakeColdElement"));
+		Assert.assertEquals(0, sketch.frequency("fakeUnseenElement"));
+	}
+
+	@Test
+	public void givenAnElementIncrementedBeyondTheCounterLimit_whenItsFrequencyIsRetrieved_thenItShouldBeSaturated() {
+		// GIVEN an element incremented beyond the counter limit
+		final FrequencySketch sketch = new FrequencySketch();
+		sketch.ensureCapacity(512);
+		for (int i = 0; i < 100; i++)
+			sketch.increment("fakeElement");
+
+		// WHEN its frequency is retrieved
+		// THEN it should be saturated
+		Assert.assertEquals(15, sketch.frequency("fakeElement"));
+	}
+
+	@Test
+	public void givenTheSampleSizeIsReached_whenTheSketchAges_thenTheFrequenciesShouldBeHalved() {
+		// GIVEN the sample size is reached
+		final FrequencySketch sketch = new FrequencySketch();
+		sketch.ensureCapacity(64);
+		for (int i = 0; i < 8; i++)
+			sketch.increment("fakeElement");
+		final int frequencyBeforeAging = sketch.frequency("fakeElement");
+
+		// WHEN the sketch ages
+		for (int i = 0; i < 10 * 64; i++)
+			sketch.increment("fakeOtherElement" + i);
+
+		// THEN the frequencies should be halved
+		Assert.assertEquals(8, frequencyBeforeAging);
+		Assert.assertTrue(sketch.frequency("fakeElement") < frequencyBeforeAging);
+	}
+}
@@ -0,0 +1,182 @@
+package com.waes.assessment.cache;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.waes.assessment.cache.WTinyLfuPolicy.Eviction;
+
+public class WTinyLfuPolicyTest {
+
+	@Test
+	public void givenKeysHeavierThanTheMaximum_whenTheyAreWritten_thenTheWeightShouldStayWithinTheMaximum() {
+		// GIVEN keys heavier than the maximum
+		final WTinyLfuPolicy<String> policy = new WTinyLfuPolicy<>(1_000, 0);
+		long evictedWeight = 0;
+
+		// WHEN they are written
+		for (int i = 0; i < 100; i++)
+			for (final Eviction<String> eviction : policy.onWrite("fakeKey" + i, 0, 100, 0))
+				evictedWeight += eviction.getWeight();
+
+		// THEN the weight should stay within the maximum
+		Assert.assertTrue(policy.getWeightedSize() <= 1_000);
+		Assert.assertEquals(100 * 100, policy.getWeightedSize() + evictedWeight);
+	}
+
+	@Test
+	public void givenASingleKeyHeavierThanTheMaximum_whenItIsWritten_thenItShouldOnlyBeEvictedByTheNextWrite() {
+		// GIVEN a single key heavier than the maximum
+		final WTinyLfuPolicy<String> policy = new WTinyLfuPolicy<>(1_000, 0);
+
+		// WHEN it is written
+		final List<Eviction<String>> evicted = policy.onWrite("fakeKey", 1, 5_000, 0);
+
+		// THEN it should only be evicted by the next write
+		Assert.assertTrue(evicted.isEmpty());
+		Assert.assertEquals(5_000, policy.getWeightedSize());
+		final List<Eviction<String>> evictedByNext = policy.onWrite("fakeNextKey", 1, 10, 0);
+		Assert.assertEquals(1, evictedByNext.size());
+		Assert.assertEquals("fakeKey", evictedByNext.get(0).getKey());
+		Assert.assertEquals(1, evictedByNext.get(0).getStamp());
+		Assert.assertEquals(5_000, evictedByNext.get(0).getWeight());
+		Assert.assertEquals(10, policy.getWeightedSize());
+		Assert.assertEquals(1, policy.getSize());
+	}
+
+	@Test
+	public void givenAKeyWrittenAgain_whenAnOlderWriteOrRemovalArrives_thenItShouldBeIgnored() {
+		// GIVEN a key written again
+		final WTinyLfuPolicy<String> policy = new WTinyLfuPolicy<>(1_000, 0);
+		policy.onWrite("fakeKey", 1, 10, 0);
+		policy.onWrite("fakeKey", 3, 30, 0);
+
+		// WHEN an older write or removal arrives
+		policy.onWrite("fakeKey", 2, 20, 0);
+		policy.onRemove("fakeKey", 2);
+
+		// THEN it should be ignored
+		Assert.assertEquals(30, policy.getWeightedSize());
+		Assert.assertEquals(1, policy.getSize());
+		policy.onRemove("fakeKey", 3);
+		Assert.assertEquals(0, policy.getWeightedSize());
+	}
+
+	@Test
+	public void givenAFrequentKey_whenAScanOfOneOffKeysHappens_thenTheFrequentKeyShouldNotBeEvicted() {
+		// GIVEN a frequent key
+		final WTinyLfuPolicy<String> policy = new WTinyLfuPolicy<>(1_000, 0);
+		policy.onWrite("fakeHotKey", 0, 10, 0);
+		for (int i = 0; i < 10; i++)
+			policy.onRead("fakeHotKey");
+
+		// WHEN a scan of one-off keys happens
+		for (int i = 0; i < 10_000; i++) {
+			final List<Eviction<String>> evicted = policy.onWrite("fakeOneOffKey" + i, 0, 10, 0);
+
+			// THEN the frequent key should not be evicted
+			for (final Eviction<String> eviction : evicted)
+				Assert.assertNotEquals("fakeHotKey", eviction.getKey());
+			policy.onRead("fakeHotKey");
+		}
+	}
+
+	@Test
+	public void givenKeysWrittenAtDifferentTimes_whenTheyAreExpired_thenOnlyTheOldOnesShouldBeRemoved() {
+		// GIVEN keys written at different times
+		final WTinyLfuPolicy<String> policy = new WTinyLfuPolicy<>(1_000, 100);
+		policy.onWrite("fakeOldKey", 0, 10, 0);
+		policy.onWrite("fakeRewrittenKey", 0, 10, 0);
+		policy.onWrite("fakeNewKey", 0, 10, 50);
+		policy.onWrite("fakeRewrittenKey", 1, 20, 60);
+
+		// WHEN they are expired
+		final List<Eviction<String>> expired = policy.expire(120);
+
+		// THEN only the old ones should be removed
+		Assert.assertEquals(1, expired.size());
+		Assert.assertEquals("fakeOldKey", expired.get(0).getKey());
+		Assert.assertEquals(10, expired.get(0).getWeight());
+		Assert.assertEquals(30, policy.getWeightedSize());
+		Assert.assertTrue(policy.isExpired(50, 150));
+		Assert.assertFalse(policy.isExpired(60, 150));
+	}
+
+	@Test
+	public void givenATrackedKey_whenItIsRemoved_thenItsWeightShouldBeReleased() {
+		// GIVEN a tracked key
+		final WTinyLfuPolicy<String> policy = new WTinyLfuPolicy<>(1_000, 0);
+		policy.onWrite("fakeKey", 0, 10, 0);
+		policy.onWrite("fakeOtherKey", 0, 20, 0);
+
+		// WHEN it is removed
+		policy.onRemove("fakeKey", 0);
+
+		// THEN its weight should be released
+		Assert.assertEquals(20, policy.getWeightedSize());
+		Assert.assertEquals(1, policy.getSize());
+	}
+
+	@Test
+	public void givenACandidateMoreFrequentThanOnlyOneOfItsVictims_whenItLeavesTheWindow_thenOnlyTheCandidateShouldBeEvicted() {
+		// GIVEN a candidate more frequent than only one of its victims
+		final WTinyLfuPolicy<String> policy = new WTinyLfuPolicy<>(1_000, 0);
+		for (int i = 0; i < 8; i++)
+			policy.onWrite("fakeFillerKey" + i, 0, 0, 0);
+		for (int i = 0; i < 8; i++)
+			policy.onRemove("fakeFillerKey" + i, 0);
+		policy.onWrite("fakeColdKey", 0, 495, 0);
+		policy.onWrite("fakeHotKey", 0, 495, 0);
+		for (int i = 0; i < 5; i++)
+			policy.onRead("fakeHotKey");
+		for (int i = 0; i < 3; i++)
+			policy.onRead("fakeCandidateKey");
+		Assert.assertTrue("A key is never evicted by its own write", policy.onWrite("fakeCandidateKey", 0, 600, 0).isEmpty());
+
+		// WHEN it leaves the window
+		final List<Eviction<String>> evicted = policy.onWrite("fakeNextKey", 0, 0, 0);
+
+		// THEN only the candidate should be evicted, keeping the victim it was more frequent than
+		Assert.assertEquals(1, evicted.size());
+		Assert.assertEquals("fakeCandidateKey", evicted.get(0).getKey());
+		Assert.assertEquals(600, evicted.get(0).getWeight());
+		Assert.assertEquals(990, policy.getWeightedSize());
+		Assert.assertEquals(3, policy.getSize());
+	}
+
+	@Test
+	public void givenManyThreadsWritingAndReading_whenTheyAreDone_thenTheWeightShouldMatchWhatWasNotEvicted() throws Exception {
+		// GIVEN many threads writing and reading
+		final WTinyLfuPolicy<String> policy = new WTinyLfuPolicy<>(10_000, 0);
+		final AtomicLong evictedWeight = new AtomicLong();
+		final ExecutorService executor = Executors.newFixedThreadPool(8);
+		final List<Future<?>> futures = new ArrayList<>();
+		for (int t = 0; t < 8; t++) {
+			final int thread = t;
+			futures.add(executor.submit(() -> {
+				for (int i = 0; i < 2_000; i++) {
+					policy.onRead("fakeKey" + thread + "-" + (i / 2));
+					for (final Eviction<String> eviction : policy.onWrite("fakeKey" + thread + "-" + i, 0, 10, 0))
+						evictedWeight.addAndGet(eviction.getWeight());
+				}
+			}));
+		}
+		for (final Future<?> future : futures)
+			future.get();
+		executor.shutdown();
+
+		// WHEN they are done
+		for (final Eviction<String> eviction : policy.onWrite("fakeLastKey", 0, 10, 0))
+			evictedWeight.addAndGet(eviction.getWeight());
+
+		// THEN the weight should match what was not evicted
+		Assert.assertTrue(policy.getWeightedSize() <= 10_000);
+		Assert.assertEquals((8 * 2_000 + 1) * 10, policy.getWeightedSize() + evictedWeight.get());
+	}
+}
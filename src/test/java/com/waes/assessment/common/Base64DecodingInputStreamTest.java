@@ -0,0 +1,107 @@
+package com.waes.assessment.common;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.Charset;
+import java.util.Base64;
+import java.util.Random;
+
+import org.apache.commons.io.IOUtils;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class Base64DecodingInputStreamTest {
+
+	@Test
+	public void givenRandomPayloadsAndBufferSizes_whenTheyAreStreamed_thenTheyShouldMatchTheJdkDecoder() throws IOException {
+		// GIVEN random payloads and buffer sizes
+		final Random random = new Random(42);
+		for (int size = 0; size < 300; size += 7) {
+			final byte[] fakePayload = new byte[size];
+			random.nextBytes(fakePayload);
+			final String fakeEncoded = Base64.getEncoder().encodeToString(fakePayload);
+
+			for (final int bufferBytes : new int[] { 1, 4, 5, 64, 8192 }) {
+				// WHEN they are streamed
+				final Base64DecodingInputStream inputStream = this.newInputStream(fakeEncoded, bufferBytes);
+				final byte[] streamed = IOUtils.toByteArray(inputStream);
+
+				// THEN they should match the jdk decoder
+				Assert.assertArrayEquals(Base64.getDecoder().decode(fakeEncoded), streamed);
+				Assert.assertArrayEquals(streamed, inputStream.toByteArray());
+			}
+		}
+	}
+
+	@Test
+	public void givenAnEncodedPayloadWithLineBreaksAndNoPadding_whenItIsStreamed_thenTheyShouldBeIgnored() throws IOException {
+		// GIVEN an encoded payload with line breaks and no padding
+		final byte[] fakePayload = "{\"field\":\"this is a sample\"}".getBytes(Charset.forName("UTF-8"));
+		final String fakeEncoded = Base64.getMimeEncoder(8, new byte[] { '\r', '\n' }).withoutPadding().encodeToString(fakePayload) + "\n";
+
+		// WHEN it is streamed
+		final byte[] streamed = IOUtils.toByteArray(this.newInputStream(fakeEncoded, 16));
+
+		// THEN they should be ignored
+		Assert.assertArrayEquals(fakePayload, streamed);
+	}
+
+	@Test
+	public void givenACharacterOutOfTheAlphabet_whenItIsStreamed_thenItShouldThrowAnIllegalArgumentException() throws IOException {
+		// GIVEN a character out of the alphabet
+		final String fakeEncoded = "e30=e30=";
+
+		try {
+			// WHEN it is streamed
+			IOUtils.copy(this.newInputStream(fakeEncoded, 16), new ByteArrayOutputStream());
+			Assert.fail("An IllegalArgumentException should be thrown");
+		} catch (final IllegalArgumentException e) {
+			// THEN it should throw an IllegalArgumentException
+			Assert.assertEquals("Illegal base64 character 65", e.getMessage());
+		}
+	}
+
+	@Test
+	public void givenAPaddingThatDoesNotCompleteTheLastUnit_whenItIsStreamed_thenItShouldBeRejectedAsTheJdkDecoderDoes() throws IOException {
+		// GIVEN a padding that does not complete the last unit
+		for (final String fakeEncoded : new String[] { "QQ=", "QQQ==", "QQ===", "QQ=Q", "Q=" }) {
+			try {
+				// WHEN it is streamed
+				IOUtils.copy(this.newInputStream(fakeEncoded, 16), new ByteArrayOutputStream());
+				Assert.fail("An IllegalArgumentException should be thrown for " + fakeEncoded);
+			} catch (final IllegalArgumentException e) {
+				// THEN it should be rejected as the JDK decoder does
+				try {
+					Base64.getDecoder().decode(fakeEncoded);
+					Assert.fail("The JDK decoder should reject " + fakeEncoded);
+				} catch (final IllegalArgumentException expected) {
+					// rejected by both
+				}
+			}
+		}
+		Assert.assertArrayEquals(new byte[] { 'A' }, IOUtils.toByteArray(this.newInputStream("QQ==", 16)));
+		Assert.assertArrayEquals(new byte[] { 'A', 'A' }, IOUtils.toByteArray(this.newInputStream("QUE=", 16)));
+	}
+
+	@Test
+	public void givenANonAsciiCharacter_whenItIsStreamed_thenItsUnsignedHexShouldBeReported() throws IOException {
+		// GIVEN a non ascii character
+		final InputStream source = new ByteArrayInputStream(new byte[] { 'e', '3', (byte) 0xe9, '=' });
+
+		try {
+			// WHEN it is streamed
+			IOUtils.copy(new Base64DecodingInputStream(source, 16), new ByteArrayOutputStream());
+			Assert.fail("An IllegalArgumentException should be thrown");
+		} catch (final IllegalArgumentException e) {
+			// THEN its unsigned hex should be reported
+			Assert.assertEquals("Illegal base64 character e9", e.getMessage());
+		}
+	}
+
+	private Base64DecodingInputStream newInputStream(final String encoded, final int bufferBytes) {
+		final InputStream source = new ByteArrayInputStream(encoded.getBytes(Charset.forName("UTF-8")));
+		return new Base64DecodingInputStream(source, bufferBytes);
+	}
+}
@@ -0,0 +1,48 @@
+package com.waes.assessment.common;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class ByteRangeDiffTest {
+
+	@Test
+	public void givenRandomPayloads_whenTheyAreDiffed_thenTheRangesShouldBeTheSameOfAByteByByteScan() {
+		// GIVEN random payloads
+		final Random random = new Random(42);
+		for (int i = 0; i < 2_000; i++) {
+			final byte[] left = new byte[random.nextInt(100)];
+			random.nextBytes(left);
+			final byte[] right = left.clone();
+			for (int j = random.nextInt(6); j > 0 && right.length > 0; j--) {
+				final int offset = random.nextInt(right.length);
+				for (int k = Math.min(right.length, offset + 1 + random.nextInt(12)) - 1; k >= offset; k--)
+					right[k] = (byte) random.nextInt(4);
+			}
+
+			// WHEN they are diffed
+			// THEN the ranges should be the same of a byte by byte scan
+			Assert.assertEquals(this.scan(left, right), ByteRangeDiff.buildDiffMapResult(left, right));
+		}
+	}
+
+	private Map<String, Map<String, Object>> scan(final byte[] left, final byte[] right) {
+		final Map<String, Map<String, Object>> result = new LinkedHashMap<>();
+		for (int i = 0; i < left.length; i++) {
+			if (left[i] == right[i])
+				continue;
+			final int offset = i;
+			while (i < left.length && left[i] != right[i])
+				i++;
+			final Map<String, Object> range = new HashMap<>();
+			range.put("offset", offset);
+			range.put("length", i - offset);
+			result.put(String.valueOf(offset), range);
+		}
+		return result;
+	}
+}
@@ -0,0 +1,74 @@
+package com.waes.assessment.common;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+public class CanonicalJsonTest {
+
+	private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+	private static final ObjectMapper DECIMAL_OBJECT_MAPPER = new ObjectMapper().enable(DeserializationFeature.USE_BIG_DECIMAL_FOR_FLOATS);
+
+	@Test
+	public void givenDocumentsFormattedInDifferentWays_whenTheirCanonicalFormsAreWritten_thenTheyShouldBeTheSame() throws IOException {
+		// GIVEN documents formatted in different ways
+		final String[][] payloads = {
+			{ "{\"b\":{\"d\":[1, 2.50],\"c\":\"x\"},\"a\":null}", "{\"a\":null,\"b\":{\"c\":\"x\",\"d\":[1,2.5]}}" },
+			{ " {\n\t\"a\" : true ,\"\\u0062\":1e2 } ", "{\"a\":true,\"b\":100.0}" },
+			{ "[{\"z\":1,\"y\":[]},{}]", "[{\"y\":[],\"z\":1},{}]" },
+		};
+
+		for (final String[] pair : payloads) {
+			// WHEN their canonical forms are written
+			final byte[] left = CanonicalJson.of(OBJECT_MAPPER.readTree(pair[0]));
+			final byte[] right = CanonicalJson.of(OBJECT_MAPPER.readTree(pair[1]));
+
+			// THEN they should be the same
+			Assert.assertEquals(pair[1], new String(right, StandardCharsets.UTF_8));
+			Assert.assertArrayEquals(pair[0], right, left);
+		}
+	}
+
+	@Test
+	public void givenDocumentsDifferentAsTrees_whenTheirCanonicalFormsAreWritten_thenTheyShouldBeDifferent() throws IOException {
+		// GIVEN documents different as trees
+		final String[][] payloads = {
+			{ "{\"a\":1}", "{\"a\":1.0}" },
+			{ "{\"a\":0.0}", "{\"a\":-0.0}" },
+			{ "{\"a\":\"1\"}", "{\"a\":1}" },
+			{ "[1,2]", "[2,1]" },
+			{ "{\"a\":{}}", "{\"a\":[]}" },
+			{ "{\"a\":1e400}", "{\"a\":\"Infinity\"}" },
+		};
+
+		for (final String[] pair : payloads) {
+			final JsonNode left = OBJECT_MAPPER.readTree(pair[0]);
+			final JsonNode right = OBJECT_MAPPER.readTree(pair[1]);
+
+			// WHEN their canonical forms are written
+			// THEN they should be different
+			Assert.assertNotEquals(left, right);
+			Assert.assertNotEquals(pair[0], new String(CanonicalJson.of(left), StandardCharsets.UTF_8), new String(CanonicalJson.of(right), StandardCharsets.UTF_8));
+		}
+	}
+
+	@Test
+	public void givenDecimals_whenTheirCanonicalFormsAreWritten_thenTheirScaleShouldBeIgnoredButNotTheirType() throws IOException {
+		// GIVEN decimals
+		final JsonNode decimal = DECIMAL_OBJECT_MAPPER.readTree("[1.50,100.00,0.000]");
+		final JsonNode integer = DECIMAL_OBJECT_MAPPER.readTree("[1.5,100,0]");
+
+		// WHEN their canonical forms are written
+		final String canonical = new String(CanonicalJson.of(decimal), StandardCharsets.UTF_8);
+
+		// THEN their scale should be ignored but not their type
+		Assert.assertEquals("[1.5,1E+2,0.0]", canonical);
+		Assert.assertNotEquals(canonical, new String(CanonicalJson.of(integer), StandardCharsets.UTF_8));
+	}
+}
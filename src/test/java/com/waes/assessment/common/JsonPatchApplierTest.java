@@ -0,0 +1,180 @@
+package com.waes.assessment.common;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Random;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+public class JsonPatchApplierTest {
+
+	private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+
+	@Test
+	public void givenPatchesOfEveryOperation_whenTheyAreApplied_thenThePatchedDocumentShouldBeReturned() throws IOException {
+		// GIVEN patches of every operation
+		final String[][] patches = {
+			{ "{\"a\":1}", "[{\"op\":\"add\",\"path\":\"/b\",\"value\":{\"c\":[]}}]", "{\"a\":1,\"b\":{\"c\":[]}}" },
+			{ "{\"a\":[1,3]}", "[{\"op\":\"add\",\"path\":\"/a/1\",\"value\":2},{\"op\":\"add\",\"path\":\"/a/-\",\"value\":4}]", "{\"a\":[1,2,3,4]}" },
+			{ "{\"a\":1,\"b\":[1,2]}", "[{\"op\":\"remove\",\"path\":\"/a\"},{\"op\":\"remove\",\"path\":\"/b/0\"}]", "{\"b\":[2]}" },
+			{ "{\"a\":{\"b\":1}}", "[{\"op\":\"replace\",\"path\":\"/a/b\",\"value\":null}]", "{\"a\":{\"b\":null}}" },
+			{ "{\"a\":{\"b\":1},\"c\":{}}", "[{\"op\":\"move\",\"from\":\"/a/b\",\"path\":\"/c/d\"}]", "{\"a\":{},\"c\":{\"d\":1}}" },
+			{ "{\"a\":[1]}", "[{\"op\":\"copy\",\"from\":\"/a\",\"path\":\"/b\"},{\"op\":\"test\",\"path\":\"/b/0\",\"value\":1}]", "{\"a\":[1],\"b\":[1]}" },
+			{ "{\"a/b\":1,\"c~d\":2}", "[{\"op\":\"replace\",\"path\":\"/a~1b\",\"value\":3},{\"op\":\"remove\",\"path\":\"/c~0d\"}]", "{\"a/b\":3}" },
+			{ "{\"a\":1}", "[{\"op\":\"replace\",\"path\":\"\",\"value\":[1]}]", "[1]" },
+		};
+
+		for (final String[] patch : patches) {
+			final JsonNode document = OBJECT_MAPPER.readTree(patch[0]);
+
+			// WHEN they are applied
+			final JsonNode result = JsonPatchApplier.applyPatch(document, OBJECT_MAPPER.readTree(patch[1]));
+
+			// THEN the patched document should be returned, leaving the original one untouched
+			Assert.assertEquals(patch[1], OBJECT_MAPPER.readTree(patch[2]), result);
+			Assert.assertEquals(patch[1], OBJECT_MAPPER.readTree(patch[0]), document);
+		}
+	}
+
+	@Test
+	public void givenPatchesThatCannotBeApplied_whenTheyAreApplied_thenTheyShouldBeRejected() throws IOException {
+		// GIVEN patches that cannot be applied
+		final String[] patches = {
+			"{\"op\":\"add\",\"path\":\"/a\",\"value\":1}",
+			"[{\"op\":\"remove\",\"path\":\"/b\"}]",
+			"[{\"op\":\"replace\",\"path\":\"/a/b\",\"value\":1}]",
+			"[{\"op\":\"add\",\"path\":\"/c/3\",\"value\":1}]",
+			"[{\"op\":\"add\",\"path\":\"/c/01\",\"value\":1}]",
+			"[{\"op\":\"add\",\"path\":\"/a\"}]",
+			"[{\"op\":\"move\",\"from\":\"/d\",\"path\":\"/d/e\"}]",
+			"[{\"op\":\"test\",\"path\":\"/a\",\"value\":2}]",
+			"[{\"op\":\"rename\",\"path\":\"/a\"}]",
+			"[{\"op\":\"add\",\"path\":\"a\",\"value\":1}]",
+		};
+		final JsonNode document = OBJECT_MAPPER.readTree("{\"a\":1,\"c\":[1,2],\"d\":{}}");
+
+		for (final String patch : patches) {
+			// WHEN they are applied
+			try {
+				JsonPatchApplier.applyPatch(document, OBJECT_MAPPER.readTree(patch));
+				Assert.fail(patch + " should have been rejected");
+			} catch (final IllegalArgumentException e) {
+				// THEN they should be rejected
+				Assert.assertNotNull(patch, e.getMessage());
+			}
+		}
+	}
+
+	@Test
+	public void givenAPatchReachingOneField_whenItIsApplied_thenEveryOtherSubtreeShouldBeShared() throws IOException {
+		// GIVEN a patch reaching one field
+		final JsonNode document = OBJECT_MAPPER.readTree("{\"a\":{\"b\":{\"c\":1},\"d\":[1,2]},\"e\":{\"f\":2}}");
+		final JsonNode patch = OBJECT_MAPPER.readTree("[{\"op\":\"replace\",\"path\":\"/a/b/c\",\"value\":3}]");
+
+		// WHEN it is applied
+		final JsonNode result = JsonPatchApplier.applyPatch(document, patch);
+
+		// THEN every other subtree should be shared
+		Assert.assertNotSame(document, result);
+		Assert.assertNotSame(document.get("a"), result.get("a"));
+		Assert.assertSame(document.get("a").get("d"), result.get("a").get("d"));
+		Assert.assertSame(document.get("e"), result.get("e"));
+		Assert.assertEquals(3, result.at("/a/b/c").intValue());
+	}
+
+	@Test
+	public void givenMergePatches_whenTheyAreApplied_thenThePatchedDocumentShouldBeReturned() throws IOException {
+		// GIVEN merge patches, as the examples of the RFC 7396
+		final String[][] patches = {
+			{ "{\"a\":\"b\"}", "{\"a\":\"c\"}", "{\"a\":\"c\"}" },
+			{ "{\"a\":\"b\"}", "{\"b\":\"c\"}", "{\"a\":\"b\",\"b\":\"c\"}" },
+			{ "{\"a\":\"b\"}", "{\"a\":null}", "{}" },
+			{ "{\"a\":[{\"b\":\"c\"}]}", "{\"a\":[1]}", "{\"a\":[1]}" },
+			{ "[\"a\",\"b\"]", "[\"c\",\"d\"]", "[\"c\",\"d\"]" },
+			{ "{\"e\":null}", "{\"a\":1}", "{\"e\":null,\"a\":1}" },
+			{ "{}", "{\"a\":{\"bb\":{\"ccc\":null}}}", "{\"a\":{\"bb\":{}}}" },
+			{ "{\"a\":{\"b\":1,\"c\":2}}", "{\"a\":{\"b\":null,\"d\":3}}", "{\"a\":{\"c\":2,\"d\":3}}" },
+		};
+
+		for (final String[] patch : patches) {
+			// WHEN they are applied
+			final JsonNode result = JsonPatchApplier.applyMergePatch(OBJECT_MAPPER.readTree(patch[0]), OBJECT_MAPPER.readTree(patch[1]));
+
+			// THEN the patched document should be returned
+			Assert.assertEquals(patch[1], OBJECT_MAPPER.readTree(patch[2]), result);
+		}
+	}
+
+	@Test
+	public void givenRandomPayloads_whenThePatchWrittenForThemIsApplied_thenTheRightPayloadShouldBeReturned() throws IOException {
+		// GIVEN random payloads
+		final Random random = new Random(25);
+		for (int i = 0; i < 1_000; i++) {
+			final JsonNode left = this.randomValue(random, 0);
+			final JsonNode right = random.nextBoolean() ? this.randomValue(random, 0) : this.mutate(random, left);
+
+			// WHEN the patch written for them is applied
+			final ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+			try (final JsonGenerator generator = OBJECT_MAPPER.getFactory().createGenerator(outputStream)) {
+				JsonPatchWriter.write(left, SubtreeHashes.of(left), right, SubtreeHashes.of(right), JsonUtil.DEFAULT_ALIGNMENT_MAX_COST, generator);
+			}
+			final JsonNode result = JsonPatchApplier.applyPatch(left, OBJECT_MAPPER.readTree(outputStream.toByteArray()));
+
+			// THEN the right payload should be returned
+			Assert.assertEquals(left + " against " + right, right, result);
+		}
+	}
+
+	private JsonNode randomValue(final Random random, final int depth) {
+		switch (depth > 2 ? random.nextInt(2) : random.nextInt(4)) {
+			case 0:
+				return OBJECT_MAPPER.getNodeFactory().numberNode(random.nextInt(4));
+			case 1:
+				return OBJECT_MAPPER.getNodeFactory().textNode("v" + random.nextInt(3));
+			case 2:
+				final ArrayNode array = OBJECT_MAPPER.createArrayNode();
+				for (int i = random.nextInt(6); i > 0; i--)
+					array.add(this.randomValue(random, depth + 1));
+				return array;
+			default:
+				final ObjectNode object = OBJECT_MAPPER.createObjectNode();
+				for (int i = random.nextInt(5); i > 0; i--)
+					object.set("f" + random.nextInt(6), this.randomValue(random, depth + 1));
+				return object;
+		}
+	}
+
+	/*
+	 * Copies the node changing, removing or adding a few of its values, at any depth
+	 */
+	private JsonNode mutate(final Random random, final JsonNode node) {
+		if (node.isObject()) {
+			final ObjectNode copy = OBJECT_MAPPER.createObjectNode();
+			node.fields().forEachRemaining(field -> {
+				if (random.nextInt(5) != 0)
+					copy.set(field.getKey(), this.mutate(random, field.getValue()));
+			});
+			if (random.nextInt(3) == 0)
+				copy.set("f" + random.nextInt(6), this.randomValue(random, 2));
+			return copy;
+		}
+		if (node.isArray()) {
+			final ArrayNode copy = OBJECT_MAPPER.createArrayNode();
+			for (final JsonNode element : node) {
+				if (random.nextInt(4) == 0)
+					copy.add(this.randomValue(random, 2));
+				if (random.nextInt(5) != 0)
+					copy.add(this.mutate(random, element));
+			}
+			return copy;
+		}
+		return random.nextInt(4) == 0 ? this.randomValue(random, 2) : node;
+	}
+}
@@ -0,0 +1,53 @@
+package com.waes.assessment.common;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+public class JsonPatchWriterTest {
+
+	private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+
+	@Test
+	public void givenPayloadsOfEveryShape_whenTheirPatchIsWritten_thenTheOperationsTurningTheLeftIntoTheRightShouldBeWritten() throws IOException {
+		// GIVEN payloads of every shape
+		final String[][] payloads = {
+			{ "{\"a\":1,\"b\":{\"c\":2}}", "{\"b\":{\"c\":2},\"a\":1}", "[]" },
+			{ "{\"a\":1,\"b\":2}", "{\"a\":3,\"c\":{\"d\":[true]}}",
+					"[{\"op\":\"replace\",\"path\":\"/a\",\"value\":3},{\"op\":\"remove\",\"path\":\"/b\"},{\"op\":\"add\",\"path\":\"/c\",\"value\":{\"d\":[true]}}]" },
+			{ "{\"a/b\":1,\"c~d\":2}", "{\"a/b\":2,\"c~d\":3}",
+					"[{\"op\":\"replace\",\"path\":\"/a~1b\",\"value\":2},{\"op\":\"replace\",\"path\":\"/c~0d\",\"value\":3}]" },
+			{ "{\"a\":[1,2,3,4]}", "{\"a\":[1,3,4,5]}",
+					"[{\"op\":\"remove\",\"path\":\"/a/1\"},{\"op\":\"add\",\"path\":\"/a/3\",\"value\":5}]" },
+			{ "[1,{\"b\":1},3]", "[0,1,{\"b\":2},3]",
+					"[{\"op\":\"add\",\"path\":\"/0\",\"value\":0},{\"op\":\"replace\",\"path\":\"/2/b\",\"value\":2}]" },
+			{ "{\"a\":1}", "[1]", "[{\"op\":\"replace\",\"path\":\"\",\"value\":[1]}]" },
+			{ "{\"a\":1}", "{\"a\":1.0}", "[{\"op\":\"replace\",\"path\":\"/a\",\"value\":1.0}]" },
+		};
+
+		for (final String[] payload : payloads) {
+			// WHEN their patch is written
+			final JsonNode patch = this.patchOf(payload[0], payload[1]);
+
+			// THEN the operations turning the left into the right should be written
+			Assert.assertEquals(payload[0] + " against " + payload[1], OBJECT_MAPPER.readTree(payload[2]), patch);
+		}
+	}
+
+	private JsonNode patchOf(final String left, final String right) throws IOException {
+		final JsonNode leftNode = OBJECT_MAPPER.readTree(left);
+		final JsonNode rightNode = OBJECT_MAPPER.readTree(right);
+		final ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+		try (final JsonGenerator generator = OBJECT_MAPPER.getFactory().createGenerator(outputStream)) {
+			JsonPatchWriter.write(leftNode, SubtreeHashes.of(leftNode), rightNode, SubtreeHashes.of(rightNode),
+					JsonUtil.DEFAULT_ALIGNMENT_MAX_COST, generator);
+		}
+		return OBJECT_MAPPER.readTree(outputStream.toByteArray());
+	}
+}
@@ -0,0 +1,63 @@
+package com.waes.assessment.common;
+
+import java.lang.management.ManagementFactory;
+import java.util.Map;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+/**
+ * This is an allocation benchmark of the diff of a wide document holding a handful of
+ * differences, measuring the bytes allocated by the current thread on each diff, to
+ * make sure that walking the fields allocates nothing but the reported differences
+ */
+public class JsonUtilAllocationTest {
+
+	private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+	private static final int FIELDS = 10_000;
+	private static final int DIFFERENCES = 5;
+	private static final int ITERATIONS = 200;
+
+	// Each reported difference allocates its path, the text of both values and the Map holding them
+	private static final long BYTES_PER_DIFFERENCE = 512;
+
+	@Test
+	public void givenAWideDocumentWithAHandfulOfDifferences_whenItIsDiffed_thenOnlyTheDifferencesShouldBeAllocated() {
+		// GIVEN a wide document with a handful of differences
+		final ObjectNode leftNode = OBJECT_MAPPER.createObjectNode();
+		final ObjectNode rightNode = OBJECT_MAPPER.createObjectNode();
+		final ObjectNode leftInner = leftNode.putObject("inner");
+		final ObjectNode rightInner = rightNode.putObject("inner");
+		for (int i = 0; i < FIELDS; i++) {
+			final ObjectNode left = i % 2 == 0 ? leftNode : leftInner;
+			final ObjectNode right = i % 2 == 0 ? rightNode : rightInner;
+			left.put("field" + i, "value" + i);
+			right.put("field" + i, i % (FIELDS / DIFFERENCES) == 1 ? "other" + i : "value" + i);
+		}
+		final SubtreeHashes leftHashes = SubtreeHashes.of(leftNode);
+		final SubtreeHashes rightHashes = SubtreeHashes.of(rightNode);
+		Assert.assertEquals(DIFFERENCES, JsonUtil.buildDiffMapResult(leftNode, leftHashes, rightNode, rightHashes).size());
+
+		// WHEN it is diffed
+		long bytes = Long.MAX_VALUE;
+		for (int round = 0; round < 5; round++) {
+			final long before = allocatedBytes();
+			for (int i = 0; i < ITERATIONS; i++) {
+				final Map<String, Map<String, Object>> result = JsonUtil.buildDiffMapResult(leftNode, leftHashes, rightNode, rightHashes);
+				Assert.assertEquals(DIFFERENCES, result.size());
+			}
+			bytes = Math.min(bytes, (allocatedBytes() - before) / ITERATIONS);
+		}
+
+		// THEN only the differences should be allocated
+		Assert.assertTrue("The diff allocated " + bytes + " bytes for " + DIFFERENCES + " differences",
+				bytes <= DIFFERENCES * BYTES_PER_DIFFERENCE);
+	}
+
+	private static long allocatedBytes() {
+		return ((com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean()).getThreadAllocatedBytes(Thread.currentThread().getId());
+	}
+}
@@ -1,17 +1,26 @@
 package com.waes.assessment.common;
 
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
 
 import org.junit.Assert;
+import org.junit.Ignore;
 import org.junit.Test;
+import org.slf4j.Logger;
 
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.node.BooleanNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.waes.assessment.logger.WAESLoggerFactory;
 
 public class JsonUtilTest {
 
+	private static final Logger LOGGER = WAESLoggerFactory.getLogger(JsonUtilTest.class);
+
 	private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
 	
 	@Test
@@ -99,4 +108,311 @@ public class JsonUtilTest {
 		Assert.assertEquals("value3", result.get("field2").get("left"));
 		Assert.assertEquals("value2", result.get("field2").get("right"));
 	}
+
+	@Test
+	public void givenTwoPayloadsWithDifferentArrays_whenTheyAreDiffed_thenTheElementsShouldBeReportedUnderTheirIndex() throws IOException {
+		// GIVEN two payloads with different arrays
+		final JsonNode leftNode = OBJECT_MAPPER.readTree("{\"items\":[{\"sku\":\"a\",\"price\":1},{\"sku\":\"b\",\"price\":2},{\"sku\":\"c\",\"price\":3}]}");
+		final JsonNode rightNode = OBJECT_MAPPER.readTree("{\"items\":[{\"sku\":\"a\",\"price\":1},{\"sku\":\"b\",\"price\":5},{\"sku\":\"c\",\"price\":3}]}");
+		
+		// WHEN they are diffed
+		final Map<String, Map<String, Object>> result = JsonUtil.buildDiffMapResult(leftNode, rightNode);
+		
+		// THEN the elements should be reported under their index
+		Assert.assertEquals(1, result.size());
+		Assert.assertEquals("2", result.get("items[1].price").get("left"));
+		Assert.assertEquals("5", result.get("items[1].price").get("right"));
+	}
+
+	@Test
+	public void givenAnElementInsertedIntoALargeArray_whenTheyAreDiffed_thenOnlyTheInsertedElementShouldBeReported() {
+		// GIVEN an element inserted into a large array
+		final ObjectNode leftNode = OBJECT_MAPPER.createObjectNode();
+		final ObjectNode rightNode = OBJECT_MAPPER.createObjectNode();
+		for (int i = 0; i < 10_000; i++) {
+			if (i == 1_234)
+				rightNode.withArray("items").add("inserted");
+			leftNode.withArray("items").add("value" + i);
+			rightNode.withArray("items").add("value" + i);
+		}
+		
+		// WHEN they are diffed
+		final Map<String, Map<String, Object>> result = JsonUtil.buildDiffMapResult(leftNode, rightNode);
+		
+		// THEN only the inserted element should be reported
+		Assert.assertEquals(1, result.size());
+		Assert.assertEquals(Constant.UNAVAILABLE_FIELD, result.get("items[1234]").get("left"));
+		Assert.assertEquals("inserted", result.get("items[1234]").get("right"));
+	}
+
+	@Test
+	public void givenArraysBeyondTheAlignmentCost_whenTheyAreDiffed_thenTheirElementsShouldBeComparedByPosition() throws IOException {
+		// GIVEN arrays beyond the alignment cost
+		final JsonNode leftNode = OBJECT_MAPPER.readTree("[0,1,2,3,4,5]");
+		final JsonNode rightNode = OBJECT_MAPPER.readTree("[9,0,1,2,3,4]");
+		
+		// WHEN they are diffed
+		final Map<String, Map<String, Object>> aligned = JsonUtil.buildDiffMapResult(leftNode, null, rightNode, null, 0, 2);
+		final Map<String, Map<String, Object>> positional = JsonUtil.buildDiffMapResult(leftNode, null, rightNode, null, 0, 1);
+		
+		// THEN their elements should be compared by position
+		Assert.assertEquals(2, aligned.size());
+		Assert.assertEquals("9", aligned.get("[0]").get("right"));
+		Assert.assertEquals("5", aligned.get("[5]").get("left"));
+		Assert.assertEquals(6, positional.size());
+		Assert.assertEquals("0", positional.get("[0]").get("left"));
+		Assert.assertEquals("9", positional.get("[0]").get("right"));
+	}
+
+	@Test
+	public void givenArraysMatchedByAnIdentityField_whenTheyAreDiffed_thenTheElementsShouldBeReportedUnderTheirIdentity() throws IOException {
+		// GIVEN arrays matched by an identity field, holding the same records in another order
+		final JsonNode leftNode = OBJECT_MAPPER.readTree("{\"items\":[{\"sku\":\"a\",\"price\":1},{\"sku\":\"b\",\"price\":2},{\"sku\":\"c\",\"price\":3}]}");
+		final JsonNode rightNode = OBJECT_MAPPER.readTree("{\"items\":[{\"sku\":\"d\",\"price\":4},{\"sku\":\"b\",\"price\":5},{\"sku\":\"a\",\"price\":1}]}");
+		final IdentityKeys identityKeys = IdentityKeys.parse("items=sku");
+		
+		// WHEN they are diffed
+		final Map<String, Map<String, Object>> result = JsonUtil.buildDiffMapResult(leftNode, null, rightNode, null, 0,
+				JsonUtil.DEFAULT_ALIGNMENT_MAX_COST, identityKeys);
+		
+		// THEN the elements should be reported under their identity, the unmatched ones as removed or added
+		Assert.assertEquals(3, result.size());
+		Assert.assertEquals("2", result.get("items[sku=b].price").get("left"));
+		Assert.assertEquals("5", result.get("items[sku=b].price").get("right"));
+		Assert.assertEquals("c", ((JsonNode) result.get("items[sku=c]").get("left")).get("sku").asText());
+		Assert.assertEquals(Constant.UNAVAILABLE_FIELD, result.get("items[sku=c]").get("right"));
+		Assert.assertEquals(Constant.UNAVAILABLE_FIELD, result.get("items[sku=d]").get("left"));
+		Assert.assertEquals("d", ((JsonNode) result.get("items[sku=d]").get("right")).get("sku").asText());
+	}
+
+	@Test
+	public void givenARemovedAndAnAddedRecordAtTheSameIndex_whenTheyAreDiffed_thenTheyShouldNotBeDiffedAgainstEachOther() throws IOException {
+		// GIVEN a removed and an added record at the same index
+		final JsonNode leftNode = OBJECT_MAPPER.readTree("{\"items\":[{\"sku\":\"a\",\"p\":1}]}");
+		final JsonNode rightNode = OBJECT_MAPPER.readTree("{\"items\":[{\"sku\":\"b\",\"p\":1}]}");
+		final IdentityKeys identityKeys = IdentityKeys.parse("items=sku");
+		
+		// WHEN they are diffed
+		final Map<String, Map<String, Object>> result = JsonUtil.buildDiffMapResult(leftNode, null, rightNode, null, 0,
+				JsonUtil.DEFAULT_ALIGNMENT_MAX_COST, identityKeys);
+		
+		// THEN they should not be diffed against each other, being reported as removed and added
+		Assert.assertEquals(2, result.size());
+		Assert.assertNull(result.get("items[0].sku"));
+		Assert.assertEquals(leftNode.get("items").get(0), result.get("items[sku=a]").get("left"));
+		Assert.assertEquals(Constant.UNAVAILABLE_FIELD, result.get("items[sku=a]").get("right"));
+		Assert.assertEquals(Constant.UNAVAILABLE_FIELD, result.get("items[sku=b]").get("left"));
+		Assert.assertEquals(rightNode.get("items").get(0), result.get("items[sku=b]").get("right"));
+	}
+
+	@Test
+	public void givenTwoWidePayloads_whenTheyAreDiffedInParallel_thenTheSameMapOfTheSequentialDiffShouldBeReturned() {
+		// GIVEN two wide payloads, holding a wide object as well
+		final ObjectNode leftNode = OBJECT_MAPPER.createObjectNode();
+		final ObjectNode rightNode = OBJECT_MAPPER.createObjectNode();
+		final ObjectNode leftInner = leftNode.putObject("inner");
+		final ObjectNode rightInner = rightNode.putObject("inner");
+		for (int i = 0; i < 5_000; i++) {
+			leftNode.put("field" + i, i);
+			rightNode.put("field" + (i % 7 == 0 ? i + 5_000 : i), i % 3 == 0 ? -i : i);
+			leftInner.putObject("field" + i).put("value", "value" + i);
+			rightInner.putObject("field" + i).put("value", "value" + (i % 11 == 0 ? -i : i));
+		}
+		final SubtreeHashes leftHashes = SubtreeHashes.of(leftNode);
+		final SubtreeHashes rightHashes = SubtreeHashes.of(rightNode);
+		
+		// WHEN they are diffed in parallel
+		final Map<String, Map<String, Object>> result = JsonUtil.buildDiffMapResult(leftNode, leftHashes, rightNode, rightHashes, 64, JsonUtil.DEFAULT_ALIGNMENT_MAX_COST);
+		
+		// THEN the same Map of the sequential diff should be returned, in the same order
+		final Map<String, Map<String, Object>> expected = JsonUtil.buildDiffMapResult(leftNode, rightNode);
+		Assert.assertFalse(expected.isEmpty());
+		Assert.assertEquals(expected, result);
+		Assert.assertEquals(new ArrayList<>(expected.keySet()), new ArrayList<>(result.keySet()));
+		Assert.assertEquals("value-11", result.get("inner.field11.value").get("right"));
+	}
+
+	@Test
+	public void givenPayloadsWithManyDifferences_whenTheyAreDiffedUpToALimit_thenOnlyTheLimitOfDifferencesShouldBeReturned() {
+		// GIVEN payloads with many differences
+		final ObjectNode leftNode = OBJECT_MAPPER.createObjectNode();
+		final ObjectNode rightNode = OBJECT_MAPPER.createObjectNode();
+		for (int i = 0; i < 1_000; i++) {
+			leftNode.putObject("field" + i).put("value", i);
+			rightNode.putObject("field" + i).put("value", -i - 1);
+		}
+		
+		// WHEN they are diffed up to a limit, sequentially and in parallel
+		final Map<String, Map<String, Object>> result = JsonUtil.buildDiffMapResult(leftNode, SubtreeHashes.of(leftNode), rightNode,
+				SubtreeHashes.of(rightNode), 0, JsonUtil.DEFAULT_ALIGNMENT_MAX_COST, IdentityKeys.NONE, 5);
+		final Map<String, Map<String, Object>> parallelResult = JsonUtil.buildDiffMapResult(leftNode, null, rightNode, null, 16,
+				JsonUtil.DEFAULT_ALIGNMENT_MAX_COST, IdentityKeys.NONE, 5);
+		
+		// THEN only the limit of differences should be returned
+		final Map<String, Map<String, Object>> expected = JsonUtil.buildDiffMapResult(leftNode, rightNode);
+		Assert.assertEquals(5, result.size());
+		Assert.assertEquals(5, parallelResult.size());
+		Assert.assertEquals(new ArrayList<>(expected.keySet()).subList(0, 5), new ArrayList<>(result.keySet()));
+		for (final String path : result.keySet())
+			Assert.assertEquals(expected.get(path), result.get(path));
+		for (final String path : parallelResult.keySet())
+			Assert.assertEquals(expected.get(path), parallelResult.get(path));
+	}
+
+	@Test
+	public void givenPayloadsWithDifferences_whenTheyAreCounted_thenTheSizeOfTheDiffShouldBeReturned() throws IOException {
+		// GIVEN payloads with differences
+		final JsonNode leftNode = OBJECT_MAPPER.readTree("{\"a\":1,\"b\":{\"c\":[1,2,3],\"d\":\"x\"},\"e\":true}");
+		final JsonNode rightNode = OBJECT_MAPPER.readTree("{\"a\":2,\"b\":{\"c\":[1,3],\"d\":\"y\"},\"f\":true}");
+		
+		// WHEN they are counted
+		final int count = JsonUtil.countDifferences(leftNode, SubtreeHashes.of(leftNode), rightNode, SubtreeHashes.of(rightNode), 0,
+				JsonUtil.DEFAULT_ALIGNMENT_MAX_COST, IdentityKeys.NONE);
+		
+		// THEN the size of the diff should be returned
+		Assert.assertEquals(JsonUtil.buildDiffMapResult(leftNode, rightNode).size(), count);
+		Assert.assertEquals(5, count);
+	}
+
+	@Test
+	public void givenASideEditedSinceItsLastDiff_whenItIsRediffed_thenTheSameMapOfTheFullDiffShouldBeReturned() {
+		final Random random = new Random(24);
+		for (int round = 0; round < 200; round++) {
+			// GIVEN a side edited since its last diff
+			final ObjectNode leftNode = randomObject(random, 3);
+			final ObjectNode previousNode = leftNode.deepCopy();
+			edit(random, previousNode);
+			final ObjectNode currentNode = previousNode.deepCopy();
+			edit(random, currentNode);
+			final boolean rightChanged = random.nextBoolean();
+			final JsonNode unchangedNode = rightChanged ? leftNode : leftNode.deepCopy();
+			final SubtreeHashes unchangedHashes = SubtreeHashes.of(unchangedNode);
+			final SubtreeHashes previousHashes = SubtreeHashes.of(previousNode);
+			final SubtreeHashes currentHashes = SubtreeHashes.of(currentNode);
+			final Map<String, Map<String, Object>> previousDifference = rightChanged
+					? JsonUtil.buildDiffMapResult(unchangedNode, previousNode) : JsonUtil.buildDiffMapResult(previousNode, unchangedNode);
+			
+			// WHEN it is rediffed
+			final Map<String, Map<String, Object>> result = rightChanged
+					? JsonUtil.rediff(previousDifference, unchangedNode, unchangedHashes, currentNode, currentHashes, previousNode,
+							previousHashes, true, JsonUtil.DEFAULT_ALIGNMENT_MAX_COST, IdentityKeys.NONE)
+					: JsonUtil.rediff(previousDifference, currentNode, currentHashes, unchangedNode, unchangedHashes, previousNode,
+							previousHashes, false, JsonUtil.DEFAULT_ALIGNMENT_MAX_COST, IdentityKeys.NONE);
+			
+			// THEN the same Map of the full diff should be returned, in the same order
+			final Map<String, Map<String, Object>> expected = rightChanged
+					? JsonUtil.buildDiffMapResult(unchangedNode, currentNode) : JsonUtil.buildDiffMapResult(currentNode, unchangedNode);
+			Assert.assertEquals(expected, result);
+			Assert.assertEquals(new ArrayList<>(expected.keySet()), new ArrayList<>(result.keySet()));
+		}
+	}
+
+	@Test
+	public void givenAnArrayAsTheRoot_whenItIsRediffed_thenNullShouldBeReturned() throws IOException {
+		// GIVEN an array as the root
+		final JsonNode leftNode = OBJECT_MAPPER.readTree("[1,2]");
+		final JsonNode rightNode = OBJECT_MAPPER.readTree("[1,3]");
+		final JsonNode previousNode = OBJECT_MAPPER.readTree("[1,4]");
+		
+		// WHEN it is rediffed
+		final Map<String, Map<String, Object>> result = JsonUtil.rediff(JsonUtil.buildDiffMapResult(leftNode, previousNode), leftNode,
+				SubtreeHashes.of(leftNode), rightNode, SubtreeHashes.of(rightNode), previousNode, SubtreeHashes.of(previousNode), true,
+				JsonUtil.DEFAULT_ALIGNMENT_MAX_COST, IdentityKeys.NONE);
+		
+		// THEN null should be returned, so the whole trees are diffed instead
+		Assert.assertNull(result);
+	}
+
+	@Test
+	public void givenAFieldNameHoldingADot_whenItIsRediffed_thenNullShouldBeReturned() throws IOException {
+		// GIVEN a field name holding a dot
+		final JsonNode leftNode = OBJECT_MAPPER.readTree("{\"a\":{\"b\":1},\"a.b\":1}");
+		final JsonNode rightNode = OBJECT_MAPPER.readTree("{\"a\":{\"b\":2},\"a.b\":2}");
+		final JsonNode previousNode = OBJECT_MAPPER.readTree("{\"a\":{\"b\":3},\"a.b\":2}");
+		
+		// WHEN it is rediffed
+		final Map<String, Map<String, Object>> result = JsonUtil.rediff(JsonUtil.buildDiffMapResult(leftNode, previousNode), leftNode,
+				SubtreeHashes.of(leftNode), rightNode, SubtreeHashes.of(rightNode), previousNode, SubtreeHashes.of(previousNode), true,
+				JsonUtil.DEFAULT_ALIGNMENT_MAX_COST, IdentityKeys.NONE);
+		
+		// THEN null should be returned, so the whole trees are diffed instead
+		Assert.assertNull(result);
+	}
+
+	/*
+	 * Opt-in benchmark of the diff of wide objects by parallel threshold, where zero diffs them sequentially,
+	 * run through mvn test -Dtest=JsonUtilTest#benchmarkParallelThresholdByWidth after removing the @Ignore,
+	 * where the whole matrix runs once to warm up before being measured
+	 */
+	@Ignore("benchmark")
+	@Test
+	public void benchmarkParallelThresholdByWidth() {
+		final int[] thresholds = { 0, 1_024, 4_096, 8_192, 16_384 };
+		for (int pass = 0; pass < 2; pass++) {
+			for (int width = 4_096; width <= 262_144; width <<= 2) {
+				final ObjectNode leftNode = OBJECT_MAPPER.createObjectNode();
+				final ObjectNode rightNode = OBJECT_MAPPER.createObjectNode();
+				for (int i = 0; i < width; i++) {
+					leftNode.putObject("f" + i).put("a", i).put("b", "v" + i);
+					rightNode.putObject("f" + i).put("a", 0 == i % 16 ? -i : i).put("b", "v" + i);
+				}
+				final StringBuilder line = new StringBuilder("width ").append(width).append(':');
+				for (final int threshold : thresholds) {
+					long best = Long.MAX_VALUE;
+					for (int round = 0; round < 5; round++) {
+						final long start = System.nanoTime();
+						JsonUtil.buildDiffMapResult(leftNode, null, rightNode, null, threshold, JsonUtil.DEFAULT_ALIGNMENT_MAX_COST);
+						best = Math.min(best, System.nanoTime() - start);
+					}
+					line.append(" threshold ").append(threshold).append(' ').append(TimeUnit.NANOSECONDS.toMicros(best)).append("us");
+				}
+				if (pass == 1)
+					LOGGER.info(line.toString());
+			}
+		}
+	}
+
+	private static ObjectNode randomObject(final Random random, final int depth) {
+		final ObjectNode node = OBJECT_MAPPER.createObjectNode();
+		final int size = 1 + random.nextInt(5);
+		for (int i = 0; i < size; i++) {
+			final String fieldName = "f" + random.nextInt(8);
+			if (depth > 0 && random.nextInt(3) == 0)
+				node.set(fieldName, randomObject(random, depth - 1));
+			else if (depth > 0 && random.nextInt(4) == 0)
+				node.putArray(fieldName).add(random.nextInt(3)).add(randomObject(random, 0)).add(random.nextInt(3));
+			else node.put(fieldName, random.nextInt(4));
+		}
+		return node;
+	}
+
+	/*
+	 * Edits a few fields of the object, anywhere in it, by replacing, removing or adding them
+	 */
+	private static void edit(final Random random, final ObjectNode node) {
+		final int edits = random.nextInt(3);
+		for (int i = 0; i < edits; i++) {
+			ObjectNode target = node;
+			while (random.nextBoolean()) {
+				final JsonNode child = target.get("f" + random.nextInt(8));
+				if (null == child || !child.isObject())
+					break;
+				target = (ObjectNode) child;
+			}
+			final String fieldName = "f" + random.nextInt(8);
+			switch (random.nextInt(4)) {
+			case 0:
+				target.remove(fieldName);
+				break;
+			case 1:
+				target.set(fieldName, randomObject(random, 1));
+				break;
+			case 2:
+				target.putArray(fieldName).add(random.nextInt(3)).add(random.nextInt(3));
+				break;
+			default:
+				target.put(fieldName, random.nextInt(4));
+			}
+		}
+	}
 }
@@ -0,0 +1,219 @@
+package com.waes.assessment.common;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+public class StreamingJsonDiffTest {
+
+	private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+
+	@Test
+	public void givenPayloadsOfEveryShape_whenTheyAreDiffedByStreaming_thenTheResultShouldBeTheSameOfTheTrees() throws IOException {
+		// GIVEN payloads of every shape
+		final String[][] payloads = {
+			{ "{\"field\":\"value\"}", "{\"field\":\"value\"}" },
+			{ "{\"field1\":\"value1\"}", "{\"field2\":\"value2\"}" },
+			{ "{\"a\":1,\"b\":{\"c\":2,\"d\":[1,2]}}", "{\"b\":{\"d\":[1,2],\"c\":2},\"a\":1}" },
+			{ "{\"a\":1,\"b\":{\"c\":2,\"d\":3},\"e\":4}", "{\"a\":1,\"b\":{\"d\":3,\"c\":5},\"e\":6}" },
+			{ "{\"a\":{\"b\":1},\"c\":true}", "{\"a\":[1,2],\"c\":{\"d\":null}}" },
+			{ "{\"a\":[1,2,3]}", "{\"a\":[1,2,4]}" },
+			{ "{\"a\":[1,{\"b\":1,\"c\":2}]}", "{\"a\":[1,{\"c\":2,\"b\":1}]}" },
+			{ "{\"a\":[1,2]}", "{\"a\":[1,2,3]}" },
+			{ "{\"a\":1}", "{\"a\":1.0}" },
+			{ "{\"a\":1e2}", "{\"a\":100.0}" },
+			{ "{\"a\":{\"b\":{}},\"c\":\"d\"}", "{\"a\":{\"b\":[]},\"c\":\"d\"}" },
+			{ "{\"a\":1}", "[1]" },
+			{ "[1,2]", "{\"a\":{\"b\":1}}" },
+			{ "[1,2]", "[2,1]" },
+			{ "\"text\"", "\"text\"" },
+			{ "1", "2" },
+		};
+
+		for (final String[] pair : payloads) {
+			// WHEN they are diffed by streaming
+			final DiffOutcome outcome = this.streamingDiff(pair[0], pair[1]);
+
+			// THEN the result should be the same of the trees
+			this.assertSameOfTheTrees(pair[0], pair[1], outcome);
+		}
+	}
+
+	@Test
+	public void givenRandomPayloads_whenTheyAreDiffedByStreaming_thenTheResultShouldBeTheSameOfTheTrees() throws IOException {
+		// GIVEN random payloads
+		final Random random = new Random(42);
+		for (int i = 0; i < 2_000; i++) {
+			final JsonNode left = this.randomObject(random, 0);
+			final JsonNode right = random.nextBoolean() ? this.mutate(random, left.deepCopy(), 0) : this.randomObject(random, 0);
+			final String leftPayload = OBJECT_MAPPER.writeValueAsString(left);
+			final String rightPayload = OBJECT_MAPPER.writeValueAsString(right);
+
+			// WHEN they are diffed by streaming
+			final DiffOutcome outcome = this.streamingDiff(leftPayload, rightPayload);
+
+			// THEN the result should be the same of the trees
+			this.assertSameOfTheTrees(leftPayload, rightPayload, outcome);
+		}
+	}
+
+	@Test
+	public void givenRandomRecordsMatchedByAnIdentityField_whenTheyAreDiffedByStreaming_thenTheResultShouldBeTheSameOfTheTrees() throws IOException {
+		// GIVEN random records matched by an identity field, in another order on each side
+		final IdentityKeys identityKeys = IdentityKeys.parse("records=id");
+		final Random random = new Random(42);
+		for (int i = 0; i < 500; i++) {
+			final com.fasterxml.jackson.databind.node.ObjectNode left = OBJECT_MAPPER.createObjectNode();
+			final com.fasterxml.jackson.databind.node.ObjectNode right = OBJECT_MAPPER.createObjectNode();
+			for (int j = random.nextInt(8); j > 0; j--)
+				left.withArray("records").addObject().put("id", random.nextInt(6)).put("value", random.nextInt(3));
+			for (int j = random.nextInt(8); j > 0; j--)
+				right.withArray("records").addObject().put("id", random.nextInt(6)).put("value", random.nextInt(3));
+			final String leftPayload = OBJECT_MAPPER.writeValueAsString(left);
+			final String rightPayload = OBJECT_MAPPER.writeValueAsString(right);
+
+			// WHEN they are diffed by streaming
+			final DiffOutcome outcome;
+			try (final JsonParser leftParser = OBJECT_MAPPER.getFactory().createParser(leftPayload);
+				 final JsonParser rightParser = OBJECT_MAPPER.getFactory().createParser(rightPayload)) {
+				outcome = StreamingJsonDiff.compare(OBJECT_MAPPER, leftParser, rightParser, JsonUtil.DEFAULT_ALIGNMENT_MAX_COST, identityKeys);
+			}
+
+			// THEN the result should be the same of the trees
+			final String message = leftPayload + " against " + rightPayload;
+			Assert.assertEquals(message, left.equals(right), outcome.isEqual());
+			if (!outcome.isEqual())
+				Assert.assertEquals(message, JsonUtil.buildDiffMapResult(left, null, right, null, 0, JsonUtil.DEFAULT_ALIGNMENT_MAX_COST, identityKeys),
+						outcome.getDifference());
+		}
+	}
+
+	@Test
+	public void givenARemovedAndAnAddedRecordAtTheSameIndex_whenTheyAreDiffedByStreaming_thenTheyShouldBeReportedAsRemovedAndAdded() throws IOException {
+		// GIVEN a removed and an added record at the same index
+		final String leftPayload = "{\"items\":[{\"sku\":\"a\",\"p\":1}]}";
+		final String rightPayload = "{\"items\":[{\"sku\":\"b\",\"p\":1}]}";
+
+		// WHEN they are diffed by streaming
+		final DiffOutcome outcome;
+		try (final JsonParser leftParser = OBJECT_MAPPER.getFactory().createParser(leftPayload);
+			 final JsonParser rightParser = OBJECT_MAPPER.getFactory().createParser(rightPayload)) {
+			outcome = StreamingJsonDiff.compare(OBJECT_MAPPER, leftParser, rightParser, JsonUtil.DEFAULT_ALIGNMENT_MAX_COST,
+					IdentityKeys.parse("items=sku"));
+		}
+
+		// THEN they should be reported as removed and added
+		Assert.assertEquals(2, outcome.getDifference().size());
+		Assert.assertEquals(Constant.UNAVAILABLE_FIELD, outcome.getDifference().get("items[sku=a]").get("right"));
+		Assert.assertEquals(Constant.UNAVAILABLE_FIELD, outcome.getDifference().get("items[sku=b]").get("left"));
+	}
+
+	@Test
+	public void givenRandomPayloads_whenTheyAreCountedOrDiffedUpToALimitByStreaming_thenTheResultShouldAgreeWithTheTrees() throws IOException {
+		// GIVEN random payloads
+		final Random random = new Random(7);
+		for (int i = 0; i < 2_000; i++) {
+			final JsonNode left = this.randomObject(random, 0);
+			final JsonNode right = this.mutate(random, left.deepCopy(), 0);
+			final String leftPayload = OBJECT_MAPPER.writeValueAsString(left);
+			final String rightPayload = OBJECT_MAPPER.writeValueAsString(right);
+			final String message = leftPayload + " against " + rightPayload;
+
+			// WHEN they are counted or diffed up to a limit by streaming
+			final DiffOutcome count = this.streamingDiff(leftPayload, rightPayload, DiffMode.COUNT, 2);
+			final DiffOutcome first = this.streamingDiff(leftPayload, rightPayload, DiffMode.FIRST, 2);
+
+			// THEN the result should agree with the trees
+			Assert.assertEquals(message, left.equals(right), count.isEqual());
+			Assert.assertEquals(message, left.equals(right), first.isEqual());
+			if (left.equals(right))
+				continue;
+
+			final Map<String, Map<String, Object>> expected = JsonUtil.buildDiffMapResult(left, right);
+			Assert.assertEquals(message, expected.size(), count.getDifferenceCount());
+			Assert.assertEquals(message, expected.size() <= 2, first.isComplete());
+			Assert.assertEquals(message, Math.min(2, expected.size()), first.getDifference().size());
+			for (final String path : first.getDifference().keySet())
+				Assert.assertEquals(message, expected.get(path), first.getDifference().get(path));
+		}
+	}
+
+	private DiffOutcome streamingDiff(final String left, final String right, final DiffMode mode, final int limit) throws IOException {
+		try (final JsonParser leftParser = OBJECT_MAPPER.getFactory().createParser(left);
+			 final JsonParser rightParser = OBJECT_MAPPER.getFactory().createParser(right)) {
+			return StreamingJsonDiff.compare(OBJECT_MAPPER, leftParser, rightParser, JsonUtil.DEFAULT_ALIGNMENT_MAX_COST, IdentityKeys.NONE, mode, limit);
+		}
+	}
+
+	private DiffOutcome streamingDiff(final String left, final String right) throws IOException {
+		try (final JsonParser leftParser = OBJECT_MAPPER.getFactory().createParser(left);
+			 final JsonParser rightParser = OBJECT_MAPPER.getFactory().createParser(right)) {
+			return StreamingJsonDiff.compare(OBJECT_MAPPER, leftParser, rightParser);
+		}
+	}
+
+	private void assertSameOfTheTrees(final String left, final String right, final DiffOutcome outcome) throws IOException {
+		final JsonNode leftNode = OBJECT_MAPPER.readTree(left);
+		final JsonNode rightNode = OBJECT_MAPPER.readTree(right);
+		final String message = left + " against " + right;
+
+		Assert.assertEquals(message, leftNode.equals(rightNode), outcome.isEqual());
+		if (!outcome.isEqual())
+			Assert.assertEquals(message, JsonUtil.buildDiffMapResult(leftNode, rightNode), outcome.getDifference());
+	}
+
+	private JsonNode randomObject(final Random random, final int depth) {
+		final com.fasterxml.jackson.databind.node.ObjectNode node = OBJECT_MAPPER.createObjectNode();
+		final int fields = random.nextInt(5);
+		for (int i = 0; i < fields; i++)
+			node.set("f" + random.nextInt(6), this.randomValue(random, depth + 1));
+		return node;
+	}
+
+	private JsonNode randomValue(final Random random, final int depth) {
+		switch (depth > 3 ? random.nextInt(4) : random.nextInt(6)) {
+			case 0:
+				return OBJECT_MAPPER.getNodeFactory().numberNode(random.nextInt(3));
+			case 1:
+				return OBJECT_MAPPER.getNodeFactory().textNode("v" + random.nextInt(3));
+			case 2:
+				return OBJECT_MAPPER.getNodeFactory().booleanNode(random.nextBoolean());
+			case 3:
+				return OBJECT_MAPPER.getNodeFactory().nullNode();
+			case 4:
+				final com.fasterxml.jackson.databind.node.ArrayNode array = OBJECT_MAPPER.createArrayNode();
+				for (int i = random.nextInt(3); i > 0; i--)
+					array.add(this.randomValue(random, depth + 1));
+				return array;
+			default:
+				return this.randomObject(random, depth);
+		}
+	}
+
+	/*
+	 * Changes a few values of the copy, sometimes shuffling the order of its fields, so
+	 * the payloads are close to each other as they usually are
+	 */
+	private JsonNode mutate(final Random random, final JsonNode node, final int depth) {
+		if (!node.isObject())
+			return random.nextInt(4) == 0 ? this.randomValue(random, depth) : node;
+
+		final com.fasterxml.jackson.databind.node.ObjectNode copy = OBJECT_MAPPER.createObjectNode();
+		final java.util.List<String> fieldNames = new java.util.ArrayList<>();
+		node.fieldNames().forEachRemaining(fieldNames::add);
+		if (random.nextInt(4) == 0)
+			java.util.Collections.shuffle(fieldNames, random);
+		for (final String fieldName : fieldNames)
+			copy.set(fieldName, this.mutate(random, node.get(fieldName), depth + 1));
+		if (random.nextInt(5) == 0)
+			copy.set("f" + random.nextInt(6), this.randomValue(random, depth + 1));
+		return copy;
+	}
+}
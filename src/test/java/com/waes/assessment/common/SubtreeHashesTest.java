@@ -0,0 +1,170 @@
+package com.waes.assessment.common;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+public class SubtreeHashesTest {
+
+	private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+
+	@Test
+	public void givenPayloadsEqualAsTrees_whenTheirHashesAreComputed_thenTheyShouldBeTheSame() throws IOException {
+		// GIVEN payloads equal as trees
+		final String[][] payloads = {
+			{ "{\"a\":1,\"b\":{\"c\":2,\"d\":[1,2]}}", "{\"b\":{\"d\":[1,2],\"c\":2},\"a\":1}" },
+			{ "{\"a\":1.0}", "{\"a\":1.00}" },
+			{ "{\"a\":[{\"b\":null,\"c\":true}]}", "{\"a\":[{\"c\":true,\"b\":null}]}" },
+		};
+
+		for (final String[] pair : payloads) {
+			// WHEN their hashes are computed
+			final JsonNode left = OBJECT_MAPPER.readTree(pair[0]);
+			final JsonNode right = OBJECT_MAPPER.readTree(pair[1]);
+
+			// THEN they should be the same
+			Assert.assertEquals(pair[0], SubtreeHashes.of(left).hashOf(left), SubtreeHashes.of(right).hashOf(right));
+		}
+	}
+
+	@Test
+	public void givenPayloadsDifferentAsTrees_whenTheirHashesAreComputed_thenTheyShouldBeDifferent() throws IOException {
+		// GIVEN payloads different as trees
+		final String[][] payloads = {
+			{ "{\"a\":1}", "{\"a\":1.0}" },
+			{ "{\"a\":0.0}", "{\"a\":-0.0}" },
+			{ "{\"a\":[1,2]}", "{\"a\":[2,1]}" },
+			{ "{\"a\":{}}", "{\"a\":[]}" },
+			{ "{\"a\":\"1\"}", "{\"a\":1}" },
+			{ "{\"a\":1,\"b\":2}", "{\"a\":2,\"b\":1}" },
+		};
+
+		for (final String[] pair : payloads) {
+			// WHEN their hashes are computed
+			final JsonNode left = OBJECT_MAPPER.readTree(pair[0]);
+			final JsonNode right = OBJECT_MAPPER.readTree(pair[1]);
+
+			// THEN they should be different
+			Assert.assertNotEquals(pair[0], SubtreeHashes.of(left).hashOf(left), SubtreeHashes.of(right).hashOf(right));
+		}
+	}
+
+	@Test
+	public void givenRandomPayloads_whenTheyAreDiffedWithTheirHashes_thenTheResultShouldBeTheSameOfTheTrees() {
+		// GIVEN random payloads
+		final Random random = new Random(42);
+		for (int i = 0; i < 2_000; i++) {
+			final JsonNode left = this.randomObject(random, 0);
+			final JsonNode right = random.nextBoolean() ? this.mutate(random, left, 0) : this.randomObject(random, 0);
+			final SubtreeHashes leftHashes = SubtreeHashes.of(left);
+			final SubtreeHashes rightHashes = SubtreeHashes.of(right);
+
+			// WHEN they are diffed with their hashes
+			// THEN the result should be the same of the trees
+			final String message = left + " against " + right;
+			Assert.assertEquals(message, left.equals(right), leftHashes.hashOf(left) == rightHashes.hashOf(right));
+			Assert.assertEquals(message, JsonUtil.buildDiffMapResult(left, right), JsonUtil.buildDiffMapResult(left, leftHashes, right, rightHashes));
+		}
+	}
+
+	@Test
+	public void givenTreesPatchedOneAfterTheOther_whenTheirHashesAreDerived_thenTheyShouldBeTheSameOfTheWholeTrees() {
+		// GIVEN trees patched one after the other
+		final Random random = new Random(25);
+		JsonNode tree = this.randomObject(random, 0);
+		SubtreeHashes hashes = SubtreeHashes.of(tree);
+		for (int i = 0; i < 200; i++) {
+			final JsonNode patched = JsonPatchApplier.applyMergePatch(tree, this.randomObject(random, 2));
+
+			// WHEN their hashes are derived
+			final SubtreeHashes derived = SubtreeHashes.of(patched, hashes);
+
+			// THEN they should be the same of the whole trees, holding no container of the older trees
+			final SubtreeHashes whole = SubtreeHashes.of(patched);
+			Assert.assertEquals(patched.toString(), ((Map<?, ?>) ReflectionTestUtils.getField(whole, "hashes")).size(),
+					((Map<?, ?>) ReflectionTestUtils.getField(derived, "hashes")).size());
+			Assert.assertEquals(patched.toString(), whole.hashOf(patched), derived.hashOf(patched));
+			Assert.assertEquals(patched.toString(), whole.getEstimatedBytes(), derived.getEstimatedBytes());
+			for (final JsonNode child : patched)
+				Assert.assertEquals(patched.toString(), whole.hashOf(child), derived.hashOf(child));
+			tree = patched;
+			hashes = derived;
+		}
+	}
+
+	@Test
+	public void givenATreeParsedFromAPayload_whenItsHashesAreComputed_thenItsEstimatedBytesShouldExceedThePayload() throws IOException {
+		// GIVEN a tree parsed from a payload
+		final StringBuilder payload = new StringBuilder("[");
+		for (int i = 0; i < 1_000; i++)
+			payload.append(0 == i ? "" : ",").append("{\"id\":").append(i).append(",\"name\":\"fakeName").append(i).append("\"}");
+		final JsonNode tree = OBJECT_MAPPER.readTree(payload.append(']').toString());
+
+		// WHEN its hashes are computed
+		final SubtreeHashes hashes = SubtreeHashes.of(tree);
+
+		// THEN its estimated bytes should exceed the payload, growing with its nodes and texts
+		Assert.assertTrue(hashes.getEstimatedBytes() > 3L * payload.length());
+	}
+
+	private JsonNode randomObject(final Random random, final int depth) {
+		final ObjectNode node = OBJECT_MAPPER.createObjectNode();
+		final int fields = random.nextInt(5);
+		for (int i = 0; i < fields; i++)
+			node.set("f" + random.nextInt(6), this.randomValue(random, depth + 1));
+		return node;
+	}
+
+	private JsonNode randomValue(final Random random, final int depth) {
+		switch (depth > 3 ? random.nextInt(5) : random.nextInt(7)) {
+			case 0:
+				return OBJECT_MAPPER.getNodeFactory().numberNode(random.nextInt(3));
+			case 1:
+				return OBJECT_MAPPER.getNodeFactory().numberNode(random.nextInt(3) / 2.0);
+			case 2:
+				return OBJECT_MAPPER.getNodeFactory().textNode("v" + random.nextInt(3));
+			case 3:
+				return OBJECT_MAPPER.getNodeFactory().booleanNode(random.nextBoolean());
+			case 4:
+				return OBJECT_MAPPER.getNodeFactory().nullNode();
+			case 5:
+				final ArrayNode array = OBJECT_MAPPER.createArrayNode();
+				for (int i = random.nextInt(3); i > 0; i--)
+					array.add(this.randomValue(random, depth + 1));
+				return array;
+			default:
+				return this.randomObject(random, depth);
+		}
+	}
+
+	/*
+	 * Copies the node changing a few of its values, sometimes shuffling the order of its fields
+	 */
+	private JsonNode mutate(final Random random, final JsonNode node, final int depth) {
+		if (!node.isObject())
+			return random.nextInt(4) == 0 ? this.randomValue(random, depth) : node.deepCopy();
+
+		final ObjectNode copy = OBJECT_MAPPER.createObjectNode();
+		final List<String> fieldNames = new ArrayList<>();
+		node.fieldNames().forEachRemaining(fieldNames::add);
+		if (random.nextInt(4) == 0)
+			Collections.shuffle(fieldNames, random);
+		for (final String fieldName : fieldNames)
+			copy.set(fieldName, this.mutate(random, node.get(fieldName), depth + 1));
+		if (random.nextInt(5) == 0)
+			copy.set("f" + random.nextInt(6), this.randomValue(random, depth + 1));
+		return copy;
+	}
+}
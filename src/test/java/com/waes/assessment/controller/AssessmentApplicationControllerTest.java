@@ -34,10 +34,10 @@ public class AssessmentApplicationControllerTest {
 		final InputStream fakeInputStream = Mockito.mock(ByteArrayInputStream.class);
 		final ResponseDTO fakeResponseDTO = ResponseDTO.builder().build();
 
-		Mockito.when(this.mockAssessmentApplicationService.setLeft(ArgumentMatchers.eq(fakeId), ArgumentMatchers.eq(fakeInputStream)))
+		Mockito.when(this.mockAssessmentApplicationService.setLeft(ArgumentMatchers.eq(fakeId), ArgumentMatchers.eq(fakeInputStream), ArgumentMatchers.isNull()))
 														  .thenReturn(fakeResponseDTO);
 
-		final ResponseEntity<ResponseDTO> result = this.assessmentApplicationController.left(fakeId, fakeInputStream);
+		final ResponseEntity<ResponseDTO> result = this.assessmentApplicationController.left(fakeId, fakeInputStream, null);
 		Assert.assertEquals(HttpStatus.OK, result.getStatusCode());
 		Assert.assertTrue("The returned response should be the same instance of the expected one", fakeResponseDTO == result.getBody());
 	}
@@ -48,10 +48,10 @@ public class AssessmentApplicationControllerTest {
 		final InputStream fakeInputStream = Mockito.mock(ByteArrayInputStream.class);
 		final ResponseDTO fakeResponseDTO = ResponseDTO.builder().build();
 
-		Mockito.when(this.mockAssessmentApplicationService.setRight(ArgumentMatchers.eq(fakeId), ArgumentMatchers.eq(fakeInputStream)))
+		Mockito.when(this.mockAssessmentApplicationService.setRight(ArgumentMatchers.eq(fakeId), ArgumentMatchers.eq(fakeInputStream), ArgumentMatchers.isNull()))
 														  .thenReturn(fakeResponseDTO);
 
-		final ResponseEntity<ResponseDTO> result = this.assessmentApplicationController.right(fakeId, fakeInputStream);
+		final ResponseEntity<ResponseDTO> result = this.assessmentApplicationController.right(fakeId, fakeInputStream, null);
 		Assert.assertEquals(HttpStatus.OK, result.getStatusCode());
 		Assert.assertTrue("The returned response should be the same instance of the expected one", fakeResponseDTO == result.getBody());
 	}
@@ -61,9 +61,9 @@ public class AssessmentApplicationControllerTest {
 		final String fakeId = "fakeId";
 		final ResponseDTO fakeResponseDTO = ResponseDTO.builder().build();
 		
-		Mockito.when(this.mockAssessmentApplicationService.processLeftAndRight(ArgumentMatchers.eq(fakeId))).thenReturn(fakeResponseDTO);
+		Mockito.when(this.mockAssessmentApplicationService.processLeftAndRight(ArgumentMatchers.eq(fakeId), ArgumentMatchers.isNull(), ArgumentMatchers.eq(10))).thenReturn(fakeResponseDTO);
 		
-		final ResponseEntity<ResponseDTO> result = this.assessmentApplicationController.id(fakeId);
+		final ResponseEntity<ResponseDTO> result = this.assessmentApplicationController.id(fakeId, null, 10);
 		Assert.assertEquals(HttpStatus.OK, result.getStatusCode());
 		Assert.assertTrue("The returned response should be the same instance of the expected one", fakeResponseDTO == result.getBody());
 	}
@@ -12,6 +12,7 @@ import com.waes.assessment.common.Constant.ExceptionHandlerMessage;
 import com.waes.assessment.common.Endpoint;
 import com.waes.assessment.dto.ResponseDTO;
 import com.waes.assessment.exception.DeserializationException;
+import com.waes.assessment.exception.InvalidPayloadFormatException;
 import com.waes.assessment.exception.MissingInMemoryPayloadException;
 import com.waes.assessment.exception.PayloadContentMismatchException;
 import com.waes.assessment.exception.PayloadSizeMismatchException;
@@ -53,6 +54,22 @@ public class WAESExceptionHandlerTest {
 		Assert.assertEquals("java.lang.Exception: fakeMessage", responseEntity.getBody().getDetail());
 	}
 	
+	@Test
+	public void givenFakeValues_whenInvalidPayloadFormatExceptionIsCalled_thenItShouldGenerateAResponseWithTheValues() {
+		// GIVEN fake values
+		final String fakeFormat = "fakeFormat";
+		final InvalidPayloadFormatException fakeInvalidPayloadFormatException = new InvalidPayloadFormatException(fakeFormat);
+		
+		// WHEN invalidPayloadFormatException is called
+		final ResponseEntity<ResponseDTO> responseEntity = this.waesExceptionHandler.invalidPayloadFormatException(fakeInvalidPayloadFormatException);
+		
+		// THEN it should generate a response with the values
+		Assert.assertEquals(HttpStatus.BAD_REQUEST, responseEntity.getStatusCode());
+		Assert.assertTrue("The responseEntity should contain a body", responseEntity.hasBody());
+		Assert.assertEquals(String.format(ExceptionHandlerMessage.INVALID_PAYLOAD_FORMAT_EXCEPTION_MESSAGE, fakeFormat), responseEntity.getBody().getMessage());
+		Assert.assertNull(responseEntity.getBody().getDetail());
+	}
+	
 	@Test
 	public void givenFakeValues_whenPayloadSizeMismatchExceptionIsCalled_thenItShouldGenerateAResponseWithTheValues() {
 		// GIVEN fake values
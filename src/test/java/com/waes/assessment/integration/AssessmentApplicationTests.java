@@ -188,7 +188,7 @@ public class AssessmentApplicationTests extends BaseApplicationTests {
 															 		.execute();
 
 		// THEN it should return that both payloads has different sizes
-		final String expectedFinalResult = this.getPayloadBuilder().addElement("message", "left and right payloads has different size: left 32 bytes and right 36 bytes")
+		final String expectedFinalResult = this.getPayloadBuilder().addElement("message", "left and right payloads has different size: left 23 bytes and right 27 bytes")
 																   .create();
 
 		Assert.assertEquals(HttpStatus.PRECONDITION_FAILED, finalResult.getHttpStatus());
@@ -201,6 +201,7 @@ public class AssessmentApplicationTests extends BaseApplicationTests {
 		final String payload = this.getPayloadBuilder().addElement("fieldName", "value")
 													   .create();
 		
+		// WHEN they are posted
 		final ResultContainer leftResult = this.getRequestBuilder().withEndpoint(TestEndpoint.V1_LEFT, 6)
 																   .withBody(payload)
 																   .isToEncode(false)
@@ -212,29 +213,19 @@ public class AssessmentApplicationTests extends BaseApplicationTests {
 																    .withHttpMethod(HttpMethod.POST)
 																    .execute();
 		
-		final String expectedLeftResult = this.getPayloadBuilder().addElement("message", "the left value has been set on id 6")
-																  .create();
-
-		final String expectedRightResult = this.getPayloadBuilder().addElement("message", "the right value has been set on id 6")
-					 											   .create();
-		
-		Assert.assertEquals(HttpStatus.OK, leftResult.getHttpStatus());
-		Assert.assertEquals(expectedLeftResult, leftResult.getResult());
-		Assert.assertEquals(HttpStatus.OK, rightResult.getHttpStatus());
-		Assert.assertEquals(expectedRightResult, rightResult.getResult());
-		
-		// WHEN they are posted
-		final ResultContainer finalResult = this.getRequestBuilder().withHttpMethod(HttpMethod.GET)
-																	.withEndpoint(TestEndpoint.V1_DIFF, 6)
-																	.execute();
-
 		// THEN it should return that the left payload is invalid for not being Base64 encoded
-		final JsonNode expectedFinalResult = this.getPayloadBuilder().addElement("message", "the left payload is invalid and cannot be deserialized")
+		final JsonNode expectedLeftResult = this.getPayloadBuilder().addElement("message", "the left payload is invalid and cannot be deserialized")
+																    .addElement("detail", "java.lang.IllegalArgumentException: Illegal base64 character 7b")
+																    .createAsJsonNode();
+
+		final JsonNode expectedRightResult = this.getPayloadBuilder().addElement("message", "the right payload is invalid and cannot be deserialized")
 																     .addElement("detail", "java.lang.IllegalArgumentException: Illegal base64 character 7b")
 																     .createAsJsonNode();
 		
-		Assert.assertEquals(HttpStatus.UNPROCESSABLE_ENTITY, finalResult.getHttpStatus());
-		Assert.assertEquals(expectedFinalResult, finalResult.getResultAsJsonNode());
+		Assert.assertEquals(HttpStatus.UNPROCESSABLE_ENTITY, leftResult.getHttpStatus());
+		Assert.assertEquals(expectedLeftResult, leftResult.getResultAsJsonNode());
+		Assert.assertEquals(HttpStatus.UNPROCESSABLE_ENTITY, rightResult.getHttpStatus());
+		Assert.assertEquals(expectedRightResult, rightResult.getResultAsJsonNode());
 	}
 	
 	@Test
@@ -246,6 +237,7 @@ public class AssessmentApplicationTests extends BaseApplicationTests {
 		final String rightPost = this.getPayloadBuilder().addElement("fieldName", "value1234567")
 			  											 .create();
 		
+		// WHEN they are posted
 		final ResultContainer leftResult = this.getRequestBuilder().withEndpoint(TestEndpoint.V1_LEFT, 7)
 																   .withBody(leftPost)
 																   .isToEncode(true)
@@ -257,29 +249,18 @@ public class AssessmentApplicationTests extends BaseApplicationTests {
 																    .withHttpMethod(HttpMethod.POST)
 																    .execute();
 		
+		// THEN it should return that the right payload is invalid for not being Base64 encoded
 		final String expectedLeftResult = this.getPayloadBuilder().addElement("message", "the left value has been set on id 7")
 																  .create();
 
-		final String expectedRightResult = this.getPayloadBuilder().addElement("message", "the right value has been set on id 7")
-					 											   .create();
-		
-		Assert.assertEquals(HttpStatus.OK, leftResult.getHttpStatus());
-		Assert.assertEquals(expectedLeftResult, leftResult.getResult());
-		Assert.assertEquals(HttpStatus.OK, rightResult.getHttpStatus());
-		Assert.assertEquals(expectedRightResult, rightResult.getResult());
-		
-		// WHEN they are posted
-		final ResultContainer finalResult = this.getRequestBuilder().withHttpMethod(HttpMethod.GET)
-																	.withEndpoint(TestEndpoint.V1_DIFF, 7)
-																	.execute();
-
-		// THEN it should return that the right payload is invalid for not being Base64 encoded
-		final JsonNode expectedFinalResult = this.getPayloadBuilder().addElement("message", "the right payload is invalid and cannot be deserialized")
+		final JsonNode expectedRightResult = this.getPayloadBuilder().addElement("message", "the right payload is invalid and cannot be deserialized")
 																     .addElement("detail", "java.lang.IllegalArgumentException: Illegal base64 character 7b")
 																     .createAsJsonNode();
 		
-		Assert.assertEquals(HttpStatus.UNPROCESSABLE_ENTITY, finalResult.getHttpStatus());
-		Assert.assertEquals(expectedFinalResult, finalResult.getResultAsJsonNode());
+		Assert.assertEquals(HttpStatus.OK, leftResult.getHttpStatus());
+		Assert.assertEquals(expectedLeftResult, leftResult.getResult());
+		Assert.assertEquals(HttpStatus.UNPROCESSABLE_ENTITY, rightResult.getHttpStatus());
+		Assert.assertEquals(expectedRightResult, rightResult.getResultAsJsonNode());
 	}
 	
 	@Test
@@ -366,4 +347,108 @@ public class AssessmentApplicationTests extends BaseApplicationTests {
 		Assert.assertEquals(expectedFinalResult, finalResult.getResultAsJsonNode());
 	}
 
+	@Test
+	public void givenTwoDifferentPayloads_whenTheGetAcceptsAJsonPatch_thenThePatchTurningTheLeftIntoTheRightShouldBeReturned() throws Exception {
+		
+		// GIVEN two different payloads
+		final String leftPayload = this.getPayloadBuilder().addElement("field1", "value1")
+														   .addElement("field2", "value2")
+														   .create();
+
+		final String rightPayload = this.getPayloadBuilder().addElement("field1", "value3")
+															.addElement("field3", "value2")
+															.create();
+		
+		this.getRequestBuilder().withBody(leftPayload)
+								.withEndpoint(TestEndpoint.V1_LEFT, 9)
+								.withHttpMethod(HttpMethod.POST)
+								.execute();
+		
+		this.getRequestBuilder().withBody(rightPayload)
+								.withEndpoint(TestEndpoint.V1_RIGHT, 9)
+								.withHttpMethod(HttpMethod.POST)
+								.execute();
+		
+		// WHEN the get accepts a JSON Patch
+		final ResultContainer result = this.getRequestBuilder().withHttpMethod(HttpMethod.GET)
+															   .withEndpoint(TestEndpoint.V1_DIFF, 9)
+															   .withAccept(Constant.JSON_PATCH_MEDIA_TYPE)
+															   .execute();
+		
+		// THEN the patch turning the left into the right should be returned
+		final String expectedResult = "[{\"op\":\"replace\",\"path\":\"/field1\",\"value\":\"value3\"},"
+												 + "{\"op\":\"remove\",\"path\":\"/field2\"},"
+												 + "{\"op\":\"add\",\"path\":\"/field3\",\"value\":\"value2\"}]";
+		
+		Assert.assertEquals(HttpStatus.OK, result.getHttpStatus());
+		Assert.assertEquals(expectedResult, result.getResult());
+	}
+
+	@Test
+	public void givenTwoEqualPayloads_whenTheRightOneIsPatched_thenTheGetShouldFollowEachPatch() throws Exception {
+		
+		// GIVEN two equal payloads
+		final String payload = this.getPayloadBuilder().addElement("field1", "value1")
+													   .addElement("field2", this.getPayloadBuilder().addElement("inner", "value2")
+															   										 .createAsJsonNode())
+													   .create();
+		
+		this.getRequestBuilder().withBody(payload)
+								.withEndpoint(TestEndpoint.V1_LEFT, 10)
+								.withHttpMethod(HttpMethod.POST)
+								.execute();
+		
+		this.getRequestBuilder().withBody(payload)
+								.withEndpoint(TestEndpoint.V1_RIGHT, 10)
+								.withHttpMethod(HttpMethod.POST)
+								.execute();
+		
+		final ResultContainer equalResult = this.getRequestBuilder().withHttpMethod(HttpMethod.GET)
+																	.withEndpoint(TestEndpoint.V1_DIFF, 10)
+																	.execute();
+		
+		// WHEN the right one is patched
+		final ResultContainer patchResult = this.getRequestBuilder().withHttpMethod(HttpMethod.PATCH)
+																	.withEndpoint(TestEndpoint.V1_RIGHT, 10)
+																	.withContentType(Constant.JSON_PATCH_MEDIA_TYPE)
+																	.withBody("[{\"op\":\"replace\",\"path\":\"/field2/inner\",\"value\":\"value3\"}]")
+																	.execute();
+		
+		final ResultContainer differentResult = this.getRequestBuilder().withHttpMethod(HttpMethod.GET)
+																		.withEndpoint(TestEndpoint.V1_DIFF, 10)
+																		.execute();
+		
+		final ResultContainer mergeResult = this.getRequestBuilder().withHttpMethod(HttpMethod.PATCH)
+																	.withEndpoint(TestEndpoint.V1_RIGHT, 10)
+																	.withContentType(Constant.MERGE_PATCH_MEDIA_TYPE)
+																	.withBody("{\"field2\":{\"inner\":\"value2\"}}")
+																	.execute();
+		
+		final ResultContainer invalidResult = this.getRequestBuilder().withHttpMethod(HttpMethod.PATCH)
+																	  .withEndpoint(TestEndpoint.V1_RIGHT, 10)
+																	  .withContentType(Constant.JSON_PATCH_MEDIA_TYPE)
+																	  .withBody("[{\"op\":\"remove\",\"path\":\"/field3\"}]")
+																	  .execute();
+		
+		// THEN the get should follow each patch
+		final JsonNode expectedDifferentResult = this.getPayloadBuilder().addElement("message", "both payloads contains different content/values")
+																		 .addElement("detail", this.getPayloadBuilder().addElement("field2.inner", this.getPayloadBuilder().addElement("left", "value2")
+																				 																						   .addElement("right", "value3")
+																				 																						   .createAsJsonNode())
+																				 									   .createAsJsonNode())
+																		 .createAsJsonNode();
+		
+		Assert.assertEquals(HttpStatus.OK, equalResult.getHttpStatus());
+		Assert.assertEquals(HttpStatus.OK, patchResult.getHttpStatus());
+		Assert.assertEquals("the right value has been set on id 10", patchResult.getResultAsJsonNode().get("message").asText());
+		Assert.assertEquals(HttpStatus.PRECONDITION_FAILED, differentResult.getHttpStatus());
+		Assert.assertEquals(expectedDifferentResult, differentResult.getResultAsJsonNode());
+		Assert.assertEquals(HttpStatus.OK, mergeResult.getHttpStatus());
+		Assert.assertEquals(HttpStatus.UNPROCESSABLE_ENTITY, invalidResult.getHttpStatus());
+		Assert.assertEquals(HttpStatus.OK, this.getRequestBuilder().withHttpMethod(HttpMethod.GET)
+																   .withEndpoint(TestEndpoint.V1_DIFF, 10)
+																   .execute()
+																   .getHttpStatus());
+	}
+
 }
@@ -0,0 +1,31 @@
+package com.waes.assessment.metric.impl;
+
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.waes.assessment.metric.MetricService;
+
+public class MetricServiceImplTest {
+
+	private final MetricService metricService = new MetricServiceImpl();
+
+	@Test
+	public void givenCountersAndGauges_whenTheMetricsAreRetrieved_thenTheyShouldContainTheCurrentValues() {
+		// GIVEN counters and gauges
+		final AtomicLong fakeGaugeValue = new AtomicLong(10);
+		this.metricService.increment("fake.counter");
+		this.metricService.add("fake.counter", 4);
+		this.metricService.gauge("fake.gauge", fakeGaugeValue::get);
+		fakeGaugeValue.set(20);
+
+		// WHEN the metrics are retrieved
+		final Map<String, Long> metrics = this.metricService.getMetrics();
+
+		// THEN they should contain the current values
+		Assert.assertEquals(Long.valueOf(5), metrics.get("fake.counter"));
+		Assert.assertEquals(Long.valueOf(20), metrics.get("fake.gauge"));
+	}
+}
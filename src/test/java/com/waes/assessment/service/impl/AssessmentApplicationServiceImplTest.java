@@ -2,21 +2,52 @@ package com.waes.assessment.service.impl;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
 
 import org.junit.Assert;
 import org.junit.Test;
 import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.ArgumentMatchers;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.Mockito;
 import org.mockito.junit.MockitoJUnitRunner;
+import org.springframework.test.util.ReflectionTestUtils;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.TextNode;
+import com.waes.assessment.cache.DiffResultCache;
+import com.waes.assessment.common.Constant;
+import com.waes.assessment.common.Constant.ExceptionHandlerMessage;
+import com.waes.assessment.common.Constant.Metric;
 import com.waes.assessment.common.Constant.ResponseMessage;
+import com.waes.assessment.common.DiffMode;
+import com.waes.assessment.common.DiffOutcome;
 import com.waes.assessment.common.Endpoint;
+import com.waes.assessment.common.JsonPayload;
 import com.waes.assessment.common.test.common.Util;
 import com.waes.assessment.dto.ResponseDTO;
+import com.waes.assessment.exception.InvalidDiffModeException;
+import com.waes.assessment.exception.InvalidPatchException;
+import com.waes.assessment.exception.PayloadContentMismatchException;
+import com.waes.assessment.exception.PayloadSizeMismatchException;
+import com.waes.assessment.metric.MetricService;
 import com.waes.assessment.service.MessageService;
+import com.waes.assessment.store.Payload;
+import com.waes.assessment.store.PayloadBlob;
+import com.waes.assessment.store.PayloadSlot;
+import com.waes.assessment.store.PayloadStore;
+import com.waes.assessment.store.impl.HeapPayloadAllocator;
 import com.waes.assessment.validator.Validator;
 
 @RunWith(MockitoJUnitRunner.class)
@@ -28,6 +59,15 @@ public class AssessmentApplicationServiceImplTest {
 	@Mock
 	private MessageService mockMessageService;
 	
+	@Mock
+	private PayloadStore mockPayloadStore;
+	
+	@Mock
+	private DiffResultCache mockDiffResultCache;
+	
+	@Mock
+	private MetricService mockMetricService;
+	
 	@InjectMocks
 	private AssessmentApplicationServiceImpl assessmentApplicationServiceImpl;
 	
@@ -37,20 +77,22 @@ public class AssessmentApplicationServiceImplTest {
 		final String fakeId = "fakeId";
 		final String fakeMessage = "fakeMessage";
 		final String fakeValue = "fakeValue";
+		final JsonPayload fakeDecodedValue = this.fakeJsonPayload("fakeDecodedValue");
 		final InputStream fakeValueInputStream = Util.buildInputStream(true, fakeValue);
 
 		// WHEN setLeft is called
 		Mockito.when(this.mockMessageService.parse(ArgumentMatchers.eq(Endpoint.LEFT), ArgumentMatchers.eq(fakeId))).thenReturn(fakeMessage);
-		Mockito.when(this.mockMessageService.parseString(ArgumentMatchers.eq(Endpoint.LEFT), ArgumentMatchers.eq(fakeValueInputStream))).thenReturn(fakeValue);
-		final ResponseDTO responseDTO = this.assessmentApplicationServiceImpl.setLeft(fakeId, fakeValueInputStream);
+		Mockito.when(this.mockMessageService.readPayload(ArgumentMatchers.eq(Endpoint.LEFT), ArgumentMatchers.eq(fakeValueInputStream), ArgumentMatchers.isNull())).thenReturn(fakeDecodedValue);
+		final ResponseDTO responseDTO = this.assessmentApplicationServiceImpl.setLeft(fakeId, fakeValueInputStream, null);
 		
 		// THEN it should return those values
 		Assert.assertNotNull("An instance should be returned by the service", responseDTO);
 		Assert.assertEquals(fakeMessage, responseDTO.getMessage());
 		Assert.assertNull(responseDTO.getDetail());
 		
-		Mockito.verify(this.mockValidator, Mockito.times(1)).validate(ArgumentMatchers.eq(Endpoint.LEFT), ArgumentMatchers.eq(fakeId), ArgumentMatchers.eq(fakeValue));
+		Mockito.verify(this.mockValidator, Mockito.times(1)).validate(ArgumentMatchers.eq(Endpoint.LEFT), ArgumentMatchers.eq(fakeId), ArgumentMatchers.same(fakeDecodedValue));
 		Mockito.verify(this.mockMessageService, Mockito.times(1)).parse(ArgumentMatchers.eq(Endpoint.LEFT), ArgumentMatchers.eq(fakeId));
+		Mockito.verify(this.mockPayloadStore, Mockito.times(1)).put(ArgumentMatchers.eq(Endpoint.LEFT), ArgumentMatchers.eq(fakeId), ArgumentMatchers.same(fakeDecodedValue));
 	}
 	
 	@Test
@@ -59,29 +101,32 @@ public class AssessmentApplicationServiceImplTest {
 		final String fakeId = "fakeId";
 		final String fakeMessage = "fakeMessage";
 		final String fakeValue = "fakeValue";
+		final JsonPayload fakeDecodedValue = this.fakeJsonPayload("fakeDecodedValue");
 		final InputStream fakeValueInputStream = Util.buildInputStream(true, fakeValue);
 
 		// WHEN setLeft is called
 		Mockito.when(this.mockMessageService.parse(ArgumentMatchers.eq(Endpoint.RIGHT), ArgumentMatchers.eq(fakeId))).thenReturn(fakeMessage);
-		Mockito.when(this.mockMessageService.parseString(ArgumentMatchers.eq(Endpoint.RIGHT), ArgumentMatchers.eq(fakeValueInputStream))).thenReturn(fakeValue);
-		final ResponseDTO responseDTO = this.assessmentApplicationServiceImpl.setRight(fakeId, fakeValueInputStream);
+		Mockito.when(this.mockMessageService.readPayload(ArgumentMatchers.eq(Endpoint.RIGHT), ArgumentMatchers.eq(fakeValueInputStream), ArgumentMatchers.isNull())).thenReturn(fakeDecodedValue);
+		final ResponseDTO responseDTO = this.assessmentApplicationServiceImpl.setRight(fakeId, fakeValueInputStream, null);
 		
 		// THEN it should return those values
 		Assert.assertNotNull("An instance should be returned by the service", responseDTO);
 		Assert.assertEquals(fakeMessage, responseDTO.getMessage());
 		Assert.assertNull(responseDTO.getDetail());
 		
-		Mockito.verify(this.mockValidator, Mockito.times(1)).validate(ArgumentMatchers.eq(Endpoint.RIGHT), ArgumentMatchers.eq(fakeId), ArgumentMatchers.eq(fakeValue));
+		Mockito.verify(this.mockValidator, Mockito.times(1)).validate(ArgumentMatchers.eq(Endpoint.RIGHT), ArgumentMatchers.eq(fakeId), ArgumentMatchers.same(fakeDecodedValue));
 		Mockito.verify(this.mockMessageService, Mockito.times(1)).parse(ArgumentMatchers.eq(Endpoint.RIGHT), ArgumentMatchers.eq(fakeId));
+		Mockito.verify(this.mockPayloadStore, Mockito.times(1)).put(ArgumentMatchers.eq(Endpoint.RIGHT), ArgumentMatchers.eq(fakeId), ArgumentMatchers.same(fakeDecodedValue));
 	}
 	
 	@Test
 	public void givenFakeValues_whenProcessLeftAndRightIsCalled_thenItShouldReturnThatTheProcessesHasBeenSuccessfulyExecuted() throws IOException {
 		// GIVEN fake values
 		final String fakeId = "fakeId";
+		Mockito.when(this.mockValidator.compare(ArgumentMatchers.eq(fakeId), ArgumentMatchers.<PayloadSlot>any())).thenReturn(DiffOutcome.EQUAL);
 		
 		// WHEN processLeftAndRight is called
-		final ResponseDTO responseDTO = this.assessmentApplicationServiceImpl.processLeftAndRight(fakeId);
+		final ResponseDTO responseDTO = this.assessmentApplicationServiceImpl.processLeftAndRight(fakeId, null, 10);
 
 		
 		// THEN it should return that the processes has been successfuly executed
@@ -89,6 +134,324 @@ public class AssessmentApplicationServiceImplTest {
 		Assert.assertEquals(ResponseMessage.LEFT_AND_RIGHT_PROCESS_RESPONSE_MESSAGE, responseDTO.getMessage());
 		Assert.assertNull(responseDTO.getDetail());
 		
-		Mockito.verify(this.mockValidator, Mockito.times(1)).validate(ArgumentMatchers.eq(fakeId), ArgumentMatchers.any(), ArgumentMatchers.any());
+		Mockito.verify(this.mockValidator, Mockito.times(1)).compare(ArgumentMatchers.eq(fakeId), ArgumentMatchers.<PayloadSlot>any());
+	}
+	
+	@Test
+	public void givenASlotWithAnUpToDateCachedOutcome_whenProcessLeftAndRightIsCalled_thenTheValidatorShouldNotBeCalled() throws IOException {
+		// GIVEN a slot with an up to date cached outcome
+		final String fakeId = "fakeId";
+		final PayloadSlot fakeSlot = PayloadSlot.EMPTY.with(Endpoint.LEFT, this.fakeBlob("fakeValue"), 1)
+													  .with(Endpoint.RIGHT, this.fakeBlob("fakeValue"), 2)
+													  .withOutcome(DiffOutcome.EQUAL, 1, 2);
+		Mockito.when(this.mockPayloadStore.get(ArgumentMatchers.eq(fakeId))).thenReturn(fakeSlot);
+		
+		// WHEN processLeftAndRight is called
+		final ResponseDTO responseDTO = this.assessmentApplicationServiceImpl.processLeftAndRight(fakeId, null, 10);
+		
+		// THEN the validator should not be called
+		Assert.assertEquals(ResponseMessage.LEFT_AND_RIGHT_PROCESS_RESPONSE_MESSAGE, responseDTO.getMessage());
+		Mockito.verify(this.mockValidator, Mockito.never()).compare(ArgumentMatchers.anyString(), ArgumentMatchers.<PayloadSlot>any());
+	}
+	
+	@Test
+	public void givenASlotWithAStaleCachedOutcome_whenProcessLeftAndRightIsCalled_thenItShouldValidateAndCacheTheNewOutcome() throws IOException {
+		// GIVEN a slot with a stale cached outcome
+		final String fakeId = "fakeId";
+		final PayloadSlot fakeSlot = PayloadSlot.EMPTY.with(Endpoint.LEFT, this.fakeBlob("fakeValue"), 1)
+													  .with(Endpoint.RIGHT, this.fakeBlob("fakeValue"), 2)
+													  .withOutcome(DiffOutcome.sizeMismatch(1, 2), 1, 2)
+													  .with(Endpoint.RIGHT, this.fakeBlob("fakeValue"), 3);
+		Mockito.when(this.mockPayloadStore.get(ArgumentMatchers.eq(fakeId))).thenReturn(fakeSlot);
+		Mockito.when(this.mockValidator.compare(ArgumentMatchers.eq(fakeId), ArgumentMatchers.same(fakeSlot))).thenReturn(DiffOutcome.EQUAL);
+		
+		// WHEN processLeftAndRight is called
+		this.assessmentApplicationServiceImpl.processLeftAndRight(fakeId, null, 10);
+		
+		// THEN it should validate and cache the new outcome
+		Mockito.verify(this.mockValidator, Mockito.times(1)).compare(ArgumentMatchers.eq(fakeId), ArgumentMatchers.same(fakeSlot));
+		Mockito.verify(this.mockPayloadStore, Mockito.times(1)).cacheOutcome(ArgumentMatchers.eq(fakeId), ArgumentMatchers.eq(fakeSlot), ArgumentMatchers.same(DiffOutcome.EQUAL));
+		Mockito.verify(this.mockDiffResultCache, Mockito.times(1)).put(ArgumentMatchers.eq(fakeSlot.get(Endpoint.LEFT).getHash()), ArgumentMatchers.eq(fakeSlot.get(Endpoint.RIGHT).getHash()), ArgumentMatchers.same(DiffOutcome.EQUAL));
+	}
+	
+	@Test(expected = PayloadSizeMismatchException.class)
+	public void givenContentsAlreadyComparedOnAnotherId_whenProcessLeftAndRightIsCalled_thenTheirOutcomeShouldBeReused() throws IOException {
+		// GIVEN contents already compared on another id
+		final String fakeId = "fakeId";
+		final PayloadSlot fakeSlot = PayloadSlot.EMPTY.with(Endpoint.LEFT, this.fakeBlob("fakeLeft"), 1)
+													  .with(Endpoint.RIGHT, this.fakeBlob("fakeRightValue"), 2);
+		final DiffOutcome fakeOutcome = DiffOutcome.sizeMismatch(8, 14);
+		Mockito.when(this.mockPayloadStore.get(ArgumentMatchers.eq(fakeId))).thenReturn(fakeSlot);
+		Mockito.when(this.mockDiffResultCache.get(ArgumentMatchers.eq(fakeSlot.get(Endpoint.LEFT).getHash()), ArgumentMatchers.eq(fakeSlot.get(Endpoint.RIGHT).getHash()))).thenReturn(fakeOutcome);
+		
+		try {
+			// WHEN processLeftAndRight is called
+			this.assessmentApplicationServiceImpl.processLeftAndRight(fakeId, null, 10);
+		} finally {
+			// THEN their outcome should be reused
+			Mockito.verify(this.mockValidator, Mockito.never()).compare(ArgumentMatchers.anyString(), ArgumentMatchers.<PayloadSlot>any());
+			Mockito.verify(this.mockPayloadStore, Mockito.times(1)).cacheOutcome(ArgumentMatchers.eq(fakeId), ArgumentMatchers.same(fakeSlot), ArgumentMatchers.same(fakeOutcome));
+		}
+	}
+
+	@Test
+	public void givenAPayloadReleasedWhileBeingCompared_whenProcessLeftAndRightIsCalled_thenTheIdShouldBeComparedAgainAsItIsNow() throws IOException {
+		// GIVEN a payload released while being compared
+		final String fakeId = "fakeId";
+		final PayloadSlot fakeSlot = PayloadSlot.EMPTY.with(Endpoint.LEFT, this.fakeBlob("fakeLeft"), 1)
+													  .with(Endpoint.RIGHT, this.fakeBlob("fakeRight"), 2);
+		final PayloadSlot fakeCurrentSlot = fakeSlot.with(Endpoint.RIGHT, this.fakeBlob("fakeLeft"), 3);
+		Mockito.when(this.mockPayloadStore.get(ArgumentMatchers.eq(fakeId))).thenReturn(fakeSlot, fakeCurrentSlot);
+		Mockito.when(this.mockValidator.compare(ArgumentMatchers.eq(fakeId), ArgumentMatchers.same(fakeSlot))).thenReturn(DiffOutcome.released(Endpoint.RIGHT, fakeId));
+		Mockito.when(this.mockValidator.compare(ArgumentMatchers.eq(fakeId), ArgumentMatchers.same(fakeCurrentSlot))).thenReturn(DiffOutcome.EQUAL);
+		
+		// WHEN processLeftAndRight is called
+		final ResponseDTO responseDTO = this.assessmentApplicationServiceImpl.processLeftAndRight(fakeId, null, 10);
+		
+		// THEN the id should be compared again as it is now, without caching the released outcome
+		Assert.assertEquals(ResponseMessage.LEFT_AND_RIGHT_PROCESS_RESPONSE_MESSAGE, responseDTO.getMessage());
+		Mockito.verify(this.mockPayloadStore, Mockito.never()).cacheOutcome(ArgumentMatchers.eq(fakeId), ArgumentMatchers.same(fakeSlot), ArgumentMatchers.any());
+		Mockito.verify(this.mockDiffResultCache, Mockito.never()).put(ArgumentMatchers.any(), ArgumentMatchers.any(), ArgumentMatchers.argThat(outcome -> !outcome.isEqual()));
+		Mockito.verify(this.mockPayloadStore, Mockito.times(1)).cacheOutcome(ArgumentMatchers.eq(fakeId), ArgumentMatchers.same(fakeCurrentSlot), ArgumentMatchers.same(DiffOutcome.EQUAL));
+	}
+
+	@Test
+	public void givenTheCountMode_whenProcessLeftAndRightIsCalled_thenOnlyTheCountShouldBeReturnedWithoutBeingCached() throws IOException {
+		// GIVEN the count mode
+		final String fakeId = "fakeId";
+		final PayloadSlot fakeSlot = PayloadSlot.EMPTY.with(Endpoint.LEFT, this.fakeBlob("fakeLeft"), 1)
+													  .with(Endpoint.RIGHT, this.fakeBlob("fakeRight"), 2);
+		Mockito.when(this.mockPayloadStore.get(ArgumentMatchers.eq(fakeId))).thenReturn(fakeSlot);
+		Mockito.when(this.mockValidator.compare(ArgumentMatchers.eq(fakeId), ArgumentMatchers.same(fakeSlot), ArgumentMatchers.eq(DiffMode.COUNT), ArgumentMatchers.eq(10)))
+			   .thenReturn(DiffOutcome.differenceCount(3));
+		
+		try {
+			// WHEN processLeftAndRight is called
+			this.assessmentApplicationServiceImpl.processLeftAndRight(fakeId, "COUNT", 10);
+			Assert.fail("A PayloadContentMismatchException should be thrown");
+		} catch (final PayloadContentMismatchException e) {
+			// THEN only the count should be returned without being cached
+			Assert.assertNull(e.getDifference());
+			Assert.assertEquals(3, e.getDifferenceCount());
+			Mockito.verify(this.mockPayloadStore, Mockito.never()).cacheOutcome(ArgumentMatchers.anyString(), ArgumentMatchers.any(), ArgumentMatchers.any());
+			Mockito.verify(this.mockDiffResultCache, Mockito.never()).put(ArgumentMatchers.any(), ArgumentMatchers.any(), ArgumentMatchers.any());
+		}
+	}
+
+	@Test(expected = InvalidDiffModeException.class)
+	public void givenAnUnknownMode_whenProcessLeftAndRightIsCalled_thenItShouldThrowAnInvalidDiffModeException() throws IOException {
+		// GIVEN an unknown mode
+		final String fakeId = "fakeId";
+		
+		// WHEN processLeftAndRight is called
+		// THEN it should throw an InvalidDiffModeException
+		this.assessmentApplicationServiceImpl.processLeftAndRight(fakeId, "fakeMode", 10);
+	}
+
+	@Test
+	public void givenManyConcurrentRequestsForTheSameId_whenProcessLeftAndRightIsCalled_thenOnlyOneComparisonShouldRun() throws Exception {
+		// GIVEN many concurrent requests for the same id
+		final String fakeId = "fakeId";
+		final int fakeRequests = 8;
+		final PayloadSlot fakeSlot = PayloadSlot.EMPTY.with(Endpoint.LEFT, this.fakeBlob("fakeValue"), 1)
+													  .with(Endpoint.RIGHT, this.fakeBlob("fakeValue"), 2);
+		final CountDownLatch comparing = new CountDownLatch(1);
+		final CountDownLatch release = new CountDownLatch(1);
+		Mockito.when(this.mockPayloadStore.get(ArgumentMatchers.eq(fakeId))).thenReturn(fakeSlot);
+		Mockito.when(this.mockValidator.compare(ArgumentMatchers.eq(fakeId), ArgumentMatchers.same(fakeSlot))).thenAnswer(invocation -> {
+			comparing.countDown();
+			release.await();
+			return DiffOutcome.EQUAL;
+		});
+		
+		// WHEN processLeftAndRight is called
+		final ExecutorService executorService = Executors.newFixedThreadPool(fakeRequests);
+		try {
+			final List<Future<ResponseDTO>> responses = new ArrayList<>();
+			responses.add(executorService.submit(() -> this.assessmentApplicationServiceImpl.processLeftAndRight(fakeId, null, 10)));
+			comparing.await();
+			for (int i = 1; i < fakeRequests; i++)
+				responses.add(executorService.submit(() -> this.assessmentApplicationServiceImpl.processLeftAndRight(fakeId, null, 10)));
+			Mockito.verify(this.mockMetricService, Mockito.timeout(5_000).times(fakeRequests - 1)).increment(ArgumentMatchers.eq(Metric.DIFF_COALESCED_COUNT));
+			release.countDown();
+
+			// THEN only one comparison should run
+			for (final Future<ResponseDTO> response : responses)
+				Assert.assertEquals(ResponseMessage.LEFT_AND_RIGHT_PROCESS_RESPONSE_MESSAGE, response.get(5, TimeUnit.SECONDS).getMessage());
+			Mockito.verify(this.mockValidator, Mockito.times(1)).compare(ArgumentMatchers.eq(fakeId), ArgumentMatchers.same(fakeSlot));
+		} finally {
+			executorService.shutdownNow();
+		}
+	}
+
+	@Test
+	public void givenTheEagerComparisonEnabled_whenTheSecondSideIsSet_thenItShouldBeComparedInBackground() throws IOException {
+		// GIVEN the eager comparison enabled
+		final String fakeId = "fakeId";
+		final JsonPayload fakeDecodedValue = this.fakeJsonPayload("fakeValue");
+		final InputStream fakeValueInputStream = Util.buildInputStream(true, "fakeValue");
+		final PayloadSlot fakeSlot = PayloadSlot.EMPTY.with(Endpoint.LEFT, this.fakeBlob("fakeValue"), 1)
+													  .with(Endpoint.RIGHT, this.fakeBlob("fakeValue"), 2);
+		ReflectionTestUtils.setField(this.assessmentApplicationServiceImpl, "diffExecutor", (Executor) Runnable::run);
+		Mockito.when(this.mockMessageService.readPayload(ArgumentMatchers.eq(Endpoint.RIGHT), ArgumentMatchers.eq(fakeValueInputStream), ArgumentMatchers.isNull())).thenReturn(fakeDecodedValue);
+		Mockito.when(this.mockPayloadStore.put(ArgumentMatchers.eq(Endpoint.RIGHT), ArgumentMatchers.eq(fakeId), ArgumentMatchers.same(fakeDecodedValue))).thenReturn(fakeSlot);
+		Mockito.when(this.mockValidator.compare(ArgumentMatchers.eq(fakeId), ArgumentMatchers.same(fakeSlot))).thenReturn(DiffOutcome.EQUAL);
+		
+		// WHEN the second side is set
+		this.assessmentApplicationServiceImpl.setRight(fakeId, fakeValueInputStream, null);
+		
+		// THEN it should be compared in background
+		Mockito.verify(this.mockPayloadStore, Mockito.times(1)).cacheOutcome(ArgumentMatchers.eq(fakeId), ArgumentMatchers.same(fakeSlot), ArgumentMatchers.same(DiffOutcome.EQUAL));
+		Mockito.verify(this.mockMetricService, Mockito.times(1)).increment(ArgumentMatchers.eq(Metric.DIFF_EAGER_SUBMITTED_COUNT));
+		Mockito.verify(this.mockMetricService, Mockito.times(1)).increment(ArgumentMatchers.eq(Metric.DIFF_EAGER_COMPLETED_COUNT));
+	}
+	
+	@Test
+	public void givenASaturatedExecutor_whenTheSecondSideIsSet_thenTheComparisonShouldBeLeftForTheFirstGet() throws IOException {
+		// GIVEN a saturated executor
+		final String fakeId = "fakeId";
+		final JsonPayload fakeDecodedValue = this.fakeJsonPayload("fakeValue");
+		final InputStream fakeValueInputStream = Util.buildInputStream(true, "fakeValue");
+		final PayloadSlot fakeSlot = PayloadSlot.EMPTY.with(Endpoint.LEFT, this.fakeBlob("fakeValue"), 1)
+													  .with(Endpoint.RIGHT, this.fakeBlob("fakeValue"), 2);
+		ReflectionTestUtils.setField(this.assessmentApplicationServiceImpl, "diffExecutor", (Executor) runnable -> {
+			throw new RejectedExecutionException();
+		});
+		Mockito.when(this.mockMessageService.readPayload(ArgumentMatchers.eq(Endpoint.RIGHT), ArgumentMatchers.eq(fakeValueInputStream), ArgumentMatchers.isNull())).thenReturn(fakeDecodedValue);
+		Mockito.when(this.mockPayloadStore.put(ArgumentMatchers.eq(Endpoint.RIGHT), ArgumentMatchers.eq(fakeId), ArgumentMatchers.same(fakeDecodedValue))).thenReturn(fakeSlot);
+		
+		// WHEN the second side is set
+		final ResponseDTO responseDTO = this.assessmentApplicationServiceImpl.setRight(fakeId, fakeValueInputStream, null);
+		
+		// THEN the comparison should be left for the first get
+		Assert.assertNotNull("An instance should be returned by the service", responseDTO);
+		Mockito.verify(this.mockValidator, Mockito.never()).compare(ArgumentMatchers.anyString(), ArgumentMatchers.<PayloadSlot>any());
+		Mockito.verify(this.mockMetricService, Mockito.times(1)).increment(ArgumentMatchers.eq(Metric.DIFF_EAGER_REJECTED_COUNT));
+	}
+
+	@Test
+	public void givenASideSetMeanwhile_whenPatchRightIsCalled_thenThePatchShouldBeAppliedToTheNewerPayload() throws IOException {
+		// GIVEN a side set meanwhile
+		final String fakeId = "fakeId";
+		final String fakeMessage = "fakeMessage";
+		final PayloadBlob fakeRight = this.fakeJsonBlob("{\"a\":1,\"b\":{\"c\":2}}");
+		final PayloadBlob fakeNewerRight = this.fakeJsonBlob("{\"a\":3,\"b\":{\"c\":2}}");
+		final PayloadSlot fakeSlot = PayloadSlot.EMPTY.with(Endpoint.RIGHT, fakeRight, 1);
+		final PayloadSlot fakeNewerSlot = PayloadSlot.EMPTY.with(Endpoint.RIGHT, fakeNewerRight, 2);
+		ReflectionTestUtils.setField(this.assessmentApplicationServiceImpl, "objectMapper", new ObjectMapper());
+		Mockito.when(this.mockPayloadStore.get(ArgumentMatchers.eq(fakeId))).thenReturn(fakeSlot, fakeNewerSlot);
+		Mockito.when(this.mockPayloadStore.replace(ArgumentMatchers.eq(Endpoint.RIGHT), ArgumentMatchers.eq(fakeId), ArgumentMatchers.same(fakeRight), ArgumentMatchers.any()))
+			   .thenReturn(null);
+		Mockito.when(this.mockPayloadStore.replace(ArgumentMatchers.eq(Endpoint.RIGHT), ArgumentMatchers.eq(fakeId), ArgumentMatchers.same(fakeNewerRight), ArgumentMatchers.any()))
+			   .thenReturn(fakeNewerSlot);
+		Mockito.when(this.mockMessageService.parse(ArgumentMatchers.eq(Endpoint.RIGHT), ArgumentMatchers.eq(fakeId))).thenReturn(fakeMessage);
+		
+		// WHEN patchRight is called
+		final ResponseDTO responseDTO = this.assessmentApplicationServiceImpl.patchRight(fakeId,
+				Util.buildInputStream(false, "[{\"op\":\"replace\",\"path\":\"/b/c\",\"value\":4}]"), Constant.JSON_PATCH_MEDIA_TYPE);
+		
+		// THEN the patch should be applied to the newer payload, sharing the subtrees it has not reached
+		final ArgumentCaptor<JsonPayload> captor = ArgumentCaptor.forClass(JsonPayload.class);
+		Mockito.verify(this.mockPayloadStore).replace(ArgumentMatchers.eq(Endpoint.RIGHT), ArgumentMatchers.eq(fakeId), ArgumentMatchers.same(fakeNewerRight), captor.capture());
+		Assert.assertEquals("{\"a\":3,\"b\":{\"c\":4}}", new String(captor.getValue().getBytes(), StandardCharsets.UTF_8));
+		Assert.assertSame(fakeNewerRight.getTree().get("a"), captor.getValue().getTree().get("a"));
+		Assert.assertNotNull(captor.getValue().getSubtreeHashes());
+		Assert.assertEquals(fakeMessage, responseDTO.getMessage());
+	}
+
+	@Test
+	public void givenAMergePatch_whenPatchLeftIsCalled_thenTheMergedPayloadShouldBeStored() throws IOException {
+		// GIVEN a merge patch
+		final String fakeId = "fakeId";
+		final PayloadBlob fakeLeft = this.fakeJsonBlob("{\"a\":1,\"b\":{\"c\":2}}");
+		final PayloadSlot fakeSlot = PayloadSlot.EMPTY.with(Endpoint.LEFT, fakeLeft, 1);
+		ReflectionTestUtils.setField(this.assessmentApplicationServiceImpl, "objectMapper", new ObjectMapper());
+		Mockito.when(this.mockPayloadStore.get(ArgumentMatchers.eq(fakeId))).thenReturn(fakeSlot);
+		Mockito.when(this.mockPayloadStore.replace(ArgumentMatchers.eq(Endpoint.LEFT), ArgumentMatchers.eq(fakeId), ArgumentMatchers.same(fakeLeft), ArgumentMatchers.any()))
+			   .thenReturn(fakeSlot);
+		
+		// WHEN patchLeft is called
+		this.assessmentApplicationServiceImpl.patchLeft(fakeId, Util.buildInputStream(false, "{\"a\":null,\"b\":{\"d\":3}}"),
+				Constant.MERGE_PATCH_MEDIA_TYPE + ";charset=UTF-8");
+		
+		// THEN the merged payload should be stored
+		final ArgumentCaptor<JsonPayload> captor = ArgumentCaptor.forClass(JsonPayload.class);
+		Mockito.verify(this.mockPayloadStore).replace(ArgumentMatchers.eq(Endpoint.LEFT), ArgumentMatchers.eq(fakeId), ArgumentMatchers.same(fakeLeft), captor.capture());
+		Assert.assertEquals("{\"b\":{\"c\":2,\"d\":3}}", new String(captor.getValue().getBytes(), StandardCharsets.UTF_8));
+	}
+
+	@Test(expected = InvalidPatchException.class)
+	public void givenAPatchThatCannotBeApplied_whenPatchLeftIsCalled_thenItShouldThrowAnInvalidPatchException() throws IOException {
+		// GIVEN a patch that cannot be applied
+		final String fakeId = "fakeId";
+		ReflectionTestUtils.setField(this.assessmentApplicationServiceImpl, "objectMapper", new ObjectMapper());
+		Mockito.when(this.mockPayloadStore.get(ArgumentMatchers.eq(fakeId)))
+			   .thenReturn(PayloadSlot.EMPTY.with(Endpoint.LEFT, this.fakeJsonBlob("{\"a\":1}"), 1));
+		
+		// WHEN patchLeft is called
+		this.assessmentApplicationServiceImpl.patchLeft(fakeId, Util.buildInputStream(false, "[{\"op\":\"remove\",\"path\":\"/b\"}]"),
+				Constant.JSON_PATCH_MEDIA_TYPE);
+	}
+
+	@Test
+	public void givenASideWhoseBytesWereReleasedMeanwhile_whenPatchLeftIsCalled_thenThePatchShouldBeAppliedToTheSideReadAgain() throws IOException {
+		// GIVEN a side whose bytes were released meanwhile
+		final String fakeId = "fakeId";
+		final String fakeValue = "{\"a\":1}";
+		final PayloadBlob fakeReleasedLeft = new PayloadBlob(new JsonPayload(fakeValue.getBytes(StandardCharsets.UTF_8), null), Mockito.mock(Payload.class));
+		final PayloadBlob fakeLeft = this.fakeBytesOnlyBlob(fakeValue);
+		final PayloadSlot fakeReleasedSlot = PayloadSlot.EMPTY.with(Endpoint.LEFT, fakeReleasedLeft, 1);
+		final PayloadSlot fakeSlot = PayloadSlot.EMPTY.with(Endpoint.LEFT, fakeLeft, 2);
+		ReflectionTestUtils.setField(this.assessmentApplicationServiceImpl, "objectMapper", new ObjectMapper());
+		Mockito.when(this.mockPayloadStore.get(ArgumentMatchers.eq(fakeId))).thenReturn(fakeReleasedSlot, fakeSlot);
+		Mockito.when(this.mockPayloadStore.replace(ArgumentMatchers.eq(Endpoint.LEFT), ArgumentMatchers.eq(fakeId), ArgumentMatchers.same(fakeLeft), ArgumentMatchers.any()))
+			   .thenReturn(fakeSlot);
+		
+		// WHEN patchLeft is called
+		this.assessmentApplicationServiceImpl.patchLeft(fakeId, Util.buildInputStream(false, "[{\"op\":\"replace\",\"path\":\"/a\",\"value\":2}]"),
+				Constant.JSON_PATCH_MEDIA_TYPE);
+		
+		// THEN the patch should be applied to the side read again
+		final ArgumentCaptor<JsonPayload> captor = ArgumentCaptor.forClass(JsonPayload.class);
+		Mockito.verify(this.mockPayloadStore, Mockito.never()).replace(ArgumentMatchers.any(), ArgumentMatchers.any(), ArgumentMatchers.same(fakeReleasedLeft), ArgumentMatchers.any());
+		Mockito.verify(this.mockPayloadStore).replace(ArgumentMatchers.eq(Endpoint.LEFT), ArgumentMatchers.eq(fakeId), ArgumentMatchers.same(fakeLeft), captor.capture());
+		Assert.assertEquals("{\"a\":2}", new String(captor.getValue().getBytes(), StandardCharsets.UTF_8));
+	}
+
+	@Test
+	public void givenAPatchFollowedByTrailingContent_whenPatchLeftIsCalled_thenItShouldThrowAnInvalidPatchException() throws IOException {
+		// GIVEN a patch followed by trailing content
+		final String fakeId = "fakeId";
+		ReflectionTestUtils.setField(this.assessmentApplicationServiceImpl, "objectMapper", new ObjectMapper());
+		
+		// WHEN patchLeft is called
+		try {
+			this.assessmentApplicationServiceImpl.patchLeft(fakeId, Util.buildInputStream(false, "{\"a\":2} {\"b\":3}"),
+					Constant.MERGE_PATCH_MEDIA_TYPE);
+			Assert.fail("An InvalidPatchException should be thrown");
+		} catch (final InvalidPatchException e) {
+			// THEN it should throw an InvalidPatchException before the side is read
+			Assert.assertEquals(ExceptionHandlerMessage.TRAILING_CONTENT_EXCEPTION_MESSAGE, e.getReason());
+			Mockito.verify(this.mockPayloadStore, Mockito.never()).get(ArgumentMatchers.anyString());
+		}
+	}
+
+	private PayloadBlob fakeBytesOnlyBlob(final String value) {
+		final JsonPayload payload = new JsonPayload(value.getBytes(StandardCharsets.UTF_8), null);
+		return new PayloadBlob(payload, new HeapPayloadAllocator().allocate(payload.getBytes()));
+	}
+
+	private PayloadBlob fakeJsonBlob(final String value) throws IOException {
+		final JsonPayload payload = new JsonPayload(value.getBytes(StandardCharsets.UTF_8), new ObjectMapper().readTree(value));
+		return new PayloadBlob(payload, new HeapPayloadAllocator().allocate(payload.getBytes()));
+	}
+
+	private PayloadBlob fakeBlob(final String value) {
+		final JsonPayload payload = this.fakeJsonPayload(value);
+		return new PayloadBlob(payload, new HeapPayloadAllocator().allocate(payload.getBytes()));
+	}
+
+	private JsonPayload fakeJsonPayload(final String value) {
+		return new JsonPayload(value.getBytes(StandardCharsets.UTF_8), TextNode.valueOf(value));
 	}
 }
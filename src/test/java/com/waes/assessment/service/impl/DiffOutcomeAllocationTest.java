@@ -0,0 +1,124 @@
+package com.waes.assessment.service.impl;
+
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+
+import org.junit.AfterClass;
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.slf4j.LoggerFactory;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.fasterxml.jackson.databind.node.TextNode;
+import com.waes.assessment.cache.DiffResultCache;
+import com.waes.assessment.common.Endpoint;
+import com.waes.assessment.common.IdentityKeys;
+import com.waes.assessment.common.JsonPayload;
+import com.waes.assessment.common.JsonUtil;
+import com.waes.assessment.exception.PayloadSizeMismatchException;
+import com.waes.assessment.metric.MetricService;
+import com.waes.assessment.metric.impl.MetricServiceImpl;
+import com.waes.assessment.store.PayloadStore;
+import com.waes.assessment.store.impl.ContentAddressedBlobStore;
+import com.waes.assessment.store.impl.HeapPayloadAllocator;
+import com.waes.assessment.store.impl.StripedPayloadStore;
+import com.waes.assessment.validator.impl.EqualityTiers;
+import com.waes.assessment.validator.impl.ValidatorImpl;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+
+/**
+ * This is an allocation benchmark of the GET of an id whose outcome is already
+ * cached, measuring the bytes allocated by the current thread on each call,
+ * to make sure that rendering a mismatch costs about as much as rendering an equality
+ *
+ * The mismatch is rendered through an exception, which is a few bytes larger than the
+ * response of an equality, so it is allowed the size of one such exception on top of
+ * it, far below the stack trace it would otherwise fill
+ */
+public class DiffOutcomeAllocationTest {
+
+	private static final int ITERATIONS = 20_000;
+	private static final long EXCEPTION_BYTES = 64;
+
+	private static final Logger ROOT_LOGGER = (Logger) LoggerFactory.getLogger(org.slf4j.Logger.ROOT_LOGGER_NAME);
+	private static Level rootLevel;
+
+	@BeforeClass
+	public static void muteLogs() {
+		rootLevel = ROOT_LOGGER.getLevel();
+		ROOT_LOGGER.setLevel(Level.OFF);
+	}
+
+	@AfterClass
+	public static void restoreLogs() {
+		ROOT_LOGGER.setLevel(rootLevel);
+	}
+
+	@Test
+	public void givenCachedOutcomes_whenTheyAreRendered_thenTheMismatchShouldAllocateNoMoreThanTheEqualityAndItsException() throws Exception {
+		// GIVEN cached outcomes
+		final AssessmentApplicationServiceImpl service = this.newService();
+		service.processLeftAndRight("fakeEqualId", null, 10);
+		this.processMismatch(service);
+
+		// WHEN they are rendered
+		long equalBytes = Long.MAX_VALUE;
+		long mismatchBytes = Long.MAX_VALUE;
+		for (int round = 0; round < 5; round++) {
+			long before = allocatedBytes();
+			for (int i = 0; i < ITERATIONS; i++)
+				service.processLeftAndRight("fakeEqualId", null, 10);
+			equalBytes = Math.min(equalBytes, (allocatedBytes() - before) / ITERATIONS);
+
+			before = allocatedBytes();
+			for (int i = 0; i < ITERATIONS; i++)
+				this.processMismatch(service);
+			mismatchBytes = Math.min(mismatchBytes, (allocatedBytes() - before) / ITERATIONS);
+		}
+
+		// THEN the mismatch should allocate no more than the equality and its exception
+		Assert.assertTrue("The mismatch allocated " + mismatchBytes + " bytes per call against " + equalBytes + " of the equality",
+				mismatchBytes <= equalBytes + EXCEPTION_BYTES);
+	}
+
+	private void processMismatch(final AssessmentApplicationServiceImpl service) throws Exception {
+		try {
+			service.processLeftAndRight("fakeMismatchId", null, 10);
+			Assert.fail("A PayloadSizeMismatchException should have been thrown");
+		} catch (final PayloadSizeMismatchException e) {
+			// expected, since it is how the mismatch is rendered
+		}
+	}
+
+	private AssessmentApplicationServiceImpl newService() {
+		final MetricService metricService = new MetricServiceImpl();
+		final PayloadStore payloadStore = new StripedPayloadStore(16, Long.MAX_VALUE, 0, metricService,
+				new ContentAddressedBlobStore(new HeapPayloadAllocator(), metricService));
+		payloadStore.put(Endpoint.LEFT, "fakeEqualId", this.payloadOf("fakeValue"));
+		payloadStore.put(Endpoint.RIGHT, "fakeEqualId", this.payloadOf("fakeValue"));
+		payloadStore.put(Endpoint.LEFT, "fakeMismatchId", this.payloadOf("fakeValue"));
+		payloadStore.put(Endpoint.RIGHT, "fakeMismatchId", this.payloadOf("fakeOtherValue"));
+
+		final AssessmentApplicationServiceImpl service = new AssessmentApplicationServiceImpl();
+		ReflectionTestUtils.setField(service, "payloadStore", payloadStore);
+		final ValidatorImpl validator = new ValidatorImpl();
+		ReflectionTestUtils.setField(validator, "equalityTiers", new EqualityTiers(metricService));
+		ReflectionTestUtils.setField(validator, "alignmentMaxCost", JsonUtil.DEFAULT_ALIGNMENT_MAX_COST);
+		ReflectionTestUtils.setField(validator, "identityKeys", IdentityKeys.NONE);
+		ReflectionTestUtils.setField(service, "validator", validator);
+		ReflectionTestUtils.setField(service, "diffResultCache", new DiffResultCache(6_400, metricService));
+		ReflectionTestUtils.setField(service, "metricService", metricService);
+		return service;
+	}
+
+	private JsonPayload payloadOf(final String value) {
+		return new JsonPayload(value.getBytes(StandardCharsets.UTF_8), TextNode.valueOf(value));
+	}
+
+	private static long allocatedBytes() {
+		return ((com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean()).getThreadAllocatedBytes(Thread.currentThread().getId());
+	}
+}
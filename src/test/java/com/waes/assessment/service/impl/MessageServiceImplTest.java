@@ -1,6 +1,8 @@
 package com.waes.assessment.service.impl;
 
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
+import java.io.InputStream;
 import java.nio.charset.Charset;
 import java.util.Base64;
 
@@ -10,11 +12,14 @@ import org.junit.Before;
 import org.junit.Test;
 import org.springframework.test.util.ReflectionTestUtils;
 
-import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.waes.assessment.common.Constant;
 import com.waes.assessment.common.Constant.ResponseMessage;
 import com.waes.assessment.common.Endpoint;
+import com.waes.assessment.common.JsonPayload;
+import com.waes.assessment.common.PayloadFormat;
 import com.waes.assessment.exception.DeserializationException;
+import com.waes.assessment.exception.InvalidPayloadFormatException;
 import com.waes.assessment.service.MessageService;
 
 
@@ -27,30 +32,175 @@ public class MessageServiceImplTest {
 	@Before
 	public void setup() {
 		ReflectionTestUtils.setField(this.messageService, "objectMapper", OBJECT_MAPPER, ObjectMapper.class);
+		ReflectionTestUtils.setField(this.messageService, "defaultFormat", PayloadFormat.JSON.getValue());
 	}
 	
 	@Test
-	public void givenFakeValuesWithBase64EncodedPayload_whenItCallsTheParseMethod_thenItShouldReturnTheExpectedPayload() throws IOException {
+	public void givenFakeValuesWithBase64EncodedPayload_whenItCallsTheReadPayloadMethod_thenItShouldReturnTheDecodedAndParsedPayload() throws IOException {
 		// GIVEN fake values with base64 encoded payload
 		final Endpoint fakeEndpoint = Endpoint.LEFT;
-		final String fakeRequest = "{\"field\":\"value\"}";
+		final byte[] fakeRequest = "{\"field\":\"value\",\"array\":[1,2,{\"nested\":true}]}".getBytes(Charset.forName("UTF-8"));
+		ReflectionTestUtils.setField(this.messageService, "bufferBytes", 7);
 		
-		// WHEN it calls the parse method
-		final JsonNode response = this.messageService.parseJsonNode(fakeEndpoint, Base64.getEncoder().encodeToString(fakeRequest.getBytes(Charset.forName("UTF-8"))));
+		// WHEN it calls the read payload method
+		final JsonPayload response = this.messageService.readPayload(fakeEndpoint, this.encode(fakeRequest), null);
 		
-		// THEN it should return the expected payload
-		Assert.assertEquals(new ObjectMapper().readTree(fakeRequest), response);
+		// THEN it should return the decoded and parsed payload
+		Assert.assertArrayEquals(fakeRequest, response.getBytes());
+		Assert.assertEquals(OBJECT_MAPPER.readTree(fakeRequest), response.getTree());
+	}
+
+	@Test
+	public void givenTheStreamingDiffEngine_whenItCallsTheReadPayloadMethod_thenOnlyTheDecodedBytesShouldBeKept() throws IOException {
+		// GIVEN the streaming diff engine
+		final byte[] fakeRequest = "{\"field\":\"value\",\"array\":[1,2,{\"nested\":true}]}".getBytes(Charset.forName("UTF-8"));
+		ReflectionTestUtils.setField(this.messageService, "bufferBytes", 7);
+		ReflectionTestUtils.setField(this.messageService, "diffEngine", Constant.STREAMING_DIFF_ENGINE);
+		
+		// WHEN it calls the read payload method
+		final JsonPayload response = this.messageService.readPayload(Endpoint.LEFT, this.encode(fakeRequest), null);
+		
+		// THEN only the decoded bytes should be kept
+		Assert.assertArrayEquals(fakeRequest, response.getBytes());
+		Assert.assertNull(response.getTree());
 	}
 
 	@Test(expected = DeserializationException.class)
-	public void givenFakeValuesWithNonBase64EncodedPayload_whenItCallsTheParseMethod_thenItShouldThrowAnException() throws IOException {
+	public void givenTheStreamingDiffEngineAndAnInvalidPayload_whenItCallsTheReadPayloadMethod_thenItShouldStillBeRejected() throws IOException {
+		// GIVEN the streaming diff engine and an invalid payload
+		ReflectionTestUtils.setField(this.messageService, "diffEngine", Constant.STREAMING_DIFF_ENGINE);
+		
+		// WHEN it calls the read payload method
+		// THEN it should still be rejected
+		this.messageService.readPayload(Endpoint.LEFT, this.encode("{\"field\":[1,2}".getBytes(Charset.forName("UTF-8"))), null);
+	}
+
+	@Test
+	public void givenAnEmptyPayload_whenItCallsTheReadPayloadMethod_thenNullShouldBeReturned() throws IOException {
+		// GIVEN an empty payload
+		final Endpoint fakeEndpoint = Endpoint.LEFT;
+		
+		// WHEN it calls the read payload method
+		// THEN null should be returned
+		Assert.assertNull(this.messageService.readPayload(fakeEndpoint, new ByteArrayInputStream(new byte[0]), null));
+		Assert.assertNull(this.messageService.readPayload(fakeEndpoint, this.encode(" \n ".getBytes(Charset.forName("UTF-8"))), null));
+	}
+
+	@Test
+	public void givenFakeValuesWithNonBase64EncodedPayload_whenItCallsTheReadPayloadMethod_thenItShouldThrowAnException() throws IOException {
 		// GIVEN fake values with non-base64 encoded payload
+		final Endpoint fakeEndpoint = Endpoint.RIGHT;
+		final byte[] fakeRequest = "{\"field\":\"value\"}".getBytes(Charset.forName("UTF-8"));
+		
+		try {
+			// WHEN it calls the read payload method
+			this.messageService.readPayload(fakeEndpoint, new ByteArrayInputStream(fakeRequest), null);
+			Assert.fail("A DeserializationException should be thrown");
+		} catch (final DeserializationException e) {
+			// THEN it should throw an exception
+			Assert.assertEquals(Endpoint.RIGHT.getValue(), e.getMemoryName());
+			Assert.assertEquals("java.lang.IllegalArgumentException: Illegal base64 character 7b", e.getMessage());
+		}
+	}
+
+	@Test(expected = DeserializationException.class)
+	public void givenFakeValuesWithBase64EncodedInvalidJson_whenItCallsTheReadPayloadMethod_thenItShouldThrowAnException() throws IOException {
+		// GIVEN fake values with base64 encoded invalid json
 		final Endpoint fakeEndpoint = Endpoint.LEFT;
-		final String fakeRequest = "{\"field\":\"value\"}";
+		final byte[] fakeRequest = "{\"field\":".getBytes(Charset.forName("UTF-8"));
 		
-		// WHEN it calls the parse method
+		// WHEN it calls the read payload method
 		// THEN it should throw an exception
-		this.messageService.parseJsonNode(fakeEndpoint, fakeRequest);
+		this.messageService.readPayload(fakeEndpoint, this.encode(fakeRequest), null);
+	}
+
+	@Test(expected = DeserializationException.class)
+	public void givenFakeValuesWithContentAfterTheJson_whenItCallsTheReadPayloadMethod_thenItShouldThrowAnException() throws IOException {
+		// GIVEN fake values with content after the json
+		final Endpoint fakeEndpoint = Endpoint.LEFT;
+		final byte[] fakeRequest = "{\"field\":1}{\"field\":2}".getBytes(Charset.forName("UTF-8"));
+		
+		// WHEN it calls the read payload method
+		// THEN it should throw an exception
+		this.messageService.readPayload(fakeEndpoint, this.encode(fakeRequest), null);
+	}
+	
+	@Test
+	public void givenTheBinaryFormat_whenItCallsTheReadPayloadMethod_thenTheDecodedBytesShouldBeKeptAsTheyAre() throws IOException {
+		// GIVEN the binary format
+		final byte[] fakeRequest = { '{', 0, (byte) 0xff, 1, 2, 3, 4, 5, 6, 7, 8, 9, 10 };
+		ReflectionTestUtils.setField(this.messageService, "bufferBytes", 7);
+		
+		// WHEN it calls the read payload method
+		final JsonPayload response = this.messageService.readPayload(Endpoint.LEFT, this.encode(fakeRequest), "binary");
+		
+		// THEN the decoded bytes should be kept as they are
+		Assert.assertArrayEquals(fakeRequest, response.getBytes());
+		Assert.assertNull(response.getTree());
+		Assert.assertEquals(PayloadFormat.BINARY, response.getFormat());
+		Assert.assertNotEquals(new JsonPayload(fakeRequest, null).getHash(), response.getHash());
+	}
+
+	@Test
+	public void givenTheAutoFormat_whenItCallsTheReadPayloadMethod_thenOnlyTheJsonPayloadsShouldBeParsed() throws IOException {
+		// GIVEN the auto format
+		final byte[] fakeJson = " {\"field\":[1,2]}".getBytes(Charset.forName("UTF-8"));
+		final byte[] fakeBinary = { (byte) 0x89, 'P', 'N', 'G', 0, 1 };
+		final byte[] fakeInvalidJson = "{\"field\":".getBytes(Charset.forName("UTF-8"));
+		ReflectionTestUtils.setField(this.messageService, "bufferBytes", 7);
+		
+		// WHEN it calls the read payload method
+		final JsonPayload json = this.messageService.readPayload(Endpoint.LEFT, this.encode(fakeJson), "AUTO");
+		final JsonPayload binary = this.messageService.readPayload(Endpoint.LEFT, this.encode(fakeBinary), "auto");
+		final JsonPayload invalidJson = this.messageService.readPayload(Endpoint.LEFT, this.encode(fakeInvalidJson), "auto");
+		
+		// THEN only the json payloads should be parsed
+		Assert.assertEquals(PayloadFormat.JSON, json.getFormat());
+		Assert.assertArrayEquals(fakeJson, json.getBytes());
+		Assert.assertEquals(OBJECT_MAPPER.readTree(fakeJson), json.getTree());
+		Assert.assertEquals(PayloadFormat.BINARY, binary.getFormat());
+		Assert.assertArrayEquals(fakeBinary, binary.getBytes());
+		Assert.assertEquals(PayloadFormat.BINARY, invalidJson.getFormat());
+		Assert.assertArrayEquals(fakeInvalidJson, invalidJson.getBytes());
+	}
+
+	@Test
+	public void givenABinaryPayloadStartingAsJsonOverManyBuffers_whenItIsReadAsAuto_thenItShouldBeReadAsBinaryWithoutClosingTheStream() throws IOException {
+		// GIVEN a binary payload starting as json over many buffers, on a stream that cannot be read once closed
+		final byte[] fakeBinary = ("{" + StringUtils.repeat("fakeBinary", 1_000)).getBytes(Charset.forName("UTF-8"));
+		final InputStream fakeRequest = new ByteArrayInputStream(Base64.getEncoder().encode(fakeBinary)) {
+			private boolean closed;
+
+			@Override
+			public synchronized int read(final byte[] bytes, final int offset, final int length) {
+				if (this.closed)
+					throw new IllegalStateException("Stream closed");
+				return super.read(bytes, offset, length);
+			}
+
+			@Override
+			public void close() {
+				this.closed = true;
+			}
+		};
+		ReflectionTestUtils.setField(this.messageService, "bufferBytes", 64);
+		
+		// WHEN it is read as auto
+		final JsonPayload response = this.messageService.readPayload(Endpoint.LEFT, fakeRequest, "auto");
+		
+		// THEN it should be read as binary without closing the stream
+		Assert.assertEquals(PayloadFormat.BINARY, response.getFormat());
+		Assert.assertArrayEquals(fakeBinary, response.getBytes());
+	}
+
+	@Test(expected = InvalidPayloadFormatException.class)
+	public void givenAnUnknownFormat_whenItCallsTheReadPayloadMethod_thenItShouldThrowAnInvalidPayloadFormatException() throws IOException {
+		// GIVEN an unknown format
+		final byte[] fakeRequest = "{\"field\":1}".getBytes(Charset.forName("UTF-8"));
+		
+		// WHEN it calls the read payload method
+		// THEN it should throw an InvalidPayloadFormatException
+		this.messageService.readPayload(Endpoint.LEFT, this.encode(fakeRequest), "xml");
 	}
 	
 	@Test
@@ -98,4 +248,7 @@ public class MessageServiceImplTest {
 		Assert.assertNull(this.messageService.parse(null, (String) null));
 	}
 
+	private InputStream encode(final byte[] bytes) {
+		return new ByteArrayInputStream(Base64.getEncoder().encode(bytes));
+	}
 }
@@ -0,0 +1,63 @@
+package com.waes.assessment.store.impl;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.waes.assessment.common.Constant.Metric;
+import com.waes.assessment.common.Endpoint;
+import com.waes.assessment.common.JsonPayload;
+import com.waes.assessment.metric.MetricService;
+import com.waes.assessment.metric.impl.MetricServiceImpl;
+import com.waes.assessment.store.PayloadBlob;
+import com.waes.assessment.store.PayloadStore;
+
+public class ContentAddressedBlobStoreTest {
+
+	@Test
+	public void givenTheSameDocumentSetOnManyIds_whenTheyAreStored_thenOnlyOneBlobShouldBeKept() {
+		// GIVEN the same document set on many ids
+		final MetricService metricService = new MetricServiceImpl();
+		final ContentAddressedBlobStore blobStore = new ContentAddressedBlobStore(new HeapPayloadAllocator(), metricService);
+		final PayloadStore payloadStore = new StripedPayloadStore(4, Long.MAX_VALUE, 0, metricService, blobStore);
+
+		// WHEN they are stored
+		for (int i = 0; i < 100; i++) {
+			payloadStore.put(Endpoint.LEFT, "fakeId" + i, this.payloadOf("{\"baseline\":true}"));
+			payloadStore.put(Endpoint.RIGHT, "fakeId" + i, this.payloadOf("{\"id\":" + i + "}"));
+		}
+
+		// THEN only one blob should be kept
+		final Map<String, Long> metrics = metricService.getMetrics();
+		Assert.assertEquals(101L, (long) metrics.get(Metric.STORE_BLOB_COUNT));
+		Assert.assertEquals(99L, (long) metrics.get(Metric.STORE_DEDUP_HIT_COUNT));
+		Assert.assertEquals(49L, (long) metrics.get(Metric.STORE_DEDUP_HIT_RATE_PERCENT));
+		Assert.assertSame(payloadStore.get("fakeId0").get(Endpoint.LEFT), payloadStore.get("fakeId99").get(Endpoint.LEFT));
+	}
+
+	@Test
+	public void givenABlobSharedByTwoReferences_whenBothAreReleased_thenItShouldOnlyBeDroppedOnTheLast() {
+		// GIVEN a blob shared by two references
+		final MetricService metricService = new MetricServiceImpl();
+		final ContentAddressedBlobStore blobStore = new ContentAddressedBlobStore(new HeapPayloadAllocator(), metricService);
+		final PayloadBlob first = blobStore.acquire(this.payloadOf("{\"a\":1}"));
+		final PayloadBlob second = blobStore.acquire(this.payloadOf("{\"a\":1}"));
+		Assert.assertSame(first, second);
+
+		// WHEN both are released
+		blobStore.release(first);
+		Assert.assertEquals(1L, (long) metricService.getMetrics().get(Metric.STORE_BLOB_COUNT));
+		blobStore.release(second);
+
+		// THEN it should only be dropped on the last
+		Assert.assertEquals(0L, (long) metricService.getMetrics().get(Metric.STORE_BLOB_COUNT));
+		Assert.assertEquals(0L, (long) metricService.getMetrics().get(Metric.STORE_BLOB_BYTES));
+		Assert.assertNotSame(first, blobStore.acquire(this.payloadOf("{\"a\":1}")));
+	}
+
+	private JsonPayload payloadOf(final String value) {
+		return new JsonPayload(value.getBytes(StandardCharsets.UTF_8), null);
+	}
+}
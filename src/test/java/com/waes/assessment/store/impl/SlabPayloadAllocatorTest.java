@@ -0,0 +1,143 @@
+package com.waes.assessment.store.impl;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.waes.assessment.common.Constant.Metric;
+import com.waes.assessment.common.Endpoint;
+import com.waes.assessment.common.JsonPayload;
+import com.waes.assessment.metric.MetricService;
+import com.waes.assessment.metric.impl.MetricServiceImpl;
+import com.waes.assessment.store.Payload;
+import com.waes.assessment.store.PayloadStore;
+
+public class SlabPayloadAllocatorTest {
+
+	private static final int FAKE_SLAB_BYTES = 1024;
+
+	@Test
+	public void givenPayloadsOfManySizes_whenTheyAreAllocated_thenTheirBytesShouldBeReadBackUntouched() {
+		// GIVEN payloads of many sizes
+		final SlabPayloadAllocator allocator = this.newAllocator(16 * FAKE_SLAB_BYTES, new MetricServiceImpl());
+		final Random random = new Random(42);
+
+		for (final int size : new int[] { 0, 1, 64, 65, 1000, FAKE_SLAB_BYTES, FAKE_SLAB_BYTES + 1, 3 * FAKE_SLAB_BYTES + 7 }) {
+			final byte[] fakeBytes = new byte[size];
+			random.nextBytes(fakeBytes);
+
+			// WHEN they are allocated
+			final Payload payload = allocator.allocate(fakeBytes);
+
+			// THEN their bytes should be read back untouched
+			Assert.assertTrue("The payload should be kept off the heap", payload instanceof SlabPayload);
+			Assert.assertEquals(size, payload.size());
+			Assert.assertArrayEquals(fakeBytes, payload.getBytes());
+		}
+	}
+
+	@Test
+	public void givenAReleasedPayload_whenAnotherOneIsAllocated_thenItsChunkShouldBeReused() {
+		// GIVEN a released payload
+		final SlabPayloadAllocator allocator = this.newAllocator(16 * FAKE_SLAB_BYTES, new MetricServiceImpl());
+		final Payload released = allocator.allocate(new byte[100]);
+		Assert.assertEquals(128, allocator.getUsedBytes());
+		released.release();
+
+		// WHEN another one is allocated
+		final Payload payload = allocator.allocate(new byte[120]);
+
+		// THEN its chunk should be reused
+		Assert.assertNull("A released payload should not be readable anymore", released.getBytes());
+		Assert.assertEquals(128, allocator.getUsedBytes());
+		Assert.assertEquals(FAKE_SLAB_BYTES, allocator.getReservedBytes());
+		Assert.assertEquals(120, payload.getBytes().length);
+	}
+
+	@Test
+	public void givenASlabWhosePayloadsWereAllReleased_whenAPayloadOfAnotherSizeIsAllocated_thenTheSlabShouldBeReused() {
+		// GIVEN a slab whose payloads were all released, being the only one the budget allows
+		final MetricService metricService = new MetricServiceImpl();
+		final SlabPayloadAllocator allocator = this.newAllocator(FAKE_SLAB_BYTES, metricService);
+		final List<Payload> released = new ArrayList<>();
+		for (int i = 0; i < FAKE_SLAB_BYTES / 64; i++)
+			released.add(allocator.allocate(new byte[50]));
+		for (final Payload payload : released)
+			payload.release();
+		Assert.assertEquals((long) FAKE_SLAB_BYTES, (long) metricService.getMetrics().get(Metric.STORE_OFF_HEAP_POOLED_BYTES));
+
+		// WHEN a payload of another size is allocated
+		final Payload payload = allocator.allocate(new byte[FAKE_SLAB_BYTES - 1]);
+
+		// THEN the slab should be reused
+		Assert.assertTrue("The payload should be kept off the heap", payload instanceof SlabPayload);
+		Assert.assertEquals(FAKE_SLAB_BYTES - 1, payload.getBytes().length);
+		Assert.assertEquals(FAKE_SLAB_BYTES, allocator.getReservedBytes());
+		Assert.assertEquals(0, allocator.getPooledBytes());
+		Assert.assertNull(metricService.getMetrics().get(Metric.STORE_OFF_HEAP_FALLBACK_COUNT));
+	}
+
+	@Test
+	public void givenPayloadsReleasedOutOfOrder_whenTheSlabIsFilledAgain_thenEveryChunkShouldBeReused() {
+		// GIVEN payloads released out of order
+		final SlabPayloadAllocator allocator = this.newAllocator(FAKE_SLAB_BYTES, new MetricServiceImpl());
+		final List<Payload> payloads = new ArrayList<>();
+		for (int i = 0; i < FAKE_SLAB_BYTES / 64; i++)
+			payloads.add(allocator.allocate(new byte[] { (byte) i }));
+		for (int i = 1; i < payloads.size(); i += 2)
+			payloads.get(i).release();
+
+		// WHEN the slab is filled again
+		for (int i = 1; i < payloads.size(); i += 2)
+			payloads.set(i, allocator.allocate(new byte[] { (byte) -i }));
+
+		// THEN every chunk should be reused, keeping the content of the payloads still alive
+		Assert.assertEquals(FAKE_SLAB_BYTES, allocator.getUsedBytes());
+		Assert.assertEquals(FAKE_SLAB_BYTES, allocator.getReservedBytes());
+		for (int i = 0; i < payloads.size(); i++)
+			Assert.assertEquals((byte) (0 == i % 2 ? i : -i), payloads.get(i).getBytes()[0]);
+		Assert.assertTrue(allocator.allocate(new byte[1]) instanceof HeapPayload);
+	}
+
+	@Test
+	public void givenAnExhaustedOffHeapBudget_whenAPayloadIsAllocated_thenItShouldFallBackToTheHeap() {
+		// GIVEN an exhausted off-heap budget
+		final MetricService metricService = new MetricServiceImpl();
+		final SlabPayloadAllocator allocator = this.newAllocator(2 * FAKE_SLAB_BYTES, metricService);
+		allocator.allocate(new byte[FAKE_SLAB_BYTES]);
+		allocator.allocate(new byte[FAKE_SLAB_BYTES]);
+
+		// WHEN a payload is allocated
+		final Payload payload = allocator.allocate(new byte[10]);
+
+		// THEN it should fall back to the heap
+		Assert.assertTrue(payload instanceof HeapPayload);
+		Assert.assertEquals(1L, (long) metricService.getMetrics().get(Metric.STORE_OFF_HEAP_FALLBACK_COUNT));
+		Assert.assertEquals(2L * FAKE_SLAB_BYTES, (long) metricService.getMetrics().get(Metric.STORE_OFF_HEAP_RESERVED_BYTES));
+	}
+
+	@Test
+	public void givenAStoreBackedBySlabs_whenASideIsReplaced_thenThePreviousPayloadShouldBeReleased() {
+		// GIVEN a store backed by slabs
+		final MetricService metricService = new MetricServiceImpl();
+		final SlabPayloadAllocator allocator = this.newAllocator(16 * FAKE_SLAB_BYTES, metricService);
+		final PayloadStore payloadStore = new StripedPayloadStore(4, Long.MAX_VALUE, 0, metricService, new ContentAddressedBlobStore(allocator, metricService));
+		payloadStore.put(Endpoint.LEFT, "fakeId", new JsonPayload(new byte[200], null));
+
+		// WHEN a side is replaced
+		final byte[] fakeBytes = new byte[200];
+		fakeBytes[0] = 1;
+		payloadStore.put(Endpoint.LEFT, "fakeId", new JsonPayload(fakeBytes, null));
+
+		// THEN the previous payload should be released
+		Assert.assertEquals(256, allocator.getUsedBytes());
+		Assert.assertArrayEquals(fakeBytes, payloadStore.get("fakeId").get(Endpoint.LEFT).getPayload().getBytes());
+	}
+
+	private SlabPayloadAllocator newAllocator(final long maximumBytes, final MetricService metricService) {
+		return new SlabPayloadAllocator(FAKE_SLAB_BYTES, maximumBytes, metricService);
+	}
+}
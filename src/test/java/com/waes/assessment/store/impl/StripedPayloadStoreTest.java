@@ -0,0 +1,453 @@
+package com.waes.assessment.store.impl;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.LongSupplier;
+
+import org.apache.commons.lang3.StringUtils;
+import org.junit.Assert;
+import org.junit.Test;
+import org.slf4j.Logger;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.waes.assessment.cache.WTinyLfuPolicy;
+import com.waes.assessment.common.Constant.Metric;
+import com.waes.assessment.common.DiffOutcome;
+import com.waes.assessment.common.Endpoint;
+import com.waes.assessment.common.JsonPayload;
+import com.waes.assessment.common.SubtreeHashes;
+import com.waes.assessment.logger.WAESLoggerFactory;
+import com.waes.assessment.metric.MetricService;
+import com.waes.assessment.metric.impl.MetricServiceImpl;
+import com.waes.assessment.store.PayloadBlob;
+import com.waes.assessment.store.PayloadSlot;
+import com.waes.assessment.store.PayloadStore;
+
+public class StripedPayloadStoreTest {
+
+	private static final Logger LOGGER = WAESLoggerFactory.getLogger(StripedPayloadStoreTest.class);
+
+	@Test
+	public void givenAStripeAmountThatIsNotAPowerOfTwo_whenTheStoreIsCreated_thenItShouldBeRoundedUp() {
+		// GIVEN a stripe amount that is not a power of two
+		final int fakeStripes = 10;
+
+		// WHEN the store is created
+		final StripedPayloadStore payloadStore = this.newStore(fakeStripes);
+
+		// THEN it should be rounded up
+		Assert.assertEquals(16, payloadStore.getStripeCount());
+	}
+
+	@Test
+	public void givenFakeValues_whenTheyAreStoredOnBothSides_thenEachSideShouldKeepItsOwnValue() {
+		// GIVEN fake values
+		final PayloadStore payloadStore = this.newStore(4);
+		final String fakeId = "fakeId";
+
+		// WHEN they are stored on both sides
+		payloadStore.put(Endpoint.LEFT, fakeId, this.payloadOf("fakeLeft"));
+		payloadStore.put(Endpoint.RIGHT, fakeId, this.payloadOf("fakeRight"));
+		payloadStore.put(Endpoint.RIGHT, fakeId, this.payloadOf("fakeNewRight"));
+
+		// THEN each side should keep its own value
+		Assert.assertEquals("fakeLeft", this.stringOf(payloadStore.get(fakeId).get(Endpoint.LEFT)));
+		Assert.assertEquals("fakeNewRight", this.stringOf(payloadStore.get(fakeId).get(Endpoint.RIGHT)));
+		Assert.assertNull(payloadStore.get("unknownId"));
+	}
+
+	@Test
+	public void givenAnOutcomeCachedForASlot_whenOneSideIsSetAgain_thenTheOutcomeShouldNotBeServedAnymore() {
+		// GIVEN an outcome cached for a slot
+		final PayloadStore payloadStore = this.newStore(4);
+		final String fakeId = "fakeId";
+		payloadStore.put(Endpoint.LEFT, fakeId, this.payloadOf("fakeLeft"));
+		final PayloadSlot snapshot = payloadStore.put(Endpoint.RIGHT, fakeId, this.payloadOf("fakeRight"));
+		Assert.assertTrue(payloadStore.cacheOutcome(fakeId, snapshot, DiffOutcome.EQUAL));
+		Assert.assertEquals(DiffOutcome.EQUAL, payloadStore.get(fakeId).getOutcome());
+
+		// WHEN one side is set again
+		final PayloadSlot updated = payloadStore.put(Endpoint.LEFT, fakeId, this.payloadOf("fakeLeft"));
+
+		// THEN the outcome should not be served anymore
+		Assert.assertTrue(updated.getVersion(Endpoint.LEFT) > snapshot.getVersion(Endpoint.LEFT));
+		Assert.assertNull(payloadStore.get(fakeId).getOutcome());
+		Assert.assertFalse("An outcome of an older snapshot should be refused", payloadStore.cacheOutcome(fakeId, snapshot, DiffOutcome.EQUAL));
+		Assert.assertNull(payloadStore.get(fakeId).getOutcome());
+	}
+
+	@Test
+	public void givenAPayloadKeepingItsTree_whenItIsStored_thenItShouldWeighItsTreeAsWell() throws Exception {
+		// GIVEN a payload keeping its tree
+		final MetricService metricService = new MetricServiceImpl();
+		final PayloadStore payloadStore = new StripedPayloadStore(4, Long.MAX_VALUE, 0, metricService, new ContentAddressedBlobStore(new HeapPayloadAllocator(), metricService));
+		final byte[] fakeBytes = "{\"fakeField\":[1,2,3],\"fakeOther\":\"fakeValue\"}".getBytes(StandardCharsets.UTF_8);
+		final JsonNode fakeTree = new ObjectMapper().readTree(fakeBytes);
+
+		// WHEN it is stored
+		payloadStore.put(Endpoint.LEFT, "fakeId", new JsonPayload(fakeBytes, fakeTree));
+
+		// THEN it should weigh its tree as well
+		Assert.assertEquals(fakeBytes.length + SubtreeHashes.of(fakeTree).getEstimatedBytes(),
+				(long) metricService.getMetrics().get(Metric.STORE_WEIGHT_BYTES));
+	}
+
+	@Test
+	public void givenAnOutcomeCachedForASlot_whenItsSidesAreReplaced_thenThePayloadsKeptForItShouldBeWeighedUntilBothAreGone() {
+		// GIVEN an outcome cached for a slot
+		final MetricService metricService = new MetricServiceImpl();
+		final PayloadStore payloadStore = new StripedPayloadStore(4, Long.MAX_VALUE, 0, metricService, new ContentAddressedBlobStore(new HeapPayloadAllocator(), metricService));
+		final String fakeId = "fakeId";
+		payloadStore.put(Endpoint.LEFT, fakeId, this.payloadOf("fakeLeft"));
+		final PayloadSlot snapshot = payloadStore.put(Endpoint.RIGHT, fakeId, this.payloadOf("fakeRight"));
+		Assert.assertTrue(payloadStore.cacheOutcome(fakeId, snapshot, DiffOutcome.EQUAL));
+
+		// WHEN its sides are replaced
+		final PayloadSlot leftReplaced = payloadStore.put(Endpoint.LEFT, fakeId, this.payloadOf("fakeNewLeft"));
+		final long leftReplacedWeight = metricService.getMetrics().get(Metric.STORE_WEIGHT_BYTES);
+		final PayloadSlot bothReplaced = payloadStore.put(Endpoint.RIGHT, fakeId, this.payloadOf("fakeNewRight"));
+
+		// THEN the payloads kept for it should be weighed until both are gone
+		Assert.assertNotNull(leftReplaced.getPreviousBlob(Endpoint.LEFT));
+		Assert.assertEquals("fakeNewLeft".length() + "fakeRight".length() + "fakeLeft".length(), leftReplacedWeight);
+		Assert.assertNull(bothReplaced.getPreviousBlob(Endpoint.LEFT));
+		Assert.assertNull(bothReplaced.getPreviousBlob(Endpoint.RIGHT));
+		Assert.assertEquals("fakeNewLeft".length() + "fakeNewRight".length(), (long) metricService.getMetrics().get(Metric.STORE_WEIGHT_BYTES));
+	}
+
+	@Test
+	public void givenManyThreadsSettingTheSameId_whenTheyRunConcurrently_thenTheVersionsShouldOnlyIncrease() throws Exception {
+		// GIVEN many threads setting the same id
+		final PayloadStore payloadStore = this.newStore(4);
+		final String fakeId = "fakeId";
+		final int threads = Math.max(4, Runtime.getRuntime().availableProcessors());
+		final AtomicBoolean decreased = new AtomicBoolean();
+
+		// WHEN they run concurrently
+		this.run(threads, thread -> {
+			final Endpoint endpoint = 0 == (thread & 1) ? Endpoint.LEFT : Endpoint.RIGHT;
+			long previous = 0;
+			for (int i = 0; i < 10_000; i++) {
+				payloadStore.put(endpoint, fakeId, this.payloadOf(Integer.toString(i)));
+				final long version = payloadStore.get(fakeId).getVersion(endpoint);
+				if (version < previous)
+					decreased.set(true);
+				previous = version;
+			}
+		});
+
+		// THEN the versions should only increase
+		Assert.assertFalse("A side version should never go backwards", decreased.get());
+		Assert.assertEquals("9999", this.stringOf(payloadStore.get(fakeId).get(Endpoint.LEFT)));
+		Assert.assertEquals("9999", this.stringOf(payloadStore.get(fakeId).get(Endpoint.RIGHT)));
+	}
+
+	@Test
+	public void givenAStoreWithAWeightBudget_whenItIsExceeded_thenItShouldEvictAndReportTheReclaimedBytes() {
+		// GIVEN a store with a weight budget
+		final MetricService metricService = new MetricServiceImpl();
+		final PayloadStore payloadStore = new StripedPayloadStore(1, 1_000, 0, metricService, new ContentAddressedBlobStore(new HeapPayloadAllocator(), metricService));
+		final JsonPayload fakeValue = new JsonPayload(new byte[30], null);
+
+		// WHEN it is exceeded
+		for (int i = 0; i < 100; i++)
+			payloadStore.put(Endpoint.LEFT, "fakeId" + i, fakeValue);
+
+		// THEN it should evict and report the reclaimed bytes
+		final Map<String, Long> metrics = metricService.getMetrics();
+		// The last id written is only weighed against the budget by the write that follows it
+		Assert.assertTrue(metrics.get(Metric.STORE_WEIGHT_BYTES) <= 1_000 + 30);
+		Assert.assertEquals(100 - metrics.get(Metric.STORE_SIZE), (long) metrics.get(Metric.STORE_EVICTION_COUNT));
+		Assert.assertEquals(30 * metrics.get(Metric.STORE_EVICTION_COUNT), (long) metrics.get(Metric.STORE_EVICTION_BYTES));
+	}
+
+	@Test
+	public void givenAnIdHeavierThanTheWholeBudget_whenItIsWritten_thenItShouldOnlyBeEvictedByTheNextWrite() {
+		// GIVEN an id heavier than the whole budget
+		final MetricService metricService = new MetricServiceImpl();
+		final PayloadStore payloadStore = new StripedPayloadStore(1, 1_000, 0, metricService, new ContentAddressedBlobStore(new HeapPayloadAllocator(), metricService));
+
+		// WHEN it is written
+		payloadStore.put(Endpoint.LEFT, "heavyId", new JsonPayload(new byte[5_000], null));
+
+		// THEN it should only be evicted by the next write
+		Assert.assertNotNull(payloadStore.get("heavyId"));
+		payloadStore.put(Endpoint.LEFT, "nextId", this.payloadOf("fakeValue"));
+		Assert.assertNull(payloadStore.get("heavyId"));
+		Assert.assertNotNull(payloadStore.get("nextId"));
+		Assert.assertEquals(5_000L, (long) metricService.getMetrics().get(Metric.STORE_EVICTION_BYTES));
+	}
+
+	@Test
+	public void givenAnIdChosenForEviction_whenItIsWrittenAgainBeforeTheEvictionIsCollected_thenTheNewPayloadShouldBeKept() throws Exception {
+		// GIVEN an id chosen for eviction by a drain whose evictions have not been collected yet
+		final MetricService metricService = new MetricServiceImpl();
+		final StripedPayloadStore payloadStore = new StripedPayloadStore(1, 100, 0, metricService, new ContentAddressedBlobStore(new HeapPayloadAllocator(), metricService));
+		@SuppressWarnings("unchecked")
+		final WTinyLfuPolicy<String> policy = (WTinyLfuPolicy<String>) ReflectionTestUtils.getField(
+				((Object[]) ReflectionTestUtils.getField(payloadStore, "stripes"))[0], "policy");
+		final ReentrantLock lock = (ReentrantLock) ReflectionTestUtils.getField(policy, "lock");
+		final ExecutorService writer = Executors.newSingleThreadExecutor();
+		lock.lock();
+		try {
+			// The writes are only buffered while the lock is held by another thread
+			writer.submit(() -> {
+				payloadStore.put(Endpoint.LEFT, "fakeId", this.payloadOf(StringUtils.repeat('a', 30)));
+				payloadStore.put(Endpoint.LEFT, "hotId", this.payloadOf(StringUtils.repeat('h', 90)));
+				for (int i = 0; i < 3; i++)
+					payloadStore.get("hotId");
+				payloadStore.put(Endpoint.LEFT, "nextId", this.payloadOf("n"));
+			}).get();
+			// Enough reads to drain the buffers while holding the lock, where hotId is admitted in place of fakeId
+			for (int i = 0; i < 64; i++)
+				policy.onRead("fakeReadKey");
+
+			// WHEN it is written again before the eviction is collected
+			writer.submit(() -> payloadStore.put(Endpoint.LEFT, "fakeId", this.payloadOf(StringUtils.repeat('b', 30)))).get();
+		} finally {
+			lock.unlock();
+			writer.shutdown();
+		}
+
+		// THEN the new payload should be kept, and the weight should only count what the store holds
+		Assert.assertEquals(StringUtils.repeat('b', 30), this.stringOf(payloadStore.get("fakeId").get(Endpoint.LEFT)));
+		payloadStore.put(Endpoint.LEFT, "lastId", this.payloadOf("l"));
+		final long weight = metricService.getMetrics().get(Metric.STORE_WEIGHT_BYTES);
+		long held = 0;
+		for (final String id : new String[] { "fakeId", "hotId", "nextId", "lastId" }) {
+			final PayloadSlot slot = payloadStore.get(id);
+			held += null == slot ? 0 : slot.get(Endpoint.LEFT).size();
+		}
+		Assert.assertEquals(held, weight);
+	}
+
+	@Test
+	public void givenAnIdThatIsReadOften_whenManyOneOffIdsAreWritten_thenTheFrequentIdShouldSurvive() {
+		// GIVEN an id that is read often
+		final PayloadStore payloadStore = new StripedPayloadStore(1, 3_000, 0, new MetricServiceImpl(), this.newBlobStore());
+		final JsonPayload fakeValue = new JsonPayload(new byte[30], null);
+		payloadStore.put(Endpoint.LEFT, "hotId", fakeValue);
+		for (int i = 0; i < 10; i++)
+			payloadStore.get("hotId");
+
+		// WHEN many one-off ids are written
+		for (int i = 0; i < 1_000; i++) {
+			payloadStore.put(Endpoint.LEFT, "oneOffId" + i, fakeValue);
+			payloadStore.get("hotId");
+		}
+
+		// THEN the frequent id should survive
+		Assert.assertNotNull(payloadStore.get("hotId"));
+	}
+
+	@Test
+	public void givenAStoreWithATimeToLive_whenAnIdIsNotWrittenForLongerThanIt_thenItShouldExpire() {
+		// GIVEN a store with a time to live
+		final MetricService metricService = new MetricServiceImpl();
+		final PayloadStore payloadStore = new StripedPayloadStore(4, Long.MAX_VALUE, 60, metricService, new ContentAddressedBlobStore(new HeapPayloadAllocator(), metricService));
+		final AtomicLong fakeClock = new AtomicLong(1_000);
+		ReflectionTestUtils.setField(payloadStore, "clock", (LongSupplier) fakeClock::get);
+		payloadStore.put(Endpoint.LEFT, "expiredId", this.payloadOf("fakeValue"));
+		payloadStore.put(Endpoint.LEFT, "readId", this.payloadOf("fakeValue"));
+
+		// WHEN an id is not written for longer than it
+		fakeClock.addAndGet(TimeUnit.SECONDS.toMillis(60));
+
+		// THEN it should expire
+		Assert.assertNull(payloadStore.get("readId"));
+		payloadStore.put(Endpoint.LEFT, "newId", this.payloadOf("fakeValue"));
+		Assert.assertNull(payloadStore.get("expiredId"));
+		Assert.assertNotNull(payloadStore.get("newId"));
+		Assert.assertEquals(2L, (long) metricService.getMetrics().get(Metric.STORE_EXPIRATION_COUNT));
+	}
+
+	@Test
+	public void givenManyThreadsWritingDistinctIds_whenTheyRunConcurrently_thenNoUpdateShouldBeLost() throws Exception {
+		// GIVEN many threads writing distinct ids
+		final PayloadStore payloadStore = this.newStore(16);
+		final int threads = Math.max(4, Runtime.getRuntime().availableProcessors());
+		final int idsPerThread = 5_000;
+
+		// WHEN they run concurrently
+		this.run(threads, thread -> {
+			for (int i = 0; i < idsPerThread; i++) {
+				final String id = thread + "-" + i;
+				payloadStore.put(Endpoint.LEFT, id, this.payloadOf(id));
+				payloadStore.put(Endpoint.RIGHT, id, this.payloadOf(id));
+			}
+		});
+
+		// THEN no update should be lost
+		for (int thread = 0; thread < threads; thread++)
+			for (int i = 0; i < idsPerThread; i++) {
+				final String id = thread + "-" + i;
+				Assert.assertEquals(id, this.stringOf(payloadStore.get(id).get(Endpoint.LEFT)));
+				Assert.assertEquals(id, this.stringOf(payloadStore.get(id).get(Endpoint.RIGHT)));
+			}
+	}
+
+	@Test
+	public void givenASideReplacedMeanwhile_whenAPayloadDerivedFromTheOldOneIsReplaced_thenItShouldNotBeStored() {
+		// GIVEN a side replaced meanwhile
+		final PayloadStore payloadStore = this.newStore(4);
+		final String fakeId = "fakeId";
+		final PayloadBlob original = payloadStore.put(Endpoint.LEFT, fakeId, this.payloadOf("fakeLeft")).get(Endpoint.LEFT);
+		payloadStore.put(Endpoint.LEFT, fakeId, this.payloadOf("fakeNewLeft"));
+
+		// WHEN a payload derived from the old one is replaced
+		final PayloadSlot rejected = payloadStore.replace(Endpoint.LEFT, fakeId, original, this.payloadOf("fakePatchedLeft"));
+		final PayloadSlot accepted = payloadStore.replace(Endpoint.LEFT, fakeId, payloadStore.get(fakeId).get(Endpoint.LEFT),
+				this.payloadOf("fakePatchedLeft"));
+
+		// THEN it should not be stored, while the one derived from the current side should
+		Assert.assertNull(rejected);
+		Assert.assertEquals("fakePatchedLeft", this.stringOf(accepted.get(Endpoint.LEFT)));
+		Assert.assertEquals("fakePatchedLeft", this.stringOf(payloadStore.get(fakeId).get(Endpoint.LEFT)));
+		Assert.assertNull(payloadStore.replace(Endpoint.LEFT, "unknownId", original, this.payloadOf("fakePatchedLeft")));
+		Assert.assertNull(payloadStore.get("unknownId"));
+	}
+
+	@Test
+	public void givenAMixedWorkloadOverSharedIds_whenItRunsConcurrently_thenEveryReadShouldSeeAValueWrittenForItsId() throws Exception {
+		// GIVEN a mixed workload over shared ids
+		final PayloadStore payloadStore = this.newStore(16);
+		final int threads = Math.max(4, Runtime.getRuntime().availableProcessors());
+		final int ids = 256;
+
+		// WHEN it runs concurrently, writing one side, reading the slot and writing the other side
+		this.run(threads, thread -> {
+			for (int i = 0; i < 20_000; i++) {
+				final String id = Integer.toString(i % ids);
+				payloadStore.put(Endpoint.LEFT, id, this.payloadOf(id + ":" + thread));
+				final PayloadSlot slot = payloadStore.get(id);
+				Assert.assertTrue(this.stringOf(slot.get(Endpoint.LEFT)).startsWith(id + ":"));
+				payloadStore.put(Endpoint.RIGHT, id, this.payloadOf(id + ":" + thread));
+			}
+		});
+
+		// THEN every read should have seen a value written for its id, and every id should keep both sides
+		for (int i = 0; i < ids; i++) {
+			final String id = Integer.toString(i);
+			Assert.assertTrue(this.stringOf(payloadStore.get(id).get(Endpoint.LEFT)).startsWith(id + ":"));
+			Assert.assertTrue(this.stringOf(payloadStore.get(id).get(Endpoint.RIGHT)).startsWith(id + ":"));
+		}
+	}
+
+	@Test
+	public void givenAStripeOverItsSliceOfTheBudget_whenItEvicts_thenTheIdsOfTheOtherStripesShouldBeKept() {
+		// GIVEN a stripe over its slice of the budget, while an id lives on the other stripe
+		final MetricService metricService = new MetricServiceImpl();
+		final StripedPayloadStore payloadStore = new StripedPayloadStore(2, 2_000, 0, metricService, new ContentAddressedBlobStore(new HeapPayloadAllocator(), metricService));
+		final Object[] stripes = (Object[]) ReflectionTestUtils.getField(payloadStore, "stripes");
+		final List<String> ids = new ArrayList<>();
+		String quietId = null;
+		for (int i = 0; ids.size() < 100 || null == quietId; i++) {
+			final String id = "fakeId" + i;
+			if (stripes[0] == ReflectionTestUtils.invokeMethod(payloadStore, "stripeOf", id))
+				ids.add(id);
+			else if (null == quietId)
+				quietId = id;
+		}
+		payloadStore.put(Endpoint.LEFT, quietId, new JsonPayload(new byte[30], null));
+
+		// WHEN it evicts
+		for (final String id : ids)
+			payloadStore.put(Endpoint.LEFT, id, new JsonPayload(new byte[30], null));
+
+		// THEN the ids of the other stripe should be kept, and the stripe should stay within its slice
+		final Map<String, Long> metrics = metricService.getMetrics();
+		Assert.assertNotNull(payloadStore.get(quietId));
+		Assert.assertTrue(metrics.get(Metric.STORE_EVICTION_COUNT) > 0);
+		Assert.assertTrue(metrics.get(Metric.STORE_WEIGHT_BYTES) <= 30 + 1_000 + 30);
+	}
+
+	@Test
+	public void givenTheMixedWorkload_whenItRunsOnManyThreads_thenTheThroughputShouldNotCollapse() throws Exception {
+		// GIVEN the mixed workload, warmed up once before being measured
+		final int threads = Math.max(4, Runtime.getRuntime().availableProcessors());
+		final int operations = 50_000;
+		this.measureThroughput(1, operations);
+		this.measureThroughput(threads, operations);
+
+		// WHEN it runs on many threads
+		final long single = this.measureThroughput(1, operations);
+		final long many = this.measureThroughput(threads, operations);
+		LOGGER.info("threads 1: {} operations/ms, threads {}: {} operations/ms", single, threads, many);
+
+		// THEN the throughput should not collapse, which it would if every id met on the same lock,
+		// where the bound is kept loose since the threads can share a single core
+		Assert.assertTrue(many * 4 >= single);
+	}
+
+	/*
+	 * Runs the mixed workload over a store with the default amount of stripes, returning the
+	 * operations per millisecond of the best of three rounds
+	 */
+	private long measureThroughput(final int threads, final int operations) throws Exception {
+		final PayloadStore payloadStore = this.newStore(16);
+		final int perThread = operations / threads;
+		long best = Long.MAX_VALUE;
+		for (int round = 0; round < 3; round++) {
+			final long start = System.nanoTime();
+			this.run(threads, thread -> {
+				for (int i = 0; i < perThread; i++) {
+					final String id = Integer.toString((thread * 31 + i) % 4_096);
+					payloadStore.put(Endpoint.LEFT, id, this.payloadOf(id));
+					Assert.assertNotNull(payloadStore.get(id));
+				}
+			});
+			best = Math.min(best, System.nanoTime() - start);
+		}
+		return 2L * perThread * threads * TimeUnit.MILLISECONDS.toNanos(1) / Math.max(1, best);
+	}
+
+	private StripedPayloadStore newStore(final int stripes) {
+		return new StripedPayloadStore(stripes, Long.MAX_VALUE, 0, new MetricServiceImpl(), this.newBlobStore());
+	}
+
+	private ContentAddressedBlobStore newBlobStore() {
+		return new ContentAddressedBlobStore(new HeapPayloadAllocator(), new MetricServiceImpl());
+	}
+
+	private JsonPayload payloadOf(final String value) {
+		return new JsonPayload(value.getBytes(StandardCharsets.UTF_8), null);
+	}
+
+	private String stringOf(final PayloadBlob blob) {
+		return new String(blob.getPayload().getBytes(), StandardCharsets.UTF_8);
+	}
+
+	private void run(final int threads, final Workload workload) throws Exception {
+		final ExecutorService executorService = Executors.newFixedThreadPool(threads);
+		try {
+			final List<Callable<Void>> tasks = new ArrayList<>();
+			for (int thread = 0; thread < threads; thread++) {
+				final int current = thread;
+				tasks.add(() -> {
+					workload.execute(current);
+					return null;
+				});
+			}
+			for (final Future<Void> future : executorService.invokeAll(tasks))
+				future.get();
+		} finally {
+			executorService.shutdown();
+		}
+	}
+
+	private interface Workload {
+		void execute(int thread);
+	}
+}
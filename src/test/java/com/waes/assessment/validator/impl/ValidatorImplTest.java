@@ -4,7 +4,6 @@ import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.nio.charset.Charset;
-import java.util.Base64;
 import java.util.HashMap;
 import java.util.Map;
 
@@ -18,25 +17,37 @@ import org.springframework.test.util.ReflectionTestUtils;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.waes.assessment.common.Constant;
+import com.waes.assessment.common.DiffMode;
+import com.waes.assessment.common.DiffOutcome;
 import com.waes.assessment.common.Endpoint;
+import com.waes.assessment.common.IdentityKeys;
+import com.waes.assessment.common.JsonPayload;
+import com.waes.assessment.common.JsonUtil;
+import com.waes.assessment.common.PayloadFormat;
 import com.waes.assessment.exception.MissingInMemoryPayloadException;
 import com.waes.assessment.exception.PayloadContentMismatchException;
-import com.waes.assessment.exception.PayloadSizeMismatchException;
 import com.waes.assessment.exception.RequiredPayloadException;
-import com.waes.assessment.service.MessageService;
-import com.waes.assessment.service.impl.MessageServiceImpl;
+import com.waes.assessment.metric.MetricService;
+import com.waes.assessment.metric.impl.MetricServiceImpl;
+import com.waes.assessment.store.Payload;
+import com.waes.assessment.store.PayloadBlob;
+import com.waes.assessment.store.PayloadSlot;
+import com.waes.assessment.store.impl.HeapPayloadAllocator;
 import com.waes.assessment.validator.Validator;
 
 public class ValidatorImplTest {
 	
+	private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+	
 	final Validator validator = new ValidatorImpl();
-
+	
+	final MetricService metricService = new MetricServiceImpl();
+	
 	@Before
 	public void setup() {
-		final ObjectMapper objectMapper = new ObjectMapper();
-		final MessageService messageService = new MessageServiceImpl();
-		ReflectionTestUtils.setField(messageService, "objectMapper", objectMapper, ObjectMapper.class);
-		ReflectionTestUtils.setField(this.validator, "messageService", messageService, MessageService.class);
+		ReflectionTestUtils.setField(this.validator, "equalityTiers", new EqualityTiers(this.metricService));
+		ReflectionTestUtils.setField(this.validator, "alignmentMaxCost", JsonUtil.DEFAULT_ALIGNMENT_MAX_COST);
+		ReflectionTestUtils.setField(this.validator, "identityKeys", IdentityKeys.NONE);
 	}
 	
 	@Test(expected = RequiredPayloadException.class)
@@ -62,35 +73,38 @@ public class ValidatorImplTest {
 	}	
 
 	@Test
-	public void givenFakeId3ValueWithTwoNullInputStream_whenValidateIsCalled_thenItShouldThrowAMissingInMemoryPayloadException() throws IOException {
+	public void givenFakeId3ValueWithTwoNullInputStream_whenCompareIsCalled_thenItShouldReturnAMissingSideOutcome() throws IOException {
 		// GIVEN fakeId3 value with two null inputStream
 		final String fakeId = "fakeId3";
-		try {
-			// WHEN validate is called
-			this.validator.validate(fakeId, null, null);
-		} catch (final MissingInMemoryPayloadException e) {
-			// THEN it should throw a MissingInMemoryPayloadException
-			Assert.assertEquals(fakeId, e.getId());
-			Assert.assertEquals(Endpoint.LEFT.getValue(), e.getMemoryName());
-		}
+
+		// WHEN compare is called
+		final DiffOutcome outcome = this.validator.compare(fakeId, null);
+
+		// THEN it should return a missing side outcome
+		Assert.assertEquals(DiffOutcome.Type.MISSING_SIDE, outcome.getType());
+		Assert.assertEquals(Endpoint.LEFT, outcome.getMissingSide());
+		final MissingInMemoryPayloadException e = (MissingInMemoryPayloadException) outcome.toException();
+		Assert.assertEquals(fakeId, e.getId());
+		Assert.assertEquals(Endpoint.LEFT.getValue(), e.getMemoryName());
 	}
 	
 	@Test
-	public void givenFakeId4ValueWithAMockedAndANullInputStream_whenValidateIsCalled_thenItShouldThrowAMissingInMemoryPayloadException() throws IOException {
+	public void givenFakeId4ValueWithAMockedAndANullInputStream_whenCompareIsCalled_thenItShouldReturnAMissingSideOutcome() throws IOException {
 		// GIVEN fakeId4 value with a mocked and a null inputStream
 		final String fakeId = "fakeId4";
-		try {
-			// WHEN validate is called
-			this.validator.validate(fakeId, "fakeValue", null);
-		} catch (final MissingInMemoryPayloadException e) {
-			// THEN it should throw a MissingInMemoryPayloadException
-			Assert.assertEquals(fakeId, e.getId());
-			Assert.assertEquals(Endpoint.RIGHT.getValue(), e.getMemoryName());
-		}
+
+		// WHEN compare is called
+		final DiffOutcome outcome = this.validator.compare(fakeId, this.slotOf("\"fakeValue\"", null));
+
+		// THEN it should return a missing side outcome
+		Assert.assertEquals(DiffOutcome.Type.MISSING_SIDE, outcome.getType());
+		final MissingInMemoryPayloadException e = (MissingInMemoryPayloadException) outcome.toException();
+		Assert.assertEquals(fakeId, e.getId());
+		Assert.assertEquals(Endpoint.RIGHT.getValue(), e.getMemoryName());
 	}
 	
 	@Test
-	public void givenFakeId5ValueWithTwoMockedInputStreamsWithDifferentSizes_whenValidateIsCalled_thenItShouldThrowAPayloadSizeMismatchException() throws IOException {
+	public void givenFakeId5ValueWithTwoMockedInputStreamsWithDifferentSizes_whenCompareIsCalled_thenItShouldReturnASizeMismatchOutcome() throws IOException {
 		// GIVEN fakeId5 value with two mocked inputStreams with different sizes
 		final String fakeId = "fakeId6";
 		final int fakeLeftSize = 0;
@@ -98,22 +112,21 @@ public class ValidatorImplTest {
 		final String mockLeftNode = StringUtils.EMPTY;
 		final String mockRightNode = "12345";
 		
-		try {
-			// WHEN validate is called
-			this.validator.validate(fakeId, mockLeftNode, mockRightNode);
-		} catch (final PayloadSizeMismatchException e) {
-			// THEN it should throw a PayloadSizeMismatchException
-			Assert.assertEquals(fakeLeftSize, e.getLeftSize());
-			Assert.assertEquals(fakeRightSize, e.getRightSize());
-		}
+		// WHEN compare is called
+		final DiffOutcome outcome = this.validator.compare(fakeId, this.slotOf(mockLeftNode, mockRightNode));
+
+		// THEN it should return a size mismatch outcome
+		Assert.assertEquals(DiffOutcome.Type.SIZE_MISMATCH, outcome.getType());
+		Assert.assertEquals(fakeLeftSize, outcome.getLeftSize());
+		Assert.assertEquals(fakeRightSize, outcome.getRightSize());
 	}
 	
 	@Test
-	public void givenFakeValuesDiffPayloadsSameSize_whenCalledValidateTwiceUsesCache_thenCallingAgainWithSamePayloadsShouldNotThrowException() throws JsonProcessingException, IOException {
+	public void givenFakeValuesDiffPayloadsSameSize_whenCompareIsCalledTwice_thenBothShouldReturnTheSameDifferenceUntilThePayloadsAreEqual() throws JsonProcessingException, IOException {
 		// GIVEN fake values with different payloads with the same size
 		final String fakeId = "fakeId";
-		String fakeLeftValue = Base64.getEncoder().encodeToString("{\"a\":\"b\"}".getBytes(Charset.forName("UTF-8")));
-		String fakeRightValue = Base64.getEncoder().encodeToString("{\"c\":\"d\"}".getBytes(Charset.forName("UTF-8")));
+		final String fakeLeftValue = "{\"a\":\"b\"}";
+		final String fakeRightValue = "{\"c\":\"d\"}";
 		
 		final Map<String, Map<String, Object>> expectedResult = new HashMap<>();
 		final Map<String, Object> expectedSubResult1 = new HashMap<>();
@@ -127,37 +140,231 @@ public class ValidatorImplTest {
 		expectedResult.put("a", expectedSubResult1);
 		expectedResult.put("c", expectedSubResult2);
 		
-		// WHEN it is called first time it should throw an exception
-		try {
-			this.validator.validate(fakeId, fakeLeftValue, fakeRightValue);
-		} catch (final PayloadContentMismatchException e) {
-			Assert.assertEquals(expectedResult, e.getDifference());
-		}
+		// WHEN it is called first time it should return the difference
+		final DiffOutcome first = this.validator.compare(fakeId, this.slotOf(fakeLeftValue, fakeRightValue));
+		Assert.assertEquals(DiffOutcome.Type.CONTENT_MISMATCH, first.getType());
+		Assert.assertEquals(expectedResult, first.getDifference());
 		
-		// WHEN it is called second time it should throw another exception catch from the cache
-		try {
-			this.validator.validate(fakeId, fakeLeftValue, fakeRightValue);
-		} catch (final PayloadContentMismatchException e) {
-			Assert.assertEquals(expectedResult, e.getDifference());
-		}
+		// WHEN it is called second time it should return the same difference
+		final DiffOutcome second = this.validator.compare(fakeId, this.slotOf(fakeLeftValue, fakeRightValue));
+		Assert.assertEquals(expectedResult, ((PayloadContentMismatchException) second.toException()).getDifference());
 		
 		// WHEN another payload is set into the same id
-		this.validator.validate(Endpoint.LEFT, fakeId, fakeRightValue);
+		this.validator.validate(Endpoint.LEFT, fakeId, this.payloadOf(fakeRightValue));
 
-		// THEN calling the validate with another payload equals than the prior one it should not throw an exception
-		this.validator.validate(fakeId, fakeRightValue, fakeRightValue);
+		// THEN comparing it with another payload equals than the prior one it should return equal
+		Assert.assertSame(DiffOutcome.EQUAL, this.validator.compare(fakeId, this.slotOf(fakeRightValue, fakeRightValue)));
 	}
 	
 	@Test
-	public void givenAFakeId_whenValidateIsCalledTwice_thenFirstTimeShouldProcessAndTheOtherShouldCatchFromTheCache() throws JsonProcessingException, IOException {
+	public void givenAFakeId_whenCompareIsCalledTwice_thenBothShouldReturnEqual() throws JsonProcessingException, IOException {
 		// GIVEN a fakeId
 		final String fakeId = "fakeId";
 
-		// WHEN validate is called twice
-		// THEN first time should process and the other should catch from the cache
-		final String fakeValue = Base64.getEncoder().encodeToString("{\"a\":\"b\"}".getBytes(Charset.forName("UTF-8")));
+		// WHEN compare is called twice
+		// THEN both should return equal
+		final String fakeValue = "{\"a\":\"b\"}";
+		
+		Assert.assertTrue(this.validator.compare(fakeId, this.slotOf(fakeValue, fakeValue)).isEqual());
+		Assert.assertTrue(this.validator.compare(fakeId, this.slotOf(fakeValue, fakeValue)).isEqual());
+	}
+
+	@Test
+	public void givenPayloadsWithoutTheirTrees_whenCompareIsCalled_thenTheyShouldBeComparedByStreaming() throws IOException {
+		// GIVEN payloads without their trees
+		final String fakeId = "fakeId";
+		ReflectionTestUtils.setField(this.validator, "objectMapper", OBJECT_MAPPER);
+		final JsonPayload fakeLeft = new JsonPayload("{\"a\":\"b\",\"c\":{\"d\":1}}".getBytes(Charset.forName("UTF-8")), null);
+		final JsonPayload fakeRight = new JsonPayload("{\"a\":\"b\",\"c\":{\"d\":2}}".getBytes(Charset.forName("UTF-8")), null);
+		final PayloadSlot fakeSlot = PayloadSlot.EMPTY.with(Endpoint.LEFT, this.blobOf(fakeLeft), 1)
+													  .with(Endpoint.RIGHT, this.blobOf(fakeRight), 2);
+		
+		// WHEN compare is called
+		final DiffOutcome outcome = this.validator.compare(fakeId, fakeSlot);
+		
+		// THEN they should be compared by streaming
+		Assert.assertEquals(DiffOutcome.Type.CONTENT_MISMATCH, outcome.getType());
+		Assert.assertEquals(1, outcome.getDifference().size());
+		Assert.assertEquals("1", outcome.getDifference().get("c.d").get("left"));
+		Assert.assertEquals("2", outcome.getDifference().get("c.d").get("right"));
+	}
+
+	@Test
+	public void givenAPayloadReleasedWhileStreaming_whenCompareIsCalled_thenItShouldReturnAnOutcomeThatIsNotComplete() throws IOException {
+		// GIVEN a payload released while streaming
+		final String fakeId = "fakeId";
+		ReflectionTestUtils.setField(this.validator, "objectMapper", OBJECT_MAPPER);
+		final JsonPayload fakeLeft = new JsonPayload("{\"a\":1}".getBytes(Charset.forName("UTF-8")), null);
+		final JsonPayload fakeRight = new JsonPayload("{\"a\":2}".getBytes(Charset.forName("UTF-8")), null);
+		final Payload fakeReleased = Mockito.mock(Payload.class);
+		final PayloadSlot fakeSlot = PayloadSlot.EMPTY.with(Endpoint.LEFT, this.blobOf(fakeLeft), 1)
+													  .with(Endpoint.RIGHT, new PayloadBlob(fakeRight, fakeReleased), 2);
+		
+		// WHEN compare is called
+		final DiffOutcome outcome = this.validator.compare(fakeId, fakeSlot);
+		
+		// THEN it should return an outcome that is not complete
+		Assert.assertEquals(DiffOutcome.Type.MISSING_SIDE, outcome.getType());
+		Assert.assertEquals(Endpoint.RIGHT, outcome.getMissingSide());
+		Assert.assertFalse(outcome.isComplete());
+	}
+
+	@Test
+	public void givenABinaryPayloadReleasedWhileBeingCompared_whenCompareIsCalled_thenItShouldReturnAnOutcomeThatIsNotComplete() throws IOException {
+		// GIVEN a binary payload released while being compared
+		final String fakeId = "fakeId";
+		final JsonPayload fakeLeft = new JsonPayload(new byte[8], null, PayloadFormat.BINARY);
+		final JsonPayload fakeRight = new JsonPayload(new byte[] { 1, 0, 0, 0, 0, 0, 0, 0 }, null, PayloadFormat.BINARY);
+		final Payload fakeReleased = Mockito.mock(Payload.class);
+		Mockito.when(fakeReleased.size()).thenReturn(8);
+		final PayloadSlot fakeSlot = PayloadSlot.EMPTY.with(Endpoint.LEFT, new PayloadBlob(fakeLeft, fakeReleased), 1)
+													  .with(Endpoint.RIGHT, this.blobOf(fakeRight), 2);
+		
+		// WHEN compare is called
+		final DiffOutcome outcome = this.validator.compare(fakeId, fakeSlot);
+		
+		// THEN it should return an outcome that is not complete
+		Assert.assertEquals(DiffOutcome.Type.MISSING_SIDE, outcome.getType());
+		Assert.assertEquals(Endpoint.LEFT, outcome.getMissingSide());
+		Assert.assertFalse(outcome.isComplete());
+	}
+
+	@Test
+	public void givenBinaryPayloads_whenCompareIsCalled_thenTheRangesOfDifferentBytesShouldBeReturned() throws IOException {
+		// GIVEN binary payloads
+		final String fakeId = "fakeId";
+		final byte[] fakeLeftBytes = new byte[40];
+		final byte[] fakeRightBytes = new byte[40];
+		fakeRightBytes[3] = 1;
+		fakeRightBytes[17] = 1;
+		fakeRightBytes[18] = 1;
+		fakeRightBytes[19] = 1;
+		fakeRightBytes[39] = 1;
+		final JsonPayload fakeLeft = new JsonPayload(fakeLeftBytes, null, PayloadFormat.BINARY);
+		final JsonPayload fakeRight = new JsonPayload(fakeRightBytes, null, PayloadFormat.BINARY);
+		
+		// WHEN compare is called
+		final DiffOutcome outcome = this.validator.compare(fakeId, PayloadSlot.EMPTY.with(Endpoint.LEFT, this.blobOf(fakeLeft), 1)
+																					 .with(Endpoint.RIGHT, this.blobOf(fakeRight), 2));
+		final DiffOutcome equalOutcome = this.validator.compare(fakeId, PayloadSlot.EMPTY.with(Endpoint.LEFT, this.blobOf(fakeLeft), 1)
+																						  .with(Endpoint.RIGHT, this.blobOf(fakeLeft), 2));
 		
-		this.validator.validate(fakeId, fakeValue, fakeValue);
-		this.validator.validate(fakeId, fakeValue, fakeValue);
+		// THEN the ranges of different bytes should be returned
+		Assert.assertEquals(DiffOutcome.Type.CONTENT_MISMATCH, outcome.getType());
+		Assert.assertEquals(3, outcome.getDifference().size());
+		Assert.assertEquals(1, outcome.getDifference().get("3").get("length"));
+		Assert.assertEquals(17, outcome.getDifference().get("17").get("offset"));
+		Assert.assertEquals(3, outcome.getDifference().get("17").get("length"));
+		Assert.assertEquals(1, outcome.getDifference().get("39").get("length"));
+		Assert.assertTrue(equalOutcome.isEqual());
+	}
+
+	@Test
+	public void givenDocumentsFormattedInDifferentWays_whenCompareIsCalled_thenTheyShouldBeEqual() throws IOException {
+		// GIVEN documents formatted in different ways
+		final String fakeId = "fakeId";
+		final String fakeLeftValue = "{ \"a\": 1, \"b\": { \"c\": [true, null] } }";
+		final String fakeRightValue = "{\"b\":{\"c\":[true,null]},\"a\":1}";
+		
+		// WHEN compare is called
+		final DiffOutcome outcome = this.validator.compare(fakeId, this.slotOf(fakeLeftValue, fakeRightValue));
+		
+		// THEN they should be equal
+		Assert.assertSame(DiffOutcome.EQUAL, outcome);
+		Assert.assertEquals(Long.valueOf(1), this.metricService.getMetrics().get("diff.tier.hash.count"));
+	}
+
+	@Test
+	public void givenPairsSettledByEachTier_whenCompareIsCalled_thenTheHitRateOfEachTierShouldBeRecorded() throws IOException {
+		// GIVEN pairs settled by each tier
+		final String fakeId = "fakeId";
+		
+		// WHEN compare is called
+		Assert.assertTrue(this.validator.compare(fakeId, this.slotOf("{\"a\":1,\"b\":2}", "{\"a\":1,\"b\":2}")).isEqual());
+		Assert.assertTrue(this.validator.compare(fakeId, this.slotOf("{\"a\":1,\"b\":2}", "{\"a\":1,\"b\":2}")).isEqual());
+		Assert.assertTrue(this.validator.compare(fakeId, this.slotOf("{\"a\":1,\"b\":2}", "{\"b\":2,\"a\":1}")).isEqual());
+		Assert.assertFalse(this.validator.compare(fakeId, this.slotOf("{\"a\":1,\"b\":2}", "{\"a\":2,\"b\":1}")).isEqual());
+		Assert.assertFalse(this.validator.compare(fakeId, this.slotOf("{\"a\":1}", "{\"a\":10}")).isEqual());
+		
+		// THEN the hit rate of each tier should be recorded
+		final Map<String, Long> metrics = this.metricService.getMetrics();
+		Assert.assertEquals(Long.valueOf(2), metrics.get("diff.tier.bytes.count"));
+		Assert.assertEquals(Long.valueOf(40), metrics.get("diff.tier.bytes.hit-rate.percent"));
+		Assert.assertEquals(Long.valueOf(1), metrics.get("diff.tier.size.count"));
+		Assert.assertEquals(Long.valueOf(1), metrics.get("diff.tier.hash.count"));
+		Assert.assertEquals(Long.valueOf(1), metrics.get("diff.tier.diff.count"));
+		Assert.assertEquals(Long.valueOf(20), metrics.get("diff.tier.diff.hit-rate.percent"));
+	}
+
+	@Test
+	public void givenPayloadsWithThreeDifferences_whenCompareIsCalledOnEachMode_thenOnlyWhatTheModeAsksForShouldBeReturned() throws IOException {
+		// GIVEN payloads with three differences
+		final String fakeId = "fakeId";
+		final PayloadSlot fakeSlot = this.slotOf("{\"a\":1,\"b\":2,\"c\":3,\"d\":4}", "{\"a\":5,\"b\":6,\"c\":7,\"d\":4}");
+		
+		// WHEN compare is called on each mode
+		final DiffOutcome full = this.validator.compare(fakeId, fakeSlot, DiffMode.FULL, 2);
+		final DiffOutcome bool = this.validator.compare(fakeId, fakeSlot, DiffMode.BOOLEAN, 2);
+		final DiffOutcome count = this.validator.compare(fakeId, fakeSlot, DiffMode.COUNT, 2);
+		final DiffOutcome first = this.validator.compare(fakeId, fakeSlot, DiffMode.FIRST, 2);
+		final DiffOutcome firstAll = this.validator.compare(fakeId, fakeSlot, DiffMode.FIRST, 3);
+		
+		// THEN only what the mode asks for should be returned
+		Assert.assertTrue(full.isComplete());
+		Assert.assertEquals(3, full.getDifference().size());
+		Assert.assertSame(DiffOutcome.DIFFERENT, bool);
+		Assert.assertNull(count.getDifference());
+		Assert.assertEquals(3, count.getDifferenceCount());
+		Assert.assertFalse(count.isComplete());
+		Assert.assertFalse(first.isComplete());
+		Assert.assertEquals(2, first.getDifference().size());
+		Assert.assertEquals(full.getDifference().get("a"), first.getDifference().get("a"));
+		Assert.assertEquals(full.getDifference().get("b"), first.getDifference().get("b"));
+		Assert.assertTrue(firstAll.isComplete());
+		Assert.assertEquals(full.getDifference(), firstAll.getDifference());
+		Assert.assertEquals(first.getDifference(), full.inMode(DiffMode.FIRST, 2).getDifference());
+		Assert.assertEquals(full.getDifference().get("a"), full.inMode(DiffMode.FIRST, 1).getDifference().get("a"));
+		Assert.assertEquals(3, full.inMode(DiffMode.COUNT, 1).getDifferenceCount());
+	}
+
+	@Test
+	public void givenACachedDiffAndANewRightPayload_whenCompareIsCalled_thenOnlyTheChangedFieldsShouldBeDiffedAgain() throws IOException {
+		// GIVEN a cached diff and a new right payload
+		final String fakeId = "fakeId";
+		final String fakeLeftValue = "{\"a\":1,\"b\":{\"c\":2,\"d\":[1,2]},\"e\":3}";
+		final PayloadSlot fakeSlot = this.slotOf(fakeLeftValue, "{\"a\":1,\"b\":{\"c\":5,\"d\":[1,2]},\"e\":4}");
+		final DiffOutcome previous = this.validator.compare(fakeId, fakeSlot);
+		final PayloadSlot fakeNewSlot = this.with(fakeSlot.withOutcome(previous, 1, 2), Endpoint.RIGHT,
+				"{\"a\":1,\"b\":{\"c\":2,\"d\":[1,3]},\"e\":4}", 3);
+		
+		// WHEN compare is called
+		final DiffOutcome outcome = this.validator.compare(fakeId, fakeNewSlot);
+		
+		// THEN only the changed fields should be diffed again
+		Assert.assertEquals(this.validator.compare(fakeId, this.slotOf(fakeLeftValue, "{\"a\":1,\"b\":{\"c\":2,\"d\":[1,3]},\"e\":4}")).getDifference(),
+				outcome.getDifference());
+		Assert.assertEquals(2, outcome.getDifference().size());
+		Assert.assertEquals(Long.valueOf(1), this.metricService.getMetrics().get("diff.tier.incremental.count"));
+	}
+
+	private PayloadSlot slotOf(final String left, final String right) throws IOException {
+		PayloadSlot slot = PayloadSlot.EMPTY;
+		if (null != left)
+			slot = this.with(slot, Endpoint.LEFT, left, 1);
+		if (null != right)
+			slot = this.with(slot, Endpoint.RIGHT, right, 2);
+		return slot;
+	}
+
+	private PayloadSlot with(final PayloadSlot slot, final Endpoint endpoint, final String value, final long version) throws IOException {
+		return slot.with(endpoint, this.blobOf(this.payloadOf(value)), version);
+	}
+
+	private PayloadBlob blobOf(final JsonPayload payload) {
+		return new PayloadBlob(payload, new HeapPayloadAllocator().allocate(payload.getBytes()));
+	}
+
+	private JsonPayload payloadOf(final String value) throws IOException {
+		return new JsonPayload(value.getBytes(Charset.forName("UTF-8")), OBJECT_MAPPER.readTree(value));
 	}
 }